@@ -5,6 +5,7 @@ import io.anuke.arc.collection.ObjectMap.*;
 import io.anuke.arc.files.*;
 import io.anuke.arc.function.*;
 import io.anuke.arc.util.*;
+import io.anuke.arc.util.compression.*;
 import io.anuke.arc.util.io.*;
 import io.anuke.arc.util.io.Streams.*;
 
@@ -12,20 +13,56 @@ import java.io.*;
 
 import static io.anuke.arc.Core.keybinds;
 
+/**
+ * Stores preference values in the data directory.
+ * <p>
+ * Saving is crash-safe: the full settings file is written to a temporary file and renamed over the old one, so it is never left
+ * half-written. In journaled mode, which is the default, a save only appends the values that changed since the last save to a
+ * journal, and the settings file is rewritten once the journal grows larger than it. Every journal record has a checksum, so a
+ * record torn by a crash is discarded when loading. Files are written on a background thread unless
+ * {@link #setAsyncWrites(boolean)} is disabled; {@link #awaitWrites()} waits for them.
+ * <p>
+ * The backup file is only refreshed when the settings file is rewritten, which is rare in journaled mode. If the settings file
+ * is corrupted and the backup is loaded instead, every change since the last rewrite is lost, which can be much more than the
+ * last save.
+ */
 public class Settings{
-    protected final static byte TYPE_BOOL = 0, TYPE_INT = 1, TYPE_LONG = 2, TYPE_FLOAT = 3, TYPE_STRING = 4, TYPE_BINARY = 5;
+    protected final static byte TYPE_BOOL = 0, TYPE_INT = 1, TYPE_LONG = 2, TYPE_FLOAT = 3, TYPE_STRING = 4, TYPE_BINARY = 5, TYPE_REMOVED = -1;
     /**In miliseconds; min spacing between backups.*/
     protected final static long backupCopyTime = 1000;
+    /**Start of settings files with a generation and checksum. Older files start with the value count, which is never negative.*/
+    protected final static int settingsMagic = 0xA5E77100, journalMagic = 0xA5E77101;
+    /**Journals smaller than this are never compacted.*/
+    protected final static int minCompactSize = 16 * 1024;
+    /**Instances with a running writer thread, which are waited for by the shutdown hook.*/
+    private final static ObjectSet<Settings> activeWriters = new ObjectSet<>();
+    private static boolean shutdownHookAdded;
 
     //general state data
     protected FileHandle dataDirectory;
     protected String appName;
     protected ObjectMap<String, Object> defaults = new ObjectMap<>();
-    protected ObjectMap<String, Object> values = new ObjectMap<>();
+    protected ObjectMap<String, Value> values = new ObjectMap<>();
     protected Consumer<Throwable> errorHandler;
     protected long lastSaveTime;
     protected boolean hasErrored;
 
+    //persistence state
+    protected boolean journaled = true, asyncWrites = true;
+    /**Keys that were changed or removed since the last save.*/
+    protected ObjectSet<String> changed = new ObjectSet<>();
+    /**Incremented every time the settings file is rewritten; a journal only applies to the settings file of its generation.*/
+    protected long generation;
+    protected int settingsLength, journalLength;
+    /**Whether the next save must rewrite the settings file.*/
+    protected boolean compact;
+
+    //background writes
+    protected final Queue<ExceptionRunnable> writes = new Queue<>();
+    protected Thread writer;
+    protected boolean writing;
+    protected volatile Throwable writeError;
+
     //IO utility objects
     protected ByteArrayOutputStream byteStream = new OptimizedByteArrayOutputStream(16);
     protected ReusableByteInStream byteInputStream = new ReusableByteInStream();
@@ -100,8 +137,39 @@ public class Settings{
         }
     }
 
+    /**
+     * Sets whether saves append changed values to a journal instead of rewriting the whole settings file. Default is true.
+     */
+    public void setJournaled(boolean journaled){
+        this.journaled = journaled;
+    }
+
+    /**
+     * Sets whether files are written on a background thread, so that saving never blocks on the disk. Errors are then logged
+     * when they happen, and thrown by the next save. Default is true.
+     */
+    public void setAsyncWrites(boolean async){
+        this.asyncWrites = async;
+    }
+
+    /** Blocks until all background writes are finished. */
+    public void awaitWrites(){
+        synchronized(writes){
+            while(writing || !writes.isEmpty()){
+                try{
+                    writes.wait();
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
     /** Loads a settings file into {@link #values} using the specified appName. */
     public void loadValues(){
+        awaitWrites();
+
         //don't load settings files if neither of them exist
         if(!getSettingsFile().exists() && !getBackupSettingsFile().exists()){
             return;
@@ -116,91 +184,344 @@ public class Settings{
                 loadValues(getBackupSettingsFile());
                 //copy to normal settings file for future use
                 getBackupSettingsFile().copyTo(getSettingsFile());
+                //the journal belongs to the broken file, so start over from the backup
+                compact = true;
                 Log.info("Loaded backup settings file.");
             }catch(Exception e2){
                 Log.err("Failed to load backup settings file.", e2);
             }
         }
+
+        loadJournal();
+        changed.clear();
     }
 
+    /** Loads a settings file into {@link #values}. Accepts files with or without a checksum. */
     public void loadValues(FileHandle file) throws IOException{
-        try(DataInputStream stream = new DataInputStream(file.read(8192))){
-            int amount = stream.readInt();
-            for(int i = 0; i < amount; i++){
-                String key = stream.readUTF();
-                byte type = stream.readByte();
-
-                switch(type){
-                    case TYPE_BOOL:
-                        values.put(key, stream.readBoolean());
-                        break;
-                    case TYPE_INT:
-                        values.put(key, stream.readInt());
-                        break;
-                    case TYPE_LONG:
-                        values.put(key, stream.readLong());
-                        break;
-                    case TYPE_FLOAT:
-                        values.put(key, stream.readFloat());
-                        break;
-                    case TYPE_STRING:
-                        values.put(key, stream.readUTF());
-                        break;
-                    case TYPE_BINARY:
-                        int length = stream.readInt();
-                        byte[] bytes = new byte[length];
-                        stream.read(bytes);
-                        values.put(key, bytes);
-                        break;
+        byte[] bytes = file.readBytes();
+        byteInputStream.setBytes(bytes);
+        int amount = dataInput.readInt();
+        long generation = 0;
+
+        if(amount == settingsMagic){
+            CRC crc = new CRC();
+            crc.update(bytes, 0, Math.max(bytes.length - 4, 0));
+            if(bytes.length < 20 || (int)crc.getValue() != readInt(bytes, bytes.length - 4)){
+                throw new IOException("Settings file is corrupted: " + file);
+            }
+            generation = dataInput.readLong();
+            amount = dataInput.readInt();
+        }
+
+        for(int i = 0; i < amount; i++){
+            readValue(dataInput);
+        }
+
+        this.generation = generation;
+        this.settingsLength = bytes.length;
+    }
+
+    /** Applies the records of the journal that belongs to the loaded settings file, up to the first incomplete one. */
+    protected void loadJournal(){
+        journalLength = 0;
+        FileHandle file = getJournalFile();
+        if(!file.exists()) return;
+
+        try{
+            byte[] bytes = file.readBytes();
+            if(bytes.length < 12 || readInt(bytes, 0) != journalMagic || readLong(bytes, 4) != generation){
+                //the journal belongs to an older settings file, and is replaced by the next save
+                return;
+            }
+
+            CRC crc = new CRC();
+            int position = 12;
+            while(position + 8 <= bytes.length){
+                int length = readInt(bytes, position);
+                if(length < 0 || length > bytes.length - position - 8) break;
+                crc.reset();
+                crc.update(bytes, position + 8, length);
+                if((int)crc.getValue() != readInt(bytes, position + 4)) break;
+
+                byteInputStream.setBytes(bytes, position + 8, length);
+                int amount = dataInput.readInt();
+                for(int i = 0; i < amount; i++){
+                    readValue(dataInput);
                 }
+                position += 8 + length;
             }
+
+            journalLength = position;
+            //a record was torn by a crash; rewrite the settings file so that it isn't appended to
+            if(position != bytes.length) compact = true;
+        }catch(Throwable e){
+            Log.err("Failed to load settings journal.", e);
+            compact = true;
         }
     }
 
-    /** Saves all entries from {@link #values} into the correct location. */
+    /**
+     * Saves the entries from {@link #values} into the correct location. In journaled mode, only the values that changed since the
+     * last save are written, unless the journal is large enough to be compacted into the settings file.
+     */
     public void saveValues(){
-        FileHandle file = getSettingsFile();
-
-        try(DataOutputStream stream = new DataOutputStream(file.write(false, 8192))){
-            stream.writeInt(values.size);
-
-            for(Entry<String, Object> entry : values.entries()){
-                stream.writeUTF(entry.key);
-
-                Object value = entry.value;
-
-                if(value instanceof Boolean){
-                    stream.writeByte(TYPE_BOOL);
-                    stream.writeBoolean((Boolean)value);
-                }else if(value instanceof Integer){
-                    stream.writeByte(TYPE_INT);
-                    stream.writeInt((Integer)value);
-                }else if(value instanceof Long){
-                    stream.writeByte(TYPE_LONG);
-                    stream.writeLong((Long)value);
-                }else if(value instanceof Float){
-                    stream.writeByte(TYPE_FLOAT);
-                    stream.writeFloat((Float)value);
-                }else if(value instanceof String){
-                    stream.writeByte(TYPE_STRING);
-                    stream.writeUTF((String)value);
-                }else if(value instanceof byte[]){
-                    stream.writeByte(TYPE_BINARY);
-                    stream.writeInt(((byte[])value).length);
-                    stream.write((byte[])value);
-                }
+        Throwable error = writeError;
+        writeError = null;
+        //the files may not match the state in memory after a failed write
+        if(error != null) compact = true;
+
+        try{
+            if(!journaled || compact || settingsLength == 0 || journalLength > Math.max(settingsLength, minCompactSize)){
+                generation++;
+                byte[] bytes = serializeSettings();
+                boolean backup = Time.millis() - lastSaveTime > backupCopyTime;
+                settingsLength = bytes.length;
+                journalLength = 0;
+                compact = false;
+                changed.clear();
+                write(() -> writeSettings(bytes, backup));
+            }else if(changed.size > 0){
+                boolean start = journalLength == 0;
+                byte[] bytes = serializeJournal(start);
+                journalLength += bytes.length;
+                changed.clear();
+                write(() -> appendJournal(bytes, start));
             }
         }catch(IOException e){
-            //file is now corrupt, delete it
-            file.delete();
-            throw new RuntimeException("Error writing preferences: " + file, e);
+            throw new RuntimeException("Error writing preferences: " + getSettingsFile(), e);
         }
 
-        if(Time.millis() - lastSaveTime > backupCopyTime){
-            file.copyTo(getBackupSettingsFile());
+        lastSaveTime = Time.millis();
+
+        if(error != null){
+            throw new RuntimeException("Error writing preferences: " + getSettingsFile(), error);
         }
+    }
 
-        lastSaveTime = Time.millis();
+    /** Serializes all values, with a header and a checksum. */
+    protected byte[] serializeSettings() throws IOException{
+        byteStream.reset();
+        dataOutput.writeInt(settingsMagic);
+        dataOutput.writeLong(generation);
+        dataOutput.writeInt(values.size);
+        for(Entry<String, Value> entry : values.entries()){
+            writeValue(dataOutput, entry.key, entry.value);
+        }
+
+        byte[] bytes = byteStream.toByteArray();
+        byte[] result = new byte[bytes.length + 4];
+        System.arraycopy(bytes, 0, result, 0, bytes.length);
+        CRC crc = new CRC();
+        crc.update(bytes, 0, bytes.length);
+        writeInt(result, bytes.length, (int)crc.getValue());
+        return result;
+    }
+
+    /** Serializes the changed values into a journal record, preceded by the journal header if the journal is new. */
+    protected byte[] serializeJournal(boolean start) throws IOException{
+        byteStream.reset();
+        dataOutput.writeInt(changed.size);
+        for(String key : changed){
+            writeValue(dataOutput, key, values.get(key));
+        }
+        byte[] record = byteStream.toByteArray();
+
+        int header = start ? 12 : 0;
+        byte[] result = new byte[header + 8 + record.length];
+        if(start){
+            writeInt(result, 0, journalMagic);
+            writeInt(result, 4, (int)(generation >>> 32));
+            writeInt(result, 8, (int)generation);
+        }
+        CRC crc = new CRC();
+        crc.update(record, 0, record.length);
+        writeInt(result, header, record.length);
+        writeInt(result, header + 4, (int)crc.getValue());
+        System.arraycopy(record, 0, result, header + 8, record.length);
+        return result;
+    }
+
+    /** Writes a value with its key, or a removal if it is null. */
+    protected void writeValue(DataOutput stream, String key, Value value) throws IOException{
+        stream.writeUTF(key);
+        if(value == null){
+            stream.writeByte(TYPE_REMOVED);
+            return;
+        }
+
+        stream.writeByte(value.type);
+        switch(value.type){
+            case TYPE_BOOL:
+                stream.writeBoolean(value.bits != 0);
+                break;
+            case TYPE_INT:
+            case TYPE_FLOAT:
+                stream.writeInt((int)value.bits);
+                break;
+            case TYPE_LONG:
+                stream.writeLong(value.bits);
+                break;
+            case TYPE_STRING:
+                stream.writeUTF((String)value.object);
+                break;
+            case TYPE_BINARY:
+                byte[] bytes = (byte[])value.object;
+                stream.writeInt(bytes.length);
+                stream.write(bytes);
+                break;
+        }
+    }
+
+    /** Reads a value written by {@link #writeValue(DataOutput, String, Value)} into {@link #values}. */
+    protected void readValue(DataInput stream) throws IOException{
+        String key = stream.readUTF();
+        byte type = stream.readByte();
+
+        switch(type){
+            case TYPE_BOOL:
+                set(key, type, stream.readBoolean() ? 1 : 0, null);
+                break;
+            case TYPE_INT:
+            case TYPE_FLOAT:
+                set(key, type, stream.readInt(), null);
+                break;
+            case TYPE_LONG:
+                set(key, type, stream.readLong(), null);
+                break;
+            case TYPE_STRING:
+                set(key, type, 0, stream.readUTF());
+                break;
+            case TYPE_BINARY:
+                byte[] bytes = new byte[stream.readInt()];
+                stream.readFully(bytes);
+                set(key, type, 0, bytes);
+                break;
+            case TYPE_REMOVED:
+                values.remove(key);
+                break;
+            default:
+                throw new IOException("Unknown setting type: " + type);
+        }
+    }
+
+    /** Runs a write on the background thread, or right away if writes aren't asynchronous. */
+    protected void write(ExceptionRunnable task) throws IOException{
+        if(!asyncWrites){
+            awaitWrites();
+            try{
+                task.run();
+            }catch(IOException | RuntimeException e){
+                throw e;
+            }catch(Exception e){
+                throw new IOException(e);
+            }
+            return;
+        }
+
+        synchronized(writes){
+            writes.addLast(task);
+            writes.notifyAll();
+            if(writer == null){
+                writer = new Thread(this::runWrites, "Settings-Writer");
+                writer.setDaemon(true);
+                synchronized(activeWriters){
+                    activeWriters.add(this);
+                    //the writer is a daemon, so pending writes are finished before the JVM exits
+                    if(!shutdownHookAdded){
+                        Runtime.getRuntime().addShutdownHook(new Thread(Settings::awaitAllWrites, "Settings-Shutdown"));
+                        shutdownHookAdded = true;
+                    }
+                }
+                writer.start();
+            }
+        }
+    }
+
+    /** Runs queued writes until the queue is empty, then stops; the next write starts a new writer. */
+    private void runWrites(){
+        while(true){
+            ExceptionRunnable task;
+            synchronized(writes){
+                if(writes.isEmpty()){
+                    writing = false;
+                    writer = null;
+                    synchronized(activeWriters){
+                        activeWriters.remove(this);
+                    }
+                    writes.notifyAll();
+                    return;
+                }
+                task = writes.removeFirst();
+                writing = true;
+            }
+
+            try{
+                task.run();
+            }catch(Throwable e){
+                //reported right away too, as there may not be another save, such as at shutdown
+                Log.err("Failed to write settings.", e);
+                writeError = e;
+            }
+        }
+    }
+
+    private static void awaitAllWrites(){
+        Array<Settings> settings;
+        synchronized(activeWriters){
+            settings = activeWriters.iterator().toArray();
+        }
+        for(Settings s : settings){
+            s.awaitWrites();
+        }
+    }
+
+    /** Replaces the settings file, starting a new journal. */
+    protected void writeSettings(byte[] bytes, boolean backup) throws IOException{
+        writeAtomic(getSettingsFile(), bytes);
+        //a journal of an older generation is ignored, so a crash before this doesn't matter
+        getJournalFile().delete();
+        if(backup) writeAtomic(getBackupSettingsFile(), bytes);
+    }
+
+    protected void appendJournal(byte[] bytes, boolean start) throws IOException{
+        File file = getJournalFile().file();
+        try(FileOutputStream stream = new FileOutputStream(file, !start)){
+            stream.write(bytes);
+            stream.getFD().sync();
+        }
+    }
+
+    /** Writes a file by writing a temporary file and renaming it, so that the file is never incomplete. */
+    protected void writeAtomic(FileHandle handle, byte[] bytes) throws IOException{
+        File file = handle.file(), temp = new File(file.getPath() + ".tmp");
+        File parent = file.getParentFile();
+        if(parent != null) parent.mkdirs();
+
+        try(FileOutputStream stream = new FileOutputStream(temp)){
+            stream.write(bytes);
+            stream.getFD().sync();
+        }
+
+        if(!temp.renameTo(file)){
+            //some platforms can't rename over an existing file
+            file.delete();
+            if(!temp.renameTo(file)) throw new IOException("Could not rename " + temp + " to " + file);
+        }
+    }
+
+    private static int readInt(byte[] bytes, int position){
+        return (bytes[position] & 0xFF) << 24 | (bytes[position + 1] & 0xFF) << 16 | (bytes[position + 2] & 0xFF) << 8 | (bytes[position + 3] & 0xFF);
+    }
+
+    private static long readLong(byte[] bytes, int position){
+        return (long)readInt(bytes, position) << 32 | (readInt(bytes, position + 4) & 0xFFFFFFFFL);
+    }
+
+    private static void writeInt(byte[] bytes, int position, int value){
+        bytes[position] = (byte)(value >>> 24);
+        bytes[position + 1] = (byte)(value >>> 16);
+        bytes[position + 2] = (byte)(value >>> 8);
+        bytes[position + 3] = (byte)value;
     }
 
     /** Returns the file used for writing settings to. Not available on all platforms! */
@@ -212,6 +533,11 @@ public class Settings{
         return getDataDirectory().child("settings_backup.bin");
     }
 
+    /** Returns the file that changes are appended to in journaled mode. */
+    public FileHandle getJournalFile(){
+        return getDataDirectory().child("settings_journal.bin");
+    }
+
     /** Returns the directory where all settings and data is placed. */
     public FileHandle getDataDirectory(){
         return dataDirectory == null ? Core.files.absolute(OS.getAppDataDirectoryString(appName)) : dataDirectory;
@@ -235,6 +561,8 @@ public class Settings{
     /** Clears all prefence values. */
     public void clear(){
         values.clear();
+        changed.clear();
+        compact = true;
     }
 
     public Object getDefault(String name){
@@ -284,23 +612,33 @@ public class Settings{
     }
 
     public float getFloat(String name, float def){
-        return (float)values.get(name, def);
+        Value value = values.get(name);
+        return value == null ? def : value.type == TYPE_FLOAT ? Float.intBitsToFloat((int)value.bits) : (float)value.get();
     }
 
     public int getInt(String name, int def){
-        return (int)values.get(name, def);
+        Value value = values.get(name);
+        return value == null ? def : value.type == TYPE_INT ? (int)value.bits : (int)value.get();
+    }
+
+    public long getLong(String name, long def){
+        Value value = values.get(name);
+        return value == null ? def : value.type == TYPE_LONG || value.type == TYPE_INT ? value.bits : (long)value.get();
     }
 
     public boolean getBool(String name, boolean def){
-        return (boolean)values.get(name, def);
+        Value value = values.get(name);
+        return value == null ? def : value.type == TYPE_BOOL ? value.bits != 0 : (boolean)value.get();
     }
 
     public byte[] getBytes(String name, byte[] def){
-        return (byte[])values.get(name, def);
+        Value value = values.get(name);
+        return value == null ? def : (byte[])value.get();
     }
 
     public String getString(String name, String def){
-        return (String)values.get(name, def);
+        Value value = values.get(name);
+        return value == null ? def : (String)value.get();
     }
 
     public float getFloat(String name){
@@ -311,6 +649,10 @@ public class Settings{
         return getInt(name, (int)defaults.get(name, 0));
     }
 
+    public long getLong(String name){
+        return getLong(name, (long)defaults.get(name, 0L));
+    }
+
     public boolean getBool(String name){
         return getBool(name, (boolean)defaults.get(name, false));
     }
@@ -346,22 +688,81 @@ public class Settings{
 
     /** Stores an object in the preference map. */
     public void put(String name, Object object){
-        if(object instanceof Float || object instanceof Integer || object instanceof Boolean
-        || object instanceof String || object instanceof byte[]){
-            values.put(name, object);
+        if(object instanceof Float){
+            put(name, (float)object);
+        }else if(object instanceof Integer){
+            put(name, (int)object);
+        }else if(object instanceof Long){
+            put(name, (long)object);
+        }else if(object instanceof Boolean){
+            put(name, (boolean)object);
+        }else if(object instanceof String){
+            set(name, TYPE_STRING, 0, object);
+        }else if(object instanceof byte[]){
+            set(name, TYPE_BINARY, 0, object);
         }else{
             throw new IllegalArgumentException("Invalid object stored: " + (object == null ? null : object.getClass()) + ". Use putObject() for serialization.");
         }
     }
 
+    public void put(String name, int value){
+        set(name, TYPE_INT, value, null);
+    }
+
+    public void put(String name, long value){
+        set(name, TYPE_LONG, value, null);
+    }
+
+    public void put(String name, float value){
+        set(name, TYPE_FLOAT, Float.floatToIntBits(value), null);
+    }
+
+    public void put(String name, boolean value){
+        set(name, TYPE_BOOL, value ? 1 : 0, null);
+    }
+
+    /** Sets a value without boxing it, marking it as changed unless it is the same primitive value. */
+    protected void set(String name, byte type, long bits, Object object){
+        Value value = values.get(name);
+        if(value == null){
+            values.put(name, value = new Value());
+        }else if(object == null && value.object == null && value.type == type && value.bits == bits){
+            return;
+        }
+        value.type = type;
+        value.bits = bits;
+        value.object = object;
+        changed.add(name);
+    }
+
     public void remove(String name){
-        values.remove(name);
+        if(values.remove(name) != null) changed.add(name);
     }
 
     public Iterable<String> keys(){
         return values.keys();
     }
 
+    /** A stored value. Primitives are kept in {@link #bits}, so that changing them doesn't allocate. */
+    protected static class Value{
+        public byte type;
+        /** The value of booleans (0 or 1), ints and longs, or the bits of floats. */
+        public long bits;
+        /** Strings and byte arrays. */
+        public Object object;
+
+        /** @return the value, boxing primitives */
+        public Object get(){
+            switch(type){
+                case TYPE_BOOL: return bits != 0;
+                case TYPE_INT: return (int)bits;
+                case TYPE_LONG: return bits;
+                case TYPE_FLOAT: return Float.intBitsToFloat((int)bits);
+                default: return object;
+            }
+        }
+    }
+
     public interface TypeSerializer<T>{
         void write(DataOutput stream, T object) throws IOException;
         T read(DataInput stream) throws IOException;
@@ -31,6 +31,23 @@ class AssetLoadingTask implements AsyncTask<Void>{
     int ticks = 0;
     volatile boolean cancel = false;
 
+    /** Time spent in {@link #call()} on the loading threads and in {@link #update()}, in nanoseconds. */
+    volatile long asyncNanos;
+    long syncNanos;
+
+    // parallel loading state, guarded by the manager
+    /** Whether the task was started from the load queue and not as a dependency. */
+    boolean root;
+    /** Requests from the load queue for the same asset that arrived while it was loading. Each holds a reference. */
+    Array<AssetDescriptor<?>> requests;
+    /** Tasks waiting for this asset. */
+    Array<AssetLoadingTask> dependents;
+    /** The amount of dependencies that have not finished loading. */
+    int pendingDependencies;
+    /** Whether this task has exclusive use of its loader, and the task that had it before. */
+    boolean ownsLoader;
+    AssetLoadingTask previousOwner;
+
     public AssetLoadingTask(AssetManager manager, AssetDescriptor assetDesc, AssetLoader loader, AsyncExecutor threadPool){
         this.manager = manager;
         this.assetDesc = assetDesc;
@@ -42,6 +59,16 @@ class AssetLoadingTask implements AsyncTask<Void>{
     /** Loads parts of the asset asynchronously if the loader is an {@link AsynchronousAssetLoader}. */
     @Override
     public Void call(){
+        long start = Time.nanos();
+        try{
+            callLoader();
+        }finally{
+            asyncNanos += Time.nanos() - start;
+        }
+        return null;
+    }
+
+    private void callLoader(){
         AsynchronousAssetLoader asyncLoader = (AsynchronousAssetLoader)loader;
         if(!dependenciesLoaded){
             dependencies = asyncLoader.getDependencies(assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
@@ -56,7 +83,6 @@ class AssetLoadingTask implements AsyncTask<Void>{
         }else{
             asyncLoader.loadAsync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
         }
-        return null;
     }
 
     /**
@@ -67,15 +93,26 @@ class AssetLoadingTask implements AsyncTask<Void>{
      * @return true in case the asset was fully loaded, false otherwise
      */
     public boolean update(){
+        long start = Time.nanos();
         ticks++;
-        if(loader instanceof SynchronousAssetLoader){
-            handleSyncLoader();
-        }else{
-            handleAsyncLoader();
+        try{
+            if(loader instanceof SynchronousAssetLoader){
+                handleSyncLoader();
+            }else{
+                handleAsyncLoader();
+            }
+        }finally{
+            syncNanos += Time.nanos() - start;
         }
         return asset != null;
     }
 
+    /** @return whether a part of the asset is being loaded on a loading thread */
+    boolean isRunning(){
+        AsyncResult<Void> deps = depsFuture, load = loadFuture;
+        return (deps != null && !deps.isDone()) || (load != null && !load.isDone());
+    }
+
     private void handleSyncLoader(){
         SynchronousAssetLoader syncLoader = (SynchronousAssetLoader)loader;
         if(!dependenciesLoaded){
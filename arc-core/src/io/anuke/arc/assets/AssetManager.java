@@ -36,7 +36,7 @@ public class AssetManager implements Disposable{
 
     final ObjectMap<Class, ObjectMap<String, AssetLoader>> loaders = new ObjectMap<>();
     final Array<AssetDescriptor> loadQueue = new Array<>();
-    final AsyncExecutor executor;
+    AsyncExecutor executor;
 
     final Stack<AssetLoadingTask> tasks = new Stack<>();
     final FileHandleResolver resolver;
@@ -45,6 +45,22 @@ public class AssetManager implements Disposable{
     int toLoad = 0;
     int peakTasks = 0;
 
+    boolean parallel;
+    int syncBudget = 8;
+    /** Tasks of parallel loading in the order they were started, and by file name. */
+    final Array<AssetLoadingTask> active = new Array<>();
+    final ObjectMap<String, AssetLoadingTask> activeTasks = new ObjectMap<>();
+    /** The tasks that have exclusive use of loaders that can't load several assets at once. */
+    final ObjectMap<AssetLoader, AssetLoadingTask> loaderOwners = new ObjectMap<>();
+    private final Array<AssetLoadingTask> updating = new Array<>();
+    private int cursor;
+    int completedTasks, totalTasks;
+
+    boolean recordTimings;
+    final Array<LoadTiming> timings = new Array<>();
+
+    ResidencyManager residency;
+
     /** Creates a new AssetManager with all default loaders. */
     public AssetManager(){
         this(new InternalFileHandleResolver());
@@ -76,6 +92,65 @@ public class AssetManager implements Disposable{
         executor = new AsyncExecutor(1);
     }
 
+    /**
+     * Enables or disables parallel loading, which is disabled by default. Normally, assets are loaded one at a time. In parallel
+     * mode, all queued assets start loading at once: the dependencies returned by the loaders form a graph, and every asset
+     * whose dependencies are loaded runs its asynchronous part on the {@link #setLoadingThreads(int) loading threads}. The
+     * synchronous parts still run in {@link #update()}, which stops starting them once its {@link #setSyncBudget(int) budget}
+     * is used up.
+     * <p>
+     * Loaders keep the state of an asset between its loading steps, so a loader that is not
+     * {@link AssetLoader#isConcurrent() concurrent} still loads one asset at a time.
+     * @throws ArcRuntimeException if assets are loading
+     */
+    public synchronized void setParallelLoading(boolean parallel){
+        if(!isFinished()) throw new ArcRuntimeException("Cannot change the loading mode while assets are loading.");
+        this.parallel = parallel;
+    }
+
+    public synchronized boolean isParallelLoading(){
+        return parallel;
+    }
+
+    /**
+     * Sets the amount of threads that run the asynchronous parts of loading, 1 by default. More than one thread is only useful
+     * with {@link #setParallelLoading(boolean) parallel loading}.
+     * @throws ArcRuntimeException if assets are loading
+     */
+    public synchronized void setLoadingThreads(int threads){
+        if(threads < 1) throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        if(!isFinished()) throw new ArcRuntimeException("Cannot change the loading threads while assets are loading.");
+        executor.dispose();
+        executor = new AsyncExecutor(threads);
+    }
+
+    /**
+     * Sets the time in milliseconds after which a call to {@link #update()} stops loading assets in parallel mode, 8 by default.
+     * A single synchronous loading step can still take longer.
+     */
+    public synchronized void setSyncBudget(int millis){
+        this.syncBudget = millis;
+    }
+
+    public synchronized int getSyncBudget(){
+        return syncBudget;
+    }
+
+    /** Sets whether a {@link LoadTiming} is recorded for every asset that finishes loading. */
+    public synchronized void setRecordTimings(boolean recordTimings){
+        this.recordTimings = recordTimings;
+    }
+
+    /** @return the {@link ResidencyManager} that keeps the assets of this manager within budgets, or null if there is none */
+    public synchronized ResidencyManager getResidencyManager(){
+        return residency;
+    }
+
+    /** @return the timings recorded since {@link #setRecordTimings(boolean)} was enabled or the manager was cleared, in load order */
+    public synchronized Array<LoadTiming> getTimings(){
+        return timings;
+    }
+
     /**
      * Returns the {@link FileHandleResolver} for which this AssetManager was loaded with.
      * @return the file handle resolver which this AssetManager uses
@@ -88,7 +163,15 @@ public class AssetManager implements Disposable{
      * @param fileName the asset file name
      * @return the asset
      */
-    public synchronized <T> T get(String fileName){
+    public <T> T get(String fileName){
+        reloadEvicted(fileName);
+        synchronized(this){
+            return getLoaded(fileName);
+        }
+    }
+
+    private <T> T getLoaded(String fileName){
+        if(residency != null) residency.requested(fileName);
         Class<T> type = assetTypes.get(fileName);
         if(type == null) throw new ArcRuntimeException("Asset not loaded: " + fileName);
         ObjectMap<String, RefCountedContainer> assetsByType = assets.get(type);
@@ -105,7 +188,15 @@ public class AssetManager implements Disposable{
      * @param type the asset type
      * @return the asset
      */
-    public synchronized <T> T get(String fileName, Class<T> type){
+    public <T> T get(String fileName, Class<T> type){
+        reloadEvicted(fileName);
+        synchronized(this){
+            return getLoaded(fileName, type);
+        }
+    }
+
+    private <T> T getLoaded(String fileName, Class<T> type){
+        if(residency != null) residency.requested(fileName);
         ObjectMap<String, RefCountedContainer> assetsByType = assets.get(type);
         if(assetsByType == null) throw new ArcRuntimeException("Asset not loaded: " + fileName);
         RefCountedContainer assetContainer = assetsByType.get(fileName);
@@ -133,13 +224,27 @@ public class AssetManager implements Disposable{
      * @param assetDescriptor the asset descriptor
      * @return the asset
      */
-    public synchronized <T> T get(AssetDescriptor<T> assetDescriptor){
+    public <T> T get(AssetDescriptor<T> assetDescriptor){
         return get(assetDescriptor.fileName, assetDescriptor.type);
     }
 
+    /**
+     * Loads an asset again if the {@link ResidencyManager} evicted it, blocking until it is loaded. This waits outside of the
+     * monitor, since the loading threads need it to resolve dependencies. A thread that already holds the monitor can't wait, so
+     * the asset is only queued, and getting it fails until an {@link #update()} loaded it.
+     */
+    private void reloadEvicted(String fileName){
+        if(Thread.holdsLock(this)) return;
+        synchronized(this){
+            if(residency == null || !residency.reload(fileName)) return;
+        }
+        finishLoadingAsset(fileName);
+    }
+
     /** Returns true if an asset with the specified name is loading, queued to be loaded, or has been loaded. */
     public synchronized boolean contains(String fileName){
         if(tasks.size() > 0 && tasks.firstElement().assetDesc.fileName.equals(fileName)) return true;
+        if(activeTasks.containsKey(fileName)) return true;
 
         for(int i = 0; i < loadQueue.size; i++)
             if(loadQueue.get(i).fileName.equals(fileName)) return true;
@@ -154,6 +259,9 @@ public class AssetManager implements Disposable{
             if(assetDesc.type == type && assetDesc.fileName.equals(fileName)) return true;
         }
 
+        AssetLoadingTask task = activeTasks.get(fileName);
+        if(task != null && task.assetDesc.type == type) return true;
+
         for(int i = 0; i < loadQueue.size; i++){
             AssetDescriptor assetDesc = loadQueue.get(i);
             if(assetDesc.type == type && assetDesc.fileName.equals(fileName)) return true;
@@ -167,6 +275,25 @@ public class AssetManager implements Disposable{
      * @param fileName the file name
      */
     public synchronized void unload(String fileName){
+        // in parallel mode, drop one request for an asset that is loading, cancelling it if nothing else needs it
+        AssetLoadingTask task = activeTasks.get(fileName);
+        if(task != null && !task.cancel){
+            if(task.requests != null && task.requests.size > 0){
+                task.requests.pop();
+                toLoad--;
+                return;
+            }
+            if(task.root){
+                if(task.dependents != null && task.dependents.size > 0){
+                    task.root = false;
+                    toLoad--;
+                }else{
+                    task.cancel = true;
+                }
+                return;
+            }
+        }
+
         // check if it's currently processed (and the first element in the stack, thus not a dependency)
         // and cancel if necessary
         if(tasks.size() > 0){
@@ -208,6 +335,7 @@ public class AssetManager implements Disposable{
             // remove the asset from the manager.
             assetTypes.remove(fileName);
             assets.get(type).remove(fileName);
+            if(residency != null) residency.unloaded(fileName);
         }
 
         // remove any dependencies (or just decrement their ref count).
@@ -381,6 +509,10 @@ public class AssetManager implements Disposable{
             loaded = 0;
             toLoad = 0;
             peakTasks = 0;
+            if(active.size == 0){
+                completedTasks = 0;
+                totalTasks = 0;
+            }
         }
 
         // check if an asset with the same name but a different type has already been added.
@@ -401,6 +533,12 @@ public class AssetManager implements Disposable{
             + ClassReflection.getSimpleName(type) + ", found: " + ClassReflection.getSimpleName(desc.type) + ")");
         }
 
+        // check parallel tasks
+        AssetLoadingTask task = activeTasks.get(fileName);
+        if(task != null && !task.assetDesc.type.equals(type)) throw new ArcRuntimeException(
+        "Asset with name '" + fileName + "' already in task list, but has different type (expected: "
+        + ClassReflection.getSimpleName(type) + ", found: " + ClassReflection.getSimpleName(task.assetDesc.type) + ")");
+
         // check loaded assets
         Class otherType = assetTypes.get(fileName);
         if(otherType != null && !otherType.equals(type))
@@ -426,6 +564,7 @@ public class AssetManager implements Disposable{
      * @return true if all loading is finished.
      */
     public synchronized boolean update(){
+        if(parallel) return updateParallel();
         try{
             if(tasks.size() == 0){
                 // loop until we have a new task ready to be processed
@@ -445,6 +584,9 @@ public class AssetManager implements Disposable{
     /** @return the asset loading task that is currently being processed.
      * May return null if nothing is being loaded. */
     public synchronized AssetDescriptor getCurrentLoading(){
+        if(active.size > 0){
+            return active.first().assetDesc;
+        }
         if(tasks.size() > 0){
             return tasks.firstElement().assetDesc;
         }
@@ -468,7 +610,7 @@ public class AssetManager implements Disposable{
 
     /** Returns true when all assets are loaded. Can be called from any thread. */
     public synchronized boolean isFinished(){
-        return loadQueue.size == 0 && tasks.size() == 0;
+        return loadQueue.size == 0 && tasks.size() == 0 && active.size == 0;
     }
 
     /** Blocks until all assets are loaded. */
@@ -497,6 +639,9 @@ public class AssetManager implements Disposable{
     }
 
     synchronized void injectDependencies(String parentAssetFilename, Array<AssetDescriptor> dependendAssetDescs){
+        // the parent was abandoned after an error while its dependencies were being resolved
+        if(parallel && !activeTasks.containsKey(parentAssetFilename)) return;
+
         ObjectSet<String> injected = this.injected;
         for(AssetDescriptor desc : dependendAssetDescs){
             if(injected.contains(desc.fileName)) continue; // Ignore subsequent dependencies if there are duplicates.
@@ -523,7 +668,9 @@ public class AssetManager implements Disposable{
             incrementRefCountedDependencies(dependendAssetDesc.fileName);
         }
         // else add a new task for the asset.
-        else{
+        else if(parallel){
+            startTask(dependendAssetDesc, activeTasks.get(parentAssetFilename));
+        }else{
             addTask(dependendAssetDesc);
         }
     }
@@ -546,6 +693,8 @@ public class AssetManager implements Disposable{
                 assetDesc.params.loadedCallback.finishedLoading(this, assetDesc.fileName, assetDesc.type);
             }
             loaded++;
+        }else if(parallel){
+            startTask(assetDesc, null);
         }else{
             // else add a new task for the asset.
             addTask(assetDesc);
@@ -606,19 +755,224 @@ public class AssetManager implements Disposable{
             addAsset(task.assetDesc.fileName, task.assetDesc.type, task.getAsset());
 
             // otherwise, if a listener was found in the parameter invoke it
-            if(task.assetDesc.params != null && task.assetDesc.params.loadedCallback != null){
-                task.assetDesc.params.loadedCallback.finishedLoading(this, task.assetDesc.fileName, task.assetDesc.type);
+            notifyLoaded(task.assetDesc, task.getAsset());
+            recordTiming(task);
+            if(residency != null) residency.loaded(task.assetDesc, task.getAsset());
+
+            return true;
+        }
+        return false;
+    }
+
+    private void notifyLoaded(AssetDescriptor assetDesc, Object asset){
+        if(assetDesc.params != null && assetDesc.params.loadedCallback != null){
+            assetDesc.params.loadedCallback.finishedLoading(this, assetDesc.fileName, assetDesc.type);
+        }
+        assetDesc.loaded.accept(asset);
+    }
+
+    private void recordTiming(AssetLoadingTask task){
+        if(recordTimings){
+            timings.add(new LoadTiming(task.assetDesc.fileName, task.assetDesc.type, Time.nanos() - task.startTime, task.asyncNanos, task.syncNanos));
+        }
+    }
+
+    /**
+     * Starts loading an asset in parallel mode, or adds a request to the task that is already loading it.
+     * @param parent the task of the asset that depends on this one, or null if the asset comes from the load queue
+     */
+    private void startTask(AssetDescriptor assetDesc, AssetLoadingTask parent){
+        AssetLoadingTask task = activeTasks.get(assetDesc.fileName);
+        if(task == null){
+            AssetLoader loader = getLoader(assetDesc.type, assetDesc.fileName);
+            if(loader == null)
+                throw new ArcRuntimeException("No loader for type: " + ClassReflection.getSimpleName(assetDesc.type));
+            task = new AssetLoadingTask(this, assetDesc, loader, executor);
+            task.root = parent == null;
+            active.add(task);
+            activeTasks.put(assetDesc.fileName, task);
+            totalTasks++;
+        }else if(parent == null){
+            if(task.cancel && task.root){
+                task.cancel = false;
+            }else{
+                if(task.requests == null) task.requests = new Array<>();
+                task.requests.add(assetDesc);
+            }
+        }
+
+        if(parent != null){
+            if(task.dependents == null) task.dependents = new Array<>(false, 4);
+            task.dependents.add(parent);
+            parent.pendingDependencies++;
+        }
+    }
+
+    /** Updates all tasks that can make progress, until the sync budget is used up. */
+    private boolean updateParallel(){
+        AssetLoadingTask failed = null;
+        try{
+            while(loadQueue.size != 0){
+                nextTask();
             }
 
-            task.assetDesc.loaded.accept(task.getAsset());
+            updating.clear();
+            updating.addAll(active);
+            long end = Time.nanos() + syncBudget * 1000000L;
+            // continue where the last update ran out of time, so every task gets its turn
+            int start = updating.size == 0 ? 0 : cursor % updating.size;
 
-            long endTime = Time.nanos();
+            for(int i = 0; i < updating.size; i++){
+                AssetLoadingTask task = updating.get((start + i) % updating.size);
 
-            return true;
+                if(task.cancel){
+                    // a loader may only be used again once it is done with the cancelled asset
+                    if(task.isRunning()) continue;
+                }else if(task.pendingDependencies > 0 || !acquireLoader(task)){
+                    continue;
+                }
+
+                boolean complete = true;
+                failed = task;
+                try{
+                    complete = task.cancel || task.update();
+                }catch(RuntimeException ex){
+                    task.cancel = true;
+                    taskFailed(task.assetDesc, ex);
+                }
+                failed = null;
+
+                if(complete) finishTask(task);
+
+                if(Time.nanos() >= end){
+                    cursor = start + i + 1;
+                    break;
+                }
+            }
+            updating.clear();
+
+            return loadQueue.size == 0 && active.size == 0;
+        }catch(Throwable t){
+            updating.clear();
+            handleParallelError(failed, t);
+            return loadQueue.size == 0 && active.size == 0;
+        }
+    }
+
+    /** @return whether the task may use its loader now */
+    private boolean acquireLoader(AssetLoadingTask task){
+        if(task.ownsLoader || task.loader.isConcurrent()) return true;
+
+        AssetLoadingTask owner = loaderOwners.get(task.loader);
+        // a dependency may borrow the loader of an asset that waits for it, as it would when loading one asset at a time
+        if(owner != null && !dependsOn(owner, task)) return false;
+
+        task.ownsLoader = true;
+        task.previousOwner = owner;
+        loaderOwners.put(task.loader, task);
+        return true;
+    }
+
+    /** @return whether the task waits for the dependency, directly or through other dependencies */
+    private boolean dependsOn(AssetLoadingTask task, AssetLoadingTask dependency){
+        if(dependency.dependents == null) return false;
+        for(AssetLoadingTask dependent : dependency.dependents){
+            if(dependent == task || dependsOn(task, dependent)) return true;
         }
         return false;
     }
 
+    private void finishTask(AssetLoadingTask task){
+        active.removeValue(task, true);
+        activeTasks.remove(task.assetDesc.fileName);
+        completedTasks++;
+
+        if(task.ownsLoader){
+            if(task.previousOwner != null){
+                loaderOwners.put(task.loader, task.previousOwner);
+            }else{
+                loaderOwners.remove(task.loader);
+            }
+        }
+
+        if(task.dependents != null){
+            for(AssetLoadingTask dependent : task.dependents){
+                dependent.pendingDependencies--;
+            }
+        }
+
+        int requests = task.requests == null ? 0 : task.requests.size;
+        loaded += (task.root ? 1 : 0) + requests;
+
+        // a dependency whose dependents were all cancelled is not needed anymore
+        boolean abandoned = !task.root && requests == 0 && (task.dependents == null || task.dependents.size == 0);
+        if(task.cancel || abandoned){
+            releaseCancelled(task);
+            return;
+        }
+
+        String fileName = task.assetDesc.fileName;
+        addAsset(fileName, task.assetDesc.type, task.getAsset());
+
+        // the first request holds the reference of the new container, every other request and dependent asset adds one
+        int references = requests + (task.dependents == null ? 0 : task.dependents.size) - (task.root ? 0 : 1);
+        if(references > 0){
+            RefCountedContainer assetRef = assets.get(task.assetDesc.type).get(fileName);
+            for(int i = 0; i < references; i++){
+                assetRef.incRefCount();
+                incrementRefCountedDependencies(fileName);
+            }
+        }
+
+        notifyLoaded(task.assetDesc, task.getAsset());
+        if(task.requests != null){
+            for(AssetDescriptor request : task.requests){
+                notifyLoaded(request, task.getAsset());
+            }
+        }
+        recordTiming(task);
+        if(residency != null) residency.loaded(task.assetDesc, task.getAsset());
+    }
+
+    /** Releases the references a cancelled task took on its dependencies, and disposes the asset if it was already loaded. */
+    private void releaseCancelled(AssetLoadingTask task){
+        String fileName = task.assetDesc.fileName;
+        Array<String> dependencies = assetDependencies.remove(fileName);
+        if(dependencies != null){
+            for(String dependency : dependencies){
+                AssetLoadingTask loading = activeTasks.get(dependency);
+                // a dependency that is still loading hasn't taken a reference for this task yet
+                if(loading != null && loading.dependents != null && loading.dependents.removeValue(task, true)) continue;
+                if(isLoaded(dependency)){
+                    unload(dependency);
+                }
+            }
+        }
+
+        if(task.getAsset() instanceof Disposable) ((Disposable)task.getAsset()).dispose();
+    }
+
+    /** Handles an error in parallel loading like {@link #handleTaskError(Throwable)}, abandoning all loading tasks. */
+    private void handleParallelError(AssetLoadingTask task, Throwable t){
+        if(task == null) throw new ArcRuntimeException(t);
+
+        if(task.dependenciesLoaded && task.dependencies != null){
+            for(AssetDescriptor desc : task.dependencies){
+                if(isLoaded(desc.fileName)) unload(desc.fileName);
+            }
+        }
+
+        active.clear();
+        activeTasks.clear();
+        loaderOwners.clear();
+
+        if(listener != null){
+            listener.error(task.assetDesc, t);
+        }else{
+            throw new ArcRuntimeException(t);
+        }
+    }
+
     /**
      * Called when a task throws an exception during loading. The default implementation rethrows the exception. A subclass may
      * supress the default implementation when loading assets where loading failure is recoverable.
@@ -699,12 +1053,16 @@ public class AssetManager implements Disposable{
 
     /** @return the number of currently queued assets */
     public synchronized int getQueuedAssets(){
-        return loadQueue.size + tasks.size();
+        return loadQueue.size + tasks.size() + active.size;
     }
 
     /** @return the progress in percent of completion. */
     public synchronized float getProgress(){
         if(toLoad == 0) return 1;
+        if(parallel){
+            int total = totalTasks + loadQueue.size;
+            return total == 0 ? 1 : Math.min(1, completedTasks / (float)total);
+        }
         float fractionalLoaded = (float)loaded;
         if(peakTasks > 0){
             fractionalLoaded += ((peakTasks - tasks.size()) / (float)peakTasks);
@@ -768,6 +1126,13 @@ public class AssetManager implements Disposable{
         this.peakTasks = 0;
         this.loadQueue.clear();
         this.tasks.clear();
+        this.active.clear();
+        this.activeTasks.clear();
+        this.loaderOwners.clear();
+        this.completedTasks = 0;
+        this.totalTasks = 0;
+        this.timings.clear();
+        if(residency != null) residency.clear();
     }
 
     /**
@@ -832,4 +1197,30 @@ public class AssetManager implements Disposable{
         return assetTypes.get(fileName);
     }
 
+    /** The loading times of an asset. All times are in nanoseconds. */
+    public static class LoadTiming{
+        public final String fileName;
+        public final Class type;
+        /** Time from the start of loading until the asset was added, including time spent waiting for dependencies. */
+        public final long totalTime;
+        /** Time spent resolving dependencies and loading on the loading threads. */
+        public final long asyncTime;
+        /** Time spent loading in {@link AssetManager#update()}. */
+        public final long syncTime;
+
+        public LoadTiming(String fileName, Class type, long totalTime, long asyncTime, long syncTime){
+            this.fileName = fileName;
+            this.type = type;
+            this.totalTime = totalTime;
+            this.asyncTime = asyncTime;
+            this.syncTime = syncTime;
+        }
+
+        @Override
+        public String toString(){
+            return fileName + " (" + ClassReflection.getSimpleName(type) + "): " + totalTime / 1000000f + "ms total, "
+            + asyncTime / 1000000f + "ms async, " + syncTime / 1000000f + "ms sync";
+        }
+    }
+
 }
@@ -0,0 +1,331 @@
+package io.anuke.arc.assets;
+
+import io.anuke.arc.audio.Sound;
+import io.anuke.arc.collection.Array;
+import io.anuke.arc.collection.ObjectMap;
+import io.anuke.arc.collection.ObjectSet;
+import io.anuke.arc.files.FileHandle;
+import io.anuke.arc.graphics.Cubemap;
+import io.anuke.arc.graphics.Pixmap;
+import io.anuke.arc.graphics.Pixmap.Format;
+import io.anuke.arc.graphics.Texture;
+import io.anuke.arc.graphics.TextureData;
+
+/**
+ * Keeps the memory used by the assets of an {@link AssetManager} within budgets. Every loaded asset is measured by the
+ * {@link Sizer} of the type it was loaded as, and every type can have a budget in bytes. When a type goes over its budget, the
+ * least recently used assets that nothing else references are unloaded, until the type is within budget again. An evicted asset
+ * is loaded again, blocking, the next time it is requested with one of the {@link AssetManager#get(String)} methods. If the
+ * requesting thread holds the lock of the manager, for example in a loader, the asset is only queued and is not loaded until the
+ * next {@link AssetManager#update()}.
+ * <p>
+ * Evicted assets are disposed, so references to them must not be kept across frames; get them from the manager when they are
+ * used, or {@link #pin(String) pin} them. Assets are evictable if they were loaded with {@link AssetManager#load(String, Class)}
+ * once, are not a dependency of another asset and are not pinned. Unloading an asset also evicts its dependencies that are not
+ * used elsewhere, so evicting a {@link io.anuke.arc.graphics.g2d.TextureAtlas} frees the memory of its textures.
+ * <p>
+ * There are default sizers for textures, cubemaps, pixmaps and sounds; sounds are measured by the size of their file. Types
+ * without a sizer have a size of 0, and types without a budget are never evicted.
+ */
+@SuppressWarnings("unchecked")
+public class ResidencyManager{
+    private final AssetManager manager;
+    private final ObjectMap<Class<?>, Sizer<?>> sizers = new ObjectMap<>();
+    private final ObjectMap<Class<?>, TypeUsage> types = new ObjectMap<>();
+    private final ObjectMap<String, Resident> residents = new ObjectMap<>();
+    private final ObjectMap<String, AssetDescriptor<?>> evicted = new ObjectMap<>();
+    private final ObjectSet<String> pinned = new ObjectSet<>();
+
+    private final ObjectSet<String> referenced = new ObjectSet<>();
+    private final Array<Resident> candidates = new Array<>();
+    private final Array<String> closure = new Array<>();
+
+    /** Incremented for every use, so residents can be ordered by their last use. */
+    private long clock;
+    private boolean evicting;
+    private int evictions, reloads;
+
+    /** Creates a residency manager for the assets of a manager, which uses it from now on. */
+    public ResidencyManager(AssetManager manager){
+        this.manager = manager;
+
+        setSizer(Texture.class, (texture, file) -> textureSize(texture.getWidth(), texture.getHeight(), texture.getTextureData()));
+        setSizer(Cubemap.class, (cubemap, file) -> textureSize(cubemap.getWidth(), cubemap.getHeight(), null) * 6);
+        setSizer(Pixmap.class, (pixmap, file) -> pixmap.getPixels().capacity());
+        setSizer(Sound.class, (sound, file) -> file == null || !file.exists() ? 0 : file.length());
+
+        synchronized(manager){
+            manager.residency = this;
+            for(String fileName : manager.getAssetNames()){
+                Class<?> type = manager.getAssetType(fileName);
+                loaded(new AssetDescriptor<>(fileName, type), manager.get(fileName, type));
+            }
+        }
+    }
+
+    private static long textureSize(int width, int height, TextureData data){
+        long size = (long)width * height * Format.bytesPerPixel(data == null ? Format.RGBA8888 : data.getFormat());
+        //a full mipmap chain adds a third
+        return data != null && data.useMipMaps() ? size * 4 / 3 : size;
+    }
+
+    /** Sets how assets loaded as the specified type are measured. Only affects assets that are loaded afterwards. */
+    public <T> void setSizer(Class<T> type, Sizer<? super T> sizer){
+        synchronized(manager){
+            sizers.put(type, sizer);
+        }
+    }
+
+    /**
+     * Sets the budget of a type in bytes, evicting assets of the type right away if they use more.
+     * @param bytes the budget, or a negative number to remove it
+     */
+    public void setBudget(Class<?> type, long bytes){
+        synchronized(manager){
+            usage(type).budget = bytes < 0 ? Long.MAX_VALUE : bytes;
+            trim(type);
+        }
+    }
+
+    /** @return the budget of a type in bytes, or -1 if it has none */
+    public long getBudget(Class<?> type){
+        synchronized(manager){
+            TypeUsage usage = types.get(type);
+            return usage == null || usage.budget == Long.MAX_VALUE ? -1 : usage.budget;
+        }
+    }
+
+    /** @return the bytes used by the loaded assets of a type */
+    public long getUsage(Class<?> type){
+        synchronized(manager){
+            TypeUsage usage = types.get(type);
+            return usage == null ? 0 : usage.used;
+        }
+    }
+
+    /** @return the bytes used by all loaded assets */
+    public long getTotalUsage(){
+        synchronized(manager){
+            long total = 0;
+            for(TypeUsage usage : types.values()) total += usage.used;
+            return total;
+        }
+    }
+
+    /** @return the size of a loaded asset in bytes, or -1 if it isn't loaded */
+    public long getSize(String fileName){
+        synchronized(manager){
+            Resident resident = residents.get(fileName);
+            return resident == null ? -1 : resident.size;
+        }
+    }
+
+    /** Prevents an asset from being evicted. Assets can be pinned before they are loaded. */
+    public void pin(String fileName){
+        synchronized(manager){
+            pinned.add(fileName);
+        }
+    }
+
+    public void unpin(String fileName){
+        synchronized(manager){
+            pinned.remove(fileName);
+        }
+    }
+
+    public boolean isPinned(String fileName){
+        synchronized(manager){
+            return pinned.contains(fileName);
+        }
+    }
+
+    /** @return whether an asset was evicted and will be loaded again when it is requested */
+    public boolean isEvicted(String fileName){
+        synchronized(manager){
+            return evicted.containsKey(fileName);
+        }
+    }
+
+    /** @return the amount of assets that were evicted to stay within budget */
+    public int getEvictions(){
+        return evictions;
+    }
+
+    /** @return the amount of evicted assets that were loaded again */
+    public int getReloads(){
+        return reloads;
+    }
+
+    /**
+     * Evicts an asset now, regardless of budgets, if it is evictable.
+     * @return whether the asset was evicted
+     */
+    public boolean evict(String fileName){
+        synchronized(manager){
+            Resident resident = residents.get(fileName);
+            if(resident == null) return false;
+            referenced();
+            if(!evictable(resident)) return false;
+            unload(resident);
+            return true;
+        }
+    }
+
+    /** Evicts assets of all types that are over their budget. */
+    public void trim(){
+        synchronized(manager){
+            for(Class<?> type : types.keys().toArray()){
+                trim(type);
+            }
+        }
+    }
+
+    /** Called by the manager when an asset is loaded. */
+    void loaded(AssetDescriptor<?> desc, Object asset){
+        Sizer<Object> sizer = (Sizer<Object>)sizers.get(desc.type);
+        Resident resident = new Resident();
+        resident.desc = desc;
+        resident.size = sizer == null ? 0 : Math.max(sizer.sizeOf(asset, desc.file), 0);
+        resident.lastUse = ++clock;
+
+        Resident last = residents.put(desc.fileName, resident);
+        if(last != null) usage(last.desc.type).used -= last.size;
+        usage(desc.type).used += resident.size;
+        evicted.remove(desc.fileName);
+
+        trim(desc.type);
+    }
+
+    /** Called by the manager when an asset is removed. */
+    void unloaded(String fileName){
+        Resident resident = residents.remove(fileName);
+        if(resident == null) return;
+        usage(resident.desc.type).used -= resident.size;
+        if(evicting) evicted.put(fileName, resident.desc);
+    }
+
+    /** Called by the manager when an asset is requested, queueing it to be loaded again if it was evicted. */
+    void requested(String fileName){
+        Resident resident = residents.get(fileName);
+        if(resident != null){
+            resident.lastUse = ++clock;
+        }else{
+            reload(fileName);
+        }
+    }
+
+    /**
+     * Called by the manager to queue an evicted asset to be loaded again. The manager waits for it without holding its lock.
+     * @return whether the asset was evicted and is not loaded yet
+     */
+    boolean reload(String fileName){
+        AssetDescriptor<?> desc = evicted.get(fileName);
+        if(desc == null) return false;
+        if(!manager.contains(fileName)){
+            reloads++;
+            manager.load(desc);
+        }
+        return true;
+    }
+
+    /** Called by the manager when it is cleared. */
+    void clear(){
+        residents.clear();
+        evicted.clear();
+        for(TypeUsage usage : types.values()) usage.used = 0;
+    }
+
+    private void trim(Class<?> type){
+        TypeUsage usage = types.get(type);
+        if(usage == null || usage.used <= usage.budget) return;
+
+        referenced();
+        candidates.clear();
+        for(Resident resident : residents.values()){
+            if(!evictable(resident)) continue;
+
+            //the asset frees memory of the type if it or one of its dependencies has it; it counts as used when any of them was
+            closure.clear();
+            closure(resident.desc.fileName);
+            boolean frees = false;
+            long lastUse = 0;
+            for(String name : closure){
+                Resident part = residents.get(name);
+                if(part == null) continue;
+                frees |= part.desc.type == type && part.size > 0;
+                lastUse = Math.max(lastUse, part.lastUse);
+            }
+            if(frees){
+                resident.order = lastUse;
+                candidates.add(resident);
+            }
+        }
+        candidates.sort((a, b) -> Long.compare(a.order, b.order));
+
+        //the most recently used asset is kept even if it is over budget on its own, so it isn't evicted and loaded in turn
+        for(int i = 0; i < candidates.size - 1 && usage.used > usage.budget; i++){
+            Resident resident = candidates.get(i);
+            if(residents.get(resident.desc.fileName) == resident && manager.getReferenceCount(resident.desc.fileName) == 1){
+                unload(resident);
+                evictions++;
+            }
+        }
+        candidates.clear();
+    }
+
+    private void unload(Resident resident){
+        evicting = true;
+        try{
+            manager.unload(resident.desc.fileName);
+        }finally{
+            evicting = false;
+        }
+    }
+
+    private boolean evictable(Resident resident){
+        String fileName = resident.desc.fileName;
+        return !pinned.contains(fileName) && !referenced.contains(fileName) && manager.getReferenceCount(fileName) == 1;
+    }
+
+    /** Collects the assets that other assets depend on. */
+    private void referenced(){
+        referenced.clear();
+        for(String fileName : manager.assetDependencies.keys()){
+            Array<String> dependencies = manager.assetDependencies.get(fileName);
+            if(dependencies != null) referenced.addAll(dependencies);
+        }
+    }
+
+    private void closure(String fileName){
+        if(closure.contains(fileName, false)) return;
+        closure.add(fileName);
+        Array<String> dependencies = manager.assetDependencies.get(fileName);
+        if(dependencies != null){
+            for(String dependency : dependencies) closure(dependency);
+        }
+    }
+
+    private TypeUsage usage(Class<?> type){
+        TypeUsage usage = types.get(type);
+        if(usage == null) types.put(type, usage = new TypeUsage());
+        return usage;
+    }
+
+    /** Measures the memory used by an asset. */
+    public interface Sizer<T>{
+        /**
+         * @param file the file the asset was loaded from, or null if it is unknown
+         * @return the size of the asset in bytes
+         */
+        long sizeOf(T asset, FileHandle file);
+    }
+
+    static class TypeUsage{
+        long budget = Long.MAX_VALUE, used;
+    }
+
+    static class Resident{
+        AssetDescriptor<?> desc;
+        long size, lastUse, order;
+    }
+}
@@ -38,4 +38,13 @@ public abstract class AssetLoader<T, P extends AssetLoaderParameters<T>>{
      * @return other assets that the asset depends on and need to be loaded first or null if there are no dependencies.
      */
     public abstract Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, P parameter);
+
+    /**
+     * Returns whether this loader can load several assets at the same time, which the {@link io.anuke.arc.assets.AssetManager}
+     * does when {@link io.anuke.arc.assets.AssetManager#setParallelLoading(boolean) loading in parallel}. Loaders that keep the
+     * state of an asset in fields between loading steps must return false, which is the default.
+     */
+    public boolean isConcurrent(){
+        return false;
+    }
 }
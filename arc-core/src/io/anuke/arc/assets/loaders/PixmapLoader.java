@@ -4,6 +4,7 @@ import io.anuke.arc.assets.AssetDescriptor;
 import io.anuke.arc.assets.AssetLoaderParameters;
 import io.anuke.arc.assets.AssetManager;
 import io.anuke.arc.collection.Array;
+import io.anuke.arc.collection.ObjectMap;
 import io.anuke.arc.files.FileHandle;
 import io.anuke.arc.graphics.Pixmap;
 
@@ -12,7 +13,8 @@ import io.anuke.arc.graphics.Pixmap;
  * @author mzechner
  */
 public class PixmapLoader extends AsynchronousAssetLoader<Pixmap, PixmapLoader.PixmapParameter>{
-    Pixmap pixmap;
+    /** Pixmaps that were loaded asynchronously, by file name. */
+    final ObjectMap<String, Pixmap> pixmaps = new ObjectMap<>();
 
     public PixmapLoader(FileHandleResolver resolver){
         super(resolver);
@@ -20,15 +22,17 @@ public class PixmapLoader extends AsynchronousAssetLoader<Pixmap, PixmapLoader.P
 
     @Override
     public void loadAsync(AssetManager manager, String fileName, FileHandle file, PixmapParameter parameter){
-        pixmap = null;
-        pixmap = new Pixmap(file);
+        Pixmap pixmap = new Pixmap(file);
+        synchronized(pixmaps){
+            pixmaps.put(fileName, pixmap);
+        }
     }
 
     @Override
     public Pixmap loadSync(AssetManager manager, String fileName, FileHandle file, PixmapParameter parameter){
-        Pixmap pixmap = this.pixmap;
-        this.pixmap = null;
-        return pixmap;
+        synchronized(pixmaps){
+            return pixmaps.remove(fileName);
+        }
     }
 
     @Override
@@ -36,6 +40,11 @@ public class PixmapLoader extends AsynchronousAssetLoader<Pixmap, PixmapLoader.P
         return null;
     }
 
+    @Override
+    public boolean isConcurrent(){
+        return true;
+    }
+
     public static class PixmapParameter extends AssetLoaderParameters<Pixmap>{
     }
 }
@@ -1,5 +1,6 @@
 package io.anuke.arc.assets.loaders;
 
+import io.anuke.arc.Core;
 import io.anuke.arc.assets.AssetDescriptor;
 import io.anuke.arc.assets.AssetLoaderParameters;
 import io.anuke.arc.assets.AssetManager;
@@ -26,11 +27,14 @@ public class TextureAtlasLoader extends SynchronousAssetLoader<TextureAtlas, Tex
 
     @Override
     public TextureAtlas load(AssetManager assetManager, String fileName, FileHandle file, TextureAtlasParameter parameter){
-        for(Page page : data.getPages()){
-            page.texture = assetManager.get(page.textureFile.path().replaceAll("\\\\", "/"), Texture.class);
+        boolean array = useTextureArray(parameter);
+        if(!array){
+            for(Page page : data.getPages()){
+                page.texture = assetManager.get(page.textureFile.path().replaceAll("\\\\", "/"), Texture.class);
+            }
         }
 
-        TextureAtlas atlas = new TextureAtlas(data);
+        TextureAtlas atlas = new TextureAtlas(data, array);
         data = null;
         return atlas;
     }
@@ -46,6 +50,9 @@ public class TextureAtlasLoader extends SynchronousAssetLoader<TextureAtlas, Tex
         }
 
         Array<AssetDescriptor> dependencies = new Array<>();
+        //pages are loaded into texture arrays by the atlas itself
+        if(useTextureArray(parameter)) return dependencies;
+
         for(Page page : data.getPages()){
             TextureParameter params = new TextureParameter();
             params.format = page.format;
@@ -57,9 +64,19 @@ public class TextureAtlasLoader extends SynchronousAssetLoader<TextureAtlas, Tex
         return dependencies;
     }
 
+    private static boolean useTextureArray(TextureAtlasParameter parameter){
+        return parameter != null && parameter.textureArray && Core.gl30 != null;
+    }
+
     public static class TextureAtlasParameter extends AssetLoaderParameters<TextureAtlas>{
         /** whether to flip the texture atlas vertically **/
         public boolean flip = false;
+        /**
+         * whether to load pages of equal size and format into a {@link io.anuke.arc.graphics.TextureArray}, to be drawn with an
+         * {@link io.anuke.arc.graphics.g2d.ArraySpriteBatch}. Ignored without GL30.
+         * @see TextureAtlas#TextureAtlas(TextureAtlasData, boolean)
+         **/
+        public boolean textureArray = false;
 
         public TextureAtlasParameter(){
         }
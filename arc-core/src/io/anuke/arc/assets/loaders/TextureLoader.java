@@ -6,6 +6,8 @@ import io.anuke.arc.files.*;
 import io.anuke.arc.graphics.Pixmap.*;
 import io.anuke.arc.graphics.*;
 import io.anuke.arc.graphics.Texture.*;
+import io.anuke.arc.graphics.TextureData.*;
+import io.anuke.arc.util.*;
 
 /**
  * {@link AssetLoader} for {@link Texture} instances. The pixel data is loaded asynchronously. The texture is then created on the
@@ -15,7 +17,13 @@ import io.anuke.arc.graphics.Texture.*;
  * @author mzechner
  */
 public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoader.TextureParameter>{
-    TextureLoaderInfo info = new TextureLoaderInfo();
+    /** The state of textures between the asynchronous and synchronous loading steps, by file name. */
+    final ObjectMap<String, TextureLoaderInfo> infos = new ObjectMap<>();
+    /**
+     * If set, texture uploads are limited to the upload budget of this pipeline. Loading is deferred to a later
+     * {@link AssetManager#update()} once the budget of the current frame is used up.
+     */
+    public TexturePipeline pipeline;
 
     public TextureLoader(FileHandleResolver resolver){
         super(resolver);
@@ -23,6 +31,7 @@ public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoade
 
     @Override
     public void loadAsync(AssetManager manager, String fileName, FileHandle file, TextureParameter parameter){
+        TextureLoaderInfo info = new TextureLoaderInfo();
         info.filename = fileName;
         if(parameter == null || parameter.textureData == null){
             Format format = null;
@@ -41,17 +50,37 @@ public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoade
             info.texture = parameter.texture;
         }
         if(!info.data.isPrepared()) info.data.prepare();
+        synchronized(infos){
+            infos.put(fileName, info);
+        }
     }
 
     @Override
     public Texture loadSync(AssetManager manager, String fileName, FileHandle file, TextureParameter parameter){
+        TextureLoaderInfo info;
+        synchronized(infos){
+            info = infos.get(fileName);
+        }
         if(info == null) return null;
+        if(pipeline != null && !pipeline.beginUpload()) return null;
+
+        long start = Time.nanos();
         Texture texture = info.texture;
-        if(texture != null){
-            texture.load(info.data);
-        }else{
-            texture = new Texture(info.data);
+        boolean uploaded = false;
+        try{
+            if(texture != null){
+                texture.load(info.data);
+            }else{
+                texture = pipeline != null ? pipeline.createTexture(info.data) : new Texture(info.data);
+            }
+            uploaded = true;
+        }finally{
+            synchronized(infos){
+                infos.remove(fileName);
+            }
+            if(!uploaded) disposeData(info.data);
         }
+        if(pipeline != null) pipeline.endUpload(start, texture);
         if(parameter != null){
             texture.setFilter(parameter.minFilter, parameter.magFilter);
             texture.setWrap(parameter.wrapU, parameter.wrapV);
@@ -59,11 +88,23 @@ public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoade
         return texture;
     }
 
+    /** Frees the pixmap of prepared data that was never uploaded. */
+    private static void disposeData(TextureData data){
+        if(data.getType() != TextureDataType.Pixmap || !data.isPrepared()) return;
+        Pixmap pixmap = data.consumePixmap();
+        if(pixmap != null && !pixmap.isDisposed() && data.disposePixmap()) pixmap.dispose();
+    }
+
     @Override
     public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, TextureParameter parameter){
         return null;
     }
 
+    @Override
+    public boolean isConcurrent(){
+        return true;
+    }
+
     public static class TextureLoaderInfo{
         String filename;
         TextureData data;
@@ -0,0 +1,46 @@
+package io.anuke.arc.assets.loaders.resolvers;
+
+import io.anuke.arc.assets.loaders.FileHandleResolver;
+import io.anuke.arc.files.AssetPack;
+import io.anuke.arc.files.FileHandle;
+
+/**
+ * {@link FileHandleResolver} that resolves files from an {@link AssetPack}. Files that are not in the pack are passed to the
+ * fallback resolver, if there is one; otherwise a handle to a file that doesn't exist is returned.
+ */
+public class PackFileHandleResolver implements FileHandleResolver{
+    private AssetPack pack;
+    private FileHandleResolver fallback;
+
+    public PackFileHandleResolver(AssetPack pack){
+        this(pack, null);
+    }
+
+    public PackFileHandleResolver(AssetPack pack, FileHandleResolver fallback){
+        this.pack = pack;
+        this.fallback = fallback;
+    }
+
+    public AssetPack getPack(){
+        return pack;
+    }
+
+    public void setPack(AssetPack pack){
+        this.pack = pack;
+    }
+
+    public FileHandleResolver getFallback(){
+        return fallback;
+    }
+
+    public void setFallback(FileHandleResolver fallback){
+        this.fallback = fallback;
+    }
+
+    @Override
+    public FileHandle resolve(String fileName){
+        FileHandle handle = pack.get(fileName);
+        if(handle != null) return handle;
+        return fallback != null ? fallback.resolve(fileName) : pack.root().child(fileName);
+    }
+}
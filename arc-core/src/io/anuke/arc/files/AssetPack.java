@@ -0,0 +1,241 @@
+package io.anuke.arc.files;
+
+import io.anuke.arc.collection.Array;
+import io.anuke.arc.collection.ObjectMap;
+import io.anuke.arc.util.ArcRuntimeException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A single file containing many assets, which is memory mapped once instead of opening every asset separately. Its files are
+ * accessed through {@link PackFileHandle}s, which behave like internal file handles, so asset loaders work unchanged; see
+ * {@link io.anuke.arc.assets.loaders.resolvers.PackFileHandleResolver}.
+ * <p>
+ * The format is little endian. A 32 byte header is followed by the file contents, each aligned to {@link #alignment} bytes and
+ * optionally deflate compressed, then by an index of fixed size records sorted by path and a table of all paths encoded as
+ * UTF-8. Every record has the CRC32 of the uncompressed contents, which {@link PackFileHandle} verifies when it copies or
+ * inflates a file. Packs are created with {@link #write(FileHandle, FileHandle, boolean)}.
+ */
+public class AssetPack{
+    /** The first four bytes of every pack: "APAK". */
+    public static final int magic = 0x4B415041;
+    public static final int version = 1;
+    /** Alignment of file contents in the pack, in bytes. */
+    public static final int alignment = 16;
+
+    static final int headerSize = 32, recordSize = 32;
+    static final int flagCompressed = 1;
+
+    final FileHandle file;
+    final ByteBuffer buffer;
+    private final PackFileHandle root;
+    private final ObjectMap<String, PackFileHandle> handles;
+
+    /** Opens a pack, memory mapping it if the file type allows. */
+    public AssetPack(FileHandle file){
+        this.file = file;
+        this.buffer = load(file).order(ByteOrder.LITTLE_ENDIAN);
+
+        try{
+            if(buffer.getInt(0) != magic) throw new ArcRuntimeException("Not an asset pack.");
+            int fileVersion = buffer.getInt(4);
+            if(fileVersion != version) throw new ArcRuntimeException("Unsupported asset pack version: " + fileVersion);
+
+            int count = buffer.getInt(8);
+            int index = (int)buffer.getLong(16);
+            int stringsSize = buffer.getInt(24);
+
+            byte[] strings = new byte[stringsSize];
+            ByteBuffer view = buffer.duplicate();
+            view.position(index + count * recordSize);
+            view.get(strings);
+
+            handles = new ObjectMap<>(count + count / 4);
+            root = new PackFileHandle(this, "", null);
+            handles.put("", root);
+
+            for(int i = 0, pos = index; i < count; i++, pos += recordSize){
+                String path = new String(strings, buffer.getInt(pos), buffer.getInt(pos + 4), StandardCharsets.UTF_8);
+                PackFileHandle parent = directory(parentPath(path));
+                PackFileHandle handle = new PackFileHandle(this, path, parent);
+                handle.offset = (int)buffer.getLong(pos + 8);
+                handle.size = buffer.getInt(pos + 16);
+                handle.originalSize = buffer.getInt(pos + 20);
+                handle.compressed = (buffer.getInt(pos + 24) & flagCompressed) != 0;
+                handle.crc = buffer.getInt(pos + 28);
+                parent.addChild(handle);
+                handles.put(path, handle);
+            }
+        }catch(ArcRuntimeException e){
+            throw new ArcRuntimeException("Error reading asset pack: " + file, e);
+        }catch(RuntimeException e){
+            throw new ArcRuntimeException("Corrupt asset pack: " + file, e);
+        }
+    }
+
+    private static ByteBuffer load(FileHandle file){
+        try{
+            return file.map();
+        }catch(ArcRuntimeException ignored){
+            //classpath files and compressed Android assets can't be mapped
+        }
+        return ByteBuffer.wrap(file.readBytes());
+    }
+
+    private PackFileHandle directory(String path){
+        PackFileHandle dir = handles.get(path);
+        if(dir == null){
+            PackFileHandle parent = directory(parentPath(path));
+            dir = new PackFileHandle(this, path, parent);
+            parent.addChild(dir);
+            handles.put(path, dir);
+        }
+        return dir;
+    }
+
+    private static String parentPath(String path){
+        int index = path.lastIndexOf('/');
+        return index == -1 ? "" : path.substring(0, index);
+    }
+
+    /** @return the root directory of the pack */
+    public PackFileHandle root(){
+        return root;
+    }
+
+    /**
+     * @param path a path relative to the root of the pack, separated by '/'
+     * @return the file or directory with the path, or null if the pack doesn't contain it
+     */
+    public PackFileHandle get(String path){
+        PackFileHandle handle = handles.get(path);
+        if(handle == null && path.length() > 0){
+            handle = handles.get(normalize(path));
+        }
+        return handle;
+    }
+
+    /** @return whether the pack contains a file or directory with the path */
+    public boolean contains(String path){
+        return get(path) != null;
+    }
+
+    /** @return the file the pack was loaded from */
+    public FileHandle file(){
+        return file;
+    }
+
+    private static String normalize(String path){
+        path = path.replace('\\', '/');
+        while(path.startsWith("./")) path = path.substring(2);
+        while(path.startsWith("/")) path = path.substring(1);
+        while(path.endsWith("/")) path = path.substring(0, path.length() - 1);
+        return path;
+    }
+
+    /**
+     * Writes all files in a directory and its subdirectories into a pack. Paths are stored relative to the directory.
+     * @param compress whether to deflate files; a file is only stored compressed if that saves at least an eighth of its size
+     */
+    public static void write(FileHandle directory, FileHandle output, boolean compress){
+        Array<FileHandle> files = new Array<>();
+        directory.walk(files::add);
+
+        String base = directory.path();
+        Array<String> paths = new Array<>(files.size);
+        for(FileHandle file : files){
+            String path = file.path();
+            paths.add(normalize(path.startsWith(base) ? path.substring(base.length()) : path));
+        }
+        write(files, paths, output, compress);
+    }
+
+    /**
+     * Writes files into a pack under the specified paths.
+     * @param paths the paths of the files in the pack, separated by '/'
+     */
+    public static void write(Array<FileHandle> files, Array<String> paths, FileHandle output, boolean compress){
+        if(files.size != paths.size) throw new IllegalArgumentException("There must be a path for every file.");
+
+        //records are sorted by path, so packs are reproducible
+        Integer[] order = new Integer[files.size];
+        for(int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> paths.get(a).compareTo(paths.get(b)));
+
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        ByteBuffer index = ByteBuffer.allocate(files.size * recordSize).order(ByteOrder.LITTLE_ENDIAN);
+        Deflater deflater = compress ? new Deflater(Deflater.BEST_COMPRESSION) : null;
+        byte[] scratch = new byte[8192];
+
+        output.parent().mkdirs();
+        try(RandomAccessFile out = new RandomAccessFile(output.file(), "rw")){
+            out.setLength(0);
+            out.write(new byte[headerSize]);
+            long position = headerSize;
+
+            for(int i : order){
+                byte[] data = files.get(i).readBytes();
+                byte[] stored = data;
+                int flags = 0;
+
+                if(deflater != null){
+                    ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 2 + 64);
+                    deflater.reset();
+                    deflater.setInput(data);
+                    deflater.finish();
+                    while(!deflater.finished()){
+                        compressed.write(scratch, 0, deflater.deflate(scratch));
+                    }
+                    if(compressed.size() <= data.length - data.length / 8){
+                        stored = compressed.toByteArray();
+                        flags |= flagCompressed;
+                    }
+                }
+
+                int padding = (int)((alignment - position % alignment) % alignment);
+                out.write(new byte[padding]);
+                position += padding;
+
+                byte[] path = paths.get(i).getBytes(StandardCharsets.UTF_8);
+                CRC32 crc = new CRC32();
+                crc.update(data);
+                index.putInt(strings.size());
+                index.putInt(path.length);
+                index.putLong(position);
+                index.putInt(stored.length);
+                index.putInt(data.length);
+                index.putInt(flags);
+                index.putInt((int)crc.getValue());
+                strings.write(path, 0, path.length);
+
+                out.write(stored);
+                position += stored.length;
+            }
+
+            long indexOffset = position;
+            out.write(index.array());
+            out.write(strings.toByteArray());
+            if(out.length() > Integer.MAX_VALUE) throw new ArcRuntimeException("Asset packs are limited to 2GB.");
+
+            ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(magic);
+            header.putInt(version);
+            header.putInt(files.size);
+            header.putInt(alignment);
+            header.putLong(indexOffset);
+            header.putInt(strings.size());
+            out.seek(0);
+            out.write(header.array());
+        }catch(IOException e){
+            throw new ArcRuntimeException("Error writing asset pack: " + output, e);
+        }finally{
+            if(deflater != null) deflater.end();
+        }
+    }
+}
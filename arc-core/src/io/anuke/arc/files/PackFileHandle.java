@@ -0,0 +1,209 @@
+package io.anuke.arc.files;
+
+import io.anuke.arc.Files.FileType;
+import io.anuke.arc.collection.Array;
+import io.anuke.arc.util.ArcRuntimeException;
+import io.anuke.arc.util.io.ByteBufferInputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A file or directory inside an {@link AssetPack}. Behaves like a read-only {@link FileType#Internal} handle, but reads its contents
+ * from the mapped pack. {@link #map()} returns a view of the pack without copying for files that are not compressed.
+ * <p>
+ * The checksum of a file is verified whenever its contents are copied or inflated: by {@link #readBytes()}, by {@link #map()} for
+ * compressed files, and at the end of streams of compressed files. Views of uncompressed files are not verified.
+ */
+public class PackFileHandle extends FileHandle{
+    private static final PackFileHandle[] noChildren = {};
+
+    private final AssetPack pack;
+    private final PackFileHandle parent;
+    /** Offset of the data in the pack, or -1 for directories. */
+    int offset = -1;
+    int size, originalSize;
+    /** The CRC32 of the uncompressed contents. */
+    int crc;
+    boolean compressed;
+
+    private Array<PackFileHandle> childList;
+    private PackFileHandle[] children;
+
+    PackFileHandle(AssetPack pack, String path, PackFileHandle parent){
+        super(new File(path), FileType.Internal);
+        this.pack = pack;
+        this.parent = parent;
+    }
+
+    void addChild(PackFileHandle child){
+        if(childList == null) childList = new Array<>(false, 4, PackFileHandle.class);
+        childList.add(child);
+    }
+
+    /** @return the pack containing this file */
+    public AssetPack getPack(){
+        return pack;
+    }
+
+    /** @return whether the contents of this file are deflate compressed in the pack */
+    public boolean isCompressed(){
+        return compressed;
+    }
+
+    @Override
+    public boolean exists(){
+        return true;
+    }
+
+    @Override
+    public boolean isDirectory(){
+        return offset == -1;
+    }
+
+    @Override
+    public String path(){
+        return file.getPath().replace('\\', '/');
+    }
+
+    @Override
+    public FileHandle child(String name){
+        PackFileHandle result = pack.get(file.getPath().isEmpty() ? name : path() + "/" + name);
+        if(result != null) return result;
+
+        return new FileHandle(file.getPath().isEmpty() ? new File(name) : new File(file, name), FileType.Internal){
+            @Override
+            public boolean exists(){
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public FileHandle sibling(String name){
+        if(parent == null) throw new ArcRuntimeException("Cannot get the sibling of the root.");
+        return parent.child(name);
+    }
+
+    @Override
+    public FileHandle parent(){
+        return parent == null ? this : parent;
+    }
+
+    @Override
+    public FileHandle[] list(){
+        PackFileHandle[] result = children;
+        if(result == null){
+            result = childList == null ? noChildren : Arrays.copyOf(childList.items, childList.size);
+            children = result;
+        }
+        return result;
+    }
+
+    @Override
+    public InputStream read(){
+        if(isDirectory()) throw new ArcRuntimeException("Cannot open a stream to a directory: " + this);
+        InputStream stream = new ByteBufferInputStream(slice());
+        return compressed ? new VerifiedStream(new InflaterInputStream(stream)) : stream;
+    }
+
+    @Override
+    public byte[] readBytes(){
+        if(isDirectory()) throw new ArcRuntimeException("Cannot read a directory: " + this);
+        ByteBuffer slice = slice();
+        byte[] data = new byte[size];
+        slice.get(data);
+        if(compressed) data = inflate(data);
+
+        CRC32 checksum = new CRC32();
+        checksum.update(data);
+        if((int)checksum.getValue() != crc) throw new ArcRuntimeException("Corrupt file in asset pack: " + this);
+        return data;
+    }
+
+    /**
+     * Returns the contents of this file. Uncompressed files are a read-only view of the mapped pack; compressed files are
+     * inflated into a new buffer. The byte order is native, as with other file handles.
+     */
+    @Override
+    public ByteBuffer map(FileChannel.MapMode mode){
+        if(isDirectory()) throw new ArcRuntimeException("Cannot map a directory: " + this);
+        if(mode != MapMode.READ_ONLY) throw new ArcRuntimeException("Pack files can only be mapped read-only: " + this);
+        ByteBuffer buffer = compressed ? ByteBuffer.wrap(readBytes()) : slice();
+        buffer.order(ByteOrder.nativeOrder());
+        return buffer;
+    }
+
+    @Override
+    public long length(){
+        return isDirectory() ? 0 : originalSize;
+    }
+
+    @Override
+    public long lastModified(){
+        return pack.file.lastModified();
+    }
+
+    private ByteBuffer slice(){
+        ByteBuffer buffer = pack.buffer.duplicate();
+        buffer.position(offset);
+        buffer.limit(offset + size);
+        return buffer.slice().asReadOnlyBuffer();
+    }
+
+    private byte[] inflate(byte[] data){
+        Inflater inflater = new Inflater();
+        try{
+            inflater.setInput(data);
+            byte[] result = new byte[originalSize];
+            int length = 0;
+            while(length < result.length && !inflater.finished()){
+                int count = inflater.inflate(result, length, result.length - length);
+                if(count == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                length += count;
+            }
+            if(length != originalSize) throw new ArcRuntimeException("Corrupt file in asset pack: " + this);
+            return result;
+        }catch(DataFormatException e){
+            throw new ArcRuntimeException("Corrupt file in asset pack: " + this, e);
+        }finally{
+            inflater.end();
+        }
+    }
+
+    /** Checks the contents of a compressed file against its checksum once the end of the stream is reached. */
+    private class VerifiedStream extends CheckedInputStream{
+        VerifiedStream(InputStream in){
+            super(in, new CRC32());
+        }
+
+        @Override
+        public int read() throws IOException{
+            int b = super.read();
+            if(b == -1) verify();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException{
+            int count = super.read(bytes, offset, length);
+            if(count == -1) verify();
+            return count;
+        }
+
+        private void verify() throws IOException{
+            if((int)getChecksum().getValue() != crc) throw new IOException("Corrupt file in asset pack: " + PackFileHandle.this);
+        }
+    }
+}
@@ -3,47 +3,111 @@ package io.anuke.arc.files;
 import io.anuke.arc.Files.*;
 import io.anuke.arc.collection.*;
 import io.anuke.arc.util.*;
+import io.anuke.arc.util.io.*;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.zip.*;
 
-/** A FileHandle meant for easily representing and reading the contents of a zip/jar file.*/
+/**
+ * A FileHandle meant for easily representing and reading the contents of a zip/jar file.
+ * <p>
+ * The directory tree is built in a single pass over the entries, creating directories that have no entry of their own. Child
+ * lookups are hashed, and all handles of an archive share one {@link ZipFile}. Entries that are stored without compression can
+ * be {@link #map() memory mapped} without copying; compressed entries are inflated into a buffer instead.
+ */
 public class ZipFileHandle extends FileHandle{
-    private ZipFileHandle[] children = {};
-    private ZipFileHandle parent;
+    private static final ZipFileHandle[] noChildren = {};
 
-    private final ZipEntry entry;
-    private final ZipFile zip;
+    private final Archive archive;
+    private final ZipFileHandle parent;
+    private final boolean directory;
+    private ZipEntry entry;
+
+    /** Children in archive order, or null for files and empty directories. */
+    private Array<ZipFileHandle> childList;
+    /** Created on demand from the child list, and published through volatile fields so other threads see them complete. */
+    private volatile ZipFileHandle[] children;
+    private volatile ObjectMap<String, ZipFileHandle> childMap;
 
     public ZipFileHandle(FileHandle zipFileLoc){
         super(new File(""), FileType.Absolute);
-        zip = null;
-        entry = null;
+        parent = null;
+        directory = true;
 
         try{
-            ZipFile zip = new ZipFile(zipFileLoc.file());
-            Array<ZipFileHandle> handles = Array.with(Collections.list(zip.entries()).toArray(new ZipEntry[0])).map(entry -> new ZipFileHandle(entry, zip));
-            handles.add(this);
-            handles.each(f -> f.init(handles));
-            parent = null;
-            handles.each(f -> f.children = handles.select(z -> z.parent == f).toArray(ZipFileHandle.class));
+            archive = new Archive(zipFileLoc.file());
         }catch(IOException e){
             throw new ArcRuntimeException(e);
         }
+
+        ObjectMap<String, ZipFileHandle> directories = new ObjectMap<>();
+        directories.put("", this);
+
+        Enumeration<? extends ZipEntry> entries = archive.zip.entries();
+        while(entries.hasMoreElements()){
+            ZipEntry entry = entries.nextElement();
+            String path = entry.getName();
+            if(path.endsWith("/")) path = path.substring(0, path.length() - 1);
+            if(path.isEmpty()) continue;
+
+            if(entry.isDirectory()){
+                directory(directories, path).entry = entry;
+            }else{
+                ZipFileHandle parent = directory(directories, parentPath(path));
+                parent.addChild(new ZipFileHandle(archive, entry, path, parent, false));
+            }
+        }
     }
 
-    private ZipFileHandle(ZipEntry entry, ZipFile file){
-        super(new File(entry.getName()), FileType.Absolute);
+    private ZipFileHandle(Archive archive, ZipEntry entry, String path, ZipFileHandle parent, boolean directory){
+        super(new File(path), FileType.Absolute);
+        this.archive = archive;
         this.entry = entry;
-        this.zip = file;
+        this.parent = parent;
+        this.directory = directory;
     }
 
-    private void init(Array<ZipFileHandle> files){
-        parent = files.find(other -> other.isDirectory() && other != this && path().startsWith(other.path()) && !path().substring(1 + other.path().length()).contains("/"));
-        if(parent == null){
-            parent = files.peek();
+    /** @return the directory with the path, creating it and its parents if they don't exist yet */
+    private ZipFileHandle directory(ObjectMap<String, ZipFileHandle> directories, String path){
+        ZipFileHandle dir = directories.get(path);
+        if(dir == null){
+            ZipFileHandle parent = directory(directories, parentPath(path));
+            dir = new ZipFileHandle(archive, null, path, parent, true);
+            parent.addChild(dir);
+            directories.put(path, dir);
         }
+        return dir;
+    }
+
+    private void addChild(ZipFileHandle child){
+        if(childList == null) childList = new Array<>(false, 4, ZipFileHandle.class);
+        childList.add(child);
+    }
+
+    private static String parentPath(String path){
+        int index = path.lastIndexOf('/');
+        return index == -1 ? "" : path.substring(0, index);
+    }
+
+    private ObjectMap<String, ZipFileHandle> childMap(){
+        ObjectMap<String, ZipFileHandle> map = childMap;
+        if(map == null){
+            //built locally, so concurrent lookups at worst build it twice
+            map = new ObjectMap<>(childList == null ? 0 : childList.size);
+            if(childList != null){
+                for(int i = 0; i < childList.size; i++){
+                    ZipFileHandle child = childList.get(i);
+                    map.put(child.name(), child);
+                }
+            }
+            childMap = map;
+        }
+        return map;
     }
 
     @Override
@@ -51,13 +115,20 @@ public class ZipFileHandle extends FileHandle{
         return true;
     }
 
+    /** Returns a handle to the child with the specified name. Paths separated by '/' are resolved one directory at a time. */
     @Override
     public FileHandle child(String name){
-        for(ZipFileHandle child : children){
-            if(child.name().equals(name)){
-                return child;
-            }
+        ZipFileHandle current = this;
+        int start = 0;
+        while(current != null && start < name.length()){
+            int end = name.indexOf('/', start);
+            if(end == -1) end = name.length();
+            if(end > start) current = current.childMap().get(name.substring(start, end));
+            start = end + 1;
         }
+
+        if(current != null) return current;
+
         return new FileHandle(new File(file, name)){
             @Override
             public boolean exists(){
@@ -78,26 +149,145 @@ public class ZipFileHandle extends FileHandle{
 
     @Override
     public FileHandle[] list(){
-        return children;
+        ZipFileHandle[] result = children;
+        if(result == null){
+            result = childList == null ? noChildren : Arrays.copyOf(childList.items, childList.size);
+            children = result;
+        }
+        return result;
     }
 
     @Override
     public boolean isDirectory(){
-        return entry == null || entry.isDirectory();
+        return directory;
     }
 
     @Override
     public InputStream read(){
-        if(entry == null) throw new RuntimeException("Not permitted.");
+        if(entry == null || directory) throw new RuntimeException("Not permitted.");
         try{
-            return zip.getInputStream(entry);
+            return archive.zip.getInputStream(entry);
         }catch(IOException e){
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Returns the contents of this entry. Entries stored without compression are a read-only view of the memory mapped archive;
+     * compressed entries are inflated into a new buffer. The byte order is native, as with other file handles.
+     */
+    @Override
+    public ByteBuffer map(FileChannel.MapMode mode){
+        if(entry == null || directory) throw new ArcRuntimeException("Cannot map a directory: " + this);
+        if(mode != MapMode.READ_ONLY) throw new ArcRuntimeException("Zip entries can only be mapped read-only: " + this);
+
+        ByteBuffer buffer = entry.getMethod() == ZipEntry.STORED ? archive.slice(entry) : null;
+        if(buffer == null){
+            buffer = ByteBuffer.wrap(readBytes());
+        }
+        buffer.order(ByteOrder.nativeOrder());
+        return buffer;
+    }
+
     @Override
     public long length(){
         return isDirectory() ? 0 : entry.getSize();
     }
-}
\ No newline at end of file
+
+    @Override
+    public long lastModified(){
+        return entry == null ? 0 : entry.getTime();
+    }
+
+    /** Closes the archive. Entries can no longer be read afterwards, but mapped buffers stay valid. */
+    public void close(){
+        Streams.closeQuietly(archive.zip);
+    }
+
+    /** The shared state of all handles of one archive. */
+    static class Archive{
+        final File file;
+        final ZipFile zip;
+        /** The whole archive, mapped when a stored entry is first mapped. */
+        private ByteBuffer mapped;
+        /** Offsets of the local headers of stored entries, by entry name. Null if the central directory can't be read. */
+        private ObjectMap<String, Long> offsets;
+        private boolean indexed;
+
+        Archive(File file) throws IOException{
+            this.file = file;
+            this.zip = new ZipFile(file);
+        }
+
+        /** @return a view of the data of a stored entry, or null if it can't be mapped */
+        synchronized ByteBuffer slice(ZipEntry entry){
+            if(!indexed){
+                indexed = true;
+                try{
+                    if(file.length() > Integer.MAX_VALUE) return null;
+                    try(RandomAccessFile raf = new RandomAccessFile(file, "r")){
+                        mapped = raf.getChannel().map(MapMode.READ_ONLY, 0, raf.length());
+                    }
+                    mapped.order(ByteOrder.LITTLE_ENDIAN);
+                    offsets = readOffsets(mapped);
+                }catch(IOException | RuntimeException e){
+                    Log.err("Unable to map zip file " + file + ", entries are read instead.", e);
+                    mapped = null;
+                    offsets = null;
+                }
+            }
+            if(offsets == null) return null;
+
+            Long header = offsets.get(entry.getName());
+            if(header == null) return null;
+
+            ByteBuffer buffer = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            int local = (int)(long)header;
+            if(buffer.getInt(local) != 0x04034b50) return null;
+            int start = local + 30 + (buffer.getShort(local + 26) & 0xffff) + (buffer.getShort(local + 28) & 0xffff);
+            long size = entry.getCompressedSize();
+            if(size < 0 || start + size > buffer.capacity()) return null;
+
+            buffer.position(start);
+            buffer.limit((int)(start + size));
+            return buffer.slice().asReadOnlyBuffer();
+        }
+
+        /** Reads the central directory. Zip64 archives are not supported and return null. */
+        private static ObjectMap<String, Long> readOffsets(ByteBuffer buffer){
+            int end = -1;
+            for(int i = buffer.capacity() - 22; i >= Math.max(0, buffer.capacity() - 22 - 0xffff); i--){
+                if(buffer.getInt(i) == 0x06054b50){
+                    end = i;
+                    break;
+                }
+            }
+            if(end == -1) return null;
+
+            int count = buffer.getShort(end + 10) & 0xffff;
+            long directory = buffer.getInt(end + 16) & 0xffffffffL;
+            if(count == 0xffff || directory == 0xffffffffL) return null;
+
+            ObjectMap<String, Long> offsets = new ObjectMap<>(count);
+            int pos = (int)directory;
+            for(int i = 0; i < count; i++){
+                if(buffer.getInt(pos) != 0x02014b50) return null;
+                int method = buffer.getShort(pos + 10) & 0xffff;
+                int nameLength = buffer.getShort(pos + 28) & 0xffff;
+                int extraLength = buffer.getShort(pos + 30) & 0xffff;
+                int commentLength = buffer.getShort(pos + 32) & 0xffff;
+                long header = buffer.getInt(pos + 42) & 0xffffffffL;
+
+                if(method == ZipEntry.STORED){
+                    byte[] name = new byte[nameLength];
+                    ByteBuffer view = buffer.duplicate();
+                    view.position(pos + 46);
+                    view.get(name);
+                    offsets.put(new String(name, StandardCharsets.UTF_8), header);
+                }
+                pos += 46 + nameLength + extraLength + commentLength;
+            }
+            return offsets;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package io.anuke.arc.graphics;
+
+import io.anuke.arc.Core;
+import io.anuke.arc.graphics.glutils.*;
+import io.anuke.arc.util.ArcRuntimeException;
+
+import java.nio.FloatBuffer;
+
+/**
+ * A {@link Mesh} that is drawn many times in a single draw call. Besides the per-vertex attributes, an InstancedMesh holds
+ * per-instance attributes in an {@link InstanceBufferObject}; these advance once per instance (or once per divisor
+ * instances) instead of once per vertex. Requires OpenGL (ES) 3.0.
+ * <p>
+ * Draw it with {@link #renderInstanced(Shader, int, int, int, int)}. The regular render methods draw a single instance.
+ */
+public class InstancedMesh extends Mesh{
+    final InstanceBufferObject instances;
+
+    /**
+     * Creates a new InstancedMesh with a divisor of 1.
+     * @param isStatic whether the vertices and indices of this mesh are static. Instance data is always streamed.
+     * @param maxVertices the maximum number of vertices this mesh can hold
+     * @param maxIndices the maximum number of indices this mesh can hold
+     * @param maxInstances the maximum number of instances this mesh can hold
+     * @param vertexAttributes the per-vertex {@link VertexAttributes}
+     * @param instanceAttributes the per-instance {@link VertexAttributes}
+     */
+    public InstancedMesh(boolean isStatic, int maxVertices, int maxIndices, int maxInstances,
+                         VertexAttributes vertexAttributes, VertexAttributes instanceAttributes){
+        this(isStatic, false, maxVertices, maxIndices, maxInstances, 1, vertexAttributes, instanceAttributes);
+    }
+
+    /**
+     * Creates a new InstancedMesh.
+     * @param isStatic whether the vertices and indices of this mesh are static.
+     * @param staticInstances whether the instance data of this mesh is static.
+     * @param maxVertices the maximum number of vertices this mesh can hold
+     * @param maxIndices the maximum number of indices this mesh can hold
+     * @param maxInstances the maximum number of instances this mesh can hold
+     * @param divisor the amount of instances drawn before the instance attributes advance
+     * @param vertexAttributes the per-vertex {@link VertexAttributes}
+     * @param instanceAttributes the per-instance {@link VertexAttributes}
+     */
+    public InstancedMesh(boolean isStatic, boolean staticInstances, int maxVertices, int maxIndices, int maxInstances, int divisor,
+                         VertexAttributes vertexAttributes, VertexAttributes instanceAttributes){
+        super(createVertices(isStatic, maxVertices, vertexAttributes), new IndexBufferObjectSubData(isStatic, maxIndices), false);
+        instances = new InstanceBufferObject(staticInstances, maxInstances, divisor, instanceAttributes);
+    }
+
+    private static VertexData createVertices(boolean isStatic, int maxVertices, VertexAttributes attributes){
+        if(Core.gl30 == null) throw new ArcRuntimeException("InstancedMesh requires GL30.");
+        return new VertexBufferObjectWithVAO(isStatic, maxVertices, attributes);
+    }
+
+    /**
+     * Sets the per-instance data of this mesh. The attributes are assumed to be given in float format.
+     * @param instances the instance data
+     * @param offset the offset into the instances array
+     * @param count the number of floats to use
+     * @return the mesh for invocation chaining.
+     */
+    public InstancedMesh setInstances(float[] instances, int offset, int count){
+        this.instances.setInstances(instances, offset, count);
+        return this;
+    }
+
+    /** @return the number of defined instances */
+    public int getNumInstances(){
+        return instances.getNumInstances();
+    }
+
+    /** @return the maximum number of instances this mesh can hold */
+    public int getMaxInstances(){
+        return instances.getNumMaxInstances();
+    }
+
+    /** @return the per-instance attributes of this mesh */
+    public VertexAttributes getInstanceAttributes(){
+        return instances.getAttributes();
+    }
+
+    /** @return the backing FloatBuffer holding the instance data. */
+    public FloatBuffer getInstancesBuffer(){
+        return instances.getBuffer();
+    }
+
+    @Override
+    public void bind(Shader shader, int[] locations){
+        super.bind(shader, locations);
+        instances.bind(shader);
+    }
+
+    @Override
+    public void unbind(Shader shader, int[] locations){
+        instances.unbind(shader);
+        super.unbind(shader, locations);
+    }
+
+    /**
+     * Renders all defined instances of this mesh.
+     * @see #renderInstanced(Shader, int, int, int, int)
+     */
+    public void renderInstanced(Shader shader, int primitiveType){
+        renderInstanced(shader, primitiveType, 0, indices.getNumMaxIndices() > 0 ? getNumIndices() : getNumVertices(), getNumInstances());
+    }
+
+    /**
+     * Renders this mesh multiple times with a single draw call. offset and count work the same way as in
+     * {@link #render(Shader, int, int, int)}.
+     * <p>
+     * This method must only be called after the {@link Shader#begin()} method has been called!
+     * @param shader the shader to be used
+     * @param primitiveType the primitive type
+     * @param offset the offset into the vertex or index buffer
+     * @param count number of vertices or indices to use
+     * @param instanceCount the number of instances to draw
+     */
+    public void renderInstanced(Shader shader, int primitiveType, int offset, int count, int instanceCount){
+        if(count == 0 || instanceCount == 0) return;
+
+        if(autoBind) bind(shader);
+
+        if(indices.getNumIndices() > 0){
+            if(count + offset > indices.getNumMaxIndices()){
+                throw new ArcRuntimeException("Mesh attempting to access memory outside of the index buffer (count: "
+                + count + ", offset: " + offset + ", max: " + indices.getNumMaxIndices() + ")");
+            }
+
+            Core.gl30.glDrawElementsInstanced(primitiveType, count, GL20.GL_UNSIGNED_SHORT, offset * 2, instanceCount);
+        }else{
+            Core.gl30.glDrawArraysInstanced(primitiveType, offset, count, instanceCount);
+        }
+
+        if(autoBind) unbind(shader);
+    }
+
+    @Override
+    void invalidate(){
+        super.invalidate();
+        instances.invalidate();
+    }
+
+    @Override
+    public void dispose(){
+        super.dispose();
+        instances.dispose();
+    }
+}
@@ -104,7 +104,7 @@ public class Mesh implements Disposable{
 
     /**
      * Creates a new Mesh with the given attributes. This is an expert method with no error checking. Use at your own risk.
-     * @param type the {@link VertexDataType} to be used, VBO or VA.
+     * @param type the {@link VertexDataType} to be used, VBO or VA. {@link VertexDataType#VertexBufferObjectStreaming} requires GL30.
      * @param isStatic whether this mesh is static or not. Allows for internal optimizations.
      * @param maxVertices the maximum number of vertices this mesh can hold
      * @param maxIndices the maximum number of indices this mesh can hold
@@ -117,7 +117,7 @@ public class Mesh implements Disposable{
 
     /**
      * Creates a new Mesh with the given attributes. This is an expert method with no error checking. Use at your own risk.
-     * @param type the {@link VertexDataType} to be used, VBO or VA.
+     * @param type the {@link VertexDataType} to be used, VBO or VA. {@link VertexDataType#VertexBufferObjectStreaming} requires GL30.
      * @param isStatic whether this mesh is static or not. Allows for internal optimizations.
      * @param maxVertices the maximum number of vertices this mesh can hold
      * @param maxIndices the maximum number of indices this mesh can hold
@@ -140,6 +140,11 @@ public class Mesh implements Disposable{
                 indices = new IndexBufferObjectSubData(isStatic, maxIndices);
                 isVertexArray = false;
                 break;
+            case VertexBufferObjectStreaming:
+                vertices = new VertexBufferObjectStreaming(VertexBufferObjectStreaming.defaultSegments, maxVertices, attributes);
+                indices = new IndexBufferObjectSubData(isStatic, maxIndices);
+                isVertexArray = false;
+                break;
             case VertexArray:
             default:
                 vertices = new VertexArray(maxVertices, attributes);
@@ -165,11 +170,16 @@ public class Mesh implements Disposable{
         Array<Mesh> meshesArray = meshes.get(app);
         if(meshesArray == null) return;
         for(int i = 0; i < meshesArray.size; i++){
-            meshesArray.get(i).vertices.invalidate();
-            meshesArray.get(i).indices.invalidate();
+            meshesArray.get(i).invalidate();
         }
     }
 
+    /** Invalidates the buffers of this mesh so new handles are generated. */
+    void invalidate(){
+        vertices.invalidate();
+        indices.invalidate();
+    }
+
     /** Will clear the managed mesh cache. I wouldn't use this if i was you :) */
     public static void clearAllMeshes(Application app){
         meshes.remove(app);
@@ -791,6 +801,8 @@ public class Mesh implements Disposable{
     }
 
     public enum VertexDataType{
-        VertexArray, VertexBufferObject, VertexBufferObjectSubData, VertexBufferObjectWithVAO
+        VertexArray, VertexBufferObject, VertexBufferObjectSubData, VertexBufferObjectWithVAO,
+        /** Round-robin, orphaned buffer segments for vertices that are rewritten before every draw. Requires GL30. */
+        VertexBufferObjectStreaming
     }
 }
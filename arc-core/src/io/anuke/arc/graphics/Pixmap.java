@@ -402,6 +402,15 @@ public class Pixmap implements Disposable{
         public static int toGlType(Format format){
             return Gdx2DPixmap.toGlType(toGdx2DPixmapFormat(format));
         }
+
+        public static int bytesPerPixel(Format format){
+            switch(format){
+                case Alpha: case Intensity: return 1;
+                case LuminanceAlpha: case RGB565: case RGBA4444: return 2;
+                case RGB888: return 3;
+                default: return 4;
+            }
+        }
     }
 
     /**
@@ -1,10 +1,13 @@
 package io.anuke.arc.graphics;
 
+import io.anuke.arc.collection.Array;
 import io.anuke.arc.collection.ByteArray;
 import io.anuke.arc.files.FileHandle;
 import io.anuke.arc.graphics.Pixmap.Format;
 import io.anuke.arc.util.ArcRuntimeException;
 import io.anuke.arc.util.Disposable;
+import io.anuke.arc.util.async.AsyncExecutor;
+import io.anuke.arc.util.async.AsyncResult;
 import io.anuke.arc.util.io.Streams;
 
 import java.io.*;
@@ -12,7 +15,7 @@ import java.nio.ByteBuffer;
 import java.util.zip.*;
 
 /**
- * Writes Pixmaps to various formats.
+ * Writes Pixmaps to various formats, and reads PNG and CIM files.
  * @author mzechner
  * @author Nathan Sweet
  */
@@ -37,20 +40,35 @@ public class PixmapIO{
     }
 
     /**
-     * Writes the pixmap as a PNG with compression. See {@link PNG} to configure the compression level, more efficiently flip the
-     * pixmap vertically, and to write out multiple PNGs with minimal allocation.
+     * Writes the pixmap as a PNG with compression, using a new {@link ParallelPNG} encoder. See {@link PNG} and
+     * {@link ParallelPNG} to configure the compression level, more efficiently flip the pixmap vertically, and to write out
+     * multiple PNGs with minimal allocation.
      */
     public static void writePNG(FileHandle file, Pixmap pixmap){
+        ParallelPNG writer = new ParallelPNG();
         try{
-            PNG writer = new PNG((int)(pixmap.getWidth() * pixmap.getHeight() * 1.5f)); // Guess at deflated size.
-            try{
-                writer.setFlipY(false);
-                writer.write(file, pixmap);
-            }finally{
-                writer.dispose();
-            }
+            writer.setFlipY(false);
+            writer.write(file, pixmap);
         }catch(IOException ex){
             throw new ArcRuntimeException("Error writing PNG: " + file, ex);
+        }finally{
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Reads a PNG file into a new RGBA8888 pixmap with a streaming decoder, without loading the whole file into memory.
+     * Throws a ArcRuntimeException in case the file couldn't be read.
+     * @see PNGReader
+     */
+    public static Pixmap readPNG(FileHandle file){
+        PNGReader reader = new PNGReader();
+        try{
+            return reader.read(file);
+        }catch(IOException ex){
+            throw new ArcRuntimeException("Error reading PNG: " + file, ex);
+        }finally{
+            reader.dispose();
         }
     }
 
@@ -320,4 +338,622 @@ public class PixmapIO{
             }
         }
     }
+
+    /**
+     * PNG encoder that filters and deflates bands of rows on multiple threads. Every band is compressed independently (primed
+     * with the end of the previous band as dictionary), and the results are concatenated into a single zlib stream, spread over
+     * one IDAT chunk per band. The output is a regular PNG that any decoder can read.
+     * <p>
+     * An instance reuses its deflaters and buffers across calls, and owns its worker threads; it must be disposed when no longer
+     * needed. An instance must not be used from multiple threads at once.
+     */
+    public static class ParallelPNG implements Disposable{
+        static private final int IHDR = 0x49484452, IDAT = 0x49444154, IEND = 0x49454E44;
+        /** Size of the deflate window, and the maximum dictionary size. */
+        static private final int WINDOW = 32768;
+
+        private final int threads;
+        private final AsyncExecutor executor;
+        private final Array<Band> bands = new Array<>();
+        private final Array<AsyncResult<Void>> results = new Array<>();
+        private final CRC32 crc = new CRC32();
+        private final byte[] header = new byte[13];
+        private int level = Deflater.DEFAULT_COMPRESSION;
+        private int bandSize = 256 * 1024;
+        private boolean flipY = true;
+
+        /** Creates an encoder with one thread per available processor. */
+        public ParallelPNG(){
+            this(Runtime.getRuntime().availableProcessors());
+        }
+
+        /** @param threads the maximum amount of bands that are compressed at the same time. */
+        public ParallelPNG(int threads){
+            this.threads = Math.max(threads, 1);
+            this.executor = this.threads > 1 ? new AsyncExecutor(this.threads) : null;
+        }
+
+        /** If true, the resulting PNG is flipped vertically. Default is true. */
+        public void setFlipY(boolean flipY){
+            this.flipY = flipY;
+        }
+
+        /** Sets the deflate compression level. Default is {@link Deflater#DEFAULT_COMPRESSION}. */
+        public void setCompression(int level){
+            this.level = level;
+        }
+
+        /**
+         * Sets the approximate amount of uncompressed bytes in a single band. Smaller bands parallelize better, larger bands
+         * compress slightly better. Default is 256KB.
+         */
+        public void setBandSize(int bytes){
+            this.bandSize = Math.max(bytes, 1);
+        }
+
+        public void write(FileHandle file, Pixmap pixmap) throws IOException{
+            OutputStream output = file.write(false, 1024 * 64);
+            try{
+                write(output, pixmap);
+            }finally{
+                Streams.closeQuietly(output);
+            }
+        }
+
+        /** Writes the pixmap to the stream without closing the stream. */
+        public void write(OutputStream output, Pixmap pixmap) throws IOException{
+            Pixmap source = PixmapKernels.rgba(pixmap);
+            try{
+                writeRGBA(output, source);
+            }finally{
+                if(source != pixmap) source.dispose();
+            }
+        }
+
+        private void writeRGBA(OutputStream output, Pixmap pixmap) throws IOException{
+            DataOutputStream dataOutput = new DataOutputStream(output);
+            dataOutput.write(PNG.SIGNATURE);
+
+            int width = pixmap.getWidth(), height = pixmap.getHeight();
+            ByteBuffer ihdr = ByteBuffer.wrap(header);
+            ihdr.putInt(width).putInt(height);
+            ihdr.put((byte)8).put(PNG.COLOR_ARGB).put(PNG.COMPRESSION_DEFLATE).put(PNG.FILTER_NONE).put(PNG.INTERLACE_NONE);
+            writeChunk(dataOutput, IHDR, header, 0, 13);
+
+            ByteBuffer pixels = pixmap.getPixels();
+            int lineLen = width * 4;
+            int rowsPerBand = Math.max(bandSize / (lineLen + 1), 1);
+            int bandCount = (height + rowsPerBand - 1) / rowsPerBand;
+
+            boolean first = true;
+            long adler = 1;
+
+            for(int start = 0; start < bandCount; start += threads){
+                int end = Math.min(start + threads, bandCount);
+
+                for(int i = start; i < end; i++){
+                    Band band = band(i - start);
+                    band.set(pixels, width, height, i * rowsPerBand, Math.min((i + 1) * rowsPerBand, height), i == bandCount - 1, flipY);
+                }
+
+                if(executor == null || end - start == 1){
+                    for(int i = start; i < end; i++){
+                        bands.get(i - start).run();
+                    }
+                }else{
+                    results.clear();
+                    for(int i = start; i < end; i++){
+                        results.add(executor.submit(bands.get(i - start)));
+                    }
+                    for(AsyncResult<Void> result : results){
+                        result.get();
+                    }
+                }
+
+                for(int i = start; i < end; i++){
+                    Band band = bands.get(i - start);
+                    adler = adlerCombine(adler, band.adler, band.inputLength);
+
+                    crc.reset();
+                    dataOutput.writeInt(band.outputLength + (first ? 2 : 0) + (band.last ? 4 : 0));
+                    writeInt(dataOutput, IDAT);
+                    if(first){
+                        //zlib header: deflate with a 32K window, default compression, no preset dictionary
+                        writeByte(dataOutput, 0x78);
+                        writeByte(dataOutput, 0x9C);
+                        first = false;
+                    }
+                    dataOutput.write(band.output, 0, band.outputLength);
+                    crc.update(band.output, 0, band.outputLength);
+                    if(band.last){
+                        writeInt(dataOutput, (int)adler);
+                    }
+                    dataOutput.writeInt((int)crc.getValue());
+                }
+            }
+
+            writeChunk(dataOutput, IEND, header, 0, 0);
+            output.flush();
+        }
+
+        private Band band(int index){
+            while(bands.size <= index) bands.add(new Band());
+            Band band = bands.get(index);
+            band.deflater.setLevel(level);
+            return band;
+        }
+
+        private void writeChunk(DataOutputStream out, int type, byte[] data, int offset, int length) throws IOException{
+            crc.reset();
+            out.writeInt(length);
+            writeInt(out, type);
+            out.write(data, offset, length);
+            crc.update(data, offset, length);
+            out.writeInt((int)crc.getValue());
+        }
+
+        /** Writes an int that is part of the checksum of the current chunk. */
+        private void writeInt(DataOutputStream out, int value) throws IOException{
+            out.writeInt(value);
+            crc.update(value >>> 24);
+            crc.update(value >>> 16);
+            crc.update(value >>> 8);
+            crc.update(value);
+        }
+
+        private void writeByte(DataOutputStream out, int value) throws IOException{
+            out.write(value);
+            crc.update(value);
+        }
+
+        /** Combines the adler32 checksums of two consecutive byte sequences; a port of adler32_combine from zlib. */
+        static long adlerCombine(long adler1, long adler2, long length2){
+            final long base = 65521;
+            long rem = length2 % base;
+            long sum1 = adler1 & 0xffff;
+            long sum2 = (rem * sum1) % base;
+            sum1 += (adler2 & 0xffff) + base - 1;
+            sum2 += ((adler1 >>> 16) & 0xffff) + ((adler2 >>> 16) & 0xffff) + base - rem;
+            if(sum1 >= base) sum1 -= base;
+            if(sum1 >= base) sum1 -= base;
+            if(sum2 >= (base << 1)) sum2 -= (base << 1);
+            if(sum2 >= base) sum2 -= base;
+            return sum1 | (sum2 << 16);
+        }
+
+        @Override
+        public void dispose(){
+            if(executor != null) executor.dispose();
+            for(Band band : bands){
+                band.deflater.end();
+            }
+            bands.clear();
+        }
+
+        /** A band of rows that is filtered and compressed on its own. Buffers are kept for the next image. */
+        static class Band implements Runnable{
+            final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            final Adler32 checksum = new Adler32();
+            byte[] input = {}, output = {}, curLine = {}, prevLine = {};
+            ByteBuffer pixels;
+            int width, height, start, end;
+            int inputLength, outputLength;
+            boolean last, flipY;
+            long adler;
+
+            void set(ByteBuffer pixels, int width, int height, int start, int end, boolean last, boolean flipY){
+                this.pixels = pixels.duplicate();
+                this.width = width;
+                this.height = height;
+                this.start = start;
+                this.end = end;
+                this.last = last;
+                this.flipY = flipY;
+            }
+
+            @Override
+            public void run(){
+                int lineLen = width * 4, rowLen = lineLen + 1;
+                //rows before the band are filtered again to prime the dictionary
+                int primeRows = Math.min((WINDOW + rowLen - 1) / rowLen, start);
+                int total = (end - start + primeRows) * rowLen;
+                if(input.length < total) input = new byte[total];
+                if(curLine.length < lineLen){
+                    curLine = new byte[lineLen];
+                    prevLine = new byte[lineLen];
+                }
+
+                int first = start - primeRows;
+                if(first > 0) read(first - 1, prevLine, lineLen);
+                for(int y = first, offset = 0; y < end; y++, offset += rowLen){
+                    read(y, curLine, lineLen);
+                    filter(curLine, y == 0 ? null : prevLine, input, offset, lineLen);
+
+                    byte[] temp = curLine;
+                    curLine = prevLine;
+                    prevLine = temp;
+                }
+
+                int dictionaryEnd = primeRows * rowLen;
+                inputLength = total - dictionaryEnd;
+
+                checksum.reset();
+                checksum.update(input, dictionaryEnd, inputLength);
+                adler = checksum.getValue();
+
+                deflater.reset();
+                if(dictionaryEnd > 0){
+                    int dictionaryLength = Math.min(dictionaryEnd, WINDOW);
+                    deflater.setDictionary(input, dictionaryEnd - dictionaryLength, dictionaryLength);
+                }
+                deflater.setInput(input, dictionaryEnd, inputLength);
+
+                if(output.length < inputLength / 2 + 64) output = new byte[inputLength / 2 + 64];
+                outputLength = 0;
+                if(last){
+                    deflater.finish();
+                    while(!deflater.finished()){
+                        deflate(Deflater.NO_FLUSH);
+                    }
+                }else{
+                    //a sync flush ends on a byte boundary without marking the last block, so the next band can follow
+                    do{
+                        deflate(Deflater.SYNC_FLUSH);
+                    }while(outputLength == output.length);
+                }
+                pixels = null;
+            }
+
+            private void deflate(int flush){
+                if(outputLength == output.length){
+                    byte[] next = new byte[output.length * 2];
+                    System.arraycopy(output, 0, next, 0, outputLength);
+                    output = next;
+                }
+                outputLength += deflater.deflate(output, outputLength, output.length - outputLength, flush);
+            }
+
+            /** Reads row y of the output image from the pixmap. */
+            private void read(int y, byte[] line, int lineLen){
+                pixels.position((flipY ? height - y - 1 : y) * lineLen);
+                pixels.get(line, 0, lineLen);
+            }
+
+            /** Writes the filter type and the paeth-filtered row. prev is null for the first row. */
+            private static void filter(byte[] cur, byte[] prev, byte[] out, int offset, int lineLen){
+                out[offset++] = PNG.PAETH;
+                for(int x = 0; x < lineLen; x++){
+                    int a = x >= 4 ? cur[x - 4] & 0xff : 0;
+                    int b = prev == null ? 0 : prev[x] & 0xff;
+                    int c = prev == null || x < 4 ? 0 : prev[x - 4] & 0xff;
+                    int p = a + b - c;
+                    int pa = p - a;
+                    if(pa < 0) pa = -pa;
+                    int pb = p - b;
+                    if(pb < 0) pb = -pb;
+                    int pc = p - c;
+                    if(pc < 0) pc = -pc;
+                    if(pa <= pb && pa <= pc)
+                        c = a;
+                    else if(pb <= pc)
+                        c = b;
+                    out[offset + x] = (byte)(cur[x] - c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Streaming PNG decoder. Image data is inflated row by row from the input stream straight into the pixel buffer of an RGBA8888
+     * {@link Pixmap}, without reading the whole file into memory first. Can decode into a preallocated pixmap of the same size.
+     * <p>
+     * Supports all non-interlaced PNGs: grayscale, RGB, palette, with or without alpha and tRNS transparency, in all bit depths.
+     * 16-bit samples are reduced to 8 bits. Interlaced images are not supported; use {@link Pixmap#Pixmap(FileHandle)} for those.
+     * Checksums are not verified, and reading stops after the last row. An instance reuses its buffers and can decode multiple
+     * images, but must be disposed when no longer needed.
+     */
+    public static class PNGReader implements Disposable{
+        static private final int IHDR = 0x49484452, PLTE = 0x504C5445, TRNS = 0x74524E53, IDAT = 0x49444154, IEND = 0x49454E44;
+        static private final int COLOR_GRAY = 0, COLOR_RGB = 2, COLOR_PALETTE = 3, COLOR_GRAY_ALPHA = 4, COLOR_RGBA = 6;
+
+        private final Inflater inflater = new Inflater();
+        private final byte[] buffer = new byte[1024 * 32];
+        private byte[] curLine = {}, prevLine = {}, rgbaLine = {};
+        private final int[] palette = new int[256];
+        private DataInputStream input;
+        private int remaining;
+
+        private int width, height, depth, colorType, channels;
+        private int transparent;
+        private boolean hasTransparent;
+
+        /** Reads a PNG file into a new RGBA8888 pixmap. */
+        public Pixmap read(FileHandle file) throws IOException{
+            InputStream stream = file.read();
+            try{
+                return read(stream);
+            }finally{
+                Streams.closeQuietly(stream);
+            }
+        }
+
+        /** Reads a PNG into a new RGBA8888 pixmap. Does not close the stream. */
+        public Pixmap read(InputStream stream) throws IOException{
+            begin(stream);
+            Pixmap pixmap = new Pixmap(width, height, Format.RGBA8888);
+            try{
+                decode(pixmap);
+            }catch(IOException | RuntimeException e){
+                pixmap.dispose();
+                throw e;
+            }
+            return pixmap;
+        }
+
+        /**
+         * Reads a PNG into an existing RGBA8888 pixmap, which must have the same size as the image. Does not close the stream.
+         * @return the pixmap, for chaining
+         */
+        public Pixmap read(InputStream stream, Pixmap pixmap) throws IOException{
+            begin(stream);
+            if(pixmap.getFormat() != Format.RGBA8888 || pixmap.getWidth() != width || pixmap.getHeight() != height){
+                throw new ArcRuntimeException("Pixmap must be RGBA8888 with a size of " + width + "x" + height + ", but is "
+                + pixmap.getFormat() + " " + pixmap.getWidth() + "x" + pixmap.getHeight());
+            }
+            decode(pixmap);
+            return pixmap;
+        }
+
+        /** Reads all chunks up to the first IDAT chunk. */
+        private void begin(InputStream stream) throws IOException{
+            input = stream instanceof DataInputStream ? (DataInputStream)stream : new DataInputStream(stream);
+            for(byte b : PNG.SIGNATURE){
+                if(input.readByte() != b) throw new ArcRuntimeException("Not a PNG file.");
+            }
+
+            width = -1;
+            hasTransparent = false;
+            for(int i = 0; i < palette.length; i++) palette[i] = 0xff;
+
+            while(true){
+                int length = input.readInt();
+                int type = input.readInt();
+
+                if(type == IHDR){
+                    width = input.readInt();
+                    height = input.readInt();
+                    depth = input.readUnsignedByte();
+                    colorType = input.readUnsignedByte();
+                    int compression = input.readUnsignedByte(), filter = input.readUnsignedByte(), interlace = input.readUnsignedByte();
+                    if(compression != 0 || filter != 0) throw new ArcRuntimeException("Invalid PNG compression or filter method.");
+                    if(interlace != 0) throw new ArcRuntimeException("Interlaced PNGs are not supported.");
+                    switch(colorType){
+                        case COLOR_GRAY: channels = 1; break;
+                        case COLOR_RGB: channels = 3; break;
+                        case COLOR_PALETTE: channels = 1; break;
+                        case COLOR_GRAY_ALPHA: channels = 2; break;
+                        case COLOR_RGBA: channels = 4; break;
+                        default: throw new ArcRuntimeException("Invalid PNG color type: " + colorType);
+                    }
+                    skip(length - 13);
+                }else if(type == PLTE){
+                    if(length % 3 != 0 || length > palette.length * 3) throw new ArcRuntimeException("Invalid PNG palette length: " + length);
+                    for(int i = 0; i < length / 3; i++){
+                        palette[i] = (input.readUnsignedByte() << 24) | (input.readUnsignedByte() << 16) | (input.readUnsignedByte() << 8) | 0xff;
+                    }
+                }else if(type == TRNS){
+                    if(colorType == COLOR_PALETTE){
+                        if(length > palette.length) throw new ArcRuntimeException("Invalid PNG transparency length: " + length);
+                        for(int i = 0; i < length; i++){
+                            palette[i] = (palette[i] & 0xffffff00) | input.readUnsignedByte();
+                        }
+                    }else if(colorType == COLOR_GRAY){
+                        if(length < 2) throw new ArcRuntimeException("Invalid PNG transparency length: " + length);
+                        transparent = input.readUnsignedShort();
+                        hasTransparent = true;
+                        skip(length - 2);
+                    }else if(colorType == COLOR_RGB){
+                        if(length < 6) throw new ArcRuntimeException("Invalid PNG transparency length: " + length);
+                        long r = input.readUnsignedShort(), g = input.readUnsignedShort(), b = input.readUnsignedShort();
+                        //only used for 8 bit images, where every sample fits into a byte
+                        transparent = (int)((r << 16) | (g << 8) | b);
+                        hasTransparent = depth == 8;
+                        skip(length - 6);
+                    }else{
+                        skip(length);
+                    }
+                }else if(type == IDAT){
+                    if(width < 0) throw new ArcRuntimeException("Missing PNG header.");
+                    remaining = length;
+                    return;
+                }else if(type == IEND){
+                    throw new ArcRuntimeException("PNG has no image data.");
+                }else{
+                    skip(length);
+                }
+                //crc
+                skip(4);
+            }
+        }
+
+        private void decode(Pixmap pixmap) throws IOException{
+            int bits = channels * depth;
+            int rowBytes = (width * bits + 7) / 8;
+            int bpp = Math.max(bits / 8, 1);
+            if(curLine.length < rowBytes + 1){
+                curLine = new byte[rowBytes + 1];
+                prevLine = new byte[rowBytes + 1];
+            }
+            if(rgbaLine.length < width * 4) rgbaLine = new byte[width * 4];
+            for(int i = 0; i <= rowBytes; i++) prevLine[i] = 0;
+
+            ByteBuffer pixels = pixmap.getPixels().duplicate();
+            inflater.reset();
+
+            for(int y = 0; y < height; y++){
+                inflate(curLine, rowBytes + 1);
+                unfilter(curLine, prevLine, rowBytes, bpp);
+
+                pixels.position(y * width * 4);
+                if(colorType == COLOR_RGBA && depth == 8){
+                    pixels.put(curLine, 1, width * 4);
+                }else{
+                    convert(curLine);
+                    pixels.put(rgbaLine, 0, width * 4);
+                }
+
+                byte[] temp = curLine;
+                curLine = prevLine;
+                prevLine = temp;
+            }
+
+            input = null;
+        }
+
+        /** Fills the line with the next decompressed bytes, reading IDAT chunks as needed. */
+        private void inflate(byte[] line, int length) throws IOException{
+            int offset = 0;
+            try{
+                while(offset < length){
+                    int read = inflater.inflate(line, offset, length - offset);
+                    offset += read;
+                    if(read == 0){
+                        if(inflater.finished() || inflater.needsDictionary()) throw new ArcRuntimeException("PNG image data is truncated.");
+                        if(inflater.needsInput()) fill();
+                    }
+                }
+            }catch(DataFormatException e){
+                throw new ArcRuntimeException("Invalid PNG image data.", e);
+            }
+        }
+
+        private void fill() throws IOException{
+            while(remaining == 0){
+                //crc of the last chunk
+                skip(4);
+                int length = input.readInt();
+                if(input.readInt() != IDAT) throw new ArcRuntimeException("PNG image data is truncated.");
+                remaining = length;
+            }
+            int read = input.read(buffer, 0, Math.min(buffer.length, remaining));
+            if(read < 0) throw new EOFException("Unexpected end of PNG.");
+            remaining -= read;
+            inflater.setInput(buffer, 0, read);
+        }
+
+        private void skip(int length) throws IOException{
+            while(length > 0){
+                int skipped = input.skipBytes(length);
+                if(skipped <= 0){
+                    input.readByte();
+                    skipped = 1;
+                }
+                length -= skipped;
+            }
+        }
+
+        /** Reverts the filter of a row in place. The first byte of each line is the filter type. */
+        private static void unfilter(byte[] cur, byte[] prev, int rowBytes, int bpp){
+            int type = cur[0];
+            switch(type){
+                case 0:
+                    break;
+                case 1:
+                    for(int i = 1 + bpp; i <= rowBytes; i++) cur[i] += cur[i - bpp];
+                    break;
+                case 2:
+                    for(int i = 1; i <= rowBytes; i++) cur[i] += prev[i];
+                    break;
+                case 3:
+                    for(int i = 1; i <= rowBytes; i++){
+                        int a = i > bpp ? cur[i - bpp] & 0xff : 0;
+                        cur[i] += (a + (prev[i] & 0xff)) >>> 1;
+                    }
+                    break;
+                case 4:
+                    for(int i = 1; i <= rowBytes; i++){
+                        int a = i > bpp ? cur[i - bpp] & 0xff : 0;
+                        int b = prev[i] & 0xff;
+                        int c = i > bpp ? prev[i - bpp] & 0xff : 0;
+                        int p = a + b - c;
+                        int pa = p - a;
+                        if(pa < 0) pa = -pa;
+                        int pb = p - b;
+                        if(pb < 0) pb = -pb;
+                        int pc = p - c;
+                        if(pc < 0) pc = -pc;
+                        if(pa <= pb && pa <= pc)
+                            c = a;
+                        else if(pb <= pc)
+                            c = b;
+                        cur[i] += c;
+                    }
+                    break;
+                default:
+                    throw new ArcRuntimeException("Invalid PNG filter type: " + type);
+            }
+        }
+
+        /** Converts a decoded row to RGBA8888 in rgbaLine. */
+        private void convert(byte[] line){
+            byte[] out = rgbaLine;
+            int step = depth == 16 ? 2 : 1;
+            for(int x = 0, o = 0; x < width; x++, o += 4){
+                int r, g, b, a = 255;
+                switch(colorType){
+                    case COLOR_RGBA:
+                        r = line[1 + (x * 4) * step] & 0xff;
+                        g = line[1 + (x * 4 + 1) * step] & 0xff;
+                        b = line[1 + (x * 4 + 2) * step] & 0xff;
+                        a = line[1 + (x * 4 + 3) * step] & 0xff;
+                        break;
+                    case COLOR_RGB:
+                        r = line[1 + (x * 3) * step] & 0xff;
+                        g = line[1 + (x * 3 + 1) * step] & 0xff;
+                        b = line[1 + (x * 3 + 2) * step] & 0xff;
+                        if(hasTransparent && ((r << 16) | (g << 8) | b) == transparent) a = 0;
+                        break;
+                    case COLOR_GRAY_ALPHA:
+                        r = g = b = line[1 + (x * 2) * step] & 0xff;
+                        a = line[1 + (x * 2 + 1) * step] & 0xff;
+                        break;
+                    case COLOR_GRAY:{
+                        int sample = sample(line, x);
+                        if(hasTransparent && sample == transparent) a = 0;
+                        r = g = b = depth == 16 ? sample >>> 8 : sample * 255 / ((1 << depth) - 1);
+                        break;
+                    }
+                    default:{
+                        int color = palette[sample(line, x)];
+                        r = color >>> 24;
+                        g = (color >>> 16) & 0xff;
+                        b = (color >>> 8) & 0xff;
+                        a = color & 0xff;
+                        break;
+                    }
+                }
+                out[o] = (byte)r;
+                out[o + 1] = (byte)g;
+                out[o + 2] = (byte)b;
+                out[o + 3] = (byte)a;
+            }
+        }
+
+        /** @return the raw value of a single-channel sample */
+        private int sample(byte[] line, int x){
+            switch(depth){
+                case 16: return ((line[1 + x * 2] & 0xff) << 8) | (line[2 + x * 2] & 0xff);
+                case 8: return line[1 + x] & 0xff;
+                default:
+                    int perByte = 8 / depth;
+                    int shift = (perByte - 1 - x % perByte) * depth;
+                    return ((line[1 + x / perByte] & 0xff) >>> shift) & ((1 << depth) - 1);
+            }
+        }
+
+        @Override
+        public void dispose(){
+            inflater.end();
+        }
+    }
 }
@@ -0,0 +1,382 @@
+package io.anuke.arc.graphics;
+
+import io.anuke.arc.graphics.Pixmap.Blending;
+import io.anuke.arc.graphics.Pixmap.Format;
+import io.anuke.arc.util.ArcRuntimeException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Bulk pixel operations that work directly on the pixel buffer of RGBA8888 {@link Pixmap}s instead of going through
+ * {@link Pixmap#getPixel(int, int)} and {@link Pixmap#drawPixel(int, int, int)}. Pixels are accessed as big-endian ints, which
+ * is the same RGBA8888 packing that getPixel returns.
+ * <p>
+ * Large images are processed in bands of rows on the common {@link ForkJoinPool}. Kernels must only write to the rows or
+ * columns of the range they are given.
+ * @see Pixmaps
+ */
+public final class PixmapKernels{
+    /** Amount of work (usually pixels) below which kernels run on the calling thread. */
+    public static int parallelThreshold = 1 << 15;
+    /** Whether kernels are allowed to run on multiple threads. */
+    public static boolean parallel = true;
+
+    private PixmapKernels(){
+    }
+
+    /** A kernel that processes the items (rows, columns) from start, inclusive, to end, exclusive. */
+    public interface RangeKernel{
+        void run(int start, int end);
+    }
+
+    /** Maps a single pixel to a new color. Colors are in RGBA8888 format. */
+    public interface PixelMapper{
+        int map(int x, int y, int color);
+    }
+
+    /**
+     * Runs a kernel over count items, splitting them into bands that are processed in parallel if the total work is large enough.
+     * @param count the number of items, e.g. the height of an image when processing rows
+     * @param workPerItem the approximate cost of a single item, e.g. the width of an image when processing rows
+     */
+    public static void parallel(int count, int workPerItem, RangeKernel kernel){
+        if(count <= 0) return;
+        long work = (long)count * Math.max(workPerItem, 1);
+        if(!parallel || work < parallelThreshold * 2L || ForkJoinPool.getCommonPoolParallelism() <= 1){
+            kernel.run(0, count);
+            return;
+        }
+
+        int grain = Math.max(parallelThreshold / Math.max(workPerItem, 1), 1);
+        ForkJoinPool.commonPool().invoke(new RangeTask(kernel, 0, count, grain));
+    }
+
+    /** @return the pixels of an RGBA8888 pixmap as big-endian ints, without changing the position of the pixel buffer. */
+    public static IntBuffer ints(Pixmap pixmap){
+        if(pixmap.getFormat() != Format.RGBA8888){
+            throw new ArcRuntimeException("Pixmap must be in RGBA8888 format, but is " + pixmap.getFormat());
+        }
+        ByteBuffer bytes = pixmap.getPixels().duplicate();
+        bytes.clear();
+        return bytes.order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+    }
+
+    /**
+     * @return the input if it is in RGBA8888 format, otherwise a converted copy that must be disposed by the caller.
+     */
+    public static Pixmap rgba(Pixmap input){
+        if(input.getFormat() == Format.RGBA8888) return input;
+        Pixmap pixmap = new Pixmap(input.getWidth(), input.getHeight(), Format.RGBA8888);
+        pixmap.setBlending(Blending.None);
+        pixmap.drawPixmap(input, 0, 0);
+        pixmap.setBlending(Blending.SourceOver);
+        return pixmap;
+    }
+
+    /** Replaces every pixel of an RGBA8888 pixmap with the result of the mapper. The mapper may be called from multiple threads. */
+    public static void map(Pixmap pixmap, PixelMapper mapper){
+        IntBuffer pixels = ints(pixmap);
+        int width = pixmap.getWidth();
+        parallel(pixmap.getHeight(), width, (start, end) -> {
+            for(int y = start; y < end; y++){
+                int row = y * width;
+                for(int x = 0; x < width; x++){
+                    pixels.put(row + x, mapper.map(x, y, pixels.get(row + x)));
+                }
+            }
+        });
+    }
+
+    /**
+     * Blends two RGBA8888 colors the same way a pixmap with {@link Blending#SourceOver} does when drawing src over dst, so that
+     * kernels writing into pixmaps produce the same results as {@link Pixmap#drawPixel(int, int, int)}.
+     */
+    public static int blend(int src, int dst){
+        int srcR = src >>> 24, srcG = (src >>> 16) & 0xff, srcB = (src >>> 8) & 0xff, srcA = src & 0xff;
+        int dstR = dst >>> 24, dstG = (dst >>> 16) & 0xff, dstB = (dst >>> 8) & 0xff, dstA = dst & 0xff;
+
+        dstR = dstR + srcA * (srcR - dstR) / 255;
+        dstG = dstG + srcA * (srcG - dstG) / 255;
+        dstB = dstB + srcA * (srcB - dstB) / 255;
+        dstA = (int)((1.0f - (1.0f - srcA / 255.0f) * (1.0f - dstA / 255.0f)) * 255);
+        return (dstR << 24) | (dstG << 16) | (dstB << 8) | dstA;
+    }
+
+    /**
+     * Computes the exact squared euclidean distance from every pixel to the nearest pixel with a non-zero alpha, using the
+     * separable distance transform by Felzenszwalb and Huttenlocher. Pixels outside of the image count as empty; if the image
+     * has no opaque pixels at all, every distance is {@link Integer#MAX_VALUE}.
+     * @param pixels RGBA8888 pixels in rows of width
+     * @return the squared distances, in rows of width
+     */
+    public static int[] squaredDistances(IntBuffer pixels, int width, int height){
+        boolean[] solid = new boolean[width * height];
+        parallel(height, width, (start, end) -> {
+            for(int i = start * width; i < end * width; i++){
+                solid[i] = (pixels.get(i) & 0xff) != 0;
+            }
+        });
+        return squaredDistances(solid, width, height);
+    }
+
+    /**
+     * Computes the exact squared euclidean distance from every cell to the nearest solid cell.
+     * @see #squaredDistances(IntBuffer, int, int)
+     */
+    public static int[] squaredDistances(boolean[] solid, int width, int height){
+        //larger than any real squared distance, small enough to not overflow when offsets are added
+        final int inf = 1 << 29;
+        int[] result = new int[width * height];
+
+        //horizontal pass: distance to the nearest solid cell in the same row
+        parallel(height, width, (start, end) -> {
+            for(int y = start; y < end; y++){
+                int row = y * width;
+                int last = -inf;
+                for(int x = 0; x < width; x++){
+                    if(solid[row + x]) last = x;
+                    result[row + x] = x - last;
+                }
+                last = inf;
+                for(int x = width - 1; x >= 0; x--){
+                    if(solid[row + x]) last = x;
+                    int d = Math.min(result[row + x], last - x);
+                    result[row + x] = d >= inf / 2 ? inf : d * d;
+                }
+            }
+        });
+
+        //vertical pass: lower envelope of the parabolas of every column
+        parallel(width, height, (start, end) -> {
+            int[] f = new int[height], v = new int[height];
+            double[] z = new double[height + 1];
+            for(int x = start; x < end; x++){
+                for(int y = 0; y < height; y++){
+                    f[y] = result[y * width + x];
+                }
+
+                int k = 0;
+                v[0] = 0;
+                z[0] = Double.NEGATIVE_INFINITY;
+                z[1] = Double.POSITIVE_INFINITY;
+                for(int q = 1; q < height; q++){
+                    double s = intersect(f, q, v[k]);
+                    //z[0] is negative infinity, so this always stops at the first parabola
+                    while(s <= z[k]){
+                        k--;
+                        s = intersect(f, q, v[k]);
+                    }
+                    k++;
+                    v[k] = q;
+                    z[k] = s;
+                    z[k + 1] = Double.POSITIVE_INFINITY;
+                }
+
+                k = 0;
+                for(int q = 0; q < height; q++){
+                    while(z[k + 1] < q) k++;
+                    int p = v[k];
+                    long d = (long)(q - p) * (q - p) + f[p];
+                    result[q * width + x] = d >= inf ? Integer.MAX_VALUE : (int)d;
+                }
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Converts the alpha of an image to a signed distance field, as used by {@link io.anuke.arc.graphics.g2d.DistanceFieldFont}.
+     * Pixels with an alpha of at least 128 are inside the shape. The result is padded by the spread on every side, and stores the
+     * distance to the edge in its alpha: 0.5 on the edge, 1 at spread pixels inside and 0 at spread pixels outside.
+     * @param spread the distance in pixels that is covered by the alpha range
+     * @param color the RGBA8888 color of the result, without alpha
+     * @return a new RGBA8888 pixmap
+     */
+    public static Pixmap distanceField(Pixmap input, int spread, int color){
+        Pixmap rgba = rgba(input);
+        int inWidth = input.getWidth(), inHeight = input.getHeight();
+        int width = inWidth + spread * 2, height = inHeight + spread * 2;
+
+        IntBuffer source = ints(rgba);
+        boolean[] inside = new boolean[width * height], outside = new boolean[width * height];
+        parallel(height, width, (start, end) -> {
+            for(int y = start; y < end; y++){
+                for(int x = 0; x < width; x++){
+                    int sx = x - spread, sy = y - spread;
+                    boolean solid = sx >= 0 && sy >= 0 && sx < inWidth && sy < inHeight && (source.get(sx + sy * inWidth) & 0xff) >= 128;
+                    inside[x + y * width] = solid;
+                    outside[x + y * width] = !solid;
+                }
+            }
+        });
+        if(rgba != input) rgba.dispose();
+
+        int[] toInside = squaredDistances(inside, width, height), toOutside = squaredDistances(outside, width, height);
+
+        Pixmap result = new Pixmap(width, height, Format.RGBA8888);
+        IntBuffer pixels = ints(result);
+        int rgb = color & 0xffffff00;
+        float scale = 0.5f / spread;
+        parallel(height, width, (start, end) -> {
+            for(int i = start * width; i < end * width; i++){
+                //the edge lies halfway between an inside and an outside pixel
+                float distance = inside[i] ? (float)Math.sqrt(toOutside[i]) - 0.5f : 0.5f - (float)Math.sqrt(toInside[i]);
+                float alpha = Math.max(Math.min(0.5f + distance * scale, 1f), 0f);
+                pixels.put(i, rgb | (int)(alpha * 255 + 0.5f));
+            }
+        });
+        return result;
+    }
+
+    /** @return the position where the parabolas rooted at q and p intersect */
+    private static double intersect(int[] f, int q, int p){
+        return ((f[q] + (double)q * q) - (f[p] + (double)p * p)) / (2.0 * q - 2.0 * p);
+    }
+
+    /**
+     * Resamples an image to a new size with a separable triangle filter. When shrinking, the filter widens to cover every source
+     * pixel, so it averages like a box filter instead of skipping pixels. Colors are weighted by alpha to avoid dark fringes.
+     * @return a new RGBA8888 pixmap
+     */
+    public static Pixmap resample(Pixmap input, int width, int height){
+        if(width <= 0 || height <= 0) throw new IllegalArgumentException("Invalid size: " + width + "x" + height);
+
+        Pixmap source = rgba(input);
+        IntBuffer src = ints(source);
+        int srcWidth = source.getWidth(), srcHeight = source.getHeight();
+
+        Filter fx = new Filter(srcWidth, width), fy = new Filter(srcHeight, height);
+
+        //horizontal pass into premultiplied floats, rows of the source height
+        float[] tmp = new float[width * srcHeight * 4];
+        parallel(srcHeight, width * fx.taps, (start, end) -> {
+            for(int y = start; y < end; y++){
+                int srcRow = y * srcWidth;
+                int row = y * width * 4;
+                for(int x = 0; x < width; x++){
+                    float r = 0, g = 0, b = 0, a = 0;
+                    int first = fx.first[x], wi = x * fx.taps;
+                    for(int t = 0; t < fx.taps; t++){
+                        float w = fx.weights[wi + t];
+                        if(w == 0f) continue;
+                        int c = src.get(srcRow + first + t);
+                        float ca = (c & 0xff) * w;
+                        r += (c >>> 24) * ca;
+                        g += ((c >>> 16) & 0xff) * ca;
+                        b += ((c >>> 8) & 0xff) * ca;
+                        a += ca;
+                    }
+                    int i = row + x * 4;
+                    tmp[i] = r;
+                    tmp[i + 1] = g;
+                    tmp[i + 2] = b;
+                    tmp[i + 3] = a;
+                }
+            }
+        });
+
+        if(source != input) source.dispose();
+
+        Pixmap pixmap = new Pixmap(width, height, Format.RGBA8888);
+        IntBuffer dst = ints(pixmap);
+
+        //vertical pass, un-premultiplying the result
+        parallel(height, width * fy.taps, (start, end) -> {
+            for(int y = start; y < end; y++){
+                int first = fy.first[y], wi = y * fy.taps;
+                for(int x = 0; x < width; x++){
+                    float r = 0, g = 0, b = 0, a = 0;
+                    for(int t = 0; t < fy.taps; t++){
+                        float w = fy.weights[wi + t];
+                        if(w == 0f) continue;
+                        int i = ((first + t) * width + x) * 4;
+                        r += tmp[i] * w;
+                        g += tmp[i + 1] * w;
+                        b += tmp[i + 2] * w;
+                        a += tmp[i + 3] * w;
+                    }
+                    int color = 0;
+                    if(a > 0f){
+                        color = (clamp(r / a) << 24) | (clamp(g / a) << 16) | (clamp(b / a) << 8) | clamp(a);
+                    }
+                    dst.put(y * width + x, color);
+                }
+            }
+        });
+
+        return pixmap;
+    }
+
+    private static int clamp(float value){
+        int i = (int)(value + 0.5f);
+        return i < 0 ? 0 : i > 255 ? 255 : i;
+    }
+
+    /** Normalized filter weights of a single dimension, with a fixed amount of taps for every output pixel. */
+    static class Filter{
+        final int taps;
+        final int[] first;
+        final float[] weights;
+
+        Filter(int srcSize, int dstSize){
+            float scale = (float)dstSize / srcSize;
+            //triangle filter, widened when downscaling
+            float support = scale < 1f ? 1f / scale : 1f;
+            taps = Math.min((int)Math.ceil(support * 2) + 1, srcSize);
+            first = new int[dstSize];
+            weights = new float[dstSize * taps];
+
+            for(int i = 0; i < dstSize; i++){
+                float center = (i + 0.5f) / scale - 0.5f;
+                int start = Math.max(Math.min((int)Math.floor(center - support) + 1, srcSize - taps), 0);
+                first[i] = start;
+
+                float total = 0f;
+                for(int t = 0; t < taps; t++){
+                    float w = Math.max(1f - Math.abs(start + t - center) / support, 0f);
+                    weights[i * taps + t] = w;
+                    total += w;
+                }
+
+                if(total > 0f){
+                    for(int t = 0; t < taps; t++){
+                        weights[i * taps + t] /= total;
+                    }
+                }else{
+                    //outside of the image, use the nearest pixel
+                    int nearest = Math.max(Math.min(Math.round(center), srcSize - 1), 0) - start;
+                    weights[i * taps + Math.max(Math.min(nearest, taps - 1), 0)] = 1f;
+                }
+            }
+        }
+    }
+
+    static class RangeTask extends RecursiveAction{
+        private static final long serialVersionUID = 3181902425413542385L;
+
+        final RangeKernel kernel;
+        final int start, end, grain;
+
+        RangeTask(RangeKernel kernel, int start, int end, int grain){
+            this.kernel = kernel;
+            this.start = start;
+            this.end = end;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute(){
+            if(end - start <= grain){
+                kernel.run(start, end);
+            }else{
+                int mid = (start + end) >>> 1;
+                invokeAll(new RangeTask(kernel, start, mid, grain), new RangeTask(kernel, mid, end, grain));
+            }
+        }
+    }
+}
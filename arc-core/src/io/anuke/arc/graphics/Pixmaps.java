@@ -5,9 +5,9 @@ import io.anuke.arc.graphics.Pixmap.Format;
 import io.anuke.arc.graphics.Texture.TextureWrap;
 import io.anuke.arc.graphics.g2d.TextureRegion;
 import io.anuke.arc.math.Mathf;
-import io.anuke.arc.math.geom.Vector2;
 
 import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 
 /** Various pixmap utilities. */
 public class Pixmaps{
@@ -37,68 +37,93 @@ public class Pixmaps{
     }
 
     public static Pixmap scale(Pixmap input, float scalex, float scaley){
+        Pixmap source = PixmapKernels.rgba(input);
         Pixmap pixmap = new Pixmap((int)(input.getWidth() * scalex), (int)(input.getHeight() * scaley), Format.RGBA8888);
-        for(int x = 0; x < pixmap.getWidth(); x++){
-            for(int y = 0; y < pixmap.getHeight(); y++){
-                pixmap.drawPixel(x, y, input.getPixel((int)(x / scalex), (int)(y / scaley)));
-            }
-        }
-        return pixmap;
-    }
+        IntBuffer src = PixmapKernels.ints(source), dst = PixmapKernels.ints(pixmap);
+        int srcWidth = source.getWidth(), srcHeight = source.getHeight(), width = pixmap.getWidth();
 
-    public static Pixmap outline(Pixmap input, Color color, int thickness){
-        if(thickness == 1){
-            return outline(input, color);
-        }else{
-            Pixmap pixmap = copy(input);
-            pixmap.setColor(color);
+        int[] columns = new int[width];
+        for(int x = 0; x < width; x++){
+            columns[x] = (int)(x / scalex);
+        }
 
-            for(int x = 0; x < pixmap.getWidth(); x++){
-                for(int y = 0; y < pixmap.getHeight(); y++){
-                    if(empty(input.getPixel(x, y))){
-                        boolean found = false;
-                        outer:
-                        for(int dx = -thickness; dx <= thickness; dx++){
-                            for(int dy = -thickness; dy <= thickness; dy++){
-                                if(Mathf.dst2(dx, dy) <= thickness * thickness && !empty(input.getPixel(x + dx, y + dy))){
-                                    found = true;
-                                    break outer;
-                                }
-                            }
-                        }
-                        if(found){
-                            pixmap.drawPixel(x, y);
-                        }
+        PixmapKernels.parallel(pixmap.getHeight(), width, (start, end) -> {
+            for(int y = start; y < end; y++){
+                int sy = (int)(y / scaley);
+                for(int x = 0; x < width; x++){
+                    int sx = columns[x];
+                    if(sx < srcWidth && sy < srcHeight){
+                        dst.put(y * width + x, PixmapKernels.blend(src.get(sy * srcWidth + sx), 0));
                     }
-
-
                 }
             }
-            return pixmap;
-        }
+        });
+
+        if(source != input) source.dispose();
+        return pixmap;
     }
 
-    public static Pixmap outline(Pixmap input, Color color){
-        Pixmap pixmap = copy(input);
-        pixmap.setColor(color);
+    /**
+     * Resamples a pixmap to a new size with a separable filter. Unlike {@link #scale(Pixmap, float, float)}, this interpolates
+     * when enlarging and averages when shrinking.
+     * @see PixmapKernels#resample(Pixmap, int, int)
+     */
+    public static Pixmap resample(Pixmap input, int width, int height){
+        return PixmapKernels.resample(input, width, height);
+    }
 
-        for(int x = 0; x < pixmap.getWidth(); x++){
-            for(int y = 0; y < pixmap.getHeight(); y++){
-                if(empty(input.getPixel(x, y)) &&
-                (!empty(input.getPixel(x, y + 1)) || !empty(input.getPixel(x, y - 1)) || !empty(input.getPixel(x - 1, y)) || !empty(input.getPixel(x + 1, y))))
-                    pixmap.drawPixel(x, y);
+    /**
+     * Outlines all non-transparent pixels with the specified color. Empty pixels at a euclidean distance of at most thickness
+     * from a non-transparent pixel are filled; this is computed with a distance transform, so the cost does not depend on the
+     * thickness.
+     */
+    public static Pixmap outline(Pixmap input, Color color, int thickness){
+        Pixmap pixmap = copy(input);
+        if(thickness <= 0) return pixmap;
+
+        Pixmap source = PixmapKernels.rgba(input);
+        IntBuffer pixels = PixmapKernels.ints(pixmap);
+        int width = pixmap.getWidth(), limit = thickness * thickness;
+        int[] distances = PixmapKernels.squaredDistances(PixmapKernels.ints(source), width, pixmap.getHeight());
+        if(source != input) source.dispose();
+        int outline = PixmapKernels.blend(Color.rgba8888(color), 0);
+
+        PixmapKernels.parallel(pixmap.getHeight(), width, (start, end) -> {
+            for(int i = start * width; i < end * width; i++){
+                int dst = distances[i];
+                if(dst != 0 && dst <= limit){
+                    pixels.put(i, outline);
+                }
             }
-        }
+        });
         return pixmap;
     }
 
+    public static Pixmap outline(Pixmap input, Color color){
+        return outline(input, color, 1);
+    }
+
     public static Pixmap zoom(Pixmap input, int scale){
+        Pixmap source = PixmapKernels.rgba(input);
         Pixmap pixmap = new Pixmap(input.getWidth(), input.getHeight(), Format.RGBA8888);
-        for(int x = 0; x < pixmap.getWidth(); x++){
-            for(int y = 0; y < pixmap.getHeight(); y++){
-                pixmap.drawPixel(x, y, input.getPixel(x / scale + pixmap.getWidth() / 2 / scale, y / scale + pixmap.getHeight() / 2 / scale));
+        IntBuffer src = PixmapKernels.ints(source), dst = PixmapKernels.ints(pixmap);
+        int width = pixmap.getWidth(), height = pixmap.getHeight();
+        int offsetx = width / 2 / scale, offsety = height / 2 / scale;
+
+        PixmapKernels.parallel(height, width, (start, end) -> {
+            for(int y = start; y < end; y++){
+                int sy = y / scale + offsety;
+                if(sy >= height) continue;
+                for(int x = 0; x < width; x++){
+                    int sx = x / scale + offsetx;
+                    if(sx < width){
+                        dst.put(y * width + x, PixmapKernels.blend(src.get(sy * width + sx), 0));
+                    }
+                }
             }
-        }
+        });
+
+        if(source != input) source.dispose();
         return pixmap;
     }
 
@@ -125,26 +150,33 @@ public class Pixmaps{
     }
 
     public static Pixmap rotate(Pixmap input, float angle){
-        Vector2 vector = new Vector2();
         Pixmap pixmap = new Pixmap(input.getHeight(), input.getWidth(), Format.RGBA8888);
-
-        for(int x = 0; x < input.getWidth(); x++){
-            for(int y = 0; y < input.getHeight(); y++){
-                vector.set(x - input.getWidth() / 2f + 0.5f, y - input.getHeight() / 2f);
-                vector.rotate(-angle);
-                int px = (int)(vector.x + input.getWidth() / 2f + 0.01f);
-                int py = (int)(vector.y + input.getHeight() / 2f + 0.01f);
-                pixmap.drawPixel(px - input.getWidth() / 2 + pixmap.getWidth() / 2, py - input.getHeight() / 2 + pixmap.getHeight() / 2, input.getPixel(x, y));
+        Pixmap source = PixmapKernels.rgba(input);
+        IntBuffer src = PixmapKernels.ints(source), dst = PixmapKernels.ints(pixmap);
+        int srcWidth = input.getWidth(), srcHeight = input.getHeight(), width = pixmap.getWidth(), height = pixmap.getHeight();
+
+        //the same float math as Vector2.rotate, with the sine and cosine computed once
+        float radians = -angle * Mathf.degreesToRadians, cos = Mathf.cos(radians), sin = Mathf.sin(radians);
+
+        //rounding can map several pixels to the same destination, even at right angles, so pixels are blended in order
+        for(int x = 0; x < srcWidth; x++){
+            float vx = x - srcWidth / 2f + 0.5f;
+            for(int y = 0; y < srcHeight; y++){
+                float vy = y - srcHeight / 2f;
+                int px = (int)(vx * cos - vy * sin + srcWidth / 2f + 0.01f) - srcWidth / 2 + width / 2;
+                int py = (int)(vx * sin + vy * cos + srcHeight / 2f + 0.01f) - srcHeight / 2 + height / 2;
+                if(px >= 0 && py >= 0 && px < width && py < height){
+                    int index = py * width + px;
+                    dst.put(index, PixmapKernels.blend(src.get(y * srcWidth + x), dst.get(index)));
+                }
             }
         }
 
+        if(source != input) source.dispose();
         return pixmap;
     }
 
-    private static boolean empty(int i){
-        return (i & 0x000000ff) == 0;
-    }
-
+    /** @see PixmapKernels#map(Pixmap, PixmapKernels.PixelMapper) for a parallel, in-place alternative. */
     public static void traverse(Pixmap input, IntPositionConsumer t){
         for(int x = 0; x < input.getWidth(); x++){
             for(int y = 0; y < input.getHeight(); y++){
@@ -71,6 +71,14 @@ public class Texture extends GLTexture{
         this(GL20.GL_TEXTURE_2D, Core.gl.glGenTexture(), data);
     }
 
+    /**
+     * Creates a texture that has no data of its own, for subclasses that refer to the storage of another texture
+     * object. Nothing is uploaded and the texture is not managed.
+     */
+    protected Texture(int glTarget, int glHandle){
+        super(glTarget, glHandle);
+    }
+
     protected Texture(int glTarget, int glHandle, TextureData data){
         super(glTarget, glHandle);
         load(data);
@@ -17,6 +17,7 @@ public class TextureArray extends GLTexture{
     final static Map<Application, Array<TextureArray>> managedTextureArrays = new HashMap<>();
 
     private TextureArrayData data;
+    private Layer[] layers;
 
     public TextureArray(String... internalPaths){
         this(getInternalHandles(internalPaths));
@@ -110,6 +111,16 @@ public class TextureArray extends GLTexture{
         Core.gl.glBindTexture(glTarget, 0);
     }
 
+    /**
+     * Returns a {@link Texture} view of a single layer of this array, so that it can be used with texture regions and batches.
+     * The view shares the storage of this array: binding it binds the array, and disposing it does nothing.
+     */
+    public Layer getLayer(int layer){
+        if(layers == null) layers = new Layer[getDepth()];
+        if(layers[layer] == null) layers[layer] = new Layer(this, layer);
+        return layers[layer];
+    }
+
     @Override
     public int getWidth(){
         return data.getWidth();
@@ -137,4 +148,92 @@ public class TextureArray extends GLTexture{
         load(data);
     }
 
+    /** A {@link Texture} view of a single layer of a {@link TextureArray}. Sampling it requires a shader that samples by layer. */
+    public static class Layer extends Texture{
+        /** The array this layer belongs to. */
+        public final TextureArray array;
+        /** The index of this layer in the array. */
+        public final int layer;
+
+        Layer(TextureArray array, int layer){
+            super(GL30.GL_TEXTURE_2D_ARRAY, 0);
+            this.array = array;
+            this.layer = layer;
+            minFilter = array.getMinFilter();
+            magFilter = array.getMagFilter();
+            uWrap = array.getUWrap();
+            vWrap = array.getVWrap();
+        }
+
+        @Override
+        public void bind(){
+            array.bind();
+        }
+
+        @Override
+        public void bind(int unit){
+            array.bind(unit);
+        }
+
+        @Override
+        public int getTextureObjectHandle(){
+            return array.getTextureObjectHandle();
+        }
+
+        @Override
+        public void setFilter(TextureFilter minFilter, TextureFilter magFilter){
+            array.setFilter(minFilter, magFilter);
+            this.minFilter = minFilter;
+            this.magFilter = magFilter;
+        }
+
+        @Override
+        public void setWrap(TextureWrap u, TextureWrap v){
+            array.setWrap(u, v);
+            this.uWrap = u;
+            this.vWrap = v;
+        }
+
+        @Override
+        public void draw(Pixmap pixmap, int x, int y){
+            array.bind();
+            Core.gl30.glTexSubImage3D(GL30.GL_TEXTURE_2D_ARRAY, 0, x, y, layer, pixmap.getWidth(), pixmap.getHeight(), 1,
+            pixmap.getGLFormat(), pixmap.getGLType(), pixmap.getPixels());
+        }
+
+        @Override
+        public int getWidth(){
+            return array.getWidth();
+        }
+
+        @Override
+        public int getHeight(){
+            return array.getHeight();
+        }
+
+        @Override
+        public boolean isManaged(){
+            return false;
+        }
+
+        @Override
+        protected void reload(){
+            //the array reloads itself
+        }
+
+        @Override
+        public void dispose(){
+            //the array owns the storage
+        }
+
+        @Override
+        public boolean isDisposed(){
+            return array.isDisposed();
+        }
+
+        @Override
+        public String toString(){
+            return "TextureArray.Layer " + layer;
+        }
+    }
 }
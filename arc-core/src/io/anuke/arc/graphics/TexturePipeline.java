@@ -0,0 +1,361 @@
+package io.anuke.arc.graphics;
+
+import io.anuke.arc.Core;
+import io.anuke.arc.files.FileHandle;
+import io.anuke.arc.function.Consumer;
+import io.anuke.arc.graphics.Pixmap.Format;
+import io.anuke.arc.graphics.glutils.PixmapTextureData;
+import io.anuke.arc.util.ArcRuntimeException;
+import io.anuke.arc.util.Disposable;
+import io.anuke.arc.util.Log;
+import io.anuke.arc.util.Time;
+import io.anuke.arc.util.async.AsyncExecutor;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads textures in two stages: image files are decoded on a pool of worker threads, and the decoded pixels are uploaded on the
+ * rendering thread in {@link #update()}, spending at most {@link #budget} milliseconds per frame. At least one texture is
+ * uploaded per frame, so progress is guaranteed even if a single upload exceeds the budget.
+ * <p>
+ * With GL30, uploads go through a pixel buffer object, which lets the driver copy the pixels to the GPU asynchronously
+ * instead of stalling in glTexImage2D. Textures with mipmaps or that need format conversion use a regular upload.
+ * <p>
+ * The pipeline can also throttle uploads made elsewhere, see {@link #beginUpload()} and
+ * {@link io.anuke.arc.assets.loaders.TextureLoader#pipeline}. TexturePipeline must be disposed when no longer needed.
+ */
+public class TexturePipeline implements Disposable{
+    private static final long maxWindowNanos = 100 * 1000000L;
+
+    private final AsyncExecutor executor;
+    private final ConcurrentLinkedQueue<Request> decoded = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger decoding = new AtomicInteger();
+
+    /** Upload time budget per frame, in milliseconds. */
+    public float budget = 4f;
+    /** Whether to upload through pixel buffer objects when GL30 is available. */
+    public boolean usePixelBuffers = true;
+
+    private long frame = -1;
+    private long frameStart, frameNanos, lastFrameNanos;
+    private int frameUploads;
+    private int requested, uploaded, failed;
+    private long uploadedBytes;
+
+    private int pixelBuffer, pixelBufferSize;
+    /** The data that is currently being uploaded through the pixel buffer. */
+    private PixelBufferData uploading;
+
+    /** Creates a pipeline with one decoding thread per available processor, leaving one for the rendering thread. */
+    public TexturePipeline(){
+        this(Math.max(Runtime.getRuntime().availableProcessors() - 1, 1));
+    }
+
+    /** @param threads the amount of threads used for decoding images */
+    public TexturePipeline(int threads){
+        executor = new AsyncExecutor(Math.max(threads, 1));
+    }
+
+    /** Decodes a file in the background and uploads it as a texture. The listener is called on the rendering thread. */
+    public Request load(FileHandle file, Consumer<Texture> listener){
+        return load(file, null, false, listener);
+    }
+
+    /**
+     * Decodes a file in the background and uploads it as a texture.
+     * @param format the format of the texture, or null to use the format of the file
+     * @param listener called on the rendering thread once the texture is uploaded; may be null
+     */
+    public Request load(FileHandle file, Format format, boolean useMipMaps, Consumer<Texture> listener){
+        Request request = new Request(file, listener);
+        requested++;
+        decoding.incrementAndGet();
+        executor.submit(() -> {
+            try{
+                TextureData data = TextureData.Factory.loadFromFile(file, format, useMipMaps);
+                if(!data.isPrepared()) data.prepare();
+                request.data = data;
+            }catch(Throwable t){
+                request.error = t;
+            }
+            decoding.decrementAndGet();
+            decoded.add(request);
+        });
+        return request;
+    }
+
+    /**
+     * Uploads as many decoded textures as the budget allows. Must be called once per frame on the rendering thread.
+     * @return whether all requested textures are loaded
+     */
+    public boolean update(){
+        beginFrame();
+
+        Request request;
+        while((frameUploads == 0 || hasBudget()) && (request = decoded.poll()) != null){
+            if(request.error != null){
+                failed++;
+                request.done = true;
+                Log.err("Failed to load texture: " + request.file, request.error);
+                continue;
+            }
+
+            long start = Time.nanos();
+            request.texture = createTexture(request.data);
+            request.data = null;
+            endUpload(start, request.texture);
+            request.done = true;
+
+            if(request.listener != null) request.listener.accept(request.texture);
+        }
+
+        return isDone();
+    }
+
+    /**
+     * Starts an upload made outside of the pipeline, such as in a texture loader. Returns false if the budget of this frame is
+     * used up, in which case the upload should be retried in the next frame. Finish the upload with
+     * {@link #endUpload(long, Texture)}, passing the return value of {@link Time#nanos()} from before the upload.
+     */
+    public boolean beginUpload(){
+        beginFrame();
+        return frameUploads == 0 || hasBudget();
+    }
+
+    /** Records an upload for the frame budget and the metrics. */
+    public void endUpload(long startNanos, Texture texture){
+        frameNanos += Time.timeSinceNanos(startNanos);
+        lastFrameNanos = frameNanos;
+        frameUploads++;
+        uploaded++;
+        if(texture != null){
+            uploadedBytes += (long)texture.getWidth() * texture.getHeight() * Format.bytesPerPixel(texture.getTextureData() == null ?
+            Format.RGBA8888 : texture.getTextureData().getFormat());
+        }
+    }
+
+    /**
+     * Creates a texture from prepared data on the rendering thread, through the pixel buffer if possible. Does not check the
+     * budget.
+     */
+    public Texture createTexture(TextureData data){
+        if(!canUsePixelBuffer(data)){
+            return new Texture(data);
+        }
+
+        PixelBufferData wrapped = new PixelBufferData(this, data);
+        uploading = wrapped;
+        try{
+            return new Texture(wrapped);
+        }finally{
+            uploading = null;
+        }
+    }
+
+    private boolean canUsePixelBuffer(TextureData data){
+        return usePixelBuffers && Core.gl30 != null && data.getType() == TextureData.TextureDataType.Pixmap && !data.useMipMaps();
+    }
+
+    private void beginFrame(){
+        long id = Core.graphics.getFrameId();
+        //blocking loads, like AssetManager#finishLoading(), don't advance frames; start a new window after a while instead
+        if(id != frame || Time.timeSinceNanos(frameStart) > maxWindowNanos){
+            frame = id;
+            frameStart = Time.nanos();
+            frameNanos = 0;
+            frameUploads = 0;
+        }
+    }
+
+    private boolean hasBudget(){
+        return frameNanos < (long)(budget * 1000000L);
+    }
+
+    /** Uploads the pixels of the pixmap through the pixel buffer. The texture must be bound. */
+    void uploadPixelBuffer(int target, Pixmap pixmap){
+        ByteBuffer pixels = pixmap.getPixels();
+        int size = pixels.capacity();
+
+        if(pixelBuffer == 0) pixelBuffer = Core.gl.glGenBuffer();
+        Core.gl.glBindBuffer(GL30.GL_PIXEL_UNPACK_BUFFER, pixelBuffer);
+        //orphan the previous contents, so the driver doesn't wait for the last upload to finish
+        pixelBufferSize = Math.max(pixelBufferSize, size);
+        Core.gl.glBufferData(GL30.GL_PIXEL_UNPACK_BUFFER, pixelBufferSize, null, GL20.GL_STREAM_DRAW);
+        pixels.position(0);
+        pixels.limit(size);
+        Core.gl.glBufferSubData(GL30.GL_PIXEL_UNPACK_BUFFER, 0, size, pixels);
+
+        Core.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+        //with a bound unpack buffer, a null pointer is an offset of 0 into it
+        Core.gl.glTexImage2D(target, 0, pixmap.getGLInternalFormat(), pixmap.getWidth(), pixmap.getHeight(), 0,
+        pixmap.getGLFormat(), pixmap.getGLType(), null);
+        Core.gl.glBindBuffer(GL30.GL_PIXEL_UNPACK_BUFFER, 0);
+    }
+
+    /** @return whether all requested textures have been uploaded or have failed */
+    public boolean isDone(){
+        return decoding.get() == 0 && decoded.isEmpty();
+    }
+
+    /** @return the amount of requests that are being decoded */
+    public int getDecoding(){
+        return decoding.get();
+    }
+
+    /** @return the amount of decoded textures waiting for upload */
+    public int getPendingUploads(){
+        return decoded.size();
+    }
+
+    /** @return the amount of textures uploaded so far, including uploads recorded with {@link #endUpload(long, Texture)} */
+    public int getUploaded(){
+        return uploaded;
+    }
+
+    /** @return the amount of requests that failed to decode */
+    public int getFailed(){
+        return failed;
+    }
+
+    /** @return the approximate amount of texture memory uploaded so far */
+    public long getUploadedBytes(){
+        return uploadedBytes;
+    }
+
+    /** @return the time spent uploading in the last frame that had uploads, in milliseconds */
+    public float getLastFrameMillis(){
+        return lastFrameNanos / 1000000f;
+    }
+
+    /** @return the fraction of requests made with {@link #load(FileHandle, Consumer)} that are done, from 0 to 1 */
+    public float getProgress(){
+        if(requested == 0) return 1f;
+        return 1f - (decoding.get() + decoded.size()) / (float)requested;
+    }
+
+    /** Waits for all decoding to finish, then disposes the worker threads and the pixel buffer. Pending uploads are dropped. */
+    @Override
+    public void dispose(){
+        executor.dispose();
+        Request request;
+        while((request = decoded.poll()) != null){
+            if(request.data != null && request.data.getType() == TextureData.TextureDataType.Pixmap && request.data.disposePixmap()){
+                request.data.consumePixmap().dispose();
+            }
+        }
+        if(pixelBuffer != 0){
+            Core.gl.glDeleteBuffer(pixelBuffer);
+            pixelBuffer = 0;
+        }
+    }
+
+    /** A texture requested from the pipeline. */
+    public static class Request{
+        /** The file that is loaded. */
+        public final FileHandle file;
+        final Consumer<Texture> listener;
+        volatile TextureData data;
+        volatile Throwable error;
+        volatile Texture texture;
+        volatile boolean done;
+
+        Request(FileHandle file, Consumer<Texture> listener){
+            this.file = file;
+            this.listener = listener;
+        }
+
+        /** @return the texture, or null if it isn't uploaded yet or failed to load */
+        public Texture getTexture(){
+            return texture;
+        }
+
+        /** @return the error that occurred while decoding, or null */
+        public Throwable getError(){
+            return error;
+        }
+
+        /** @return whether the texture is uploaded or has failed */
+        public boolean isDone(){
+            return done;
+        }
+    }
+
+    /**
+     * Uploads pixmap data through the pixel buffer of a pipeline. Reloads after a context loss, and data that needs conversion,
+     * use a regular upload.
+     */
+    static class PixelBufferData implements TextureData{
+        final TexturePipeline pipeline;
+        final TextureData data;
+
+        PixelBufferData(TexturePipeline pipeline, TextureData data){
+            this.pipeline = pipeline;
+            this.data = data;
+        }
+
+        @Override
+        public TextureDataType getType(){
+            return TextureDataType.Custom;
+        }
+
+        @Override
+        public boolean isPrepared(){
+            return data.isPrepared();
+        }
+
+        @Override
+        public void prepare(){
+            data.prepare();
+        }
+
+        @Override
+        public Pixmap consumePixmap(){
+            throw new ArcRuntimeException("This TextureData implementation does not return a Pixmap");
+        }
+
+        @Override
+        public boolean disposePixmap(){
+            return false;
+        }
+
+        @Override
+        public void consumeCustomData(int target){
+            Pixmap pixmap = data.consumePixmap();
+            boolean dispose = data.disposePixmap();
+
+            if(pipeline.uploading == this && pixmap.getFormat() == data.getFormat()){
+                pipeline.uploadPixelBuffer(target, pixmap);
+                if(dispose) pixmap.dispose();
+            }else{
+                GLTexture.uploadImageData(target, new PixmapTextureData(pixmap, data.getFormat(), data.useMipMaps(), dispose), 0);
+            }
+        }
+
+        @Override
+        public int getWidth(){
+            return data.getWidth();
+        }
+
+        @Override
+        public int getHeight(){
+            return data.getHeight();
+        }
+
+        @Override
+        public Format getFormat(){
+            return data.getFormat();
+        }
+
+        @Override
+        public boolean useMipMaps(){
+            return data.useMipMaps();
+        }
+
+        @Override
+        public boolean isManaged(){
+            return data.isManaged();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package io.anuke.arc.graphics.g2d;
+
+import io.anuke.arc.Core;
+import io.anuke.arc.graphics.*;
+import io.anuke.arc.graphics.Mesh.VertexDataType;
+import io.anuke.arc.graphics.VertexAttributes.Usage;
+import io.anuke.arc.graphics.glutils.Shader;
+import io.anuke.arc.math.Mathf;
+import io.anuke.arc.util.ArcRuntimeException;
+
+/**
+ * A {@link SpriteBatch} that writes the texture array layer of every vertex, so that regions on different layers of the same
+ * {@link TextureArray} (such as the pages of an atlas loaded with {@link TextureAtlas#TextureAtlas(TextureAtlas.TextureAtlasData, boolean)})
+ * are drawn in one batch. Requires OpenGL (ES) 3.0.
+ * <p>
+ * Layers are sampled with the shader from {@link BatchShader#createArray()}; plain textures use the default shader.
+ * Custom shaders set with {@link Draw#shader(Shader)} receive the layer in the {@link BatchShader#LAYER_ATTRIBUTE} attribute.
+ */
+public class ArraySpriteBatch extends SpriteBatch{
+    //xy + color + uv + mix_color + layer
+    static final int VERTEX_SIZE = 2 + 1 + 2 + 1 + 1;
+    static final int SPRITE_SIZE = 4 * VERTEX_SIZE;
+
+    protected final float[] layerVertices;
+    protected final Shader arrayShader;
+    protected float layer;
+
+    /** Constructs a new ArraySpriteBatch with a size of 4096. */
+    public ArraySpriteBatch(){
+        this(4096);
+    }
+
+    /**
+     * Constructs a new ArraySpriteBatch.
+     * @param size The max number of sprites in a single batch. Max of 8191.
+     */
+    public ArraySpriteBatch(int size){
+        super(0);
+        if(Core.gl30 == null) throw new ArcRuntimeException("ArraySpriteBatch requires GL30.");
+        if(size > 8191) throw new IllegalArgumentException("Can't have more than 8191 sprites per batch: " + size);
+
+        mesh.dispose();
+        mesh = new Mesh(VertexDataType.VertexBufferObjectStreaming, false, size * 4, size * 6,
+        new VertexAttribute(Usage.Position, 2, Shader.POSITION_ATTRIBUTE),
+        new VertexAttribute(Usage.ColorPacked, 4, Shader.COLOR_ATTRIBUTE),
+        new VertexAttribute(Usage.TextureCoordinates, 2, Shader.TEXCOORD_ATTRIBUTE + "0"),
+        new VertexAttribute(Usage.ColorPacked, 4, Shader.MIX_COLOR_ATTRIBUTE),
+        new VertexAttribute(Usage.Generic, 1, BatchShader.LAYER_ATTRIBUTE));
+        mesh.setIndices(quadIndices(size));
+
+        layerVertices = new float[size * SPRITE_SIZE];
+        arrayShader = BatchShader.createArray();
+    }
+
+    @Override
+    protected void switchTexture(Texture texture){
+        if(texture instanceof TextureArray.Layer && lastTexture instanceof TextureArray.Layer
+        && ((TextureArray.Layer)texture).array == ((TextureArray.Layer)lastTexture).array){
+            //same array, only the layer changes
+            lastTexture = texture;
+        }else{
+            super.switchTexture(texture);
+        }
+        layer = texture instanceof TextureArray.Layer ? ((TextureArray.Layer)texture).layer : 0;
+    }
+
+    @Override
+    protected void draw(Texture texture, float[] spriteVertices, int offset, int count){
+        if(texture != lastTexture){
+            switchTexture(texture);
+        }
+
+        float layer = this.layer;
+        float[] vertices = this.layerVertices;
+        for(int i = offset, end = offset + count; i < end; i += SpriteBatch.VERTEX_SIZE){
+            if(idx == vertices.length){
+                flush();
+            }
+            System.arraycopy(spriteVertices, i, vertices, idx, SpriteBatch.VERTEX_SIZE);
+            vertices[idx + SpriteBatch.VERTEX_SIZE] = layer;
+            idx += VERTEX_SIZE;
+        }
+    }
+
+    @Override
+    protected void draw(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float rotation){
+        Texture texture = region.texture;
+        if(texture != lastTexture){
+            switchTexture(texture);
+        }
+        //switching between layers of the same array does not flush
+        if(idx == layerVertices.length){
+            flush();
+        }
+
+        float x1, y1, x2, y2, x3, y3, x4, y4;
+
+        if(!Mathf.isZero(rotation)){
+            //bottom left and top right corner points relative to origin
+            final float worldOriginX = x + originX;
+            final float worldOriginY = y + originY;
+            float fx = -originX;
+            float fy = -originY;
+            float fx2 = width - originX;
+            float fy2 = height - originY;
+
+            final float cos = Mathf.cosDeg(rotation);
+            final float sin = Mathf.sinDeg(rotation);
+
+            x1 = cos * fx - sin * fy;
+            y1 = sin * fx + cos * fy;
+
+            x2 = cos * fx - sin * fy2;
+            y2 = sin * fx + cos * fy2;
+
+            x3 = cos * fx2 - sin * fy2;
+            y3 = sin * fx2 + cos * fy2;
+
+            x4 = x1 + (x3 - x2) + worldOriginX;
+            y4 = y3 - (y2 - y1) + worldOriginY;
+
+            x1 += worldOriginX;
+            y1 += worldOriginY;
+            x2 += worldOriginX;
+            y2 += worldOriginY;
+            x3 += worldOriginX;
+            y3 += worldOriginY;
+        }else{
+            x1 = x;
+            y1 = y;
+            x2 = x;
+            y2 = y + height;
+            x3 = x + width;
+            y3 = y + height;
+            x4 = x + width;
+            y4 = y;
+        }
+
+        final float u = region.u;
+        final float v = region.v2;
+        final float u2 = region.u2;
+        final float v2 = region.v;
+
+        final float color = this.colorPacked;
+        final float mixColor = this.mixColorPacked;
+        final float layer = this.layer;
+        final float[] vertices = this.layerVertices;
+        int idx = this.idx;
+        vertices[idx] = x1;
+        vertices[idx + 1] = y1;
+        vertices[idx + 2] = color;
+        vertices[idx + 3] = u;
+        vertices[idx + 4] = v;
+        vertices[idx + 5] = mixColor;
+        vertices[idx + 6] = layer;
+
+        vertices[idx + 7] = x2;
+        vertices[idx + 8] = y2;
+        vertices[idx + 9] = color;
+        vertices[idx + 10] = u;
+        vertices[idx + 11] = v2;
+        vertices[idx + 12] = mixColor;
+        vertices[idx + 13] = layer;
+
+        vertices[idx + 14] = x3;
+        vertices[idx + 15] = y3;
+        vertices[idx + 16] = color;
+        vertices[idx + 17] = u2;
+        vertices[idx + 18] = v2;
+        vertices[idx + 19] = mixColor;
+        vertices[idx + 20] = layer;
+
+        vertices[idx + 21] = x4;
+        vertices[idx + 22] = y4;
+        vertices[idx + 23] = color;
+        vertices[idx + 24] = u2;
+        vertices[idx + 25] = v;
+        vertices[idx + 26] = mixColor;
+        vertices[idx + 27] = layer;
+        this.idx = idx + SPRITE_SIZE;
+    }
+
+    @Override
+    protected void flush(){
+        if(idx == 0) return;
+
+        Shader shader = customShader != null ? customShader : lastTexture instanceof TextureArray.Layer ? arrayShader : this.shader;
+
+        shader.begin();
+        setupMatrices(shader);
+
+        if(customShader != null && apply){
+            customShader.apply();
+        }
+
+        renderCalls++;
+        totalRenderCalls++;
+        int spritesInBatch = idx / SPRITE_SIZE;
+        if(spritesInBatch > maxSpritesInBatch) maxSpritesInBatch = spritesInBatch;
+        int count = spritesInBatch * 6;
+
+        applyBlending();
+
+        lastTexture.bind();
+        Mesh mesh = this.mesh;
+        mesh.setVertices(layerVertices, 0, idx);
+        mesh.getIndicesBuffer().position(0);
+        mesh.getIndicesBuffer().limit(count);
+        mesh.render(shader, GL20.GL_TRIANGLES, 0, count);
+
+        idx = 0;
+
+        shader.end();
+    }
+
+    @Override
+    public void dispose(){
+        super.dispose();
+        arrayShader.dispose();
+    }
+}
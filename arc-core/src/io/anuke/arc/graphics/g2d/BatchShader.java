@@ -1,5 +1,7 @@
 package io.anuke.arc.graphics.g2d;
 
+import io.anuke.arc.Core;
+import io.anuke.arc.graphics.glutils.GLVersion;
 import io.anuke.arc.graphics.glutils.Shader;
 import io.anuke.arc.math.Matrix3;
 import io.anuke.arc.util.Strings;
@@ -10,6 +12,16 @@ public class BatchShader{
     private static final int M00 = 0, M01 = 4, M02 = 8, M03 = 12, M10 = 1, M11 = 5, M12 = 9, M13 = 13, M20 = 2,
         M21 = 6, M22 = 10, M23 = 14, M30 = 3, M31 = 7, M32 = 11, M33 = 15;
     
+    /** Per-instance x, y, width and height of a sprite. */
+    public static final String INSTANCE_RECT_ATTRIBUTE = "a_rect";
+    /** Per-instance origin x, origin y and rotation in degrees of a sprite. */
+    public static final String INSTANCE_TRANSFORM_ATTRIBUTE = "a_transform";
+    /** Per-instance texture coordinates of the bottom left and top right corner of a sprite. */
+    public static final String INSTANCE_REGION_ATTRIBUTE = "a_region";
+
+    /** Per-vertex texture array layer, used by {@link ArraySpriteBatch}. */
+    public static final String LAYER_ATTRIBUTE = "a_layer";
+
     private static final String vertexShader =
     Strings.join("\n",
         "attribute vec4 " + Shader.POSITION_ATTRIBUTE + ";",
@@ -50,11 +62,106 @@ public class BatchShader{
         "}"
     );
 
+    private static final String instancedVertexShader =
+    Strings.join("\n",
+        "attribute vec2 " + Shader.POSITION_ATTRIBUTE + ";",
+        "attribute vec4 " + INSTANCE_RECT_ATTRIBUTE + ";",
+        "attribute vec3 " + INSTANCE_TRANSFORM_ATTRIBUTE + ";",
+        "attribute vec4 " + INSTANCE_REGION_ATTRIBUTE + ";",
+        "attribute vec4 " + Shader.COLOR_ATTRIBUTE + ";",
+        "attribute vec4 " + Shader.MIX_COLOR_ATTRIBUTE + ";",
+        "uniform mat4 u_projTrans;",
+        "varying vec4 v_color;",
+        "varying vec4 v_mix_color;",
+        "varying vec2 v_texCoords;",
+        "",
+        "void main(){",
+        "   vec2 local = " + Shader.POSITION_ATTRIBUTE + " * " + INSTANCE_RECT_ATTRIBUTE + ".zw - " + INSTANCE_TRANSFORM_ATTRIBUTE + ".xy;",
+        "   float angle = radians(" + INSTANCE_TRANSFORM_ATTRIBUTE + ".z);",
+        "   float c = cos(angle);",
+        "   float s = sin(angle);",
+        "   vec2 world = vec2(c * local.x - s * local.y, s * local.x + c * local.y) + " + INSTANCE_RECT_ATTRIBUTE + ".xy + " + INSTANCE_TRANSFORM_ATTRIBUTE + ".xy;",
+        "   v_color = " + Shader.COLOR_ATTRIBUTE + ";",
+        "   v_color.a = v_color.a * (255.0/254.0);",
+        "   v_mix_color = " + Shader.MIX_COLOR_ATTRIBUTE + ";",
+        "   v_mix_color.a *= (255.0/254.0);",
+        "   v_texCoords = mix(" + INSTANCE_REGION_ATTRIBUTE + ".xy, " + INSTANCE_REGION_ATTRIBUTE + ".zw, " + Shader.POSITION_ATTRIBUTE + ");",
+        "   gl_Position = u_projTrans * vec4(world, 0.0, 1.0);",
+        "}"
+    );
+
+    private static final String arrayVertexShader =
+    Strings.join("\n",
+        "in vec4 " + Shader.POSITION_ATTRIBUTE + ";",
+        "in vec4 " + Shader.COLOR_ATTRIBUTE + ";",
+        "in vec2 " + Shader.TEXCOORD_ATTRIBUTE + "0;",
+        "in vec4 " + Shader.MIX_COLOR_ATTRIBUTE + ";",
+        "in float " + LAYER_ATTRIBUTE + ";",
+        "uniform mat4 u_projTrans;",
+        "out vec4 v_color;",
+        "out vec4 v_mix_color;",
+        "out vec3 v_texCoords;",
+        "",
+        "void main(){",
+        "   v_color = " + Shader.COLOR_ATTRIBUTE + ";",
+        "   v_color.a = v_color.a * (255.0/254.0);",
+        "   v_mix_color = " + Shader.MIX_COLOR_ATTRIBUTE + ";",
+        "   v_mix_color.a *= (255.0/254.0);",
+        "   v_texCoords = vec3(" + Shader.TEXCOORD_ATTRIBUTE + "0, " + LAYER_ATTRIBUTE + ");",
+        "   gl_Position = u_projTrans * " + Shader.POSITION_ATTRIBUTE + ";",
+        "}"
+    );
+    private static final String arrayFragmentShader =
+    Strings.join("\n",
+        "#ifdef GL_ES",
+        "precision mediump float;",
+        "precision mediump sampler2DArray;",
+        "#endif",
+        "",
+        "in vec4 v_color;",
+        "in vec4 v_mix_color;",
+        "in vec3 v_texCoords;",
+        "uniform sampler2DArray u_texture;",
+        "out vec4 fragColor;",
+        "",
+        "void main(){",
+        "  vec4 c = texture(u_texture, v_texCoords);",
+        "  fragColor = v_color * mix(c, vec4(v_mix_color.rgb, c.a), v_mix_color.a);",
+        "}"
+    );
+
     /** Returns a new instance of the default shader used by SpriteBatch for GL2 when no shader is specified. */
     public static Shader create(){
         return new Shader(vertexShader, fragmentShader);
     }
 
+    /**
+     * Returns a new instance of the shader used by {@link InstancedSpriteBatch}. Vertex positions are the corners of a unit
+     * quad, all other inputs are per-instance attributes. Uses the same fragment shader as {@link #create()}.
+     */
+    public static Shader createInstanced(){
+        return new Shader(instancedVertexShader, fragmentShader);
+    }
+
+    /**
+     * Returns a new instance of the shader used by {@link ArraySpriteBatch} for {@link io.anuke.arc.graphics.TextureArray}
+     * layers. Requires GL30. Since array textures need GLSL 3, this shader declares its own version, and
+     * {@link Shader#prependVertexCode}/{@link Shader#prependFragmentCode} are not applied to it.
+     */
+    public static Shader createArray(){
+        GLVersion version = Core.graphics.getGLVersion();
+        String header = version != null && version.getType() == GLVersion.Type.GLES ? "#version 300 es\n" : "#version 150\n";
+
+        String prependVertex = Shader.prependVertexCode, prependFragment = Shader.prependFragmentCode;
+        Shader.prependVertexCode = Shader.prependFragmentCode = "";
+        try{
+            return new Shader(header + arrayVertexShader, header + arrayFragmentShader);
+        }finally{
+            Shader.prependVertexCode = prependVertex;
+            Shader.prependFragmentCode = prependFragment;
+        }
+    }
+
     //mistakes were made
     public static float[] copyTransform(Matrix3 matrix){
         val[M01] = matrix.val[Matrix3.M01];
@@ -0,0 +1,202 @@
+package io.anuke.arc.graphics.g2d;
+
+import io.anuke.arc.Files.FileType;
+import io.anuke.arc.files.FileHandle;
+import io.anuke.arc.graphics.Pixmap.Format;
+import io.anuke.arc.graphics.Texture.TextureFilter;
+import io.anuke.arc.graphics.Texture.TextureWrap;
+import io.anuke.arc.graphics.g2d.TextureAtlas.TextureAtlasData;
+import io.anuke.arc.graphics.g2d.TextureAtlas.TextureAtlasData.Page;
+import io.anuke.arc.graphics.g2d.TextureAtlas.TextureAtlasData.Region;
+import io.anuke.arc.util.ArcRuntimeException;
+import io.anuke.arc.util.io.Streams;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads and writes texture atlases in a compact binary format, which is loaded without any text parsing. Files are memory
+ * mapped when possible. {@link TextureAtlasData} detects binary files by their header, so they can be used anywhere a text atlas
+ * can. The texture packer writes them when {@code binary} is enabled in its settings.
+ * <p>
+ * The format is big endian and consists of a header, a table of all names encoded as UTF-8, and fixed size page and region
+ * records. Regions are stored in {@link TextureAtlas#indexComparator} order.
+ */
+public class BinaryAtlas{
+    /** The first four bytes of every binary atlas: "ATLB". */
+    public static final int magic = 0x41544C42;
+    public static final int version = 1;
+
+    static final int headerSize = 4 * 5, pageSize = 4 * 4 + 5 + 3, regionSize = 4 * 13 + 4 * 8;
+    static final int flagRotate = 1, flagSplits = 2, flagPads = 4;
+
+    private static final Format[] formats = Format.values();
+    private static final TextureFilter[] filters = TextureFilter.values();
+    private static final TextureWrap[] wraps = TextureWrap.values();
+
+    /** @return whether the first four bytes of the stream are the binary atlas header. The stream must support marks. */
+    public static boolean isBinary(InputStream stream) throws IOException{
+        stream.mark(4);
+        int b1 = stream.read(), b2 = stream.read(), b3 = stream.read(), b4 = stream.read();
+        stream.reset();
+        return b4 != -1 && ((b1 << 24) | (b2 << 16) | (b3 << 8) | b4) == magic;
+    }
+
+    /** Loads a binary atlas file into the data, memory mapping it if the file type allows. */
+    static void read(TextureAtlasData data, FileHandle packFile, FileHandle imagesDir, boolean flip){
+        ByteBuffer buffer;
+        if(packFile.type() != FileType.Classpath && packFile.file().exists()){
+            buffer = packFile.map();
+        }else{
+            buffer = ByteBuffer.wrap(packFile.readBytes());
+        }
+        try{
+            read(data, buffer, imagesDir, flip);
+        }catch(RuntimeException e){
+            throw new ArcRuntimeException("Error reading binary pack file: " + packFile, e);
+        }
+    }
+
+    /** Reads a binary atlas from the buffer, starting at its position. */
+    static void read(TextureAtlasData data, ByteBuffer buffer, FileHandle imagesDir, boolean flip){
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        int start = buffer.position();
+        if(buffer.getInt(start) != magic) throw new ArcRuntimeException("Not a binary atlas.");
+        int fileVersion = buffer.getInt(start + 4);
+        if(fileVersion != version) throw new ArcRuntimeException("Unsupported binary atlas version: " + fileVersion);
+
+        int pageCount = buffer.getInt(start + 8);
+        int regionCount = buffer.getInt(start + 12);
+        int stringsSize = buffer.getInt(start + 16);
+
+        byte[] strings = new byte[stringsSize];
+        buffer.position(start + headerSize);
+        buffer.get(strings);
+
+        int pos = start + headerSize + stringsSize;
+        Page[] pages = new Page[pageCount];
+        data.pages.ensureCapacity(pageCount);
+        for(int i = 0; i < pageCount; i++, pos += pageSize){
+            String name = new String(strings, buffer.getInt(pos), buffer.getInt(pos + 4), StandardCharsets.UTF_8);
+            TextureFilter min = filters[buffer.get(pos + 17)];
+            pages[i] = new Page(imagesDir.child(name), buffer.getInt(pos + 8), buffer.getInt(pos + 12), min.isMipMap(),
+            formats[buffer.get(pos + 16)], min, filters[buffer.get(pos + 18)], wraps[buffer.get(pos + 19)], wraps[buffer.get(pos + 20)]);
+            data.pages.add(pages[i]);
+        }
+
+        data.regions.ensureCapacity(regionCount);
+        for(int i = 0; i < regionCount; i++, pos += regionSize){
+            Region region = new Region();
+            region.name = new String(strings, buffer.getInt(pos), buffer.getInt(pos + 4), StandardCharsets.UTF_8);
+            region.page = pages[buffer.getInt(pos + 8)];
+            region.index = buffer.getInt(pos + 12);
+            region.left = buffer.getInt(pos + 16);
+            region.top = buffer.getInt(pos + 20);
+            region.width = buffer.getInt(pos + 24);
+            region.height = buffer.getInt(pos + 28);
+            region.originalWidth = buffer.getInt(pos + 32);
+            region.originalHeight = buffer.getInt(pos + 36);
+            region.offsetX = buffer.getInt(pos + 40);
+            region.offsetY = buffer.getInt(pos + 44);
+
+            int flags = buffer.getInt(pos + 48);
+            region.rotate = (flags & flagRotate) != 0;
+            if((flags & flagSplits) != 0){
+                region.splits = new int[]{buffer.getInt(pos + 52), buffer.getInt(pos + 56), buffer.getInt(pos + 60), buffer.getInt(pos + 64)};
+            }
+            if((flags & flagPads) != 0){
+                region.pads = new int[]{buffer.getInt(pos + 68), buffer.getInt(pos + 72), buffer.getInt(pos + 76), buffer.getInt(pos + 80)};
+            }
+            region.flip = flip;
+            data.regions.add(region);
+        }
+    }
+
+    /** Writes the atlas data in binary format. Page files are stored by name, relative to the images directory. */
+    public static void write(TextureAtlasData data, FileHandle file){
+        OutputStream out = file.write(false, 8192);
+        try{
+            write(data, out);
+        }catch(IOException e){
+            throw new ArcRuntimeException("Error writing binary pack file: " + file, e);
+        }finally{
+            Streams.closeQuietly(out);
+        }
+    }
+
+    /** Writes the atlas data in binary format. The stream is not closed. */
+    public static void write(TextureAtlasData data, OutputStream out) throws IOException{
+        //regions must be in index order, like the text loader sorts them
+        data.regions.sort(TextureAtlas.indexComparator);
+
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        int[] pageNames = new int[data.pages.size * 2];
+        int[] regionNames = new int[data.regions.size * 2];
+        for(int i = 0; i < data.pages.size; i++){
+            writeString(strings, data.pages.get(i).textureFile.name(), pageNames, i);
+        }
+        for(int i = 0; i < data.regions.size; i++){
+            writeString(strings, data.regions.get(i).name, regionNames, i);
+        }
+
+        DataOutputStream stream = new DataOutputStream(out);
+        stream.writeInt(magic);
+        stream.writeInt(version);
+        stream.writeInt(data.pages.size);
+        stream.writeInt(data.regions.size);
+        stream.writeInt(strings.size());
+        strings.writeTo(stream);
+
+        for(int i = 0; i < data.pages.size; i++){
+            Page page = data.pages.get(i);
+            stream.writeInt(pageNames[i * 2]);
+            stream.writeInt(pageNames[i * 2 + 1]);
+            stream.writeInt((int)page.width);
+            stream.writeInt((int)page.height);
+            stream.writeByte(page.format.ordinal());
+            stream.writeByte(page.minFilter.ordinal());
+            stream.writeByte(page.magFilter.ordinal());
+            stream.writeByte(page.uWrap.ordinal());
+            stream.writeByte(page.vWrap.ordinal());
+            stream.write(new byte[3]);
+        }
+
+        for(int i = 0; i < data.regions.size; i++){
+            Region region = data.regions.get(i);
+            int page = data.pages.indexOf(region.page, true);
+            if(page == -1) throw new IllegalArgumentException("Region page is not part of the atlas: " + region.name);
+
+            stream.writeInt(regionNames[i * 2]);
+            stream.writeInt(regionNames[i * 2 + 1]);
+            stream.writeInt(page);
+            stream.writeInt(region.index);
+            stream.writeInt(region.left);
+            stream.writeInt(region.top);
+            stream.writeInt(region.width);
+            stream.writeInt(region.height);
+            stream.writeInt(region.originalWidth);
+            stream.writeInt(region.originalHeight);
+            stream.writeInt((int)region.offsetX);
+            stream.writeInt((int)region.offsetY);
+            stream.writeInt((region.rotate ? flagRotate : 0) | (region.splits != null ? flagSplits : 0) | (region.pads != null ? flagPads : 0));
+            writeInts(stream, region.splits);
+            writeInts(stream, region.pads);
+        }
+        stream.flush();
+    }
+
+    private static void writeString(ByteArrayOutputStream strings, String value, int[] offsets, int index){
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        offsets[index * 2] = strings.size();
+        offsets[index * 2 + 1] = bytes.length;
+        strings.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeInts(DataOutputStream stream, int[] values) throws IOException{
+        for(int i = 0; i < 4; i++){
+            stream.writeInt(values == null ? 0 : values[i]);
+        }
+    }
+}
@@ -102,7 +102,7 @@ public class CacheBatch extends SpriteBatch{
     @Override
     public void dispose(){
         super.dispose();
-        cache.dispose();
+        if(cache != null) cache.dispose();
     }
 
     public void beginDraw(){
@@ -0,0 +1,261 @@
+package io.anuke.arc.graphics.g2d;
+
+import io.anuke.arc.Core;
+import io.anuke.arc.collection.GridBits;
+import io.anuke.arc.function.IntPositionConsumer;
+import io.anuke.arc.graphics.Camera;
+import io.anuke.arc.graphics.Color;
+import io.anuke.arc.graphics.Texture;
+import io.anuke.arc.graphics.glutils.Shader;
+import io.anuke.arc.math.Mathf;
+import io.anuke.arc.util.ArcRuntimeException;
+import io.anuke.arc.util.Disposable;
+
+/**
+ * Caches static tile geometry, such as the floor of a tile map, in square chunks. Every chunk has its own {@link SpriteCache},
+ * which is only rebuilt after a tile in it is marked dirty, and only drawn when it intersects the camera.
+ * <p>
+ * Tiles are drawn by the tile drawer passed in the constructor, which is called once for every tile of a chunk that is rebuilt.
+ * During this call, {@link Core#batch} caches everything drawn with {@link Draw}, so the drawer can use the usual draw methods.
+ * Rebuilding happens lazily in {@link #draw(Camera)}; chunks that are not visible stay dirty until they are.
+ * <p>
+ * Like SpriteCache, this class does not manage blending. Raw vertices drawn into the cache must use indexed quads, see
+ * {@link CacheBatch}. ChunkCache must be disposed once it is no longer needed.
+ */
+public class ChunkCache implements Disposable{
+    /** Max amount of sprites a single chunk can hold with indexed geometry. */
+    private static final int maxChunkSprites = 8191;
+
+    private final int width, height, chunkSize, chunksX, chunksY;
+    private final float tileSize;
+    private final IntPositionConsumer drawer;
+    private final SpriteCache[] caches;
+    private final GridBits dirty;
+    private final Shader shader;
+    private final ChunkBatch batch = new ChunkBatch();
+    private int spritesPerChunk;
+
+    /** Extra world space around every chunk that is considered when culling, for sprites that extend beyond their tile. */
+    public float margin;
+    /** Number of chunks drawn in the last {@link #draw(Camera)} call. */
+    public int chunksDrawn;
+    /** Number of chunks rebuilt in the last {@link #draw(Camera)} call. */
+    public int chunksRebuilt;
+
+    /**
+     * Creates a cache with room for two sprites per tile in every chunk. Chunks grow as needed.
+     * @param width the width of the map in tiles
+     * @param height the height of the map in tiles
+     * @param chunkSize the width and height of a chunk in tiles
+     * @param tileSize the size of a tile in world units. Tile x, y is assumed to be drawn at (x * tileSize, y * tileSize).
+     * @param drawer draws the tile at the given tile coordinates
+     */
+    public ChunkCache(int width, int height, int chunkSize, float tileSize, IntPositionConsumer drawer){
+        this(width, height, chunkSize, tileSize, Math.min(chunkSize * chunkSize * 2, maxChunkSprites), drawer);
+    }
+
+    /**
+     * Creates a new cache.
+     * @param spritesPerChunk the initial amount of sprites a chunk can hold. Chunks that need more are reallocated. Max of 8191.
+     * @see #ChunkCache(int, int, int, float, IntPositionConsumer)
+     */
+    public ChunkCache(int width, int height, int chunkSize, float tileSize, int spritesPerChunk, IntPositionConsumer drawer){
+        if(chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be > 0: " + chunkSize);
+        if(spritesPerChunk <= 0 || spritesPerChunk > maxChunkSprites)
+            throw new IllegalArgumentException("spritesPerChunk must be between 1 and " + maxChunkSprites + ": " + spritesPerChunk);
+
+        this.width = width;
+        this.height = height;
+        this.chunkSize = chunkSize;
+        this.tileSize = tileSize;
+        this.spritesPerChunk = spritesPerChunk;
+        this.drawer = drawer;
+        this.margin = tileSize;
+
+        chunksX = Mathf.ceil((float)width / chunkSize);
+        chunksY = Mathf.ceil((float)height / chunkSize);
+        caches = new SpriteCache[chunksX * chunksY];
+        dirty = new GridBits(chunksX, chunksY);
+        shader = SpriteCache.createDefaultShader();
+        markAllDirty();
+    }
+
+    /** Marks the chunk containing the specified tile for rebuilding. */
+    public void markDirty(int x, int y){
+        if(x < 0 || y < 0 || x >= width || y >= height) return;
+        dirty.set(x / chunkSize, y / chunkSize);
+    }
+
+    /**
+     * Marks all chunks intersecting the square of tiles around a tile for rebuilding. Use this for tiles whose sprites spill
+     * over into their neighbours.
+     */
+    public void markDirty(int x, int y, int radius){
+        int minx = Math.max(x - radius, 0) / chunkSize, maxx = Math.min(x + radius, width - 1) / chunkSize;
+        int miny = Math.max(y - radius, 0) / chunkSize, maxy = Math.min(y + radius, height - 1) / chunkSize;
+        for(int cx = minx; cx <= maxx; cx++){
+            for(int cy = miny; cy <= maxy; cy++){
+                dirty.set(cx, cy);
+            }
+        }
+    }
+
+    /** Marks a chunk for rebuilding by chunk coordinates. */
+    public void markChunkDirty(int chunkX, int chunkY){
+        if(chunkX < 0 || chunkY < 0 || chunkX >= chunksX || chunkY >= chunksY) return;
+        dirty.set(chunkX, chunkY);
+    }
+
+    /** Marks every chunk for rebuilding. */
+    public void markAllDirty(){
+        for(int cx = 0; cx < chunksX; cx++){
+            for(int cy = 0; cy < chunksY; cy++){
+                dirty.set(cx, cy);
+            }
+        }
+    }
+
+    /** Rebuilds all dirty chunks, including ones that are not visible. */
+    public void rebuildDirty(){
+        for(int cx = 0; cx < chunksX; cx++){
+            for(int cy = 0; cy < chunksY; cy++){
+                if(dirty.get(cx, cy)) rebuild(cx, cy);
+            }
+        }
+    }
+
+    /**
+     * Draws every chunk that intersects the camera, rebuilding visible dirty chunks first. The current batch is flushed, and
+     * the camera projection is used for all chunks.
+     */
+    public void draw(Camera camera){
+        float chunkWorldSize = chunkSize * tileSize;
+        float x = camera.position.x - camera.width / 2f - margin, y = camera.position.y - camera.height / 2f - margin;
+        int minx = Math.max((int)Math.floor(x / chunkWorldSize), 0);
+        int miny = Math.max((int)Math.floor(y / chunkWorldSize), 0);
+        int maxx = Math.min((int)Math.floor((x + camera.width + margin * 2f) / chunkWorldSize), chunksX - 1);
+        int maxy = Math.min((int)Math.floor((y + camera.height + margin * 2f) / chunkWorldSize), chunksY - 1);
+
+        chunksDrawn = chunksRebuilt = 0;
+        if(minx > maxx || miny > maxy) return;
+
+        //rebuilding swaps the batch, so it can't happen while drawing a chunk
+        for(int cx = minx; cx <= maxx; cx++){
+            for(int cy = miny; cy <= maxy; cy++){
+                if(dirty.get(cx, cy)) rebuild(cx, cy);
+            }
+        }
+
+        Draw.flush();
+
+        for(int cx = minx; cx <= maxx; cx++){
+            for(int cy = miny; cy <= maxy; cy++){
+                SpriteCache cache = caches[cx + cy * chunksX];
+                if(cache == null || cache.getCaches().size == 0) continue;
+
+                cache.setProjectionMatrix(camera.projection());
+                cache.begin();
+                cache.draw(0);
+                cache.end();
+                chunksDrawn++;
+            }
+        }
+    }
+
+    /** Rebuilds a single chunk, growing its cache if the tiles do not fit. */
+    private void rebuild(int cx, int cy){
+        dirty.set(cx, cy, false);
+        chunksRebuilt++;
+
+        int index = cx + cy * chunksX;
+        while(true){
+            SpriteCache cache = caches[index];
+            if(cache == null){
+                cache = caches[index] = new SpriteCache(spritesPerChunk, 1, shader, true);
+                cache.ownsShader = false;
+            }
+
+            int capacity = spritesPerChunk;
+            cache.clear();
+            cache.setColor(Color.white);
+            cache.beginCache();
+            batch.begin(cache, capacity);
+
+            SpriteBatch last = Core.batch;
+            Core.batch = batch;
+            try{
+                int maxx = Math.min((cx + 1) * chunkSize, width), maxy = Math.min((cy + 1) * chunkSize, height);
+                for(int x = cx * chunkSize; x < maxx; x++){
+                    for(int y = cy * chunkSize; y < maxy; y++){
+                        drawer.accept(x, y);
+                    }
+                }
+            }finally{
+                Core.batch = last;
+                cache.endCache();
+            }
+
+            if(batch.sprites <= capacity) return;
+
+            //too many sprites, grow all future chunks as well and try again
+            if(spritesPerChunk == maxChunkSprites){
+                throw new ArcRuntimeException("Chunk " + cx + ", " + cy + " needs " + batch.sprites + " sprites, but the max is "
+                + maxChunkSprites + ". Use a smaller chunk size.");
+            }
+            spritesPerChunk = Math.min(Math.max(spritesPerChunk * 2, batch.sprites), maxChunkSprites);
+            cache.dispose();
+            caches[index] = null;
+        }
+    }
+
+    /** @return the width and height of a chunk in tiles */
+    public int getChunkSize(){
+        return chunkSize;
+    }
+
+    /** @return whether the chunk at the specified chunk coordinates is waiting to be rebuilt */
+    public boolean isDirty(int chunkX, int chunkY){
+        return dirty.get(chunkX, chunkY);
+    }
+
+    @Override
+    public void dispose(){
+        for(int i = 0; i < caches.length; i++){
+            if(caches[i] != null){
+                caches[i].dispose();
+                caches[i] = null;
+            }
+        }
+        //the caches are owned by the chunks
+        batch.cache = null;
+        batch.dispose();
+        shader.dispose();
+    }
+
+    /** Counts the sprites added to a chunk, dropping any that don't fit. */
+    static class ChunkBatch extends CacheBatch{
+        int sprites, capacity;
+
+        ChunkBatch(){
+            super((SpriteCache)null);
+        }
+
+        void begin(SpriteCache cache, int capacity){
+            this.cache = cache;
+            this.capacity = capacity;
+            this.sprites = 0;
+        }
+
+        @Override
+        protected void draw(Texture texture, float[] spriteVertices, int offset, int count){
+            int added = count / SPRITE_SIZE;
+            sprites += added;
+            if(sprites <= capacity) super.draw(texture, spriteVertices, offset, count);
+        }
+
+        @Override
+        protected void draw(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float rotation){
+            if(++sprites <= capacity) super.draw(region, x, y, originX, originY, width, height, rotation);
+        }
+    }
+}
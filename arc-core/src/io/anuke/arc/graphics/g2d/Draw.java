@@ -178,6 +178,27 @@ public class Draw{
         rect(Core.atlas.find(region), x, y, rotation);
     }
 
+    /** Draws the region of a handle from {@link TextureAtlas#handle(String)}, without looking up its name. */
+    public static void rect(int region, float x, float y, float w, float h){
+        rect(Core.atlas.find(region), x, y, w, h);
+    }
+
+    public static void rect(int region, float x, float y){
+        rect(Core.atlas.find(region), x, y);
+    }
+
+    public static void rect(int region, float x, float y, float w, float h, float originX, float originY, float rotation){
+        rect(Core.atlas.find(region), x, y, w, h, originX, originY, rotation);
+    }
+
+    public static void rect(int region, float x, float y, float w, float h, float rotation){
+        rect(Core.atlas.find(region), x, y, w, h, w/2f, h/2f, rotation);
+    }
+
+    public static void rect(int region, float x, float y, float rotation){
+        rect(Core.atlas.find(region), x, y, rotation);
+    }
+
     public static void vert(Texture texture, float[] vertices, int offset, int length){
         Core.batch.draw(texture, vertices, offset, length);
     }
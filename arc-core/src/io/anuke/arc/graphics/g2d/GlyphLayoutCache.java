@@ -0,0 +1,163 @@
+package io.anuke.arc.graphics.g2d;
+
+import io.anuke.arc.graphics.Color;
+import io.anuke.arc.util.Align;
+import io.anuke.arc.util.pooling.Pools;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches {@link GlyphLayout}s by everything that affects them: the font and its scale, the text, the color, target width,
+ * alignment, wrapping and truncation. When the cache is full, the least recently used layout is evicted.
+ * <p>
+ * Layouts returned by the cache are shared and must not be modified or kept: evicted layouts are returned to the pool and reused,
+ * so a layout should only be read right after it was returned. Fonts that change their glyphs in any other way than by scaling
+ * require a {@link #clear()}. Not thread safe.
+ */
+public class GlyphLayoutCache{
+    private final LinkedHashMap<Key, GlyphLayout> layouts;
+    private final Key lookup = new Key();
+    private final int capacity;
+    private int hits, misses;
+
+    /** @param capacity the maximum amount of layouts to keep */
+    public GlyphLayoutCache(int capacity){
+        if(capacity <= 0) throw new IllegalArgumentException("capacity must be > 0: " + capacity);
+        this.capacity = capacity;
+        this.layouts = new LinkedHashMap<Key, GlyphLayout>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, GlyphLayout> eldest){
+                if(size() <= GlyphLayoutCache.this.capacity) return false;
+                Pools.free(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /** @see #get(BitmapFont, CharSequence, Color, float, int, boolean, String) */
+    public GlyphLayout get(BitmapFont font, CharSequence text){
+        return get(font, text, font.getColor(), 0, Align.left, false, null);
+    }
+
+    /** @see #get(BitmapFont, CharSequence, Color, float, int, boolean, String) */
+    public GlyphLayout get(BitmapFont font, CharSequence text, Color color, float targetWidth, int halign, boolean wrap){
+        return get(font, text, color, targetWidth, halign, wrap, null);
+    }
+
+    /**
+     * Returns a layout of the text, creating it if it isn't cached. The parameters are the same as for
+     * {@link GlyphLayout#setText(BitmapFont, CharSequence, int, int, Color, float, int, boolean, String)}.
+     * @return a shared layout, which must not be modified or kept
+     */
+    public GlyphLayout get(BitmapFont font, CharSequence text, Color color, float targetWidth, int halign, boolean wrap,
+                           String truncate){
+        Key key = lookup;
+        key.set(font, text, color.toFloatBits(), targetWidth, halign, wrap, truncate);
+
+        GlyphLayout layout = layouts.get(key);
+        key.text = null;
+        if(layout != null){
+            hits++;
+            return layout;
+        }
+
+        misses++;
+        layout = Pools.obtain(GlyphLayout.class, GlyphLayout::new);
+        layout.setText(font, text, 0, text.length(), color, targetWidth, halign, wrap, truncate);
+        Key stored = new Key();
+        stored.set(font, text.toString(), color.toFloatBits(), targetWidth, halign, wrap, truncate);
+        layouts.put(stored, layout);
+        return layout;
+    }
+
+    /** Removes all layouts of a font, for example after it was disposed. */
+    public void clear(BitmapFont font){
+        Iterator<Map.Entry<Key, GlyphLayout>> iterator = layouts.entrySet().iterator();
+        while(iterator.hasNext()){
+            Map.Entry<Key, GlyphLayout> entry = iterator.next();
+            if(entry.getKey().font == font){
+                Pools.free(entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    /** Removes all layouts. */
+    public void clear(){
+        for(GlyphLayout layout : layouts.values()){
+            Pools.free(layout);
+        }
+        layouts.clear();
+    }
+
+    /** @return the amount of cached layouts */
+    public int size(){
+        return layouts.size();
+    }
+
+    /** @return the amount of layouts that were found in the cache */
+    public int getHits(){
+        return hits;
+    }
+
+    /** @return the amount of layouts that had to be created */
+    public int getMisses(){
+        return misses;
+    }
+
+    static class Key{
+        BitmapFont font;
+        CharSequence text;
+        float color, targetWidth, scaleX, scaleY;
+        int halign, hash;
+        boolean wrap, markup;
+        String truncate;
+
+        void set(BitmapFont font, CharSequence text, float color, float targetWidth, int halign, boolean wrap, String truncate){
+            this.font = font;
+            this.text = text;
+            this.color = color;
+            this.targetWidth = targetWidth;
+            this.halign = halign;
+            this.wrap = wrap;
+            this.truncate = truncate;
+            this.scaleX = font.getScaleX();
+            this.scaleY = font.getScaleY();
+            this.markup = font.getData().markupEnabled;
+
+            int h = System.identityHashCode(font);
+            for(int i = 0, n = text.length(); i < n; i++){
+                h = 31 * h + text.charAt(i);
+            }
+            h = 31 * h + Float.floatToIntBits(targetWidth);
+            h = 31 * h + Float.floatToIntBits(color);
+            h = 31 * h + halign;
+            hash = h;
+        }
+
+        @Override
+        public int hashCode(){
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(!(o instanceof Key)) return false;
+            Key other = (Key)o;
+            if(hash != other.hash || font != other.font || color != other.color || targetWidth != other.targetWidth
+            || halign != other.halign || wrap != other.wrap || markup != other.markup || scaleX != other.scaleX
+            || scaleY != other.scaleY || (truncate == null ? other.truncate != null : !truncate.equals(other.truncate))){
+                return false;
+            }
+            CharSequence a = text, b = other.text;
+            int length = a.length();
+            if(length != b.length()) return false;
+            for(int i = 0; i < length; i++){
+                if(a.charAt(i) != b.charAt(i)) return false;
+            }
+            return true;
+        }
+    }
+}
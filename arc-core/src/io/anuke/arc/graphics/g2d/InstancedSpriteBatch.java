@@ -0,0 +1,131 @@
+package io.anuke.arc.graphics.g2d;
+
+import io.anuke.arc.Core;
+import io.anuke.arc.graphics.*;
+import io.anuke.arc.graphics.VertexAttributes.Usage;
+import io.anuke.arc.graphics.glutils.Shader;
+import io.anuke.arc.util.ArcRuntimeException;
+
+/**
+ * A {@link SpriteBatch} that draws texture regions with instanced rendering. Instead of four vertices, every region is
+ * written as a single record of position, size, origin, rotation, texture coordinates and colors, and the corners are
+ * computed on the GPU. Requires OpenGL (ES) 3.0.
+ * <p>
+ * Raw vertex data (as drawn by {@link Fill}) and any custom shader set with {@link Draw#shader(Shader)} use the regular
+ * {@link SpriteBatch} path, since custom shaders expect per-vertex input. Draw order is preserved between both paths.
+ */
+public class InstancedSpriteBatch extends SpriteBatch{
+    //xywh + origin xy + rotation + uv + uv2 + color + mix_color
+    static final int INSTANCE_SIZE = 4 + 3 + 4 + 1 + 1;
+
+    protected InstancedMesh instanceMesh;
+    protected final Shader instanceShader;
+    protected final float[] instances;
+    protected int instanceIdx = 0;
+
+    /** Constructs a new InstancedSpriteBatch with a size of 4096. */
+    public InstancedSpriteBatch(){
+        this(4096);
+    }
+
+    /**
+     * Constructs a new InstancedSpriteBatch.
+     * @param size The max number of sprites in a single batch. Max of 8191.
+     */
+    public InstancedSpriteBatch(int size){
+        super(size, null);
+        if(Core.gl30 == null) throw new ArcRuntimeException("InstancedSpriteBatch requires GL30.");
+
+        instanceMesh = new InstancedMesh(true, 4, 6, size,
+        new VertexAttributes(new VertexAttribute(Usage.Position, 2, Shader.POSITION_ATTRIBUTE)),
+        new VertexAttributes(
+            new VertexAttribute(Usage.Generic, 4, BatchShader.INSTANCE_RECT_ATTRIBUTE),
+            new VertexAttribute(Usage.Generic, 3, BatchShader.INSTANCE_TRANSFORM_ATTRIBUTE),
+            new VertexAttribute(Usage.TextureCoordinates, 4, BatchShader.INSTANCE_REGION_ATTRIBUTE),
+            new VertexAttribute(Usage.ColorPacked, 4, Shader.COLOR_ATTRIBUTE),
+            new VertexAttribute(Usage.ColorPacked, 4, Shader.MIX_COLOR_ATTRIBUTE)
+        ));
+        //unit quad, in the same corner order as SpriteBatch
+        instanceMesh.setVertices(new float[]{0, 0, 0, 1, 1, 1, 1, 0});
+        instanceMesh.setIndices(new short[]{0, 1, 2, 2, 3, 0});
+
+        instances = new float[size * INSTANCE_SIZE];
+        instanceShader = BatchShader.createInstanced();
+    }
+
+    @Override
+    protected void draw(Texture texture, float[] spriteVertices, int offset, int count){
+        flushInstances();
+        super.draw(texture, spriteVertices, offset, count);
+    }
+
+    @Override
+    protected void draw(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float rotation){
+        if(customShader != null){
+            flushInstances();
+            super.draw(region, x, y, originX, originY, width, height, rotation);
+            return;
+        }
+
+        Texture texture = region.texture;
+        if(texture != lastTexture){
+            switchTexture(texture);
+        }else if(idx > 0){
+            super.flush();
+        }else if(instanceIdx == instances.length){
+            flushInstances();
+        }
+
+        float[] instances = this.instances;
+        int idx = this.instanceIdx;
+        instances[idx] = x;
+        instances[idx + 1] = y;
+        instances[idx + 2] = width;
+        instances[idx + 3] = height;
+        instances[idx + 4] = originX;
+        instances[idx + 5] = originY;
+        instances[idx + 6] = rotation;
+        instances[idx + 7] = region.u;
+        instances[idx + 8] = region.v2;
+        instances[idx + 9] = region.u2;
+        instances[idx + 10] = region.v;
+        instances[idx + 11] = colorPacked;
+        instances[idx + 12] = mixColorPacked;
+        this.instanceIdx = idx + INSTANCE_SIZE;
+    }
+
+    @Override
+    protected void flush(){
+        super.flush();
+        flushInstances();
+    }
+
+    protected void flushInstances(){
+        if(instanceIdx == 0) return;
+
+        renderCalls++;
+        totalRenderCalls++;
+        int spritesInBatch = instanceIdx / INSTANCE_SIZE;
+        if(spritesInBatch > maxSpritesInBatch) maxSpritesInBatch = spritesInBatch;
+
+        instanceShader.begin();
+        setupMatrices(instanceShader);
+
+        applyBlending();
+
+        lastTexture.bind();
+        instanceMesh.setInstances(instances, 0, instanceIdx);
+        instanceMesh.renderInstanced(instanceShader, GL20.GL_TRIANGLES, 0, 6, spritesInBatch);
+
+        instanceIdx = 0;
+
+        instanceShader.end();
+    }
+
+    @Override
+    public void dispose(){
+        super.dispose();
+        instanceMesh.dispose();
+        instanceShader.dispose();
+    }
+}
@@ -81,7 +81,7 @@ public class SpriteBatch implements Disposable{
         // 32767 is max vertex index, so 32767 / 4 vertices per sprite = 8191 sprites max.
         if(size > 8191) throw new IllegalArgumentException("Can't have more than 8191 sprites per batch: " + size);
 
-        VertexDataType vertexDataType = (Core.gl30 != null) ? VertexDataType.VertexBufferObjectWithVAO : VertexDataType.VertexArray;
+        VertexDataType vertexDataType = (Core.gl30 != null) ? VertexDataType.VertexBufferObjectStreaming : VertexDataType.VertexArray;
 
         mesh = new Mesh(vertexDataType, false, size * 4, size * 6,
         new VertexAttribute(Usage.Position, 2, Shader.POSITION_ATTRIBUTE),
@@ -93,6 +93,18 @@ public class SpriteBatch implements Disposable{
 
         vertices = new float[size * SPRITE_SIZE];
 
+        mesh.setIndices(quadIndices(size));
+
+        if(defaultShader == null){
+            shader = BatchShader.create();
+            ownsShader = true;
+        }else{
+            shader = defaultShader;
+        }
+    }
+
+    /** @return indices for drawing the given amount of quads, each made of two triangles. */
+    static short[] quadIndices(int size){
         int len = size * 6;
         short[] indices = new short[len];
         short j = 0;
@@ -104,14 +116,7 @@ public class SpriteBatch implements Disposable{
             indices[i + 4] = (short)(j + 3);
             indices[i + 5] = j;
         }
-        mesh.setIndices(indices);
-
-        if(defaultShader == null){
-            shader = BatchShader.create();
-            ownsShader = true;
-        }else{
-            shader = defaultShader;
-        }
+        return indices;
     }
 
     void setColor(Color tint){
@@ -333,7 +338,7 @@ public class SpriteBatch implements Disposable{
         renderCalls = 0;
 
         getShader().begin();
-        setupMatrices();
+        setupMatrices(getShader());
 
         if(customShader != null && apply){
             customShader.apply();
@@ -345,12 +350,7 @@ public class SpriteBatch implements Disposable{
         if(spritesInBatch > maxSpritesInBatch) maxSpritesInBatch = spritesInBatch;
         int count = spritesInBatch * 6;
 
-        if(blending != Blending.disabled){
-            Core.gl.glEnable(GL20.GL_BLEND);
-            Core.gl.glBlendFuncSeparate(blending.src, blending.dst, blending.src, blending.dst);
-        }else{
-            Core.gl.glDisable(GL20.GL_BLEND);
-        }
+        applyBlending();
 
         lastTexture.bind();
         Mesh mesh = this.mesh;
@@ -364,6 +364,15 @@ public class SpriteBatch implements Disposable{
         getShader().end();
     }
 
+    protected void applyBlending(){
+        if(blending != Blending.disabled){
+            Core.gl.glEnable(GL20.GL_BLEND);
+            Core.gl.glBlendFuncSeparate(blending.src, blending.dst, blending.src, blending.dst);
+        }else{
+            Core.gl.glDisable(GL20.GL_BLEND);
+        }
+    }
+
     void setBlending(Blending blending){
         flush();
         this.blending = blending;
@@ -393,10 +402,10 @@ public class SpriteBatch implements Disposable{
         transformMatrix.set(transform);
     }
 
-    private void setupMatrices(){
+    protected void setupMatrices(Shader shader){
         combinedMatrix.set(projectionMatrix).mul(transformMatrix);
-        getShader().setUniformMatrix4("u_projTrans", BatchShader.copyTransform(combinedMatrix));
-        getShader().setUniformi("u_texture", 0);
+        shader.setUniformMatrix4("u_projTrans", BatchShader.copyTransform(combinedMatrix));
+        shader.setUniformi("u_texture", 0);
     }
 
     protected void switchTexture(Texture texture){
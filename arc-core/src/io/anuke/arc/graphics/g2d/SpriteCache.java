@@ -67,6 +67,8 @@ public class SpriteCache implements Disposable{
     private float colorPacked = Color.whiteFloatBits;
     private Shader customShader = null;
     private Texture lastBoundTexture;
+    /** Whether the shader passed in the constructor is disposed with this cache. */
+    boolean ownsShader = true;
 
     /** Creates a cache that uses indexed geometry and can contain up to 1000 images. */
     public SpriteCache(){
@@ -267,7 +269,7 @@ public class SpriteCache implements Disposable{
      */
     public void add(Texture texture, float[] vertices, int offset, int length){
         if(currentCache == null) throw new IllegalStateException("beginCache must be called before add.");
-        if(mesh.getVerticesBuffer().position() + length >= mesh.getVerticesBuffer().limit())
+        if(mesh.getVerticesBuffer().position() + length > mesh.getVerticesBuffer().limit())
             throw new IllegalStateException("Out of vertex space! Size: " + mesh.getVerticesBuffer().capacity() + " Required: " + (mesh.getVerticesBuffer().position() + length));
 
         int verticesPerImage = mesh.getNumIndices() > 0 ? 4 : 6;
@@ -575,7 +577,7 @@ public class SpriteCache implements Disposable{
     /** Releases all resources held by this SpriteCache. */
     public void dispose(){
         mesh.dispose();
-        if(shader != null) shader.dispose();
+        if(shader != null && ownsShader) shader.dispose();
     }
 
     public Matrix3 getProjectionMatrix(){
@@ -33,11 +33,24 @@ public class TextureAtlas implements Disposable{
         return i1 - i2;
     };
     private final ObjectSet<Texture> textures = new ObjectSet<>(4);
+    private final ObjectSet<TextureArray> textureArrays = new ObjectSet<>(1);
     private final Array<AtlasRegion> regions = new Array<>();
     private final ObjectMap<String, Drawable> drawables = new ObjectMap<>();
     private final ObjectMap<String, AtlasRegion> regionmap = new ObjectMap<>();
+    private final ObjectIntMap<String> handles = new ObjectIntMap<>();
+    private AtlasRegion[] handleRegions = new AtlasRegion[64];
+    private final ObjectIntMap<String> lookupCounts = new ObjectIntMap<>();
+    private long lookupFrame = -1;
+    private int frameLookups, lastFrameLookups;
     protected AtlasRegion error, white;
 
+    /**
+     * Whether to count region lookups by name, to find code that should use {@link #handle(String) handles} instead.
+     * @see #getLookupsLastFrame()
+     * @see #getLookupCounts()
+     */
+    public boolean countLookups;
+
     /** Returns a new texture atlas with only a blank texture region.*/
     public static TextureAtlas blankAtlas(){
         TextureAtlas a =  new TextureAtlas();
@@ -81,7 +94,17 @@ public class TextureAtlas implements Disposable{
 
     /** @param data May be null. */
     public TextureAtlas(TextureAtlasData data){
-        if(data != null) load(data);
+        this(data, false);
+    }
+
+    /**
+     * @param data May be null.
+     * @param textureArray If true and GL30 is available, pages that have not been loaded yet and share their size, format and
+     * texture parameters are loaded into the layers of a single {@link TextureArray}. Regions on these pages then reference a
+     * {@link TextureArray.Layer}, and can be drawn without texture switches by an {@link ArraySpriteBatch}.
+     */
+    public TextureAtlas(TextureAtlasData data, boolean textureArray){
+        if(data != null) load(data, textureArray);
     }
 
     static String readValue(BufferedReader reader) throws IOException{
@@ -107,9 +130,15 @@ public class TextureAtlas implements Disposable{
         return i + 1;
     }
 
-    private void load(TextureAtlasData data){
+    private void load(TextureAtlasData data, boolean textureArray){
         ObjectMap<Page, Texture> pageToTexture = new ObjectMap<>();
+        if(textureArray && Core.gl30 != null){
+            loadArrays(data, pageToTexture);
+        }
+
         for(Page page : data.pages){
+            if(pageToTexture.containsKey(page)) continue;
+
             Texture texture = null;
             if(page.texture == null){
                 texture = new Texture(page.textureFile, page.format, page.useMipMaps);
@@ -124,6 +153,8 @@ public class TextureAtlas implements Disposable{
             pageToTexture.put(page, texture);
         }
 
+        regions.ensureCapacity(data.regions.size);
+        regionmap.ensureCapacity(data.regions.size);
         for(Region region : data.regions){
             int width = region.width;
             int height = region.height;
@@ -146,6 +177,47 @@ public class TextureAtlas implements Disposable{
         error = find("error");
     }
 
+    /** Loads all unloaded pages that can share a texture array into one, putting the layers into pageToTexture. */
+    private void loadArrays(TextureAtlasData data, ObjectMap<Page, Texture> pageToTexture){
+        Array<Page> remaining = new Array<>();
+        for(Page page : data.pages){
+            if(page.texture == null && page.width > 0 && page.height > 0) remaining.add(page);
+        }
+
+        Array<Page> group = new Array<>();
+        while(remaining.size > 0){
+            Page first = remaining.first();
+            group.clear();
+            for(Page page : remaining){
+                if(page.width == first.width && page.height == first.height && page.format == first.format
+                && page.useMipMaps == first.useMipMaps && page.minFilter == first.minFilter && page.magFilter == first.magFilter
+                && page.uWrap == first.uWrap && page.vWrap == first.vWrap){
+                    group.add(page);
+                }
+            }
+            remaining.removeAll(group, true);
+
+            //a single page is better off as a regular texture
+            if(group.size < 2) continue;
+
+            FileHandle[] files = new FileHandle[group.size];
+            for(int i = 0; i < group.size; i++){
+                files[i] = group.get(i).textureFile;
+            }
+
+            TextureArray array = new TextureArray(first.useMipMaps, first.format, files);
+            array.setFilter(first.minFilter, first.magFilter);
+            array.setWrap(first.uWrap, first.vWrap);
+            textureArrays.add(array);
+
+            for(int i = 0; i < group.size; i++){
+                TextureArray.Layer layer = array.getLayer(i);
+                textures.add(layer);
+                pageToTexture.put(group.get(i), layer);
+            }
+        }
+    }
+
     /** Adds a region to the atlas. The specified texture will be disposed when the atlas is disposed. */
     public AtlasRegion addRegion(String name, Texture texture, int x, int y, int width, int height){
         textures.add(texture);
@@ -156,6 +228,8 @@ public class TextureAtlas implements Disposable{
         region.index = -1;
         regions.add(region);
         regionmap.put(name, region);
+        int handle = handles.get(name, -1);
+        if(handle != -1) handleRegions[handle] = region;
         return region;
     }
 
@@ -187,6 +261,7 @@ public class TextureAtlas implements Disposable{
      * @return The region, or the error region (if it is defined), or null.
      */
     public AtlasRegion find(String name){
+        if(countLookups) countLookup(name);
         AtlasRegion r = regionmap.get(name);
         if(r == null && error == null && !(name.equals("error")))
             throw new IllegalArgumentException("The region \"" + name + "\" does not exist!");
@@ -195,10 +270,74 @@ public class TextureAtlas implements Disposable{
     }
 
     public TextureRegion find(String name, TextureRegion def){
+        if(countLookups) countLookup(name);
         TextureRegion region = regionmap.get(name);
         return region == null || region == error ? def : region;
     }
 
+    /**
+     * Returns a handle for the region with the specified name, to be used with {@link #find(int)} and the int overloads of
+     * {@link Draw#rect(int, float, float)}. Handles are dense ints starting at 0, and are only valid for this atlas.
+     * Requesting the same name twice returns the same handle. Regions added later with this name are picked up by the handle.
+     * @throws IllegalArgumentException if the region does not exist and there is no error region
+     */
+    public int handle(String name){
+        int handle = handles.get(name, -1);
+        if(handle != -1) return handle;
+
+        AtlasRegion region = regionmap.get(name);
+        if(region == null && error == null) throw new IllegalArgumentException("The region \"" + name + "\" does not exist!");
+
+        handle = handles.size;
+        if(handle == handleRegions.length){
+            AtlasRegion[] resized = new AtlasRegion[handle * 2];
+            System.arraycopy(handleRegions, 0, resized, 0, handle);
+            handleRegions = resized;
+        }
+        handleRegions[handle] = region;
+        handles.put(name, handle);
+        return handle;
+    }
+
+    /**
+     * Returns the region of a handle obtained with {@link #handle(String)}. This is an array access, without any hashing.
+     * @return The region, or the error region if it did not exist.
+     */
+    public AtlasRegion find(int handle){
+        AtlasRegion region = handleRegions[handle];
+        return region == null ? error : region;
+    }
+
+    /** @return the amount of lookups by name in the last frame, if {@link #countLookups} is enabled */
+    public int getLookupsLastFrame(){
+        rollOver(frameId());
+        return lastFrameLookups;
+    }
+
+    /** @return the amount of lookups of every name since {@link #countLookups} was enabled or the counts were cleared */
+    public ObjectIntMap<String> getLookupCounts(){
+        return lookupCounts;
+    }
+
+    private void countLookup(String name){
+        rollOver(frameId());
+        frameLookups++;
+        lookupCounts.getAndIncrement(name, 0, 1);
+    }
+
+    /** Moves the lookups counted so far to the last frame once a new frame has started. */
+    private void rollOver(long frame){
+        if(frame == lookupFrame) return;
+        //if frames without lookups passed in between, the last frame had none
+        lastFrameLookups = frame == lookupFrame + 1 ? frameLookups : 0;
+        frameLookups = 0;
+        lookupFrame = frame;
+    }
+
+    private static long frameId(){
+        return Core.graphics == null ? 0 : Core.graphics.getFrameId();
+    }
+
     /**
      * Returns the first region found with the specified name and index. This method uses string comparison to find the region, so
      * the result should be cached rather than calling this method multiple times.
@@ -300,14 +439,34 @@ public class TextureAtlas implements Disposable{
         for(Texture texture : textures)
             texture.dispose();
         textures.clear();
+        for(TextureArray array : textureArrays)
+            array.dispose();
+        textureArrays.clear();
     }
 
     public static class TextureAtlasData{
         final Array<Page> pages = new Array<>();
         final Array<Region> regions = new Array<>();
 
+        /** Creates empty atlas data, to which pages and regions can be added. */
+        public TextureAtlasData(){
+        }
+
+        /** Loads a text pack file, or a {@link BinaryAtlas binary} one if the file starts with the binary header. */
         public TextureAtlasData(FileHandle packFile, FileHandle imagesDir, boolean flip){
-            BufferedReader reader = new BufferedReader(new InputStreamReader(packFile.read()), 64);
+            BufferedInputStream input = new BufferedInputStream(packFile.read(), 64);
+            try{
+                if(BinaryAtlas.isBinary(input)){
+                    Streams.closeQuietly(input);
+                    BinaryAtlas.read(this, packFile, imagesDir, flip);
+                    return;
+                }
+            }catch(IOException ex){
+                Streams.closeQuietly(input);
+                throw new ArcRuntimeException("Error reading pack file: " + packFile, ex);
+            }
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input), 64);
             try{
                 Page pageImage = null;
                 while(true){
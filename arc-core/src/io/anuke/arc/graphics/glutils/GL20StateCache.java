@@ -0,0 +1,1237 @@
+package io.anuke.arc.graphics.glutils;
+
+import io.anuke.arc.collection.IntMap;
+import io.anuke.arc.graphics.GL20;
+
+import java.nio.*;
+
+/**
+ * A {@link GL20} wrapper that remembers the state set through it and drops calls that would not change anything.
+ * Tracks the bound program, 2D textures per texture unit, blend function and equation, common capabilities (blending,
+ * scissor, depth, stencil and culling), scissor and viewport rectangles, and scalar and 4x4 matrix uniform values per program.
+ * All other calls are forwarded as-is.
+ * <p>
+ * The cache assumes that all GL calls go through it. If something else changes GL state (e.g. native code or a
+ * context loss), call {@link #invalidate()}.
+ * @see GLStateCache
+ */
+public class GL20StateCache implements GL20{
+    private static final int maxTextureUnits = 32;
+    private static final int uniform1i = 1, uniform2i = 2, uniform3i = 3, uniform4i = 4,
+    uniform1f = 5, uniform2f = 6, uniform3f = 7, uniform4f = 8, uniformMatrix4 = 9;
+
+    protected final GL20 gl20;
+
+    /** Amount of calls forwarded to the wrapped GL instance since the last reset. */
+    protected int calls;
+    /** Amount of calls dropped because they would not have changed state since the last reset. */
+    protected int filtered;
+
+    private final int[] boundTextures = new int[maxTextureUnits];
+    private final int[] blendFunc = new int[4];
+    private final int[] blendEquation = new int[2];
+    private final int[] scissor = new int[4];
+    private final int[] viewport = new int[4];
+    /** Capability states: -1 unknown, 0 disabled, 1 enabled. */
+    private final byte[] capabilities = new byte[5];
+    private final IntMap<IntMap<int[]>> uniforms = new IntMap<>();
+    private IntMap<int[]> currentUniforms;
+    private int activeUnit;
+    private int currentProgram;
+
+    public GL20StateCache(GL20 gl20){
+        this.gl20 = gl20;
+        invalidate();
+    }
+
+    /** Forgets all cached state, so that the next call for every piece of state is forwarded. */
+    public void invalidate(){
+        activeUnit = -1;
+        currentProgram = -1;
+        currentUniforms = null;
+        uniforms.clear();
+        fill(boundTextures);
+        fill(blendFunc);
+        fill(blendEquation);
+        fill(scissor);
+        fill(viewport);
+        for(int i = 0; i < capabilities.length; i++){
+            capabilities[i] = -1;
+        }
+    }
+
+    /** @return the wrapped GL instance. */
+    public GL20 getWrapped(){
+        return gl20;
+    }
+
+    /** @return the amount of calls forwarded since the last reset. */
+    public int getCalls(){
+        return calls;
+    }
+
+    /** @return the amount of calls filtered out since the last reset. */
+    public int getFilteredCalls(){
+        return filtered;
+    }
+
+    /** Resets the call counters. Cached state is kept. */
+    public void reset(){
+        calls = 0;
+        filtered = 0;
+    }
+
+    private static void fill(int[] array){
+        for(int i = 0; i < array.length; i++){
+            array[i] = -1;
+        }
+    }
+
+    private static int capabilityIndex(int cap){
+        switch(cap){
+            case GL_BLEND: return 0;
+            case GL_SCISSOR_TEST: return 1;
+            case GL_DEPTH_TEST: return 2;
+            case GL_STENCIL_TEST: return 3;
+            case GL_CULL_FACE: return 4;
+            default: return -1;
+        }
+    }
+
+    /** @return whether the call has to be issued. */
+    private boolean capability(int cap, boolean enabled){
+        int index = capabilityIndex(cap);
+        if(index == -1) return true;
+        byte state = (byte)(enabled ? 1 : 0);
+        if(capabilities[index] == state){
+            filtered++;
+            return false;
+        }
+        capabilities[index] = state;
+        return true;
+    }
+
+    /** @return whether the call has to be issued. */
+    private boolean blendFunc(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha){
+        int[] b = blendFunc;
+        if(b[0] == srcRGB && b[1] == dstRGB && b[2] == srcAlpha && b[3] == dstAlpha){
+            filtered++;
+            return false;
+        }
+        b[0] = srcRGB;
+        b[1] = dstRGB;
+        b[2] = srcAlpha;
+        b[3] = dstAlpha;
+        return true;
+    }
+
+    /** @return whether the call has to be issued. */
+    private boolean blendEquation(int modeRGB, int modeAlpha){
+        if(blendEquation[0] == modeRGB && blendEquation[1] == modeAlpha){
+            filtered++;
+            return false;
+        }
+        blendEquation[0] = modeRGB;
+        blendEquation[1] = modeAlpha;
+        return true;
+    }
+
+    /** @return whether the call has to be issued. */
+    private boolean rect(int[] rect, int x, int y, int width, int height){
+        if(rect[0] == x && rect[1] == y && rect[2] == width && rect[3] == height){
+            filtered++;
+            return false;
+        }
+        rect[0] = x;
+        rect[1] = y;
+        rect[2] = width;
+        rect[3] = height;
+        return true;
+    }
+
+    private IntMap<int[]> uniformsOf(int program){
+        IntMap<int[]> map = uniforms.get(program);
+        if(map == null){
+            uniforms.put(program, map = new IntMap<>());
+        }
+        return map;
+    }
+
+    /**
+     * Removes the cached values of uniforms that were set through a call that is not cached. Arrays occupy one location per
+     * element, so all locations from the first to the last element are removed.
+     */
+    protected void uncacheUniform(int location, int count){
+        if(currentUniforms == null || location < 0) return;
+        for(int i = 0; i < count; i++){
+            currentUniforms.remove(location + i);
+        }
+    }
+
+    /**
+     * Compares a scalar or vector uniform with its cached value, storing the new value.
+     * @return whether the call has to be issued.
+     */
+    private boolean uniform(int location, int type, int x, int y, int z, int w){
+        if(currentUniforms == null || location < 0) return true;
+
+        int[] value = currentUniforms.get(location);
+        if(value == null || value.length != 5){
+            currentUniforms.put(location, value = new int[5]);
+        }else if(value[0] == type && value[1] == x && value[2] == y && value[3] == z && value[4] == w){
+            filtered++;
+            return false;
+        }
+        value[0] = type;
+        value[1] = x;
+        value[2] = y;
+        value[3] = z;
+        value[4] = w;
+        return true;
+    }
+
+    /**
+     * Compares a single 4x4 matrix uniform with its cached value, storing the new value.
+     * @return whether the call has to be issued.
+     */
+    private boolean uniformMatrix4(int location, float[] matrix, int offset){
+        if(currentUniforms == null || location < 0) return true;
+
+        int[] value = currentUniforms.get(location);
+        boolean same = value != null && value.length == 17 && value[0] == uniformMatrix4;
+        if(value == null || value.length != 17){
+            currentUniforms.put(location, value = new int[17]);
+        }
+        value[0] = uniformMatrix4;
+        for(int i = 0; i < 16; i++){
+            int bits = Float.floatToRawIntBits(matrix[offset + i]);
+            if(value[i + 1] != bits){
+                value[i + 1] = bits;
+                same = false;
+            }
+        }
+
+        if(same){
+            filtered++;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void glActiveTexture(int texture){
+        int unit = texture - GL20.GL_TEXTURE0;
+        if(unit == activeUnit && unit >= 0){
+            filtered++;
+            return;
+        }
+        calls++;
+        activeUnit = unit >= 0 && unit < boundTextures.length ? unit : -1;
+        gl20.glActiveTexture(texture);
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture){
+        if(target == GL20.GL_TEXTURE_2D && activeUnit >= 0){
+            if(boundTextures[activeUnit] == texture){
+                filtered++;
+                return;
+            }
+            boundTextures[activeUnit] = texture;
+        }
+        calls++;
+        gl20.glBindTexture(target, texture);
+    }
+
+    @Override
+    public void glBlendFunc(int sfactor, int dfactor){
+        if(blendFunc(sfactor, dfactor, sfactor, dfactor)){
+            calls++;
+            gl20.glBlendFunc(sfactor, dfactor);
+        }
+    }
+
+    @Override
+    public void glBlendFuncSeparate(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha){
+        if(blendFunc(srcRGB, dstRGB, srcAlpha, dstAlpha)){
+            calls++;
+            gl20.glBlendFuncSeparate(srcRGB, dstRGB, srcAlpha, dstAlpha);
+        }
+    }
+
+    @Override
+    public void glBlendEquation(int mode){
+        if(blendEquation(mode, mode)){
+            calls++;
+            gl20.glBlendEquation(mode);
+        }
+    }
+
+    @Override
+    public void glBlendEquationSeparate(int modeRGB, int modeAlpha){
+        if(blendEquation(modeRGB, modeAlpha)){
+            calls++;
+            gl20.glBlendEquationSeparate(modeRGB, modeAlpha);
+        }
+    }
+
+    @Override
+    public void glDeleteTexture(int texture){
+        calls++;
+        for(int i = 0; i < boundTextures.length; i++){
+            if(boundTextures[i] == texture) boundTextures[i] = 0;
+        }
+        gl20.glDeleteTexture(texture);
+    }
+
+    @Override
+    public void glDisable(int cap){
+        if(capability(cap, false)){
+            calls++;
+            gl20.glDisable(cap);
+        }
+    }
+
+    @Override
+    public void glEnable(int cap){
+        if(capability(cap, true)){
+            calls++;
+            gl20.glEnable(cap);
+        }
+    }
+
+    @Override
+    public void glScissor(int x, int y, int width, int height){
+        if(rect(scissor, x, y, width, height)){
+            calls++;
+            gl20.glScissor(x, y, width, height);
+        }
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height){
+        if(rect(viewport, x, y, width, height)){
+            calls++;
+            gl20.glViewport(x, y, width, height);
+        }
+    }
+
+    @Override
+    public void glUseProgram(int program){
+        if(program == currentProgram){
+            filtered++;
+            return;
+        }
+        calls++;
+        currentProgram = program;
+        currentUniforms = program == 0 ? null : uniformsOf(program);
+        gl20.glUseProgram(program);
+    }
+
+    @Override
+    public void glDeleteProgram(int program){
+        calls++;
+        uniforms.remove(program);
+        if(program == currentProgram) currentUniforms = null;
+        gl20.glDeleteProgram(program);
+    }
+
+    @Override
+    public void glLinkProgram(int program){
+        calls++;
+        //linking resets all uniforms to their defaults
+        uniforms.remove(program);
+        if(program == currentProgram) currentUniforms = uniformsOf(program);
+        gl20.glLinkProgram(program);
+    }
+
+    @Override
+    public void glUniform1f(int location, float x){
+        if(uniform(location, uniform1f, Float.floatToRawIntBits(x), 0, 0, 0)){
+            calls++;
+            gl20.glUniform1f(location, x);
+        }
+    }
+
+    @Override
+    public void glUniform1i(int location, int x){
+        if(uniform(location, uniform1i, x, 0, 0, 0)){
+            calls++;
+            gl20.glUniform1i(location, x);
+        }
+    }
+
+    @Override
+    public void glUniform2f(int location, float x, float y){
+        if(uniform(location, uniform2f, Float.floatToRawIntBits(x), Float.floatToRawIntBits(y), 0, 0)){
+            calls++;
+            gl20.glUniform2f(location, x, y);
+        }
+    }
+
+    @Override
+    public void glUniform2i(int location, int x, int y){
+        if(uniform(location, uniform2i, x, y, 0, 0)){
+            calls++;
+            gl20.glUniform2i(location, x, y);
+        }
+    }
+
+    @Override
+    public void glUniform3f(int location, float x, float y, float z){
+        if(uniform(location, uniform3f, Float.floatToRawIntBits(x), Float.floatToRawIntBits(y), Float.floatToRawIntBits(z), 0)){
+            calls++;
+            gl20.glUniform3f(location, x, y, z);
+        }
+    }
+
+    @Override
+    public void glUniform3i(int location, int x, int y, int z){
+        if(uniform(location, uniform3i, x, y, z, 0)){
+            calls++;
+            gl20.glUniform3i(location, x, y, z);
+        }
+    }
+
+    @Override
+    public void glUniform4f(int location, float x, float y, float z, float w){
+        if(uniform(location, uniform4f, Float.floatToRawIntBits(x), Float.floatToRawIntBits(y), Float.floatToRawIntBits(z), Float.floatToRawIntBits(w))){
+            calls++;
+            gl20.glUniform4f(location, x, y, z, w);
+        }
+    }
+
+    @Override
+    public void glUniform4i(int location, int x, int y, int z, int w){
+        if(uniform(location, uniform4i, x, y, z, w)){
+            calls++;
+            gl20.glUniform4i(location, x, y, z, w);
+        }
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset){
+        if(count == 1 && !transpose){
+            if(!uniformMatrix4(location, value, offset)) return;
+        }else{
+            uncacheUniform(location, count);
+        }
+        calls++;
+        gl20.glUniformMatrix4fv(location, count, transpose, value, offset);
+    }
+
+    @Override
+    public void glClear(int mask){
+        calls++;
+        gl20.glClear(mask);
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha){
+        calls++;
+        gl20.glClearColor(red, green, blue, alpha);
+    }
+
+    @Override
+    public void glClearDepthf(float depth){
+        calls++;
+        gl20.glClearDepthf(depth);
+    }
+
+    @Override
+    public void glClearStencil(int s){
+        calls++;
+        gl20.glClearStencil(s);
+    }
+
+    @Override
+    public void glColorMask(boolean red, boolean green, boolean blue, boolean alpha){
+        calls++;
+        gl20.glColorMask(red, green, blue, alpha);
+    }
+
+    @Override
+    public void glCompressedTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                                       int imageSize, Buffer data){
+        calls++;
+        gl20.glCompressedTexImage2D(target, level, internalformat, width, height, border, imageSize, data);
+    }
+
+    @Override
+    public void glCompressedTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height, int format,
+                                          int imageSize, Buffer data){
+        calls++;
+        gl20.glCompressedTexSubImage2D(target, level, xoffset, yoffset, width, height, format, imageSize, data);
+    }
+
+    @Override
+    public void glCopyTexImage2D(int target, int level, int internalformat, int x, int y, int width, int height, int border){
+        calls++;
+        gl20.glCopyTexImage2D(target, level, internalformat, x, y, width, height, border);
+    }
+
+    @Override
+    public void glCopyTexSubImage2D(int target, int level, int xoffset, int yoffset, int x, int y, int width, int height){
+        calls++;
+        gl20.glCopyTexSubImage2D(target, level, xoffset, yoffset, x, y, width, height);
+    }
+
+    @Override
+    public void glCullFace(int mode){
+        calls++;
+        gl20.glCullFace(mode);
+    }
+
+    @Override
+    public void glDepthFunc(int func){
+        calls++;
+        gl20.glDepthFunc(func);
+    }
+
+    @Override
+    public void glDepthMask(boolean flag){
+        calls++;
+        gl20.glDepthMask(flag);
+    }
+
+    @Override
+    public void glDepthRangef(float zNear, float zFar){
+        calls++;
+        gl20.glDepthRangef(zNear, zFar);
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count){
+        calls++;
+        gl20.glDrawArrays(mode, first, count);
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, Buffer indices){
+        calls++;
+        gl20.glDrawElements(mode, count, type, indices);
+    }
+
+    @Override
+    public void glFinish(){
+        calls++;
+        gl20.glFinish();
+    }
+
+    @Override
+    public void glFlush(){
+        calls++;
+        gl20.glFlush();
+    }
+
+    @Override
+    public void glFrontFace(int mode){
+        calls++;
+        gl20.glFrontFace(mode);
+    }
+
+    @Override
+    public int glGenTexture(){
+        calls++;
+        int result = gl20.glGenTexture();
+        return result;
+    }
+
+    @Override
+    public int glGetError(){
+        calls++;
+        //Errors by glGetError are undetectable
+        return gl20.glGetError();
+    }
+
+    @Override
+    public void glGetIntegerv(int pname, IntBuffer params){
+        calls++;
+        gl20.glGetIntegerv(pname, params);
+    }
+
+    @Override
+    public String glGetString(int name){
+        calls++;
+        String result = gl20.glGetString(name);
+        return result;
+    }
+
+    @Override
+    public void glHint(int target, int mode){
+        calls++;
+        gl20.glHint(target, mode);
+    }
+
+    @Override
+    public void glLineWidth(float width){
+        calls++;
+        gl20.glLineWidth(width);
+    }
+
+    @Override
+    public void glPixelStorei(int pname, int param){
+        calls++;
+        gl20.glPixelStorei(pname, param);
+    }
+
+    @Override
+    public void glPolygonOffset(float factor, float units){
+        calls++;
+        gl20.glPolygonOffset(factor, units);
+    }
+
+    @Override
+    public void glReadPixels(int x, int y, int width, int height, int format, int type, Buffer pixels){
+        calls++;
+        gl20.glReadPixels(x, y, width, height, format, type, pixels);
+    }
+
+    @Override
+    public void glStencilFunc(int func, int ref, int mask){
+        calls++;
+        gl20.glStencilFunc(func, ref, mask);
+    }
+
+    @Override
+    public void glStencilMask(int mask){
+        calls++;
+        gl20.glStencilMask(mask);
+    }
+
+    @Override
+    public void glStencilOp(int fail, int zfail, int zpass){
+        calls++;
+        gl20.glStencilOp(fail, zfail, zpass);
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border, int format, int type,
+                             Buffer pixels){
+        calls++;
+        gl20.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+    }
+
+    @Override
+    public void glTexParameterf(int target, int pname, float param){
+        calls++;
+        gl20.glTexParameterf(target, pname, param);
+    }
+
+    @Override
+    public void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height, int format, int type,
+                                Buffer pixels){
+        calls++;
+        gl20.glTexSubImage2D(target, level, xoffset, yoffset, width, height, format, type, pixels);
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader){
+        calls++;
+        gl20.glAttachShader(program, shader);
+    }
+
+    @Override
+    public void glBindAttribLocation(int program, int index, String name){
+        calls++;
+        gl20.glBindAttribLocation(program, index, name);
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer){
+        calls++;
+        gl20.glBindBuffer(target, buffer);
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer){
+        calls++;
+        gl20.glBindFramebuffer(target, framebuffer);
+    }
+
+    @Override
+    public void glBindRenderbuffer(int target, int renderbuffer){
+        calls++;
+        gl20.glBindRenderbuffer(target, renderbuffer);
+    }
+
+    @Override
+    public void glBlendColor(float red, float green, float blue, float alpha){
+        calls++;
+        gl20.glBlendColor(red, green, blue, alpha);
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage){
+        calls++;
+        gl20.glBufferData(target, size, data, usage);
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data){
+        calls++;
+        gl20.glBufferSubData(target, offset, size, data);
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target){
+        calls++;
+        int result = gl20.glCheckFramebufferStatus(target);
+        return result;
+    }
+
+    @Override
+    public void glCompileShader(int shader){
+        calls++;
+        gl20.glCompileShader(shader);
+    }
+
+    @Override
+    public int glCreateProgram(){
+        calls++;
+        int result = gl20.glCreateProgram();
+        return result;
+    }
+
+    @Override
+    public int glCreateShader(int type){
+        calls++;
+        int result = gl20.glCreateShader(type);
+        return result;
+    }
+
+    @Override
+    public void glDeleteBuffer(int buffer){
+        calls++;
+        gl20.glDeleteBuffer(buffer);
+    }
+
+    @Override
+    public void glDeleteFramebuffer(int framebuffer){
+        calls++;
+        gl20.glDeleteFramebuffer(framebuffer);
+    }
+
+    @Override
+    public void glDeleteRenderbuffer(int renderbuffer){
+        calls++;
+        gl20.glDeleteRenderbuffer(renderbuffer);
+    }
+
+    @Override
+    public void glDeleteShader(int shader){
+        calls++;
+        gl20.glDeleteShader(shader);
+    }
+
+    @Override
+    public void glDetachShader(int program, int shader){
+        calls++;
+        gl20.glDetachShader(program, shader);
+    }
+
+    @Override
+    public void glDisableVertexAttribArray(int index){
+        calls++;
+        gl20.glDisableVertexAttribArray(index);
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int indices){
+        calls++;
+        gl20.glDrawElements(mode, count, type, indices);
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index){
+        calls++;
+        gl20.glEnableVertexAttribArray(index);
+    }
+
+    @Override
+    public void glFramebufferRenderbuffer(int target, int attachment, int renderbuffertarget, int renderbuffer){
+        calls++;
+        gl20.glFramebufferRenderbuffer(target, attachment, renderbuffertarget, renderbuffer);
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level){
+        calls++;
+        gl20.glFramebufferTexture2D(target, attachment, textarget, texture, level);
+    }
+
+    @Override
+    public int glGenBuffer(){
+        calls++;
+        int result = gl20.glGenBuffer();
+        return result;
+    }
+
+    @Override
+    public void glGenerateMipmap(int target){
+        calls++;
+        gl20.glGenerateMipmap(target);
+    }
+
+    @Override
+    public int glGenFramebuffer(){
+        calls++;
+        int result = gl20.glGenFramebuffer();
+        return result;
+    }
+
+    @Override
+    public int glGenRenderbuffer(){
+        calls++;
+        int result = gl20.glGenRenderbuffer();
+        return result;
+    }
+
+    @Override
+    public String glGetActiveAttrib(int program, int index, IntBuffer size, IntBuffer type){
+        calls++;
+        String result = gl20.glGetActiveAttrib(program, index, size, type);
+        return result;
+    }
+
+    @Override
+    public String glGetActiveUniform(int program, int index, IntBuffer size, IntBuffer type){
+        calls++;
+        String result = gl20.glGetActiveUniform(program, index, size, type);
+        return result;
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name){
+        calls++;
+        int result = gl20.glGetAttribLocation(program, name);
+        return result;
+    }
+
+    @Override
+    public void glGetBooleanv(int pname, Buffer params){
+        calls++;
+        gl20.glGetBooleanv(pname, params);
+    }
+
+    @Override
+    public void glGetBufferParameteriv(int target, int pname, IntBuffer params){
+        calls++;
+        gl20.glGetBufferParameteriv(target, pname, params);
+    }
+
+    @Override
+    public void glGetFloatv(int pname, FloatBuffer params){
+        calls++;
+        gl20.glGetFloatv(pname, params);
+    }
+
+    @Override
+    public void glGetFramebufferAttachmentParameteriv(int target, int attachment, int pname, IntBuffer params){
+        calls++;
+        gl20.glGetFramebufferAttachmentParameteriv(target, attachment, pname, params);
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, IntBuffer params){
+        calls++;
+        gl20.glGetProgramiv(program, pname, params);
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program){
+        calls++;
+        String result = gl20.glGetProgramInfoLog(program);
+        return result;
+    }
+
+    @Override
+    public void glGetRenderbufferParameteriv(int target, int pname, IntBuffer params){
+        calls++;
+        gl20.glGetRenderbufferParameteriv(target, pname, params);
+    }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, IntBuffer params){
+        calls++;
+        gl20.glGetShaderiv(shader, pname, params);
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader){
+        calls++;
+        String result = gl20.glGetShaderInfoLog(shader);
+        return result;
+    }
+
+    @Override
+    public void glGetShaderPrecisionFormat(int shadertype, int precisiontype, IntBuffer range, IntBuffer precision){
+        calls++;
+        gl20.glGetShaderPrecisionFormat(shadertype, precisiontype, range, precision);
+    }
+
+    @Override
+    public void glGetTexParameterfv(int target, int pname, FloatBuffer params){
+        calls++;
+        gl20.glGetTexParameterfv(target, pname, params);
+    }
+
+    @Override
+    public void glGetTexParameteriv(int target, int pname, IntBuffer params){
+        calls++;
+        gl20.glGetTexParameteriv(target, pname, params);
+    }
+
+    @Override
+    public void glGetUniformfv(int program, int location, FloatBuffer params){
+        calls++;
+        gl20.glGetUniformfv(program, location, params);
+    }
+
+    @Override
+    public void glGetUniformiv(int program, int location, IntBuffer params){
+        calls++;
+        gl20.glGetUniformiv(program, location, params);
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name){
+        calls++;
+        int result = gl20.glGetUniformLocation(program, name);
+        return result;
+    }
+
+    @Override
+    public void glGetVertexAttribfv(int index, int pname, FloatBuffer params){
+        calls++;
+        gl20.glGetVertexAttribfv(index, pname, params);
+    }
+
+    @Override
+    public void glGetVertexAttribiv(int index, int pname, IntBuffer params){
+        calls++;
+        gl20.glGetVertexAttribiv(index, pname, params);
+    }
+
+    @Override
+    public boolean glIsBuffer(int buffer){
+        calls++;
+        boolean result = gl20.glIsBuffer(buffer);
+        return result;
+    }
+
+    @Override
+    public boolean glIsEnabled(int cap){
+        calls++;
+        boolean result = gl20.glIsEnabled(cap);
+        return result;
+    }
+
+    @Override
+    public boolean glIsFramebuffer(int framebuffer){
+        calls++;
+        boolean result = gl20.glIsFramebuffer(framebuffer);
+        return result;
+    }
+
+    @Override
+    public boolean glIsProgram(int program){
+        calls++;
+        boolean result = gl20.glIsProgram(program);
+        return result;
+    }
+
+    @Override
+    public boolean glIsRenderbuffer(int renderbuffer){
+        calls++;
+        boolean result = gl20.glIsRenderbuffer(renderbuffer);
+        return result;
+    }
+
+    @Override
+    public boolean glIsShader(int shader){
+        calls++;
+        boolean result = gl20.glIsShader(shader);
+        return result;
+    }
+
+    @Override
+    public boolean glIsTexture(int texture){
+        calls++;
+        boolean result = gl20.glIsTexture(texture);
+        return result;
+    }
+
+    @Override
+    public void glReleaseShaderCompiler(){
+        calls++;
+        gl20.glReleaseShaderCompiler();
+    }
+
+    @Override
+    public void glRenderbufferStorage(int target, int internalformat, int width, int height){
+        calls++;
+        gl20.glRenderbufferStorage(target, internalformat, width, height);
+    }
+
+    @Override
+    public void glSampleCoverage(float value, boolean invert){
+        calls++;
+        gl20.glSampleCoverage(value, invert);
+    }
+
+    @Override
+    public void glShaderSource(int shader, String string){
+        calls++;
+        gl20.glShaderSource(shader, string);
+    }
+
+    @Override
+    public void glStencilFuncSeparate(int face, int func, int ref, int mask){
+        calls++;
+        gl20.glStencilFuncSeparate(face, func, ref, mask);
+    }
+
+    @Override
+    public void glStencilMaskSeparate(int face, int mask){
+        calls++;
+        gl20.glStencilMaskSeparate(face, mask);
+    }
+
+    @Override
+    public void glStencilOpSeparate(int face, int fail, int zfail, int zpass){
+        calls++;
+        gl20.glStencilOpSeparate(face, fail, zfail, zpass);
+    }
+
+    @Override
+    public void glTexParameterfv(int target, int pname, FloatBuffer params){
+        calls++;
+        gl20.glTexParameterfv(target, pname, params);
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param){
+        calls++;
+        gl20.glTexParameteri(target, pname, param);
+    }
+
+    @Override
+    public void glTexParameteriv(int target, int pname, IntBuffer params){
+        calls++;
+        gl20.glTexParameteriv(target, pname, params);
+    }
+
+    @Override
+    public void glUniform1fv(int location, int count, FloatBuffer v){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform1fv(location, count, v);
+    }
+
+    @Override
+    public void glUniform1fv(int location, int count, float[] v, int offset){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform1fv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniform1iv(int location, int count, IntBuffer v){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform1iv(location, count, v);
+    }
+
+    @Override
+    public void glUniform1iv(int location, int count, int[] v, int offset){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform1iv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniform2fv(int location, int count, FloatBuffer v){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform2fv(location, count, v);
+    }
+
+    @Override
+    public void glUniform2fv(int location, int count, float[] v, int offset){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform2fv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniform2iv(int location, int count, IntBuffer v){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform2iv(location, count, v);
+    }
+
+    @Override
+    public void glUniform2iv(int location, int count, int[] v, int offset){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform2iv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniform3fv(int location, int count, FloatBuffer v){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform3fv(location, count, v);
+    }
+
+    @Override
+    public void glUniform3fv(int location, int count, float[] v, int offset){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform3fv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniform3iv(int location, int count, IntBuffer v){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform3iv(location, count, v);
+    }
+
+    @Override
+    public void glUniform3iv(int location, int count, int[] v, int offset){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform3iv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniform4fv(int location, int count, FloatBuffer v){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform4fv(location, count, v);
+    }
+
+    @Override
+    public void glUniform4fv(int location, int count, float[] v, int offset){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform4fv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniform4iv(int location, int count, IntBuffer v){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform4iv(location, count, v);
+    }
+
+    @Override
+    public void glUniform4iv(int location, int count, int[] v, int offset){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniform4iv(location, count, v, offset);
+    }
+
+    @Override
+    public void glUniformMatrix2fv(int location, int count, boolean transpose, FloatBuffer value){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniformMatrix2fv(location, count, transpose, value);
+    }
+
+    @Override
+    public void glUniformMatrix2fv(int location, int count, boolean transpose, float[] value, int offset){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniformMatrix2fv(location, count, transpose, value, offset);
+    }
+
+    @Override
+    public void glUniformMatrix3fv(int location, int count, boolean transpose, FloatBuffer value){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniformMatrix3fv(location, count, transpose, value);
+    }
+
+    @Override
+    public void glUniformMatrix3fv(int location, int count, boolean transpose, float[] value, int offset){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniformMatrix3fv(location, count, transpose, value, offset);
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, FloatBuffer value){
+        calls++;
+        uncacheUniform(location, count);
+        gl20.glUniformMatrix4fv(location, count, transpose, value);
+    }
+
+    @Override
+    public void glValidateProgram(int program){
+        calls++;
+        gl20.glValidateProgram(program);
+    }
+
+    @Override
+    public void glVertexAttrib1f(int indx, float x){
+        calls++;
+        gl20.glVertexAttrib1f(indx, x);
+    }
+
+    @Override
+    public void glVertexAttrib1fv(int indx, FloatBuffer values){
+        calls++;
+        gl20.glVertexAttrib1fv(indx, values);
+    }
+
+    @Override
+    public void glVertexAttrib2f(int indx, float x, float y){
+        calls++;
+        gl20.glVertexAttrib2f(indx, x, y);
+    }
+
+    @Override
+    public void glVertexAttrib2fv(int indx, FloatBuffer values){
+        calls++;
+        gl20.glVertexAttrib2fv(indx, values);
+    }
+
+    @Override
+    public void glVertexAttrib3f(int indx, float x, float y, float z){
+        calls++;
+        gl20.glVertexAttrib3f(indx, x, y, z);
+    }
+
+    @Override
+    public void glVertexAttrib3fv(int indx, FloatBuffer values){
+        calls++;
+        gl20.glVertexAttrib3fv(indx, values);
+    }
+
+    @Override
+    public void glVertexAttrib4f(int indx, float x, float y, float z, float w){
+        calls++;
+        gl20.glVertexAttrib4f(indx, x, y, z, w);
+    }
+
+    @Override
+    public void glVertexAttrib4fv(int indx, FloatBuffer values){
+        calls++;
+        gl20.glVertexAttrib4fv(indx, values);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, Buffer ptr){
+        calls++;
+        gl20.glVertexAttribPointer(indx, size, type, normalized, stride, ptr);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, int ptr){
+        calls++;
+        gl20.glVertexAttribPointer(indx, size, type, normalized, stride, ptr);
+    }
+}
@@ -0,0 +1,105 @@
+package io.anuke.arc.graphics.glutils;
+
+import io.anuke.arc.Core;
+import io.anuke.arc.Graphics;
+import io.anuke.arc.graphics.GL20;
+import io.anuke.arc.graphics.GL30;
+
+/**
+ * When enabled, filters out GL calls that would not change the current GL state, such as rebinding the bound texture
+ * or program, re-enabling blending or setting a uniform to the value it already has.
+ * Enabling will wrap the {@link GL20} and {@link GL30} instances with a {@link GL20StateCache} or {@link GL30StateCache}.
+ * <p>
+ * This can be combined with {@link io.anuke.arc.graphics.profiling.GLProfiler}, but the profiler must be enabled after the
+ * cache so that it only sees the calls that are actually issued.
+ * @see GL20StateCache
+ */
+public class GLStateCache{
+    private Graphics graphics;
+    private GL20StateCache cache;
+    private boolean enabled = false;
+
+    /**
+     * Create a new GLStateCache for the GL instances of a {@link Graphics} instance.
+     * @param graphics the graphics whose GL instances should be wrapped
+     */
+    public GLStateCache(Graphics graphics){
+        this.graphics = graphics;
+        GL30 gl30 = graphics.getGL30();
+        if(gl30 != null){
+            cache = new GL30StateCache(gl30);
+        }else{
+            cache = new GL20StateCache(graphics.getGL20());
+        }
+    }
+
+    /** Enables state caching by replacing the {@code GL20} and {@code GL30} instances with caching ones. */
+    public void enable(){
+        if(enabled) return;
+
+        //the real state is unknown at this point
+        cache.invalidate();
+
+        if(cache instanceof GL30StateCache){
+            graphics.setGL30((GL30StateCache)cache);
+            Core.gl30 = (GL30StateCache)cache;
+        }else{
+            graphics.setGL20(cache);
+        }
+        Core.gl = Core.gl20 = cache;
+
+        enabled = true;
+    }
+
+    /** Disables state caching by resetting the {@code GL20} and {@code GL30} instances with the original ones. */
+    public void disable(){
+        if(!enabled) return;
+
+        if(cache instanceof GL30StateCache){
+            GL30 gl30 = ((GL30StateCache)cache).gl30;
+            graphics.setGL30(gl30);
+            Core.gl30 = gl30;
+        }else{
+            graphics.setGL20(cache.gl20);
+        }
+        Core.gl = Core.gl20 = cache.gl20;
+
+        enabled = false;
+    }
+
+    /** @return true if the GLStateCache is currently filtering calls */
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    /** @return the caching GL instance. */
+    public GL20StateCache getCache(){
+        return cache;
+    }
+
+    /** @return the amount of calls issued to the real GL instance since the last reset */
+    public int getCalls(){
+        return cache.getCalls();
+    }
+
+    /** @return the amount of calls filtered out since the last reset */
+    public int getFilteredCalls(){
+        return cache.getFilteredCalls();
+    }
+
+    /**
+     * Forgets all cached state. This must be called after the context is lost, or after GL state was changed without
+     * going through {@link Core#gl}.
+     */
+    public void invalidate(){
+        cache.invalidate();
+    }
+
+    /**
+     * Will reset the call counters. This should be called after every frame.
+     * Cached state is kept.
+     */
+    public void reset(){
+        cache.reset();
+    }
+}
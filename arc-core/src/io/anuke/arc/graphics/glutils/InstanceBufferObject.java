@@ -0,0 +1,170 @@
+package io.anuke.arc.graphics.glutils;
+
+import io.anuke.arc.Core;
+import io.anuke.arc.collection.IntArray;
+import io.anuke.arc.graphics.GL20;
+import io.anuke.arc.graphics.VertexAttribute;
+import io.anuke.arc.graphics.VertexAttributes;
+import io.anuke.arc.util.BufferUtils;
+import io.anuke.arc.util.Disposable;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * <p>
+ * A vertex buffer object holding per-instance attributes for instanced rendering. Every attribute advances once per
+ * {@link #getDivisor()} instances instead of once per vertex. Requires OpenGL (ES) 3.0.
+ * </p>
+ *
+ * <p>
+ * Binding is expected to happen while the vertex array object of the per-vertex data is bound, as done by
+ * {@link io.anuke.arc.graphics.InstancedMesh}. Dynamic instance data is orphaned before every upload, like in
+ * {@link VertexBufferObjectStreaming}.
+ * </p>
+ *
+ * <p>
+ * InstanceBufferObjects must be disposed via the {@link #dispose()} method when no longer needed
+ * </p>
+ */
+public class InstanceBufferObject implements Disposable{
+    final VertexAttributes attributes;
+    final FloatBuffer buffer;
+    final ByteBuffer byteBuffer;
+    final int usage;
+    final int divisor;
+    final IntArray boundLocations = new IntArray();
+    int bufferHandle;
+    boolean isDirty = false;
+
+    /**
+     * Constructs a new interleaved InstanceBufferObject with a divisor of 1.
+     * @param isStatic whether the instance data is static.
+     * @param numInstances the maximum number of instances
+     * @param attributes the per-instance {@link VertexAttributes}.
+     */
+    public InstanceBufferObject(boolean isStatic, int numInstances, VertexAttributes attributes){
+        this(isStatic, numInstances, 1, attributes);
+    }
+
+    /**
+     * Constructs a new interleaved InstanceBufferObject.
+     * @param isStatic whether the instance data is static.
+     * @param numInstances the maximum number of instances
+     * @param divisor the amount of instances drawn before the attributes advance, must be at least 1
+     * @param attributes the per-instance {@link VertexAttributes}.
+     */
+    public InstanceBufferObject(boolean isStatic, int numInstances, int divisor, VertexAttributes attributes){
+        if(divisor < 1) throw new IllegalArgumentException("divisor must be >= 1: " + divisor);
+        this.attributes = attributes;
+        this.divisor = divisor;
+
+        byteBuffer = BufferUtils.newUnsafeByteBuffer(attributes.vertexSize * numInstances);
+        buffer = byteBuffer.asFloatBuffer();
+        buffer.flip();
+        byteBuffer.flip();
+        bufferHandle = Core.gl20.glGenBuffer();
+        usage = isStatic ? GL20.GL_STATIC_DRAW : GL20.GL_STREAM_DRAW;
+    }
+
+    /** @return the per-instance {@link VertexAttributes} */
+    public VertexAttributes getAttributes(){
+        return attributes;
+    }
+
+    /** @return the divisor used for all attributes */
+    public int getDivisor(){
+        return divisor;
+    }
+
+    /** @return the number of instances this buffer stores */
+    public int getNumInstances(){
+        return buffer.limit() * 4 / attributes.vertexSize;
+    }
+
+    /** @return the number of instances this buffer can store */
+    public int getNumMaxInstances(){
+        return byteBuffer.capacity() / attributes.vertexSize;
+    }
+
+    /**
+     * Returns the underlying FloatBuffer and marks it as dirty, causing the buffer contents to be uploaded on the next call to
+     * bind.
+     */
+    public FloatBuffer getBuffer(){
+        isDirty = true;
+        return buffer;
+    }
+
+    /**
+     * Sets the instance data, discarding the old data. The data is uploaded on the next call to bind.
+     * @param instances the instance data
+     * @param offset the offset to start copying the data from
+     * @param count the number of floats to copy
+     */
+    public void setInstances(float[] instances, int offset, int count){
+        isDirty = true;
+        BufferUtils.copy(instances, byteBuffer, count, offset);
+        buffer.position(0);
+        buffer.limit(count);
+    }
+
+    /**
+     * Binds the instance buffer and sets up the instanced attributes of the shader. Attributes that the shader does not
+     * use are skipped.
+     */
+    public void bind(Shader shader){
+        GL20 gl = Core.gl20;
+
+        gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, bufferHandle);
+        if(isDirty){
+            byteBuffer.limit(buffer.limit() * 4);
+            if(usage == GL20.GL_STREAM_DRAW){
+                gl.glBufferData(GL20.GL_ARRAY_BUFFER, byteBuffer.capacity(), null, usage);
+                gl.glBufferSubData(GL20.GL_ARRAY_BUFFER, 0, byteBuffer.limit(), byteBuffer);
+            }else{
+                gl.glBufferData(GL20.GL_ARRAY_BUFFER, byteBuffer.limit(), byteBuffer, usage);
+            }
+            isDirty = false;
+        }
+
+        boundLocations.clear();
+        final int numAttributes = attributes.size();
+        for(int i = 0; i < numAttributes; i++){
+            VertexAttribute attribute = attributes.get(i);
+            int location = shader.getAttributeLocation(attribute.alias);
+            if(location < 0) continue;
+
+            shader.enableVertexAttribute(location);
+            shader.setVertexAttribute(location, attribute.numComponents, attribute.type, attribute.normalized, attributes.vertexSize, attribute.offset);
+            Core.gl30.glVertexAttribDivisor(location, divisor);
+            boundLocations.add(location);
+        }
+    }
+
+    /** Resets the divisors of the attributes bound by {@link #bind(Shader)} and disables them. */
+    public void unbind(Shader shader){
+        for(int i = 0; i < boundLocations.size; i++){
+            int location = boundLocations.get(i);
+            Core.gl30.glVertexAttribDivisor(location, 0);
+            shader.disableVertexAttribute(location);
+        }
+        boundLocations.clear();
+    }
+
+    /** Invalidates the InstanceBufferObject so a new OpenGL buffer handle is created. Use this in case of a context loss. */
+    public void invalidate(){
+        bufferHandle = Core.gl20.glGenBuffer();
+        isDirty = true;
+    }
+
+    /** Disposes of all resources this InstanceBufferObject uses. */
+    @Override
+    public void dispose(){
+        GL20 gl = Core.gl20;
+        gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+        gl.glDeleteBuffer(bufferHandle);
+        bufferHandle = 0;
+        BufferUtils.disposeUnsafeByteBuffer(byteBuffer);
+    }
+}
@@ -0,0 +1,288 @@
+package io.anuke.arc.graphics.glutils;
+
+import io.anuke.arc.Core;
+import io.anuke.arc.collection.IntArray;
+import io.anuke.arc.graphics.GL20;
+import io.anuke.arc.graphics.GL30;
+import io.anuke.arc.graphics.VertexAttribute;
+import io.anuke.arc.graphics.VertexAttributes;
+import io.anuke.arc.util.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * <p>
+ * A {@link VertexData} implementation for vertex data that is rewritten every time it is drawn, such as the vertices of a
+ * {@link io.anuke.arc.graphics.g2d.SpriteBatch}. Requires OpenGL (ES) 3.0.
+ * </p>
+ *
+ * <p>
+ * Instead of re-uploading into the same buffer object, which forces the driver to wait until previous draw calls using that
+ * buffer have finished, the vertex data is spread over several buffer segments that are used round-robin. Each upload
+ * additionally orphans the storage of the segment it writes to, so the driver can hand out fresh memory instead of
+ * synchronizing. Every segment has its own vertex array object, so switching segments does not respecify attributes.
+ * </p>
+ *
+ * <p>
+ * Uploaded bytes can be monitored through {@link io.anuke.arc.graphics.profiling.GLProfiler#getBufferBytesUploaded()}.
+ * </p>
+ *
+ * <p>
+ * VertexBufferObjectStreaming objects must be disposed via the {@link #dispose()} method when no longer needed
+ * </p>
+ * <p>
+ * Code adapted from {@link VertexBufferObjectWithVAO}.
+ */
+public class VertexBufferObjectStreaming implements VertexData{
+    /** The default amount of buffer segments used for streaming. */
+    public static final int defaultSegments = 3;
+
+    final static IntBuffer tmpHandle = BufferUtils.newIntBuffer(1);
+
+    final VertexAttributes attributes;
+    final FloatBuffer buffer;
+    final ByteBuffer byteBuffer;
+    final int[] bufferHandles;
+    final int[] vaoHandles;
+    final IntArray[] cachedLocations;
+    int segment;
+    boolean isDirty = false;
+    boolean isBound = false;
+
+    /**
+     * Constructs a new interleaved VertexBufferObjectStreaming with the default amount of segments.
+     * @param numVertices the maximum number of vertices
+     * @param attributes the {@link VertexAttribute}s.
+     */
+    public VertexBufferObjectStreaming(int numVertices, VertexAttribute... attributes){
+        this(defaultSegments, numVertices, new VertexAttributes(attributes));
+    }
+
+    /**
+     * Constructs a new interleaved VertexBufferObjectStreaming.
+     * @param segments the amount of buffer objects to cycle through. Must be at least 1.
+     * @param numVertices the maximum number of vertices
+     * @param attributes the {@link VertexAttributes}.
+     */
+    public VertexBufferObjectStreaming(int segments, int numVertices, VertexAttributes attributes){
+        if(segments < 1) throw new IllegalArgumentException("segments must be >= 1: " + segments);
+        this.attributes = attributes;
+
+        byteBuffer = BufferUtils.newUnsafeByteBuffer(this.attributes.vertexSize * numVertices);
+        buffer = byteBuffer.asFloatBuffer();
+        buffer.flip();
+        byteBuffer.flip();
+
+        bufferHandles = new int[segments];
+        vaoHandles = new int[segments];
+        cachedLocations = new IntArray[segments];
+        for(int i = 0; i < segments; i++){
+            cachedLocations[i] = new IntArray();
+        }
+        createHandles();
+    }
+
+    /** @return the amount of buffer segments cycled through. */
+    public int getSegments(){
+        return bufferHandles.length;
+    }
+
+    @Override
+    public VertexAttributes getAttributes(){
+        return attributes;
+    }
+
+    @Override
+    public int getNumVertices(){
+        return buffer.limit() * 4 / attributes.vertexSize;
+    }
+
+    @Override
+    public int getNumMaxVertices(){
+        return byteBuffer.capacity() / attributes.vertexSize;
+    }
+
+    @Override
+    public FloatBuffer getBuffer(){
+        isDirty = true;
+        return buffer;
+    }
+
+    @Override
+    public void setVertices(float[] vertices, int offset, int count){
+        isDirty = true;
+        BufferUtils.copy(vertices, byteBuffer, count, offset);
+        buffer.position(0);
+        buffer.limit(count);
+        bufferChanged();
+    }
+
+    @Override
+    public void updateVertices(int targetOffset, float[] vertices, int sourceOffset, int count){
+        isDirty = true;
+        final int pos = byteBuffer.position();
+        byteBuffer.position(targetOffset * 4);
+        BufferUtils.copy(vertices, sourceOffset, count, byteBuffer);
+        byteBuffer.position(pos);
+        buffer.position(0);
+        bufferChanged();
+    }
+
+    private void bufferChanged(){
+        //the current segment is in use by the bound VAO, so the data has to go there; orphaning still avoids a stall
+        if(isBound){
+            upload(Core.gl30);
+        }
+    }
+
+    /**
+     * Binds this VertexBufferObjectStreaming for rendering via glDrawArrays or glDrawElements.
+     * If the vertices changed since the last bind, they are uploaded into the next buffer segment.
+     * @param shader the shader
+     */
+    @Override
+    public void bind(Shader shader){
+        bind(shader, null);
+    }
+
+    @Override
+    public void bind(Shader shader, int[] locations){
+        GL30 gl = Core.gl30;
+
+        if(isDirty){
+            segment = (segment + 1) % bufferHandles.length;
+        }
+
+        gl.glBindVertexArray(vaoHandles[segment]);
+        bindAttributes(shader, locations);
+        if(isDirty){
+            upload(gl);
+        }
+
+        isBound = true;
+    }
+
+    private void bindAttributes(Shader shader, int[] locations){
+        IntArray cachedLocations = this.cachedLocations[segment];
+        boolean stillValid = cachedLocations.size != 0;
+        final int numAttributes = attributes.size();
+
+        if(stillValid){
+            if(locations == null){
+                for(int i = 0; stillValid && i < numAttributes; i++){
+                    VertexAttribute attribute = attributes.get(i);
+                    int location = shader.getAttributeLocation(attribute.alias);
+                    stillValid = location == cachedLocations.get(i);
+                }
+            }else{
+                stillValid = locations.length == cachedLocations.size;
+                for(int i = 0; stillValid && i < numAttributes; i++){
+                    stillValid = locations[i] == cachedLocations.get(i);
+                }
+            }
+        }
+
+        if(!stillValid){
+            Core.gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, bufferHandles[segment]);
+            unbindAttributes(shader, cachedLocations);
+            cachedLocations.clear();
+
+            for(int i = 0; i < numAttributes; i++){
+                VertexAttribute attribute = attributes.get(i);
+                if(locations == null){
+                    cachedLocations.add(shader.getAttributeLocation(attribute.alias));
+                }else{
+                    cachedLocations.add(locations[i]);
+                }
+
+                int location = cachedLocations.get(i);
+                if(location < 0){
+                    continue;
+                }
+
+                shader.enableVertexAttribute(location);
+                shader.setVertexAttribute(location, attribute.numComponents, attribute.type, attribute.normalized, attributes.vertexSize, attribute.offset);
+            }
+        }
+    }
+
+    private void unbindAttributes(Shader shader, IntArray cachedLocations){
+        if(cachedLocations.size == 0){
+            return;
+        }
+        int numAttributes = attributes.size();
+        for(int i = 0; i < numAttributes; i++){
+            int location = cachedLocations.get(i);
+            if(location < 0){
+                continue;
+            }
+            shader.disableVertexAttribute(location);
+        }
+    }
+
+    /** Orphans the storage of the current segment and uploads the used part of the vertex data into it. */
+    private void upload(GL20 gl){
+        byteBuffer.limit(buffer.limit() * 4);
+        gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, bufferHandles[segment]);
+        gl.glBufferData(GL20.GL_ARRAY_BUFFER, byteBuffer.capacity(), null, GL20.GL_STREAM_DRAW);
+        if(byteBuffer.limit() > 0){
+            gl.glBufferSubData(GL20.GL_ARRAY_BUFFER, 0, byteBuffer.limit(), byteBuffer);
+        }
+        isDirty = false;
+    }
+
+    /**
+     * Unbinds this VertexBufferObjectStreaming.
+     * @param shader the shader
+     */
+    @Override
+    public void unbind(final Shader shader){
+        unbind(shader, null);
+    }
+
+    @Override
+    public void unbind(final Shader shader, final int[] locations){
+        Core.gl30.glBindVertexArray(0);
+        isBound = false;
+    }
+
+    /** Invalidates the VertexBufferObjectStreaming so new OpenGL buffer and vertex array handles are created. Use this in case of a context loss. */
+    @Override
+    public void invalidate(){
+        createHandles();
+        isDirty = true;
+    }
+
+    /** Disposes of all resources this VertexBufferObjectStreaming uses. */
+    @Override
+    public void dispose(){
+        GL30 gl = Core.gl30;
+
+        gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+        for(int i = 0; i < bufferHandles.length; i++){
+            gl.glDeleteBuffer(bufferHandles[i]);
+            bufferHandles[i] = 0;
+
+            if(vaoHandles[i] != -1){
+                tmpHandle.clear();
+                tmpHandle.put(vaoHandles[i]);
+                tmpHandle.flip();
+                gl.glDeleteVertexArrays(1, tmpHandle);
+                vaoHandles[i] = -1;
+            }
+        }
+        BufferUtils.disposeUnsafeByteBuffer(byteBuffer);
+    }
+
+    private void createHandles(){
+        for(int i = 0; i < bufferHandles.length; i++){
+            bufferHandles[i] = Core.gl30.glGenBuffer();
+            tmpHandle.clear();
+            Core.gl30.glGenVertexArrays(1, tmpHandle);
+            vaoHandles[i] = tmpHandle.get();
+            cachedLocations[i].clear();
+        }
+    }
+}
@@ -388,6 +388,7 @@ public class GL20Interceptor extends GLInterceptor implements GL20{
     @Override
     public void glBufferData(int target, int size, Buffer data, int usage){
         calls++;
+        if(data != null) bufferBytesUploaded += size;
         gl20.glBufferData(target, size, data, usage);
         check();
     }
@@ -395,6 +396,7 @@ public class GL20Interceptor extends GLInterceptor implements GL20{
     @Override
     public void glBufferSubData(int target, int offset, int size, Buffer data){
         calls++;
+        bufferBytesUploaded += size;
         gl20.glBufferSubData(target, offset, size, data);
         check();
     }
@@ -393,6 +393,7 @@ public class GL30Interceptor extends GLInterceptor implements GL30{
     @Override
     public void glBufferData(int target, int size, Buffer data, int usage){
         calls++;
+        if(data != null) bufferBytesUploaded += size;
         gl30.glBufferData(target, size, data, usage);
         check();
     }
@@ -400,6 +401,7 @@ public class GL30Interceptor extends GLInterceptor implements GL30{
     @Override
     public void glBufferSubData(int target, int offset, int size, Buffer data){
         calls++;
+        bufferBytesUploaded += size;
         gl30.glBufferSubData(target, offset, size, data);
         check();
     }
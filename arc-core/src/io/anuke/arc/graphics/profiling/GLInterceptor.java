@@ -10,6 +10,7 @@ public abstract class GLInterceptor implements GL20{
     protected int textureBindings;
     protected int drawCalls;
     protected int shaderSwitches;
+    protected long bufferBytesUploaded;
     protected GLProfiler glProfiler;
 
     protected GLInterceptor(GLProfiler profiler){
@@ -49,6 +50,10 @@ public abstract class GLInterceptor implements GL20{
         return shaderSwitches;
     }
 
+    public long getBufferBytesUploaded(){
+        return bufferBytesUploaded;
+    }
+
     public FloatCounter getVertexCount(){
         return vertexCount;
     }
@@ -58,6 +63,7 @@ public abstract class GLInterceptor implements GL20{
         textureBindings = 0;
         drawCalls = 0;
         shaderSwitches = 0;
+        bufferBytesUploaded = 0;
         vertexCount.reset();
     }
 }
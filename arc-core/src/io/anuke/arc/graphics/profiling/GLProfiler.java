@@ -104,6 +104,13 @@ public class GLProfiler{
         return glInterceptor.getShaderSwitches();
     }
 
+    /**
+     * @return the total amount of bytes uploaded with glBufferData and glBufferSubData since the last reset
+     */
+    public long getBufferBytesUploaded(){
+        return glInterceptor.getBufferBytesUploaded();
+    }
+
     /**
      * @return {@link FloatCounter} containing information about rendered vertices since the last reset
      */
@@ -7,6 +7,7 @@ import io.anuke.arc.graphics.g2d.BitmapFont;
 import io.anuke.arc.graphics.g2d.BitmapFontCache;
 import io.anuke.arc.graphics.g2d.Draw;
 import io.anuke.arc.graphics.g2d.GlyphLayout;
+import io.anuke.arc.graphics.g2d.GlyphLayoutCache;
 import io.anuke.arc.math.geom.Vector2;
 import io.anuke.arc.scene.Element;
 import io.anuke.arc.scene.style.Drawable;
@@ -20,11 +21,19 @@ import static io.anuke.arc.Core.scene;
  * A text label, with optional word wrapping.
  * <p>
  * The preferred size of the label is determined by the actual text bounds, unless {@link #setWrap(boolean) word wrap} is enabled.
+ * Text can be measured through a shared {@link #layoutCache}, and labels that rarely change can keep their vertices between
+ * layouts with {@link #setCacheText(boolean)}.
  * @author Nathan Sweet
  */
 public class Label extends Element{
     static private final Color tempColor = new Color();
     static private final GlyphLayout prefSizeLayout = new GlyphLayout();
+    /**
+     * Caches the layouts used to measure the text of labels, for UIs with many labels showing the same text. Null by default,
+     * which measures text again every time. Only used on the thread that lays out the scene.
+     * @see #setCacheLayouts(boolean)
+     */
+    static public GlyphLayoutCache layoutCache;
     private final GlyphLayout layout = new GlyphLayout();
     private final Vector2 prefSize = new Vector2();
     private final StringBuilder text = new StringBuilder();
@@ -38,9 +47,15 @@ public class Label extends Element{
     protected float fontScaleX = 1, fontScaleY = 1;
     protected boolean fontScaleChanged = false;
     protected String ellipsis;
+    protected boolean cacheText;
+    protected boolean cacheLayouts = true;
+    private boolean textInvalid = true;
+    private float lastLayoutWidth, lastLayoutHeight, lastScaleX, lastScaleY;
 
     public Label(Supplier<CharSequence> sup){
         this("", new LabelStyle(scene.getStyle(LabelStyle.class)));
+        //the text usually changes every frame, which would fill the layout cache with text that is never seen again
+        cacheLayouts = false;
         update(() -> setText(sup.get()));
         try{
             setText(sup.get());
@@ -76,6 +91,7 @@ public class Label extends Element{
         if(style.font == null) throw new IllegalArgumentException("Missing LabelStyle font.");
         this.style = style;
         cache = style.font.newFontCache();
+        textInvalid = true;
         invalidateHierarchy();
     }
 
@@ -84,6 +100,7 @@ public class Label extends Element{
         if(textEquals(newText)) return;
         text.setLength(0);
         text.append(newText);
+        textInvalid = true;
         invalidateHierarchy();
     }
 
@@ -130,22 +147,41 @@ public class Label extends Element{
 
     private void computePrefSize(){
         prefSizeInvalid = false;
-        GlyphLayout prefSizeLayout = Label.prefSizeLayout;
+        GlyphLayout prefSizeLayout;
         if(wrap && ellipsis == null){
             float width = getWidth();
             if(style.background != null) width -= style.background.getLeftWidth() + style.background.getRightWidth();
-            prefSizeLayout.setText(cache.getFont(), text, Color.white, width, Align.left, true);
+            prefSizeLayout = measure(cache.getFont(), width, Align.left, true, null);
         }else
-            prefSizeLayout.setText(cache.getFont(), text);
+            prefSizeLayout = measure(cache.getFont(), 0, Align.left, false, null);
         prefSize.set(prefSizeLayout.width, prefSizeLayout.height);
     }
 
+    /** @return a layout of the text, from the {@link #layoutCache} if it is used. The layout must not be modified or kept. */
+    private GlyphLayout measure(BitmapFont font, float width, int align, boolean wrap, String ellipsis){
+        if(cacheLayouts && layoutCache != null) return layoutCache.get(font, text, Color.white, width, align, wrap, ellipsis);
+        prefSizeLayout.setText(font, text, 0, text.length(), Color.white, width, align, wrap, ellipsis);
+        return prefSizeLayout;
+    }
+
     public void layout(){
         BitmapFont font = cache.getFont();
         float oldScaleX = font.getScaleX();
         float oldScaleY = font.getScaleY();
         if(fontScaleChanged) font.getData().setScale(fontScaleX, fontScaleY);
 
+        if(cacheText && !textInvalid && getWidth() == lastLayoutWidth && getHeight() == lastLayoutHeight
+        && font.getScaleX() == lastScaleX && font.getScaleY() == lastScaleY){
+            //nothing that affects the text has changed, keep the vertices
+            if(fontScaleChanged) font.getData().setScale(oldScaleX, oldScaleY);
+            return;
+        }
+        textInvalid = false;
+        lastLayoutWidth = getWidth();
+        lastLayoutHeight = getHeight();
+        lastScaleX = font.getScaleX();
+        lastScaleY = font.getScaleY();
+
         boolean wrap = this.wrap && ellipsis == null;
         if(wrap){
             float prefHeight = getPrefHeight();
@@ -169,9 +205,9 @@ public class Label extends Element{
         float textWidth, textHeight;
         if(wrap || text.indexOf("\n") != -1){
             // If the text can span multiple lines, determine the text's actual size so it can be aligned within the label.
-            layout.setText(font, text, 0, text.length(), Color.white, width, lineAlign, wrap, ellipsis);
-            textWidth = layout.width;
-            textHeight = layout.height;
+            GlyphLayout measured = measure(font, width, lineAlign, wrap, ellipsis);
+            textWidth = measured.width;
+            textHeight = measured.height;
 
             if((labelAlign & Align.left) == 0){
                 if((labelAlign & Align.right) != 0)
@@ -250,6 +286,7 @@ public class Label extends Element{
      */
     public void setWrap(boolean wrap){
         this.wrap = wrap;
+        textInvalid = true;
         invalidateHierarchy();
     }
 
@@ -285,6 +322,7 @@ public class Label extends Element{
         else
             this.lineAlign = Align.center;
 
+        textInvalid = true;
         invalidate();
     }
 
@@ -296,6 +334,7 @@ public class Label extends Element{
         fontScaleChanged = true;
         this.fontScaleX = fontScaleX;
         this.fontScaleY = fontScaleY;
+        textInvalid = true;
         invalidateHierarchy();
     }
 
@@ -321,6 +360,7 @@ public class Label extends Element{
      */
     public void setEllipsis(String ellipsis){
         this.ellipsis = ellipsis;
+        textInvalid = true;
     }
 
     /**
@@ -332,6 +372,33 @@ public class Label extends Element{
             this.ellipsis = "...";
         else
             this.ellipsis = null;
+        textInvalid = true;
+    }
+
+    /**
+     * When true, the layout and vertices of the text are kept until the text, style, size, alignment, wrapping or font scale
+     * changes, and other layouts only cost a comparison. Drawing always only rewrites the colors and position of the vertices
+     * when they change. Use this for labels that are laid out often, but whose text rarely changes. Default is false.
+     */
+    public void setCacheText(boolean cacheText){
+        this.cacheText = cacheText;
+        textInvalid = true;
+    }
+
+    public boolean isCacheText(){
+        return cacheText;
+    }
+
+    /**
+     * Sets whether the text is measured through the {@link #layoutCache}, if there is one. Disable this for labels whose text
+     * changes often. Default is true, except for labels created with a supplier.
+     */
+    public void setCacheLayouts(boolean cacheLayouts){
+        this.cacheLayouts = cacheLayouts;
+    }
+
+    public boolean isCacheLayouts(){
+        return cacheLayouts;
     }
 
     /** Allows subclasses to access the cache in {@link #draw(Batch, float)}. */
@@ -0,0 +1,317 @@
+package io.anuke.arc.util.compression;
+
+import io.anuke.arc.collection.Array;
+import io.anuke.arc.util.Disposable;
+import io.anuke.arc.util.async.AsyncExecutor;
+import io.anuke.arc.util.async.AsyncResult;
+import io.anuke.arc.util.io.ReusableByteInStream;
+import io.anuke.arc.util.io.ReusableByteOutStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compresses and decompresses data on multiple threads by splitting it into blocks that are processed independently. The
+ * output uses the framed format of {@link Lz4OutputStream}, so data compressed with {@link Codec#lz4} can also be read with a
+ * {@link Lz4InputStream}, and the other way around. Data compressed with {@link Codec#lzma} contains an {@link Lzma} stream in
+ * every block, and can only be read by this class.
+ * <p>
+ * Independent blocks compress slightly worse than a single stream, since matches can't reach into previous blocks. Instances
+ * are not thread safe, and must be disposed when no longer used.
+ */
+public class BlockCompressor implements Disposable{
+    private final Codec codec;
+    private final int threads;
+    private final AsyncExecutor executor;
+    private final Array<Block> blocks = new Array<>();
+    private final Array<AsyncResult<Void>> results = new Array<>();
+    private final byte[] intBytes = new byte[4];
+    private int blockSize;
+    private boolean checksum;
+
+    /** Creates a compressor with one thread per available processor. */
+    public BlockCompressor(Codec codec){
+        this(codec, Runtime.getRuntime().availableProcessors());
+    }
+
+    /** @param threads the maximum amount of blocks that are processed at the same time. */
+    public BlockCompressor(Codec codec, int threads){
+        this.codec = codec;
+        this.threads = Math.max(threads, 1);
+        this.executor = this.threads > 1 ? new AsyncExecutor(this.threads) : null;
+        this.blockSize = codec.defaultBlockSize;
+    }
+
+    /**
+     * Sets the amount of uncompressed bytes in a block. Smaller blocks parallelize better, larger blocks compress better. Default
+     * is {@link Codec#defaultBlockSize}.
+     */
+    public void setBlockSize(int bytes){
+        if(bytes < 1 || bytes > Lz4OutputStream.maxBlockSize) throw new IllegalArgumentException("Invalid block size: " + bytes);
+        this.blockSize = bytes;
+    }
+
+    /** Sets whether compressed blocks have a {@link CRC CRC32C} of their data, which is verified when decompressing. Default is false. */
+    public void setChecksum(boolean checksum){
+        this.checksum = checksum;
+    }
+
+    public byte[] compress(byte[] bytes) throws IOException{
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+        compress(new ByteArrayInputStream(bytes), out);
+        return out.toByteArray();
+    }
+
+    public byte[] decompress(byte[] bytes) throws IOException{
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 2);
+        decompress(new ByteArrayInputStream(bytes), out);
+        return out.toByteArray();
+    }
+
+    /** Compresses the remaining data of the input stream into the output stream, without closing either. */
+    public void compress(InputStream in, OutputStream out) throws IOException{
+        writeInt(out, codec == Codec.lz4 ? Lz4OutputStream.magic : Lz4OutputStream.magicLzma);
+        writeInt(out, checksum ? blockSize | Lz4OutputStream.checksumFlag : blockSize);
+
+        boolean end = false;
+        while(!end){
+            int count = 0;
+            while(count < threads && !end){
+                Block block = block(count, codec, true);
+                block.dataLength = readFully(in, block.data, blockSize);
+                if(block.dataLength > 0) count++;
+                end = block.dataLength < blockSize;
+            }
+
+            run(count);
+
+            for(int i = 0; i < count; i++){
+                Block block = blocks.get(i);
+                writeInt(out, block.stored ? block.dataLength | Lz4OutputStream.storedFlag : block.packedLength);
+                if(checksum) writeInt(out, block.checksum);
+                if(block.stored){
+                    out.write(block.data, 0, block.dataLength);
+                }else{
+                    out.write(block.packed, 0, block.packedLength);
+                }
+            }
+        }
+
+        writeInt(out, 0);
+        out.flush();
+    }
+
+    /**
+     * Decompresses data written by {@link #compress(InputStream, OutputStream)} with either codec, or by an {@link Lz4OutputStream},
+     * without closing either stream.
+     */
+    public void decompress(InputStream in, OutputStream out) throws IOException{
+        readFully(in, intBytes, 4);
+        int magic = readInt(intBytes);
+        if(magic != Lz4OutputStream.magic && magic != Lz4OutputStream.magicLzma) throw new IOException("Not a compressed stream");
+        Codec codec = magic == Lz4OutputStream.magic ? Codec.lz4 : Codec.lzma;
+        readFully(in, intBytes, 4);
+        int blockSize = readInt(intBytes);
+        boolean checksum = (blockSize & Lz4OutputStream.checksumFlag) != 0;
+        blockSize &= ~Lz4OutputStream.checksumFlag;
+        if(blockSize < 1 || blockSize > Lz4OutputStream.maxBlockSize) throw new IOException("Invalid block size: " + blockSize);
+
+        boolean end = false;
+        while(!end){
+            int count = 0;
+            while(count < threads){
+                if(readFully(in, intBytes, 4) < 4) throw new EOFException("Unexpected end of compressed stream");
+                int header = readInt(intBytes);
+                if(header == 0){
+                    end = true;
+                    break;
+                }
+
+                Block block = block(count++, codec, false);
+                block.stored = (header & Lz4OutputStream.storedFlag) != 0;
+                //blocks that don't compress are stored, so no block is larger than the block size
+                int length = header & ~Lz4OutputStream.storedFlag;
+                if(length > blockSize) throw new IOException("Malformed compressed stream");
+                block.checked = checksum;
+                if(checksum){
+                    if(readFully(in, intBytes, 4) < 4) throw new EOFException("Unexpected end of compressed stream");
+                    block.checksum = readInt(intBytes);
+                }
+                if(block.stored){
+                    block.data = ensure(block.data, length);
+                    block.dataLength = length;
+                    if(readFully(in, block.data, length) < length) throw new EOFException("Unexpected end of compressed stream");
+                }else{
+                    block.data = ensure(block.data, blockSize);
+                    block.packed = ensure(block.packed, length);
+                    block.packedLength = length;
+                    block.capacity = blockSize;
+                    if(readFully(in, block.packed, length) < length) throw new EOFException("Unexpected end of compressed stream");
+                }
+            }
+
+            run(count);
+
+            for(int i = 0; i < count; i++){
+                Block block = blocks.get(i);
+                out.write(block.data, 0, block.dataLength);
+            }
+        }
+        out.flush();
+    }
+
+    /** Processes the first blocks, on the executor if there is more than one. */
+    private void run(int count) throws IOException{
+        if(executor == null || count <= 1){
+            for(int i = 0; i < count; i++){
+                blocks.get(i).run();
+            }
+        }else{
+            results.clear();
+            for(int i = 0; i < count; i++){
+                results.add(executor.submit(blocks.get(i)));
+            }
+            for(AsyncResult<Void> result : results){
+                result.get();
+            }
+        }
+
+        for(int i = 0; i < count; i++){
+            Block block = blocks.get(i);
+            if(block.error instanceof IOException) throw (IOException)block.error;
+            if(block.error != null) throw new IOException(block.compress ? "Couldn't compress block" : "Malformed compressed stream", block.error);
+        }
+    }
+
+    private Block block(int index, Codec codec, boolean compress){
+        while(blocks.size <= index) blocks.add(new Block());
+        Block block = blocks.get(index);
+        block.codec = codec;
+        block.compress = compress;
+        block.stored = false;
+        block.checked = checksum;
+        if(compress){
+            block.data = ensure(block.data, blockSize);
+            if(codec == Codec.lz4) block.packed = ensure(block.packed, Lz4.maxCompressedLength(blockSize));
+        }
+        return block;
+    }
+
+    @Override
+    public void dispose(){
+        if(executor != null) executor.dispose();
+    }
+
+    private static byte[] ensure(byte[] bytes, int length){
+        return bytes.length >= length ? bytes : new byte[length];
+    }
+
+    /** @return the amount of bytes read, which is less than the length only at the end of the stream */
+    private static int readFully(InputStream in, byte[] bytes, int length) throws IOException{
+        int offset = 0;
+        while(offset < length){
+            int read = in.read(bytes, offset, length - offset);
+            if(read < 0) break;
+            offset += read;
+        }
+        return offset;
+    }
+
+    private static int readInt(byte[] bytes){
+        return (bytes[0] & 0xff) << 24 | (bytes[1] & 0xff) << 16 | (bytes[2] & 0xff) << 8 | (bytes[3] & 0xff);
+    }
+
+    private void writeInt(OutputStream out, int value) throws IOException{
+        intBytes[0] = (byte)(value >>> 24);
+        intBytes[1] = (byte)(value >>> 16);
+        intBytes[2] = (byte)(value >>> 8);
+        intBytes[3] = (byte)value;
+        out.write(intBytes, 0, 4);
+    }
+
+    public enum Codec{
+        /** Fast, with a moderate ratio. */
+        lz4(1 << 18),
+        /** Slow, with a high ratio. */
+        lzma(1 << 20);
+
+        /** The default amount of uncompressed bytes in a block. */
+        public final int defaultBlockSize;
+
+        Codec(int defaultBlockSize){
+            this.defaultBlockSize = defaultBlockSize;
+        }
+    }
+
+    /** Compresses or decompresses one block, keeping its buffers between uses. */
+    static class Block implements Runnable{
+        Codec codec;
+        boolean compress, stored;
+        byte[] data = {}, packed = {};
+        int dataLength, packedLength, capacity;
+        /** Whether the block has a checksum of its data. */
+        boolean checked;
+        int checksum;
+        Exception error;
+
+        final int[] table = new int[Lz4.tableSize];
+        final CRC crc = new CRC(true);
+        final ReusableByteInStream lzmaIn = new ReusableByteInStream();
+        final ReusableByteOutStream lzmaOut = new ReusableByteOutStream();
+
+        @Override
+        public void run(){
+            error = null;
+            crc.reset();
+            try{
+                if(compress){
+                    compress();
+                }else if(!stored){
+                    decompress();
+                }
+
+                if(checked){
+                    //LZMA updates the checksum while it processes the data
+                    if(codec == Codec.lz4 || (stored && !compress)) crc.update(data, 0, dataLength);
+                    int value = (int)crc.getValue();
+                    if(!compress && value != checksum) throw new IOException("Block checksum mismatch");
+                    checksum = value;
+                }
+            }catch(Exception e){
+                error = e;
+            }
+        }
+
+        private void compress() throws IOException{
+            if(codec == Codec.lz4){
+                packedLength = Lz4.compress(data, 0, dataLength, packed, 0, table);
+            }else{
+                lzmaIn.setBytes(data, 0, dataLength);
+                lzmaOut.reset();
+                //the dictionary doesn't need to be larger than the block, and the encoder allocates memory for all of it
+                Lzma.compress(lzmaIn, lzmaOut, Math.max(dataLength, 1 << 12), checked ? crc : null);
+                packedLength = lzmaOut.size();
+                packed = ensure(packed, packedLength);
+                System.arraycopy(lzmaOut.getBytes(), 0, packed, 0, packedLength);
+            }
+            stored = packedLength >= dataLength;
+        }
+
+        private void decompress() throws IOException{
+            if(codec == Codec.lz4){
+                dataLength = Lz4.decompress(packed, 0, packedLength, data, 0, capacity);
+            }else{
+                lzmaIn.setBytes(packed, 0, packedLength);
+                lzmaOut.reset();
+                Lzma.decompress(lzmaIn, lzmaOut, checked ? crc : null);
+                dataLength = lzmaOut.size();
+                if(dataLength > capacity) throw new IOException("Malformed compressed stream");
+                System.arraycopy(lzmaOut.getBytes(), 0, data, 0, dataLength);
+            }
+        }
+    }
+}
@@ -2,43 +2,184 @@
 
 package io.anuke.arc.util.compression;
 
-public class CRC{
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * Computes CRC32 or CRC32C checksums. When the JVM provides {@link CRC32} or {@code java.util.zip.CRC32C} (Java 9+), they are
+ * used, as they are usually backed by hardware instructions. Otherwise, or if {@link #useIntrinsics} is false, the checksum is
+ * computed with slicing-by-8 tables, which process 8 bytes per step.
+ */
+public class CRC implements Checksum{
+    /** The reflected polynomials of CRC32 and CRC32C. */
+    static final int polynomial = 0xEDB88320, polynomialC = 0x82F63B78;
+    /** Whether to use the checksum classes of the JVM when available. Only affects instances that are created afterwards. */
+    public static boolean useIntrinsics = true;
+
+    /** The byte-wise CRC32 table. */
     public static int[] Table = new int[256];
 
+    private static final int[] slices = slices(polynomial), slicesC = slices(polynomialC);
+    private static final Class<?> crc32c = crc32c();
+
     static{
-        for(int i = 0; i < 256; i++){
-            int r = i;
-            for(int j = 0; j < 8; j++)
-                if((r & 1) != 0)
-                    r = (r >>> 1) ^ 0xEDB88320;
-                else
-                    r >>>= 1;
-            Table[i] = r;
-        }
+        System.arraycopy(slices, 0, Table, 0, 256);
     }
 
+    private final int[] table;
+    private final Checksum intrinsic;
+    private byte[] scratch;
+
     int _value = -1;
 
+    /** Creates a CRC32 checksum. */
+    public CRC(){
+        this(false);
+    }
+
+    /** @param castagnoli whether to compute CRC32C instead of CRC32 */
+    public CRC(boolean castagnoli){
+        this.table = castagnoli ? slicesC : slices;
+        this.intrinsic = !useIntrinsics ? null : !castagnoli ? new CRC32() : crc32c == null ? null : newInstance(crc32c);
+    }
+
+    /** @return the CRC32 of the bytes */
+    public static int crc32(byte[] data, int offset, int length){
+        CRC crc = new CRC();
+        crc.update(data, offset, length);
+        return (int)crc.getValue();
+    }
+
+    /** @return the CRC32C of the bytes */
+    public static int crc32c(byte[] data, int offset, int length){
+        CRC crc = new CRC(true);
+        crc.update(data, offset, length);
+        return (int)crc.getValue();
+    }
+
+    /** @return whether this checksum is computed by the JVM */
+    public boolean isIntrinsic(){
+        return intrinsic != null;
+    }
+
     public void Init(){
-        _value = -1;
+        reset();
     }
 
     public void Update(byte[] data, int offset, int size){
-        for(int i = 0; i < size; i++)
-            _value = Table[(_value ^ data[offset + i]) & 0xFF] ^ (_value >>> 8);
+        update(data, offset, size);
     }
 
     public void Update(byte[] data){
-        int size = data.length;
-        for(int i = 0; i < size; i++)
-            _value = Table[(_value ^ data[i]) & 0xFF] ^ (_value >>> 8);
+        update(data, 0, data.length);
     }
 
     public void UpdateByte(int b){
-        _value = Table[(_value ^ b) & 0xFF] ^ (_value >>> 8);
+        update(b);
     }
 
     public int GetDigest(){
-        return ~_value;
+        return (int)getValue();
+    }
+
+    @Override
+    public void update(int b){
+        if(intrinsic != null){
+            intrinsic.update(b);
+        }else{
+            _value = table[(_value ^ b) & 0xFF] ^ (_value >>> 8);
+        }
+    }
+
+    @Override
+    public void update(byte[] data, int offset, int length){
+        if(intrinsic != null){
+            intrinsic.update(data, offset, length);
+            return;
+        }
+
+        int[] table = this.table;
+        int value = _value;
+        while(length >= 8){
+            int a = value ^ ((data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8 | (data[offset + 2] & 0xFF) << 16 | (data[offset + 3] & 0xFF) << 24);
+            int b = (data[offset + 4] & 0xFF) | (data[offset + 5] & 0xFF) << 8 | (data[offset + 6] & 0xFF) << 16 | (data[offset + 7] & 0xFF) << 24;
+            value = table[7 * 256 + (a & 0xFF)] ^ table[6 * 256 + ((a >>> 8) & 0xFF)] ^ table[5 * 256 + ((a >>> 16) & 0xFF)] ^ table[4 * 256 + (a >>> 24)]
+                ^ table[3 * 256 + (b & 0xFF)] ^ table[2 * 256 + ((b >>> 8) & 0xFF)] ^ table[256 + ((b >>> 16) & 0xFF)] ^ table[b >>> 24];
+            offset += 8;
+            length -= 8;
+        }
+        for(int end = offset + length; offset < end; offset++){
+            value = table[(value ^ data[offset]) & 0xFF] ^ (value >>> 8);
+        }
+        _value = value;
+    }
+
+    public void update(byte[] data){
+        update(data, 0, data.length);
+    }
+
+    /** Updates the checksum with the remaining bytes of the buffer, which are consumed. */
+    public void update(ByteBuffer buffer){
+        if(buffer.hasArray()){
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+        }else if(intrinsic instanceof CRC32){
+            ((CRC32)intrinsic).update(buffer);
+        }else{
+            if(scratch == null) scratch = new byte[4096];
+            while(buffer.hasRemaining()){
+                int length = Math.min(buffer.remaining(), scratch.length);
+                buffer.get(scratch, 0, length);
+                update(scratch, 0, length);
+            }
+        }
+    }
+
+    @Override
+    public long getValue(){
+        return intrinsic != null ? intrinsic.getValue() : ~_value & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void reset(){
+        if(intrinsic != null) intrinsic.reset();
+        _value = -1;
+    }
+
+    /** Creates the slicing-by-8 tables of a polynomial: the byte-wise table, followed by a table for each further byte. */
+    private static int[] slices(int polynomial){
+        int[] table = new int[8 * 256];
+        for(int i = 0; i < 256; i++){
+            int r = i;
+            for(int j = 0; j < 8; j++){
+                r = (r & 1) != 0 ? (r >>> 1) ^ polynomial : r >>> 1;
+            }
+            table[i] = r;
+        }
+        for(int i = 0; i < 256; i++){
+            for(int slice = 1; slice < 8; slice++){
+                int previous = table[(slice - 1) * 256 + i];
+                table[slice * 256 + i] = (previous >>> 8) ^ table[previous & 0xFF];
+            }
+        }
+        return table;
+    }
+
+    /** @return the CRC32C class of the JVM, or null before Java 9 */
+    private static Class<?> crc32c(){
+        try{
+            return Class.forName("java.util.zip.CRC32C");
+        }catch(Throwable e){
+            return null;
+        }
+    }
+
+    private static Checksum newInstance(Class<?> type){
+        try{
+            return (Checksum)type.newInstance();
+        }catch(Throwable e){
+            return null;
+        }
     }
 }
@@ -0,0 +1,196 @@
+package io.anuke.arc.util.compression;
+
+import io.anuke.arc.util.ArcRuntimeException;
+
+import java.util.Arrays;
+
+/**
+ * A pure Java codec for the LZ4 block format. Compression is greedy with a single hash table, which trades ratio for speed:
+ * it is an order of magnitude faster than {@link Lzma} and faster than deflate, and decompression is faster still. Blocks
+ * produced here can be read by any LZ4 implementation, and the other way around.
+ * <p>
+ * Use {@link Lz4OutputStream} and {@link Lz4InputStream} to compress data of any length, or {@link BlockCompressor} to do it with
+ * multiple threads.
+ */
+public class Lz4{
+    /** The size of the hash table used by {@link #compress(byte[], int, int, byte[], int, int[])}. */
+    public static final int tableSize = 1 << 12;
+
+    static final int hashLog = 12, minMatch = 4, maxDistance = 65535;
+    /** A match must start this many bytes before the end of a block, and the last bytes are always literals. */
+    static final int matchStartLimit = 12, lastLiterals = 5;
+    /** Makes the search skip ahead faster the longer it hasn't found a match, so incompressible data is passed over quickly. */
+    static final int skipStrength = 6;
+
+    /** @return the largest size that compressing the amount of bytes can result in */
+    public static int maxCompressedLength(int length){
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses bytes into a block, allocating a new hash table.
+     * @return the length of the block
+     * @see #compress(byte[], int, int, byte[], int, int[])
+     */
+    public static int compress(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset){
+        return compress(src, srcOffset, length, dst, dstOffset, new int[tableSize]);
+    }
+
+    /**
+     * Compresses bytes into a block.
+     * @param dst must have room for {@link #maxCompressedLength(int)} bytes after the offset
+     * @param table the hash table, which must have a length of {@link #tableSize}. Its contents are overwritten; reusing it
+     * avoids allocation when compressing many blocks.
+     * @return the length of the block
+     */
+    public static int compress(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset, int[] table){
+        if(table.length != tableSize) throw new IllegalArgumentException("table must have a length of " + tableSize);
+
+        int end = srcOffset + length, anchor = srcOffset, op = dstOffset;
+
+        if(length > matchStartLimit){
+            Arrays.fill(table, -1);
+            int matchLimit = end - lastLiterals, startLimit = end - matchStartLimit;
+            int ip = srcOffset;
+
+            while(ip < startLimit){
+                int value = readInt(src, ip);
+                int hash = hash(value);
+                int ref = table[hash];
+                table[hash] = ip;
+
+                if(ref < 0 || ip - ref > maxDistance || readInt(src, ref) != value){
+                    ip += 1 + ((ip - anchor) >>> skipStrength);
+                    continue;
+                }
+
+                //extend the match backwards over literals, then forwards
+                while(ip > anchor && ref > srcOffset && src[ip - 1] == src[ref - 1]){
+                    ip--;
+                    ref--;
+                }
+                int matchLength = minMatch;
+                while(ip + matchLength < matchLimit && src[ip + matchLength] == src[ref + matchLength]) matchLength++;
+
+                op = sequence(src, anchor, ip - anchor, dst, op, ip - ref, matchLength);
+                ip += matchLength;
+                anchor = ip;
+
+                //the bytes just before the end of a match are a likely start of the next one
+                if(ip < startLimit) table[hash(readInt(src, ip - 2))] = ip - 2;
+            }
+        }
+
+        return sequence(src, anchor, end - anchor, dst, op, 0, 0) - dstOffset;
+    }
+
+    /**
+     * Decompresses a block. Malformed blocks are detected instead of reading or writing out of bounds, but the block isn't
+     * checksummed, so corrupted data may also decompress successfully.
+     * @param srcLength the exact length of the block
+     * @param dstLength the maximum amount of bytes that may be decompressed
+     * @return the amount of decompressed bytes
+     * @throws ArcRuntimeException if the block is malformed or decompresses to more than the maximum length
+     */
+    public static int decompress(byte[] src, int srcOffset, int srcLength, byte[] dst, int dstOffset, int dstLength){
+        int ip = srcOffset, srcEnd = srcOffset + srcLength, op = dstOffset, dstEnd = dstOffset + dstLength;
+
+        while(true){
+            if(ip >= srcEnd) throw malformed();
+            int token = src[ip++] & 0xff;
+
+            int literals = token >>> 4;
+            if(literals == 15){
+                int b;
+                do{
+                    if(ip >= srcEnd) throw malformed();
+                    b = src[ip++] & 0xff;
+                    literals += b;
+                    if(literals > dstLength) throw malformed();
+                }while(b == 255);
+            }
+            if(literals > srcEnd - ip || literals > dstEnd - op) throw malformed();
+            System.arraycopy(src, ip, dst, op, literals);
+            ip += literals;
+            op += literals;
+
+            //the last sequence has no match
+            if(ip == srcEnd) break;
+
+            if(srcEnd - ip < 2) throw malformed();
+            int offset = (src[ip] & 0xff) | (src[ip + 1] & 0xff) << 8;
+            ip += 2;
+            if(offset == 0 || offset > op - dstOffset) throw malformed();
+
+            int matchLength = token & 15;
+            if(matchLength == 15){
+                int b;
+                do{
+                    if(ip >= srcEnd) throw malformed();
+                    b = src[ip++] & 0xff;
+                    matchLength += b;
+                    if(matchLength > dstLength) throw malformed();
+                }while(b == 255);
+            }
+            matchLength += minMatch;
+            if(matchLength > dstEnd - op) throw malformed();
+
+            //matches may overlap themselves; copy the repeating part, doubling it every time
+            int ref = op - offset, matchEnd = op + matchLength;
+            while(op < matchEnd){
+                int count = Math.min(op - ref, matchEnd - op);
+                System.arraycopy(dst, ref, dst, op, count);
+                op += count;
+            }
+        }
+
+        return op - dstOffset;
+    }
+
+    /** Writes literals followed by a match, or only literals if the match length is 0. */
+    private static int sequence(byte[] src, int literalStart, int literals, byte[] dst, int op, int offset, int matchLength){
+        int token = op++;
+        if(literals >= 15){
+            dst[token] = (byte)(15 << 4);
+            op = length(dst, op, literals - 15);
+        }else{
+            dst[token] = (byte)(literals << 4);
+        }
+        System.arraycopy(src, literalStart, dst, op, literals);
+        op += literals;
+
+        if(matchLength > 0){
+            dst[op++] = (byte)offset;
+            dst[op++] = (byte)(offset >>> 8);
+            matchLength -= minMatch;
+            if(matchLength >= 15){
+                dst[token] |= 15;
+                op = length(dst, op, matchLength - 15);
+            }else{
+                dst[token] |= matchLength;
+            }
+        }
+        return op;
+    }
+
+    private static int length(byte[] dst, int op, int length){
+        while(length >= 255){
+            dst[op++] = (byte)255;
+            length -= 255;
+        }
+        dst[op++] = (byte)length;
+        return op;
+    }
+
+    private static int readInt(byte[] bytes, int i){
+        return (bytes[i] & 0xff) | (bytes[i + 1] & 0xff) << 8 | (bytes[i + 2] & 0xff) << 16 | (bytes[i + 3] & 0xff) << 24;
+    }
+
+    private static int hash(int value){
+        return (value * -1640531535) >>> (32 - hashLog);
+    }
+
+    private static ArcRuntimeException malformed(){
+        return new ArcRuntimeException("Malformed LZ4 block");
+    }
+}
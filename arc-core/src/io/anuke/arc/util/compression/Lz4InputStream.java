@@ -0,0 +1,115 @@
+package io.anuke.arc.util.compression;
+
+import io.anuke.arc.util.ArcRuntimeException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Decompresses data written by {@link Lz4OutputStream}, or by a {@link BlockCompressor} using {@link Lz4}. */
+public class Lz4InputStream extends InputStream{
+    private final InputStream in;
+    private final byte[] block, compressed;
+    private final byte[] intBytes = new byte[4];
+    private final CRC crc;
+    private int position, limit;
+    private boolean finished;
+
+    /** Reads the header of the stream. */
+    public Lz4InputStream(InputStream in) throws IOException{
+        this.in = in;
+        if(readInt() != Lz4OutputStream.magic) throw new IOException("Not an LZ4 stream");
+        int blockSize = readInt();
+        crc = (blockSize & Lz4OutputStream.checksumFlag) != 0 ? new CRC(true) : null;
+        blockSize &= ~Lz4OutputStream.checksumFlag;
+        if(blockSize < 1 || blockSize > Lz4OutputStream.maxBlockSize) throw new IOException("Invalid block size: " + blockSize);
+        block = new byte[blockSize];
+        compressed = new byte[Lz4.maxCompressedLength(blockSize)];
+    }
+
+    @Override
+    public int read() throws IOException{
+        if(position == limit && !nextBlock()) return -1;
+        return block[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException{
+        if(length == 0) return 0;
+        if(position == limit && !nextBlock()) return -1;
+        int count = Math.min(length, limit - position);
+        System.arraycopy(block, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException{
+        long skipped = 0;
+        while(skipped < n && (position < limit || nextBlock())){
+            int count = (int)Math.min(n - skipped, limit - position);
+            position += count;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available(){
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException{
+        in.close();
+    }
+
+    private boolean nextBlock() throws IOException{
+        while(!finished){
+            int header = readInt();
+            if(header == 0){
+                finished = true;
+                break;
+            }
+
+            boolean stored = (header & Lz4OutputStream.storedFlag) != 0;
+            int length = header & ~Lz4OutputStream.storedFlag;
+            if(length > (stored ? block.length : compressed.length)) throw new IOException("Malformed LZ4 stream");
+            int checksum = crc == null ? 0 : readInt();
+
+            if(stored){
+                readFully(block, length);
+                limit = length;
+            }else{
+                readFully(compressed, length);
+                try{
+                    limit = Lz4.decompress(compressed, 0, length, block, 0, block.length);
+                }catch(ArcRuntimeException e){
+                    throw new IOException("Malformed LZ4 stream", e);
+                }
+            }
+            if(crc != null){
+                crc.reset();
+                crc.update(block, 0, limit);
+                if((int)crc.getValue() != checksum) throw new IOException("LZ4 block checksum mismatch");
+            }
+            position = 0;
+            if(limit > 0) return true;
+        }
+        return false;
+    }
+
+    private int readInt() throws IOException{
+        readFully(intBytes, 4);
+        return (intBytes[0] & 0xff) << 24 | (intBytes[1] & 0xff) << 16 | (intBytes[2] & 0xff) << 8 | (intBytes[3] & 0xff);
+    }
+
+    private void readFully(byte[] bytes, int length) throws IOException{
+        int offset = 0;
+        while(offset < length){
+            int read = in.read(bytes, offset, length - offset);
+            if(read < 0) throw new EOFException("Unexpected end of LZ4 stream");
+            offset += read;
+        }
+    }
+}
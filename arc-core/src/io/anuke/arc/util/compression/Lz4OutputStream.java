@@ -0,0 +1,128 @@
+package io.anuke.arc.util.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses data with {@link Lz4} in blocks. The framed format starts with a magic number and the block size, followed by
+ * blocks that each start with their length, and ends with a block length of 0. Blocks that don't compress are stored as they
+ * are, so incompressible data costs 4 bytes per block. Optionally, the length of every block is followed by the {@link CRC
+ * CRC32C} of its uncompressed data, which is verified when reading. All ints are big endian.
+ * <p>
+ * The stream must be {@link #finish() finished} or closed, or it can't be read by {@link Lz4InputStream}. Flushing ends the current
+ * block early, which makes the output slightly larger.
+ */
+public class Lz4OutputStream extends OutputStream{
+    /** The default amount of uncompressed bytes in a block. */
+    public static final int defaultBlockSize = 1 << 16;
+
+    static final int magic = 0x41524c34, magicLzma = 0x41524c4d;
+    /** Set in the length of a block if it is stored uncompressed. */
+    static final int storedFlag = 0x80000000;
+    /** Set in the block size if blocks have checksums. */
+    static final int checksumFlag = 0x80000000;
+    static final int maxBlockSize = 1 << 26;
+
+    private final OutputStream out;
+    private final byte[] block, compressed;
+    private final int[] table = new int[Lz4.tableSize];
+    private final byte[] intBytes = new byte[4];
+    private final CRC crc;
+    private int position;
+    private boolean finished;
+
+    public Lz4OutputStream(OutputStream out) throws IOException{
+        this(out, defaultBlockSize, false);
+    }
+
+    public Lz4OutputStream(OutputStream out, int blockSize) throws IOException{
+        this(out, blockSize, false);
+    }
+
+    /**
+     * @param blockSize the amount of uncompressed bytes in a block. Larger blocks compress slightly better.
+     * @param checksum whether to write a checksum for every block
+     */
+    public Lz4OutputStream(OutputStream out, int blockSize, boolean checksum) throws IOException{
+        if(blockSize < 1 || blockSize > maxBlockSize) throw new IllegalArgumentException("Invalid block size: " + blockSize);
+        this.out = out;
+        this.block = new byte[blockSize];
+        this.compressed = new byte[Lz4.maxCompressedLength(blockSize)];
+        this.crc = checksum ? new CRC(true) : null;
+        writeInt(magic);
+        writeInt(checksum ? blockSize | checksumFlag : blockSize);
+    }
+
+    @Override
+    public void write(int b) throws IOException{
+        if(position == block.length) writeBlock(block, 0, position);
+        block[position++] = (byte)b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException{
+        if(finished) throw new IOException("Stream is finished");
+        while(length > 0){
+            //compress full blocks directly from the array
+            if(position == 0 && length >= block.length){
+                writeBlock(bytes, offset, block.length);
+                offset += block.length;
+                length -= block.length;
+                continue;
+            }
+            int count = Math.min(length, block.length - position);
+            System.arraycopy(bytes, offset, block, position, count);
+            position += count;
+            offset += count;
+            length -= count;
+            if(position == block.length) writeBlock(block, 0, position);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException{
+        if(position > 0) writeBlock(block, 0, position);
+        out.flush();
+    }
+
+    /** Writes the remaining data and the end of the stream, without closing the underlying stream. */
+    public void finish() throws IOException{
+        if(finished) return;
+        if(position > 0) writeBlock(block, 0, position);
+        writeInt(0);
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException{
+        try{
+            finish();
+        }finally{
+            out.close();
+        }
+    }
+
+    private void writeBlock(byte[] bytes, int offset, int length) throws IOException{
+        int size = Lz4.compress(bytes, offset, length, compressed, 0, table);
+        writeInt(size >= length ? length | storedFlag : size);
+        if(crc != null){
+            crc.reset();
+            crc.update(bytes, offset, length);
+            writeInt((int)crc.getValue());
+        }
+        if(size >= length){
+            out.write(bytes, offset, length);
+        }else{
+            out.write(compressed, 0, size);
+        }
+        position = 0;
+    }
+
+    private void writeInt(int value) throws IOException{
+        intBytes[0] = (byte)(value >>> 24);
+        intBytes[1] = (byte)(value >>> 16);
+        intBytes[2] = (byte)(value >>> 8);
+        intBytes[3] = (byte)value;
+        out.write(intBytes, 0, 4);
+    }
+}
@@ -3,6 +3,9 @@ package io.anuke.arc.util.compression;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
 
 /**
  * Adapted from LZMA SDK version 9.22.
@@ -18,7 +21,31 @@ public class Lzma{
      * @param out the {@link OutputStream} to compress to
      */
     public static void compress(InputStream in, OutputStream out) throws IOException{
+        compress(in, out, new CommandLine().DictionarySize);
+    }
+
+    /**
+     * Compresses the given {@link InputStream} into the given {@link OutputStream} with a dictionary of the specified size. The
+     * encoder allocates memory proportional to the dictionary, so data that is known to be small should use a smaller one.
+     * @param in the {@link InputStream} to compress
+     * @param out the {@link OutputStream} to compress to
+     * @param dictionarySize the size of the dictionary in bytes, at least 4096
+     */
+    public static void compress(InputStream in, OutputStream out, int dictionarySize) throws IOException{
+        compress(in, out, dictionarySize, null);
+    }
+
+    /**
+     * Compresses the given {@link InputStream} into the given {@link OutputStream}, updating a checksum with the uncompressed
+     * data as it is read, so that it doesn't have to be read twice. The LZMA format has no checksum, so it must be stored
+     * separately and compared to the one passed to {@link #decompress(InputStream, OutputStream, Checksum)}.
+     * @param dictionarySize the size of the dictionary in bytes, at least 4096
+     * @param checksum the checksum to update, usually a {@link CRC}, or null
+     */
+    public static void compress(InputStream in, OutputStream out, int dictionarySize, Checksum checksum) throws IOException{
+        if(checksum != null) in = new CheckedInputStream(in, checksum);
         CommandLine params = new CommandLine();
+        params.DictionarySize = dictionarySize;
         boolean eos = false;
         if(params.Eos) eos = true;
         io.anuke.arc.util.compression.lzma.Encoder encoder = new io.anuke.arc.util.compression.lzma.Encoder();
@@ -50,6 +77,16 @@ public class Lzma{
      * @param out the {@link OutputStream} to decompress to
      */
     public static void decompress(InputStream in, OutputStream out) throws IOException{
+        decompress(in, out, null);
+    }
+
+    /**
+     * Decompresses the given {@link InputStream} into the given {@link OutputStream}, updating a checksum with the decompressed
+     * data as it is written.
+     * @param checksum the checksum to update, usually a {@link CRC}, or null
+     */
+    public static void decompress(InputStream in, OutputStream out, Checksum checksum) throws IOException{
+        if(checksum != null) out = new CheckedOutputStream(out, checksum);
         int propertiesSize = 5;
         byte[] properties = new byte[propertiesSize];
         if(in.read(properties, 0, propertiesSize) != propertiesSize)
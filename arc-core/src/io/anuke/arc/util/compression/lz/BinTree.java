@@ -2,6 +2,8 @@
 
 package io.anuke.arc.util.compression.lz;
 
+import io.anuke.arc.util.compression.CRC;
+
 import java.io.IOException;
 
 public class BinTree extends InWindow{
@@ -12,19 +14,7 @@ public class BinTree extends InWindow{
     static final int kHash3Offset = kHash2Size;
     static final int kEmptyHashValue = 0;
     static final int kMaxValForNormalize = (1 << 30) - 1;
-    private static final int[] CrcTable = new int[256];
-
-    static{
-        for(int i = 0; i < 256; i++){
-            int r = i;
-            for(int j = 0; j < 8; j++)
-                if((r & 1) != 0)
-                    r = (r >>> 1) ^ 0xEDB88320;
-                else
-                    r >>>= 1;
-            CrcTable[i] = r;
-        }
-    }
+    private static final int[] CrcTable = CRC.Table;
 
     int _cyclicBufferPos;
     int _cyclicBufferSize = 0;
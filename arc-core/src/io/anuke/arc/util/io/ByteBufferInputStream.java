@@ -0,0 +1,55 @@
+package io.anuke.arc.util.io;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/** An InputStream that reads the remaining bytes of a ByteBuffer, advancing its position. Supports marks. */
+public class ByteBufferInputStream extends InputStream{
+    private final ByteBuffer buffer;
+    private int mark = -1;
+
+    public ByteBufferInputStream(ByteBuffer buffer){
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read(){
+        return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length){
+        if(length == 0) return 0;
+        if(!buffer.hasRemaining()) return -1;
+        length = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, length);
+        return length;
+    }
+
+    @Override
+    public long skip(long n){
+        int skipped = (int)Math.max(Math.min(n, buffer.remaining()), 0);
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available(){
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported(){
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit){
+        mark = buffer.position();
+    }
+
+    @Override
+    public synchronized void reset(){
+        if(mark != -1) buffer.position(mark);
+    }
+}
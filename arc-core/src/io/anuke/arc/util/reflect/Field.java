@@ -167,4 +167,180 @@ public final class Field{
         }
     }
 
+    /** Returns the value of an int field on the supplied object, without boxing. */
+    public int getInt(Object obj) throws ReflectionException{
+        try{
+            return field.getInt(obj);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Object is not an instance of " + getDeclaringClass() + " or field is not an int: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
+    /** Sets the value of an int field on the supplied object, without boxing. */
+    public void setInt(Object obj, int value) throws ReflectionException{
+        try{
+            field.setInt(obj, value);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Argument not valid for field: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
+    /** Returns the value of a long field on the supplied object, without boxing. */
+    public long getLong(Object obj) throws ReflectionException{
+        try{
+            return field.getLong(obj);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Object is not an instance of " + getDeclaringClass() + " or field is not a long: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
+    /** Sets the value of a long field on the supplied object, without boxing. */
+    public void setLong(Object obj, long value) throws ReflectionException{
+        try{
+            field.setLong(obj, value);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Argument not valid for field: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
+    /** Returns the value of a float field on the supplied object, without boxing. */
+    public float getFloat(Object obj) throws ReflectionException{
+        try{
+            return field.getFloat(obj);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Object is not an instance of " + getDeclaringClass() + " or field is not a float: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
+    /** Sets the value of a float field on the supplied object, without boxing. */
+    public void setFloat(Object obj, float value) throws ReflectionException{
+        try{
+            field.setFloat(obj, value);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Argument not valid for field: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
+    /** Returns the value of a double field on the supplied object, without boxing. */
+    public double getDouble(Object obj) throws ReflectionException{
+        try{
+            return field.getDouble(obj);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Object is not an instance of " + getDeclaringClass() + " or field is not a double: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
+    /** Sets the value of a double field on the supplied object, without boxing. */
+    public void setDouble(Object obj, double value) throws ReflectionException{
+        try{
+            field.setDouble(obj, value);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Argument not valid for field: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
+    /** Returns the value of a short field on the supplied object, without boxing. */
+    public short getShort(Object obj) throws ReflectionException{
+        try{
+            return field.getShort(obj);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Object is not an instance of " + getDeclaringClass() + " or field is not a short: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
+    /** Sets the value of a short field on the supplied object, without boxing. */
+    public void setShort(Object obj, short value) throws ReflectionException{
+        try{
+            field.setShort(obj, value);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Argument not valid for field: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
+    /** Returns the value of a byte field on the supplied object, without boxing. */
+    public byte getByte(Object obj) throws ReflectionException{
+        try{
+            return field.getByte(obj);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Object is not an instance of " + getDeclaringClass() + " or field is not a byte: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
+    /** Sets the value of a byte field on the supplied object, without boxing. */
+    public void setByte(Object obj, byte value) throws ReflectionException{
+        try{
+            field.setByte(obj, value);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Argument not valid for field: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
+    /** Returns the value of a char field on the supplied object, without boxing. */
+    public char getChar(Object obj) throws ReflectionException{
+        try{
+            return field.getChar(obj);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Object is not an instance of " + getDeclaringClass() + " or field is not a char: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
+    /** Sets the value of a char field on the supplied object, without boxing. */
+    public void setChar(Object obj, char value) throws ReflectionException{
+        try{
+            field.setChar(obj, value);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Argument not valid for field: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
+    /** Returns the value of a boolean field on the supplied object, without boxing. */
+    public boolean getBoolean(Object obj) throws ReflectionException{
+        try{
+            return field.getBoolean(obj);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Object is not an instance of " + getDeclaringClass() + " or field is not a boolean: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
+    /** Sets the value of a boolean field on the supplied object, without boxing. */
+    public void setBoolean(Object obj, boolean value) throws ReflectionException{
+        try{
+            field.setBoolean(obj, value);
+        }catch(IllegalArgumentException e){
+            throw new ReflectionException("Argument not valid for field: " + getName(), e);
+        }catch(IllegalAccessException e){
+            throw new ReflectionException("Illegal access to field: " + getName(), e);
+        }
+    }
+
 }
@@ -8,6 +8,7 @@ import io.anuke.arc.collection.OrderedMap.OrderedMapValues;
 import io.anuke.arc.files.FileHandle;
 import io.anuke.arc.util.io.Streams;
 import io.anuke.arc.util.reflect.*;
+import io.anuke.arc.util.serialization.JsonPullParser.Token;
 import io.anuke.arc.util.serialization.JsonValue.PrettyPrintSettings;
 import io.anuke.arc.util.serialization.JsonWriter.OutputType;
 
@@ -28,6 +29,7 @@ public class Json{
     private final ObjectMap<Class, String> classToTag = new ObjectMap();
     private final ObjectMap<Class, Serializer> classToSerializer = new ObjectMap();
     private final ObjectMap<Class, Object[]> classToDefaultValues = new ObjectMap();
+    private final ObjectMap<Class, Constructor> classToConstructor = new ObjectMap();
     private final Object[] equals1 = {null}, equals2 = {null};
     private JsonWriter writer;
     private String typeName = "class";
@@ -38,6 +40,7 @@ public class Json{
     private boolean ignoreDeprecated;
     private boolean readDeprecated;
     private boolean enumNames = true;
+    private boolean streaming;
     private Serializer defaultSerializer;
 
     public Json(){
@@ -91,6 +94,16 @@ public class Json{
         this.enumNames = enumNames;
     }
 
+    /**
+     * When true, the fromJson methods read objects directly from a {@link JsonPullParser} instead of parsing the whole input into
+     * a {@link JsonValue} DOM first, which is faster and uses less memory for large inputs. Serializers and {@link Serializable}
+     * objects still receive a JsonValue of their part of the input. Default is false.
+     * @see #readValue(Class, Class, JsonPullParser)
+     */
+    public void setStreaming(boolean streaming){
+        this.streaming = streaming;
+    }
+
     /** Sets a tag to use instead of the fully qualifier class name. This can make the JSON easier to read. */
     public void addClassTag(String tag, Class type){
         tagToClass.put(tag, type);
@@ -136,6 +149,11 @@ public class Json{
         return classToSerializer.get(type);
     }
 
+    /** @return whether a serializer is registered for the type, which must then be used instead of reading primitives directly */
+    private boolean hasSerializer(Class type){
+        return classToSerializer.size > 0 && classToSerializer.containsKey(type);
+    }
+
     /** When true, field values that are identical to a newly constructed instance are not written. Default is true. */
     public void setUsePrototypes(boolean usePrototypes){
         this.usePrototypes = usePrototypes;
@@ -728,7 +746,8 @@ public class Json{
      * @return May be null.
      */
     public <T> T fromJson(Class<T> type, Reader reader){
-        return readValue(type, null, new JsonReader().parse(reader));
+        return streaming ? readValue(type, null, new JsonPullParser().parse(reader))
+        : readValue(type, null, new JsonReader().parse(reader));
     }
 
     /**
@@ -737,7 +756,8 @@ public class Json{
      * @return May be null.
      */
     public <T> T fromJson(Class<T> type, Class elementType, Reader reader){
-        return readValue(type, elementType, new JsonReader().parse(reader));
+        return streaming ? readValue(type, elementType, new JsonPullParser().parse(reader))
+        : readValue(type, elementType, new JsonReader().parse(reader));
     }
 
     /**
@@ -745,7 +765,8 @@ public class Json{
      * @return May be null.
      */
     public <T> T fromJson(Class<T> type, InputStream input){
-        return readValue(type, null, new JsonReader().parse(input));
+        return streaming ? readValue(type, null, new JsonPullParser().parse(input))
+        : readValue(type, null, new JsonReader().parse(input));
     }
 
     /**
@@ -754,7 +775,8 @@ public class Json{
      * @return May be null.
      */
     public <T> T fromJson(Class<T> type, Class elementType, InputStream input){
-        return readValue(type, elementType, new JsonReader().parse(input));
+        return streaming ? readValue(type, elementType, new JsonPullParser().parse(input))
+        : readValue(type, elementType, new JsonReader().parse(input));
     }
 
     /**
@@ -763,7 +785,8 @@ public class Json{
      */
     public <T> T fromJson(Class<T> type, FileHandle file){
         try{
-            return readValue(type, null, new JsonReader().parse(file));
+            return streaming ? readValue(type, null, new JsonPullParser().parse(file))
+            : readValue(type, null, new JsonReader().parse(file));
         }catch(Exception ex){
             throw new SerializationException("Error reading file: " + file, ex);
         }
@@ -776,7 +799,8 @@ public class Json{
      */
     public <T> T fromJson(Class<T> type, Class elementType, FileHandle file){
         try{
-            return readValue(type, elementType, new JsonReader().parse(file));
+            return streaming ? readValue(type, elementType, new JsonPullParser().parse(file))
+            : readValue(type, elementType, new JsonReader().parse(file));
         }catch(Exception ex){
             throw new SerializationException("Error reading file: " + file, ex);
         }
@@ -787,7 +811,8 @@ public class Json{
      * @return May be null.
      */
     public <T> T fromJson(Class<T> type, char[] data, int offset, int length){
-        return readValue(type, null, new JsonReader().parse(data, offset, length));
+        return streaming ? readValue(type, null, new JsonPullParser().parse(data, offset, length))
+        : readValue(type, null, new JsonReader().parse(data, offset, length));
     }
 
     /**
@@ -796,7 +821,8 @@ public class Json{
      * @return May be null.
      */
     public <T> T fromJson(Class<T> type, Class elementType, char[] data, int offset, int length){
-        return readValue(type, elementType, new JsonReader().parse(data, offset, length));
+        return streaming ? readValue(type, elementType, new JsonPullParser().parse(data, offset, length))
+        : readValue(type, elementType, new JsonReader().parse(data, offset, length));
     }
 
     /**
@@ -804,7 +830,8 @@ public class Json{
      * @return May be null.
      */
     public <T> T fromJson(Class<T> type, String json){
-        return readValue(type, null, new JsonReader().parse(json));
+        return streaming ? readValue(type, null, new JsonPullParser().parse(json))
+        : readValue(type, null, new JsonReader().parse(json));
     }
 
     /**
@@ -812,7 +839,8 @@ public class Json{
      * @return May be null.
      */
     public <T> T fromJson(Class<T> type, Class elementType, String json){
-        return readValue(type, elementType, new JsonReader().parse(json));
+        return streaming ? readValue(type, elementType, new JsonPullParser().parse(json))
+        : readValue(type, elementType, new JsonReader().parse(json));
     }
 
     public void readField(Object object, String name, JsonValue jsonData){
@@ -866,7 +894,9 @@ public class Json{
         Class type = object.getClass();
         ObjectMap<String, FieldMetadata> fields = getFields(type);
         for(JsonValue child = jsonMap.child; child != null; child = child.next){
-            FieldMetadata metadata = fields.get(child.name().replace(" ", "_"));
+            // String.replace(CharSequence, CharSequence) compiles a regex on Java 8
+            String name = child.name;
+            FieldMetadata metadata = fields.get(name.indexOf(' ') == -1 ? name : name.replace(' ', '_'));
             if(metadata == null){
                 if(child.name.equals(typeName)) continue;
                 if(ignoreUnknownFields || ignoreUnknownField(type, child.name)){
@@ -881,7 +911,9 @@ public class Json{
             }
             Field field = metadata.field;
             try{
-                field.set(object, readValue(field.getType(), metadata.elementType, child));
+                if(!readPrimitive(object, metadata, child)){
+                    field.set(object, readValue(field.getType(), metadata.elementType, child));
+                }
             }catch(ReflectionException ex){
                 throw new SerializationException("Error accessing field: " + field.getName() + " (" + type.getName() + ")", ex);
             }catch(SerializationException ex){
@@ -896,6 +928,30 @@ public class Json{
         }
     }
 
+    /**
+     * Sets a primitive field from a number or boolean without boxing it, converting it as {@link #readValue(Class, Class, JsonValue)}
+     * would.
+     * @return false if the field is not primitive, has a serializer or the value needs other conversions
+     */
+    private boolean readPrimitive(Object object, FieldMetadata metadata, JsonValue value) throws ReflectionException{
+        Field field = metadata.field;
+        if(metadata.primitive == 0 || hasSerializer(field.getType())) return false;
+        if(value.isNumber()){
+            switch(metadata.primitive){
+                case FieldMetadata.intType: field.setInt(object, value.asInt()); return true;
+                case FieldMetadata.floatType: field.setFloat(object, value.asFloat()); return true;
+                case FieldMetadata.longType: field.setLong(object, value.asLong()); return true;
+                case FieldMetadata.doubleType: field.setDouble(object, value.asDouble()); return true;
+                case FieldMetadata.shortType: field.setShort(object, value.asShort()); return true;
+                case FieldMetadata.byteType: field.setByte(object, value.asByte()); return true;
+            }
+        }else if(value.isBoolean() && metadata.primitive == FieldMetadata.booleanType){
+            field.setBoolean(object, value.asBoolean());
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Called for each unknown field name encountered by {@link #readFields(Object, JsonValue)} when {@link #ignoreUnknownFields}
      * is false to determine whether the unknown field name should be ignored.
@@ -1150,6 +1206,243 @@ public class Json{
         return null;
     }
 
+    /**
+     * Reads the next value of a parser directly from its tokens, without a {@link JsonValue} DOM, and leaves the parser at the
+     * last token of the value. Values read by a {@link Serializer}, {@link Serializable} objects and objects of unknown type are
+     * read into a JsonValue first and passed to {@link #readValue(Class, Class, JsonValue)}.
+     * @param type May be null if the type is unknown.
+     * @param elementType May be null if the type is unknown.
+     * @return May be null.
+     */
+    public <T> T readValue(Class<T> type, Class elementType, JsonPullParser parser){
+        Token token = parser.next();
+
+        if(token == Token.startObject){
+            String className = typeName == null ? null : parser.getString(typeName, null);
+            if(className != null){
+                type = getClass(className);
+                if(type == null){
+                    try{
+                        type = (Class<T>)ClassReflection.forName(className);
+                    }catch(ReflectionException ex){
+                        throw new SerializationException(ex);
+                    }
+                }
+            }
+
+            // Anything that isn't a plain object or map is read the same way as from a DOM.
+            if(type == null || classToSerializer.get(type) != null || type == String.class || type == Integer.class
+            || type == Boolean.class || type == Float.class || type == Long.class || type == Double.class || type == Short.class
+            || type == Byte.class || type == Character.class || ClassReflection.isAssignableFrom(Enum.class, type)
+            || ClassReflection.isAssignableFrom(Serializable.class, type) || ClassReflection.isAssignableFrom(ObjectSet.class, type)
+            || ClassReflection.isAssignableFrom(IntSet.class, type)
+            || (typeName != null && ClassReflection.isAssignableFrom(Collection.class, type))){
+                return readValue(type, elementType, parser.getValue());
+            }
+
+            Object object = newInstance(type);
+            if(object instanceof ObjectMap){
+                ObjectMap result = (ObjectMap)object;
+                while(parser.next() == Token.name)
+                    result.put(parser.getString(), readValue(elementType, null, parser));
+                return (T)result;
+            }
+            if(object instanceof ArrayMap){
+                ArrayMap result = (ArrayMap)object;
+                while(parser.next() == Token.name)
+                    result.put(parser.getString(), readValue(elementType, null, parser));
+                return (T)result;
+            }
+            if(object instanceof Map){
+                Map result = (Map)object;
+                while(parser.next() == Token.name){
+                    String name = parser.getString();
+                    if(name.equals(typeName)){
+                        parser.skipValue();
+                        continue;
+                    }
+                    result.put(name, readValue(elementType, null, parser));
+                }
+                return (T)result;
+            }
+
+            readFields(object, parser);
+            return (T)object;
+        }
+
+        if(type != null && (classToSerializer.get(type) != null || ClassReflection.isAssignableFrom(Serializable.class, type))){
+            return readValue(type, elementType, parser.getValue());
+        }
+
+        if(token == Token.startArray){
+            if(type == null || type == Object.class) type = (Class<T>)Array.class;
+            if(ClassReflection.isAssignableFrom(Array.class, type)){
+                Array result = type == Array.class ? new Array(parser.getSize()) : (Array)newInstance(type);
+                while(parser.peek() != Token.endArray)
+                    result.add(readValue(elementType, null, parser));
+                parser.next();
+                return (T)result;
+            }
+            if(ClassReflection.isAssignableFrom(io.anuke.arc.collection.Queue.class, type)){
+                io.anuke.arc.collection.Queue result = type == io.anuke.arc.collection.Queue.class ? new io.anuke.arc.collection.Queue() : (Queue)newInstance(type);
+                while(parser.peek() != Token.endArray)
+                    result.addLast(readValue(elementType, null, parser));
+                parser.next();
+                return (T)result;
+            }
+            if(ClassReflection.isAssignableFrom(Collection.class, type)){
+                Collection result = type.isInterface() ? new ArrayList(parser.getSize()) : (Collection)newInstance(type);
+                while(parser.peek() != Token.endArray)
+                    result.add(readValue(elementType, null, parser));
+                parser.next();
+                return (T)result;
+            }
+            if(type.isArray()){
+                Class componentType = type.getComponentType();
+                if(elementType == null) elementType = componentType;
+                Object result = ArrayReflection.newInstance(componentType, parser.getSize());
+                for(int i = 0; parser.peek() != Token.endArray; i++){
+                    if(!readPrimitive(result, i, elementType, parser))
+                        ArrayReflection.set(result, i, readValue(elementType, null, parser));
+                }
+                parser.next();
+                return (T)result;
+            }
+            throw new SerializationException("Unable to convert value to required type: " + parser.getValue() + " (" + type.getName() + ")");
+        }
+
+        String string;
+        if(token == Token.doubleValue || token == Token.longValue){
+            if(type == null || type == float.class || type == Float.class) return (T)(Float)parser.getFloat();
+            if(type == int.class || type == Integer.class) return (T)(Integer)parser.getInt();
+            if(type == long.class || type == Long.class) return (T)(Long)parser.getLong();
+            if(type == double.class || type == Double.class) return (T)(Double)parser.getDouble();
+            if(type == String.class) return (T)parser.getString();
+            if(type == short.class || type == Short.class) return (T)(Short)parser.getShort();
+            if(type == byte.class || type == Byte.class) return (T)(Byte)parser.getByte();
+            string = parser.getString();
+        }else if(token == Token.booleanValue){
+            if(type == null || type == boolean.class || type == Boolean.class) return (T)(Boolean)parser.getBoolean();
+            string = parser.getString();
+        }else if(token == Token.stringValue){
+            string = parser.getString();
+        }else{
+            return null;
+        }
+
+        if(type == null || type == String.class) return (T)string;
+        try{
+            if(type == int.class || type == Integer.class) return (T)Integer.valueOf(string);
+            if(type == float.class || type == Float.class) return (T)Float.valueOf(string);
+            if(type == long.class || type == Long.class) return (T)Long.valueOf(string);
+            if(type == double.class || type == Double.class) return (T)Double.valueOf(string);
+            if(type == short.class || type == Short.class) return (T)Short.valueOf(string);
+            if(type == byte.class || type == Byte.class) return (T)Byte.valueOf(string);
+        }catch(NumberFormatException ignored){
+        }
+        if(type == boolean.class || type == Boolean.class) return (T)Boolean.valueOf(string);
+        if(type == char.class || type == Character.class) return (T)(Character)string.charAt(0);
+        if(ClassReflection.isAssignableFrom(Enum.class, type)){
+            Enum[] constants = (Enum[])type.getEnumConstants();
+            for(int i = 0, n = constants.length; i < n; i++){
+                Enum e = constants[i];
+                if(string.equals(convertToString(e))) return (T)e;
+            }
+        }
+        if(type == CharSequence.class) return (T)string;
+        throw new SerializationException("Unable to convert value to required type: " + string + " (" + type.getName() + ")");
+    }
+
+    /** Reads the fields of an object from a parser positioned at the start of a JSON object, leaving it at the end of the object. */
+    public void readFields(Object object, JsonPullParser parser){
+        Class type = object.getClass();
+        ObjectMap<String, FieldMetadata> fields = getFields(type);
+        while(parser.next() == Token.name){
+            String name = parser.getString();
+            FieldMetadata metadata = fields.get(name.indexOf(' ') == -1 ? name : name.replace(' ', '_'));
+            if(metadata == null){
+                if(name.equals(typeName) || ignoreUnknownFields || ignoreUnknownField(type, name)){
+                    parser.skipValue();
+                    continue;
+                }
+                SerializationException ex = new SerializationException("Field not found: " + name + " (" + type.getName() + ")");
+                ex.addTrace(parser.trace());
+                throw ex;
+            }
+            Field field = metadata.field;
+            try{
+                if(!readPrimitive(object, metadata, parser)){
+                    field.set(object, readValue(field.getType(), metadata.elementType, parser));
+                }
+            }catch(ReflectionException ex){
+                throw new SerializationException("Error accessing field: " + field.getName() + " (" + type.getName() + ")", ex);
+            }catch(SerializationException ex){
+                ex.addTrace(field.getName() + " (" + type.getName() + ")");
+                throw ex;
+            }catch(RuntimeException runtimeEx){
+                SerializationException ex = new SerializationException(runtimeEx);
+                ex.addTrace(parser.trace());
+                ex.addTrace(field.getName() + " (" + type.getName() + ")");
+                throw ex;
+            }
+        }
+    }
+
+    /** Like {@link #readPrimitive(Object, FieldMetadata, JsonValue)}, but only moves to the next token of the parser if it is read. */
+    private boolean readPrimitive(Object object, FieldMetadata metadata, JsonPullParser parser) throws ReflectionException{
+        Field field = metadata.field;
+        if(metadata.primitive == 0 || hasSerializer(field.getType())) return false;
+        Token token = parser.peek();
+        if(token == Token.doubleValue || token == Token.longValue){
+            switch(metadata.primitive){
+                case FieldMetadata.intType: parser.next(); field.setInt(object, parser.getInt()); return true;
+                case FieldMetadata.floatType: parser.next(); field.setFloat(object, parser.getFloat()); return true;
+                case FieldMetadata.longType: parser.next(); field.setLong(object, parser.getLong()); return true;
+                case FieldMetadata.doubleType: parser.next(); field.setDouble(object, parser.getDouble()); return true;
+                case FieldMetadata.shortType: parser.next(); field.setShort(object, parser.getShort()); return true;
+                case FieldMetadata.byteType: parser.next(); field.setByte(object, parser.getByte()); return true;
+            }
+        }else if(token == Token.booleanValue && metadata.primitive == FieldMetadata.booleanType){
+            parser.next();
+            field.setBoolean(object, parser.getBoolean());
+            return true;
+        }
+        return false;
+    }
+
+    /** Sets an element of a primitive array from a number or boolean without boxing it, if the parser is at one. */
+    private boolean readPrimitive(Object array, int index, Class elementType, JsonPullParser parser){
+        if(hasSerializer(elementType)) return false;
+        Token token = parser.peek();
+        if(token == Token.doubleValue || token == Token.longValue){
+            if(array instanceof float[] && elementType == float.class){
+                parser.next();
+                ((float[])array)[index] = parser.getFloat();
+                return true;
+            }
+            if(array instanceof int[] && elementType == int.class){
+                parser.next();
+                ((int[])array)[index] = parser.getInt();
+                return true;
+            }
+            if(array instanceof long[] && elementType == long.class){
+                parser.next();
+                ((long[])array)[index] = parser.getLong();
+                return true;
+            }
+            if(array instanceof double[] && elementType == double.class){
+                parser.next();
+                ((double[])array)[index] = parser.getDouble();
+                return true;
+            }
+        }else if(token == Token.booleanValue && array instanceof boolean[] && elementType == boolean.class){
+            parser.next();
+            ((boolean[])array)[index] = parser.getBoolean();
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Each field on the <code>to</code> object is set to the value for the field with the same name on the <code>from</code>
      * object. The <code>to</code> object must have at least all the fields of the <code>from</code> object with the same name and
@@ -1180,14 +1473,29 @@ public class Json{
     }
 
     protected Object newInstance(Class type){
+        // constructors are looked up once, as Class#newInstance checks access on every call
+        Constructor cached = classToConstructor.get(type);
+        if(cached != null){
+            try{
+                return cached.newInstance();
+            }catch(ReflectionException ex){
+                throw new SerializationException("Error constructing instance of class: " + type.getName(), ex);
+            }
+        }
+
         try{
-            return ClassReflection.newInstance(type);
+            Constructor constructor = ClassReflection.getConstructor(type);
+            Object object = constructor.newInstance();
+            classToConstructor.put(type, constructor);
+            return object;
         }catch(Exception ex){
             try{
                 // Try a private constructor.
                 Constructor constructor = ClassReflection.getDeclaredConstructor(type);
                 constructor.setAccessible(true);
-                return constructor.newInstance();
+                Object object = constructor.newInstance();
+                classToConstructor.put(type, constructor);
+                return object;
             }catch(SecurityException ignored){
             }catch(ReflectionException ignored){
                 if(ClassReflection.isAssignableFrom(Enum.class, type)){
@@ -1244,7 +1552,11 @@ public class Json{
     }
 
     static private class FieldMetadata{
+        static final int intType = 1, floatType = 2, longType = 3, doubleType = 4, shortType = 5, byteType = 6, booleanType = 7;
+
         final Field field;
+        /** The primitive type of the field, or 0 if it isn't one that can be read without boxing. */
+        final int primitive;
         Class elementType;
 
         public FieldMetadata(Field field){
@@ -1252,6 +1564,11 @@ public class Json{
             int index = (ClassReflection.isAssignableFrom(ObjectMap.class, field.getType())
             || ClassReflection.isAssignableFrom(Map.class, field.getType())) ? 1 : 0;
             this.elementType = field.getElementType(index);
+
+            Class type = field.getType();
+            primitive = type == int.class ? intType : type == float.class ? floatType : type == long.class ? longType
+            : type == double.class ? doubleType : type == short.class ? shortType : type == byte.class ? byteType
+            : type == boolean.class ? booleanType : 0;
         }
     }
 
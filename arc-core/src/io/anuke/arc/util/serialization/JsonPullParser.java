@@ -0,0 +1,575 @@
+package io.anuke.arc.util.serialization;
+
+import io.anuke.arc.collection.IntArray;
+import io.anuke.arc.files.FileHandle;
+import io.anuke.arc.util.serialization.JsonValue.ValueType;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads JSON as a stream of {@link Token tokens}, without building a {@link JsonValue} DOM. The input is tokenized by a
+ * {@link JsonReader} into three ints per token which refer to the characters of the input, so strings and numbers are only
+ * created when they are read; names are cached, so reading many objects with the same fields creates each name once. See {@link Json#readValue(Class, Class, JsonPullParser)} for reading objects directly from a parser.
+ * <p>
+ * After parsing, the parser is positioned before the first token. {@link #next()} moves to the next token, and the methods
+ * that return a value refer to the current token. Names are separate tokens, each followed by the value it names.
+ * <p>
+ * A parser can be reused for many inputs.
+ */
+public class JsonPullParser{
+    private static final Token[] tokenTypes = Token.values();
+    private static final int stride = 3, escapedFlag = 0x100, trueFlag = 0x200, typeMask = 0xff;
+    private static final int nameCacheSize = 256;
+
+    private final Tokenizer tokenizer = new Tokenizer();
+    private final IntArray open = new IntArray();
+    private final String[] names = new String[nameCacheSize];
+
+    private char[] data;
+    /**
+     * Three ints per token: the type and flags, then the start and end of its characters. For objects and arrays, the start is
+     * the index of their end token and the end is the number of values they contain.
+     */
+    private int[] tokens = new int[stride * 64];
+    private int count, index = -1;
+
+    public JsonPullParser parse(String json){
+        char[] data = json.toCharArray();
+        return parse(data, 0, data.length);
+    }
+
+    public JsonPullParser parse(Reader reader){
+        tokenizer.parse(reader);
+        return this;
+    }
+
+    public JsonPullParser parse(InputStream input){
+        tokenizer.parse(input);
+        return this;
+    }
+
+    public JsonPullParser parse(FileHandle file){
+        tokenizer.parse(file);
+        return this;
+    }
+
+    /**
+     * Tokenizes the characters. The parser refers to the array until the next parse, so it must not be changed while it is
+     * read.
+     * @param length the index after the last character to parse
+     */
+    public JsonPullParser parse(char[] data, int offset, int length){
+        tokenizer.parse(data, offset, length);
+        return this;
+    }
+
+    /** @return the next token without moving to it */
+    public Token peek(){
+        return index + 1 < count ? type(index + 1) : Token.end;
+    }
+
+    /** Moves to the next token. */
+    public Token next(){
+        if(index < count) index++;
+        return token();
+    }
+
+    /** @return the current token, or {@link Token#end} if the parser is before the first or after the last token */
+    public Token token(){
+        return index < 0 || index >= count ? Token.end : type(index);
+    }
+
+    /** If the current token starts an object or array, moves to the token that ends it. Does nothing for other tokens. */
+    public void skipChildren(){
+        Token token = token();
+        if(token == Token.startObject || token == Token.startArray) index = tokens[index * stride + 1];
+    }
+
+    /** Moves to the next value and past all of its children, skipping the name before it if there is one. */
+    public void skipValue(){
+        if(next() == Token.name) next();
+        skipChildren();
+    }
+
+    /** @return the amount of values in the current object or array */
+    public int getSize(){
+        check(Token.startObject, Token.startArray);
+        return tokens[index * stride + 2];
+    }
+
+    /** @return the characters the current name or value was parsed from; see {@link #getStart()} */
+    public char[] getData(){
+        return data;
+    }
+
+    /** @return the index of the first character of the current name or value, without quotes */
+    public int getStart(){
+        return tokens[index * stride + 1];
+    }
+
+    /** @return the index after the last character of the current name or value */
+    public int getEnd(){
+        return tokens[index * stride + 2];
+    }
+
+    /** @return whether the characters of the current name or value contain escape sequences, which {@link #getString()} resolves */
+    public boolean isEscaped(){
+        return (tokens[index * stride] & escapedFlag) != 0;
+    }
+
+    /** @return whether the current name or value is equal to the string, without creating a string for it if it isn't escaped */
+    public boolean matches(String string){
+        if(isEscaped()) return string.equals(getString());
+        int start = getStart(), length = getEnd() - start;
+        if(length != string.length()) return false;
+        for(int i = 0; i < length; i++){
+            if(data[start + i] != string.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private boolean matchesIgnoreCase(String string){
+        if(isEscaped()) return string.equalsIgnoreCase(getString());
+        int start = getStart(), length = getEnd() - start;
+        if(length != string.length()) return false;
+        for(int i = 0; i < length; i++){
+            char a = data[start + i], b = string.charAt(i);
+            if(a != b && Character.toUpperCase(a) != Character.toUpperCase(b) && Character.toLowerCase(a) != Character.toLowerCase(b)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * If the current token starts an object, returns the value with the name as a string, as {@link JsonValue#getString(String,
+     * String)} would. The parser stays at the current token.
+     */
+    public String getString(String name, String defaultValue){
+        if(token() != Token.startObject) return defaultValue;
+        int current = index;
+        try{
+            while(next() == Token.name){
+                boolean found = matchesIgnoreCase(name);
+                Token value = next();
+                if(found){
+                    return value == Token.startObject || value == Token.startArray || value == Token.nullValue ? defaultValue : getString();
+                }
+                skipChildren();
+            }
+            return defaultValue;
+        }finally{
+            index = current;
+        }
+    }
+
+    /**
+     * Returns the current name or value as a string, as {@link JsonValue#asString()} would.
+     * @throws IllegalStateException if the current token is not a name or value
+     */
+    public String getString(){
+        Token token = token();
+        switch(token){
+            case name:
+                return isEscaped() ? JsonReader.unescape(slice()) : name();
+            case stringValue:
+                return isEscaped() ? JsonReader.unescape(slice()) : slice();
+            case doubleValue:
+            case longValue:
+                return slice();
+            case booleanValue:
+                return getBoolean() ? "true" : "false";
+            case nullValue:
+                return null;
+        }
+        throw new IllegalStateException("Token cannot be converted to string: " + token);
+    }
+
+    /**
+     * Returns the current value as a long, as {@link JsonValue#asLong()} would.
+     * @throws IllegalStateException if the current token is not a number, string or boolean
+     */
+    public long getLong(){
+        Token token = token();
+        switch(token){
+            case longValue:
+                return parseLong(data, getStart(), getEnd());
+            case doubleValue:
+                return (long)Double.parseDouble(slice());
+            case stringValue:
+                return Long.parseLong(getString());
+            case booleanValue:
+                return bool() ? 1 : 0;
+        }
+        throw new IllegalStateException("Token cannot be converted to long: " + token);
+    }
+
+    /**
+     * Returns the current value as a double, as {@link JsonValue#asDouble()} would.
+     * @throws IllegalStateException if the current token is not a number, string or boolean
+     */
+    public double getDouble(){
+        Token token = token();
+        switch(token){
+            case doubleValue:
+                return Double.parseDouble(slice());
+            case longValue:
+                return (double)parseLong(data, getStart(), getEnd());
+            case stringValue:
+                return Double.parseDouble(getString());
+            case booleanValue:
+                return bool() ? 1 : 0;
+        }
+        throw new IllegalStateException("Token cannot be converted to double: " + token);
+    }
+
+    /** Returns the current value as a float, as {@link JsonValue#asFloat()} would. */
+    public float getFloat(){
+        Token token = token();
+        switch(token){
+            case doubleValue:
+                return (float)Double.parseDouble(slice());
+            case stringValue:
+                return Float.parseFloat(getString());
+        }
+        return (float)getLong();
+    }
+
+    /** Returns the current value as an int, as {@link JsonValue#asInt()} would. */
+    public int getInt(){
+        Token token = token();
+        switch(token){
+            case doubleValue:
+                return (int)Double.parseDouble(slice());
+            case stringValue:
+                return Integer.parseInt(getString());
+        }
+        return (int)getLong();
+    }
+
+    /** Returns the current value as a short, as {@link JsonValue#asShort()} would. */
+    public short getShort(){
+        Token token = token();
+        switch(token){
+            case doubleValue:
+                return (short)Double.parseDouble(slice());
+            case stringValue:
+                return Short.parseShort(getString());
+        }
+        return (short)getLong();
+    }
+
+    /** Returns the current value as a byte, as {@link JsonValue#asByte()} would. */
+    public byte getByte(){
+        Token token = token();
+        switch(token){
+            case doubleValue:
+                return (byte)Double.parseDouble(slice());
+            case stringValue:
+                return Byte.parseByte(getString());
+        }
+        return (byte)getLong();
+    }
+
+    /**
+     * Returns the current value as a boolean, as {@link JsonValue#asBoolean()} would.
+     * @throws IllegalStateException if the current token is not a number, string or boolean
+     */
+    public boolean getBoolean(){
+        Token token = token();
+        switch(token){
+            case booleanValue:
+                return bool();
+            case longValue:
+                return parseLong(data, getStart(), getEnd()) != 0;
+            case doubleValue:
+                return Double.parseDouble(slice()) != 0;
+            case stringValue:
+                return getString().equalsIgnoreCase("true");
+        }
+        throw new IllegalStateException("Token cannot be converted to boolean: " + token);
+    }
+
+    /**
+     * Reads the current value and its children into a {@link JsonValue}, moving to its last token. Used for values that must be
+     * read from a DOM, such as those of a {@link Json.Serializer}.
+     */
+    public JsonValue getValue(){
+        String name = null;
+        if(index > 0 && type(index - 1) == Token.name){
+            index--;
+            name = getString();
+            index++;
+        }
+
+        Token token = token();
+        JsonValue value;
+        switch(token){
+            case startObject:
+            case startArray:
+                value = new JsonValue(token == Token.startObject ? ValueType.object : ValueType.array);
+                JsonValue last = null;
+                while(true){
+                    Token next = next();
+                    if(next == Token.name) next = next();
+                    if(next == Token.endObject || next == Token.endArray || next == Token.end) break;
+                    JsonValue child = getValue();
+                    child.parent = value;
+                    if(last == null){
+                        value.child = child;
+                    }else{
+                        last.next = child;
+                        child.prev = last;
+                    }
+                    last = child;
+                    value.size++;
+                }
+                break;
+            case stringValue:
+                value = new JsonValue(getString());
+                break;
+            case doubleValue:
+                value = new JsonValue(getDouble(), slice());
+                break;
+            case longValue:
+                value = new JsonValue(getLong(), slice());
+                break;
+            case booleanValue:
+                value = new JsonValue(getBoolean());
+                break;
+            case nullValue:
+                value = new JsonValue(ValueType.nullValue);
+                break;
+            default:
+                throw new IllegalStateException("Token is not a value: " + token);
+        }
+        value.name = name;
+        return value;
+    }
+
+    /** @return a description of the current token and its position, for error messages */
+    public String trace(){
+        Token token = token();
+        if(token == Token.end || token == Token.endObject || token == Token.endArray || token == Token.startObject
+        || token == Token.startArray){
+            return token.toString();
+        }
+        int line = 1;
+        for(int i = 0, n = getStart(); i < n; i++){
+            if(data[i] == '\n') line++;
+        }
+        return token + " on line " + line + ": " + slice();
+    }
+
+    private Token type(int index){
+        return tokenTypes[tokens[index * stride] & typeMask];
+    }
+
+    private void check(Token a, Token b){
+        Token token = token();
+        if(token != a && token != b) throw new IllegalStateException("Expected " + a + " or " + b + ": " + token);
+    }
+
+    private boolean bool(){
+        return (tokens[index * stride] & trueFlag) != 0;
+    }
+
+    private String slice(){
+        int start = getStart();
+        return new String(data, start, getEnd() - start);
+    }
+
+    /** @return the current name, from the cache if a name with the same characters was requested before */
+    private String name(){
+        int start = getStart(), end = getEnd(), hash = 0;
+        for(int i = start; i < end; i++) hash = 31 * hash + data[i];
+        int slot = (hash ^ hash >>> 16) & (nameCacheSize - 1);
+        String name = names[slot];
+        if(name == null || name.hashCode() != hash || !matches(name)){
+            names[slot] = name = slice();
+        }
+        return name;
+    }
+
+    private int add(Token token, int start, int end){
+        if(count * stride == tokens.length) tokens = Arrays.copyOf(tokens, tokens.length * 2);
+        if(token != Token.name && token != Token.endObject && token != Token.endArray && open.size > 0){
+            tokens[open.peek() * stride + 2]++;
+        }
+        int i = count * stride;
+        tokens[i] = token.ordinal();
+        tokens[i + 1] = start;
+        tokens[i + 2] = end;
+        return count++;
+    }
+
+    /** Parses a long like {@link Long#parseLong(String)}, without creating a string unless it has more than 18 digits. */
+    private static long parseLong(char[] data, int start, int end){
+        int i = start;
+        boolean negative = false;
+        if(i < end && (data[i] == '-' || data[i] == '+')){
+            negative = data[i] == '-';
+            i++;
+        }
+        //18 digits can't overflow
+        if(i == end || end - i > 18) return Long.parseLong(new String(data, start, end - start));
+        long value = 0;
+        for(; i < end; i++){
+            char c = data[i];
+            if(c < '0' || c > '9') throw new NumberFormatException(new String(data, start, end - start));
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return whether {@link Double#parseDouble(String)} accepts the characters, which may only be digits, signs, '.', 'e' and
+     * 'E'
+     */
+    private static boolean isDouble(char[] data, int start, int end){
+        int i = start;
+        if(i < end && (data[i] == '-' || data[i] == '+')) i++;
+        int digits = 0;
+        for(; i < end && data[i] >= '0' && data[i] <= '9'; i++) digits++;
+        if(i < end && data[i] == '.'){
+            for(i++; i < end && data[i] >= '0' && data[i] <= '9'; i++) digits++;
+        }
+        if(digits == 0) return false;
+        if(i < end && (data[i] == 'e' || data[i] == 'E')){
+            i++;
+            if(i < end && (data[i] == '-' || data[i] == '+')) i++;
+            if(i == end) return false;
+            for(; i < end && data[i] >= '0' && data[i] <= '9'; i++);
+        }
+        return i == end;
+    }
+
+    public enum Token{
+        startObject, endObject, startArray, endArray, name, stringValue, doubleValue, longValue, booleanValue, nullValue,
+        /** Before the first and after the last token. */
+        end
+    }
+
+    private class Tokenizer extends JsonReader{
+        @Override
+        public JsonValue parse(char[] data, int offset, int length){
+            JsonPullParser.this.data = data;
+            count = 0;
+            index = -1;
+            open.clear();
+            //most JSON has a token for every 8 or fewer characters
+            int estimate = (length - offset) / 8 * stride;
+            if(tokens.length < estimate) tokens = new int[estimate];
+            try{
+                super.parse(data, offset, length);
+            }catch(SerializationException ex){
+                count = 0;
+                throw ex;
+            }
+            if(open.size > 0){
+                boolean object = type(open.peek()) == Token.startObject;
+                count = 0;
+                open.clear();
+                throw new SerializationException("Error parsing JSON, unmatched " + (object ? "brace." : "bracket."));
+            }
+            return null;
+        }
+
+        @Override
+        protected void startObject(String name){
+            open.add(add(Token.startObject, 0, 0));
+        }
+
+        @Override
+        protected void startArray(String name){
+            open.add(add(Token.startArray, 0, 0));
+        }
+
+        @Override
+        protected void pop(){
+            int start = open.pop();
+            int end = add(type(start) == Token.startObject ? Token.endObject : Token.endArray, 0, 0);
+            tokens[start * stride + 1] = end;
+        }
+
+        @Override
+        protected void chars(char[] data, int start, int end, boolean isName, boolean unquoted, boolean escaped){
+            int flags = escaped ? escapedFlag : 0;
+            if(isName){
+                int token = add(Token.name, start, end);
+                tokens[token * stride] |= flags;
+                return;
+            }
+            if(unquoted){
+                String value = escaped ? JsonReader.unescape(new String(data, start, end - start)) : null;
+                boolean isTrue = equals(data, start, end, value, "true");
+                if(isTrue || equals(data, start, end, value, "false")){
+                    int token = add(Token.booleanValue, start, end);
+                    if(isTrue) tokens[token * stride] |= trueFlag;
+                    return;
+                }else if(equals(data, start, end, value, "null")){
+                    add(Token.nullValue, start, end);
+                    return;
+                }
+                if(!escaped){
+                    boolean couldBeDouble = false, couldBeLong = true;
+                    outer:
+                    for(int i = start; i < end; i++){
+                        switch(data[i]){
+                            case '0':
+                            case '1':
+                            case '2':
+                            case '3':
+                            case '4':
+                            case '5':
+                            case '6':
+                            case '7':
+                            case '8':
+                            case '9':
+                            case '-':
+                            case '+':
+                                break;
+                            case '.':
+                            case 'e':
+                            case 'E':
+                                couldBeDouble = true;
+                                couldBeLong = false;
+                                break;
+                            default:
+                                couldBeDouble = false;
+                                couldBeLong = false;
+                                break outer;
+                        }
+                    }
+                    //numbers are parsed when they are read, but must be valid for the token to be a number
+                    if(couldBeDouble){
+                        if(isDouble(data, start, end)){
+                            add(Token.doubleValue, start, end);
+                            return;
+                        }
+                    }else if(couldBeLong){
+                        try{
+                            parseLong(data, start, end);
+                            add(Token.longValue, start, end);
+                            return;
+                        }catch(NumberFormatException ignored){
+                        }
+                    }
+                }
+            }
+            int token = add(Token.stringValue, start, end);
+            tokens[token * stride] |= flags;
+        }
+
+        private boolean equals(char[] data, int start, int end, String unescaped, String string){
+            if(unescaped != null) return unescaped.equals(string);
+            if(end - start != string.length()) return false;
+            for(int i = start; i < end; i++){
+                if(data[i] != string.charAt(i - start)) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -40,6 +40,7 @@ public class JsonReader implements BaseJsonReader{
     private static final byte[] _json_eof_actions = init__json_eof_actions_0();
     private final Array<JsonValue> elements = new Array<>(8);
     private final Array<JsonValue> lastChild = new Array<>(8);
+    private final Array<String> names = new Array<>(8);
     private JsonValue root, current;
 
     // line 421 "JsonReader.java"
@@ -154,7 +155,7 @@ public class JsonReader implements BaseJsonReader{
         int[] stack = new int[4];
 
         int s = 0;
-        Array<String> names = new Array<>(8);
+        names.clear();
         boolean needsUnescape = false, stringIsName = false, stringIsUnquoted = false;
         RuntimeException parseRuntimeEx = null;
 
@@ -256,78 +257,8 @@ public class JsonReader implements BaseJsonReader{
                                         case 1:
                                             // line 107 "JsonReader.rl"
                                         {
-                                            String value = new String(data, s, p - s);
-                                            if(needsUnescape) value = unescape(value);
-                                            outer:
-                                            if(stringIsName){
-                                                stringIsName = false;
-                                                if(debug) System.out.println("name: " + value);
-                                                names.add(value);
-                                            }else{
-                                                String name = names.size > 0 ? names.pop() : null;
-                                                if(stringIsUnquoted){
-                                                    if(value.equals("true")){
-                                                        if(debug) System.out.println("boolean: " + name + "=true");
-                                                        bool(name, true);
-                                                        break outer;
-                                                    }else if(value.equals("false")){
-                                                        if(debug) System.out.println("boolean: " + name + "=false");
-                                                        bool(name, false);
-                                                        break outer;
-                                                    }else if(value.equals("null")){
-                                                        string(name, null);
-                                                        break outer;
-                                                    }
-                                                    boolean couldBeDouble = false, couldBeLong = true;
-                                                    outer2:
-                                                    for(int i = s; i < p; i++){
-                                                        switch(data[i]){
-                                                            case '0':
-                                                            case '1':
-                                                            case '2':
-                                                            case '3':
-                                                            case '4':
-                                                            case '5':
-                                                            case '6':
-                                                            case '7':
-                                                            case '8':
-                                                            case '9':
-                                                            case '-':
-                                                            case '+':
-                                                                break;
-                                                            case '.':
-                                                            case 'e':
-                                                            case 'E':
-                                                                couldBeDouble = true;
-                                                                couldBeLong = false;
-                                                                break;
-                                                            default:
-                                                                couldBeDouble = false;
-                                                                couldBeLong = false;
-                                                                break outer2;
-                                                        }
-                                                    }
-                                                    if(couldBeDouble){
-                                                        try{
-                                                            if(debug)
-                                                                System.out.println("double: " + name + "=" + Double.parseDouble(value));
-                                                            number(name, Double.parseDouble(value), value);
-                                                            break outer;
-                                                        }catch(NumberFormatException ignored){
-                                                        }
-                                                    }else if(couldBeLong){
-                                                        if(debug)
-                                                            System.out.println("double: " + name + "=" + Double.parseDouble(value));
-                                                        try{
-                                                            number(name, Long.parseLong(value), value);
-                                                            break outer;
-                                                        }catch(NumberFormatException ignored){
-                                                        }
-                                                    }
-                                                }
-                                                if(debug) System.out.println("string: " + name + "=" + value);
-                                                string(name, value);
-                                            }
+                                            chars(data, s, p, stringIsName, stringIsUnquoted, needsUnescape);
+                                            stringIsName = false;
                                             stringIsUnquoted = false;
                                             s = p;
                                         }
@@ -517,78 +448,8 @@ public class JsonReader implements BaseJsonReader{
                                 int __nacts = (int)_json_actions[__acts++];
                                 while(__nacts-- > 0){
                                     if(_json_actions[__acts++] == 1){// line 107 "JsonReader.rl"
-                                        String value = new String(data, s, p - s);
-                                        if(needsUnescape) value = unescape(value);
-                                        outer:
-                                        if(stringIsName){
-                                            stringIsName = false;
-                                            if(debug) System.out.println("name: " + value);
-                                            names.add(value);
-                                        }else{
-                                            String name = names.size > 0 ? names.pop() : null;
-                                            if(stringIsUnquoted){
-                                                if(value.equals("true")){
-                                                    if(debug) System.out.println("boolean: " + name + "=true");
-                                                    bool(name, true);
-                                                    break outer;
-                                                }else if(value.equals("false")){
-                                                    if(debug) System.out.println("boolean: " + name + "=false");
-                                                    bool(name, false);
-                                                    break outer;
-                                                }else if(value.equals("null")){
-                                                    string(name, null);
-                                                    break outer;
-                                                }
-                                                boolean couldBeDouble = false, couldBeLong = true;
-                                                outer2:
-                                                for(int i = s; i < p; i++){
-                                                    switch(data[i]){
-                                                        case '0':
-                                                        case '1':
-                                                        case '2':
-                                                        case '3':
-                                                        case '4':
-                                                        case '5':
-                                                        case '6':
-                                                        case '7':
-                                                        case '8':
-                                                        case '9':
-                                                        case '-':
-                                                        case '+':
-                                                            break;
-                                                        case '.':
-                                                        case 'e':
-                                                        case 'E':
-                                                            couldBeDouble = true;
-                                                            couldBeLong = false;
-                                                            break;
-                                                        default:
-                                                            couldBeDouble = false;
-                                                            couldBeLong = false;
-                                                            break outer2;
-                                                    }
-                                                }
-                                                if(couldBeDouble){
-                                                    try{
-                                                        if(debug)
-                                                            System.out.println("double: " + name + "=" + Double.parseDouble(value));
-                                                        number(name, Double.parseDouble(value), value);
-                                                        break outer;
-                                                    }catch(NumberFormatException ignored){
-                                                    }
-                                                }else if(couldBeLong){
-                                                    if(debug)
-                                                        System.out.println("double: " + name + "=" + Double.parseDouble(value));
-                                                    try{
-                                                        number(name, Long.parseLong(value), value);
-                                                        break outer;
-                                                    }catch(NumberFormatException ignored){
-                                                    }
-                                                }
-                                            }
-                                            if(debug) System.out.println("string: " + name + "=" + value);
-                                            string(name, value);
-                                        }
+                                        chars(data, s, p, stringIsName, stringIsUnquoted, needsUnescape);
+                                        stringIsName = false;
                                         stringIsUnquoted = false;
                                         s = p;
                                         // line 411 "JsonReader.java"
@@ -689,7 +550,82 @@ public class JsonReader implements BaseJsonReader{
         addChild(name, new JsonValue(value));
     }
 
-    private String unescape(String value){
+    /**
+     * Called for every name and value that isn't an object or array, with the characters it was parsed from. The default
+     * implementation creates a string and remembers it as the name of the next value, or calls {@link #string(String, String)},
+     * {@link #number(String, double, String)}, {@link #number(String, long, String)} or {@link #bool(String, boolean)}.
+     * Override to handle values without creating strings.
+     * @param end the index after the last character
+     * @param unquoted whether the value had no quotes, so it may be a number, boolean or null
+     * @param escaped whether the characters contain escape sequences
+     */
+    protected void chars(char[] data, int start, int end, boolean isName, boolean unquoted, boolean escaped){
+        String value = new String(data, start, end - start);
+        if(escaped) value = unescape(value);
+        if(isName){
+            names.add(value);
+            return;
+        }
+
+        String name = names.size > 0 ? names.pop() : null;
+        if(unquoted){
+            if(value.equals("true")){
+                bool(name, true);
+                return;
+            }else if(value.equals("false")){
+                bool(name, false);
+                return;
+            }else if(value.equals("null")){
+                string(name, null);
+                return;
+            }
+            boolean couldBeDouble = false, couldBeLong = true;
+            outer:
+            for(int i = start; i < end; i++){
+                switch(data[i]){
+                    case '0':
+                    case '1':
+                    case '2':
+                    case '3':
+                    case '4':
+                    case '5':
+                    case '6':
+                    case '7':
+                    case '8':
+                    case '9':
+                    case '-':
+                    case '+':
+                        break;
+                    case '.':
+                    case 'e':
+                    case 'E':
+                        couldBeDouble = true;
+                        couldBeLong = false;
+                        break;
+                    default:
+                        couldBeDouble = false;
+                        couldBeLong = false;
+                        break outer;
+                }
+            }
+            if(couldBeDouble){
+                try{
+                    number(name, Double.parseDouble(value), value);
+                    return;
+                }catch(NumberFormatException ignored){
+                }
+            }else if(couldBeLong){
+                try{
+                    number(name, Long.parseLong(value), value);
+                    return;
+                }catch(NumberFormatException ignored){
+                }
+            }
+        }
+        string(name, value);
+    }
+
+    static String unescape(String value){
         int length = value.length();
         StringBuilder buffer = new StringBuilder(length + 16);
         for(int i = 0; i < length; ){
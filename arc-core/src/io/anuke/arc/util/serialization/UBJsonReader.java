@@ -8,6 +8,8 @@ import io.anuke.arc.util.io.Streams;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * Lightweight UBJSON parser.<br>
@@ -18,6 +20,8 @@ import java.io.InputStream;
  */
 public class UBJsonReader implements BaseJsonReader{
     public boolean oldFormat = true;
+    /** Holds strings read from buffers without an accessible array. */
+    private byte[] stringBytes = new byte[64];
 
     /**
      * Parses the UBJSON from the given stream. <br>
@@ -236,4 +240,160 @@ public class UBJsonReader implements BaseJsonReader{
         din.readFully(data);
         return new String(data, Strings.utf8);
     }
+
+    /**
+     * Parses the UBJSON in the remaining bytes of a buffer, reading it directly instead of through a stream. The buffer can be
+     * the result of {@link FileHandle#map()} or a direct buffer written by {@link UBJsonWriter#UBJsonWriter(ByteBuffer)}. The
+     * position of the buffer is not changed. This does not call the protected stream methods, so event driven subclasses must
+     * parse streams.
+     * @see UBJsonView
+     */
+    public JsonValue parse(ByteBuffer buffer){
+        try{
+            ByteBuffer data = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+            return parse(data, data.get());
+        }catch(RuntimeException ex){
+            throw new SerializationException("Error parsing UBJSON buffer", ex);
+        }
+    }
+
+    /** Parses a value of the specified type from the position of the buffer, which must be big endian. */
+    JsonValue parse(ByteBuffer data, byte type){
+        switch(type){
+            case '[': return parseArray(data);
+            case '{': return parseObject(data);
+            case 'Z': return new JsonValue(JsonValue.ValueType.nullValue);
+            case 'T': return new JsonValue(true);
+            case 'F': return new JsonValue(false);
+            case 'B':
+            case 'U': return new JsonValue((long)(data.get() & 0xFF));
+            case 'i': return new JsonValue(oldFormat ? (long)data.getShort() : (long)data.get());
+            case 'I': return new JsonValue(oldFormat ? (long)data.getInt() : (long)data.getShort());
+            case 'l': return new JsonValue((long)data.getInt());
+            case 'L': return new JsonValue(data.getLong());
+            case 'd': return new JsonValue(data.getFloat());
+            case 'D': return new JsonValue(data.getDouble());
+            case 's':
+            case 'S': return new JsonValue(parseString(data, false, type));
+            case 'a':
+            case 'A': return parseData(data, type);
+            case 'C': return new JsonValue(data.getChar());
+        }
+        throw new ArcRuntimeException("Unrecognized data type");
+    }
+
+    private JsonValue parseArray(ByteBuffer data){
+        JsonValue result = new JsonValue(JsonValue.ValueType.array);
+        byte type = data.get();
+        byte valueType = 0;
+        if(type == '$'){
+            valueType = data.get();
+            type = data.get();
+        }
+        long size = -1;
+        if(type == '#'){
+            size = parseSize(data, data.get(), false, -1);
+            if(size < 0) throw new ArcRuntimeException("Unrecognized data type");
+            if(size == 0) return result;
+            type = valueType == 0 ? data.get() : valueType;
+        }
+        JsonValue prev = null;
+        long c = 0;
+        while(data.hasRemaining() && type != ']'){
+            prev = add(result, prev, parse(data, type));
+            if(size > 0 && ++c >= size) break;
+            type = valueType == 0 ? data.get() : valueType;
+        }
+        return result;
+    }
+
+    private JsonValue parseObject(ByteBuffer data){
+        JsonValue result = new JsonValue(JsonValue.ValueType.object);
+        byte type = data.get();
+        byte valueType = 0;
+        if(type == '$'){
+            valueType = data.get();
+            type = data.get();
+        }
+        long size = -1;
+        if(type == '#'){
+            size = parseSize(data, data.get(), false, -1);
+            if(size < 0) throw new ArcRuntimeException("Unrecognized data type");
+            if(size == 0) return result;
+            type = data.get();
+        }
+        JsonValue prev = null;
+        long c = 0;
+        while(data.hasRemaining() && type != '}'){
+            String key = parseString(data, true, type);
+            JsonValue child = parse(data, valueType == 0 ? data.get() : valueType);
+            child.setName(key);
+            prev = add(result, prev, child);
+            if(size > 0 && ++c >= size) break;
+            type = data.get();
+        }
+        return result;
+    }
+
+    private JsonValue parseData(ByteBuffer data, byte blockType){
+        byte dataType = data.get();
+        long size = blockType == 'A' ? data.getInt() : data.get() & 0xFF;
+        JsonValue result = new JsonValue(JsonValue.ValueType.array);
+        JsonValue prev = null;
+        for(long i = 0; i < size; i++){
+            prev = add(result, prev, parse(data, dataType));
+        }
+        return result;
+    }
+
+    private JsonValue add(JsonValue parent, JsonValue prev, JsonValue child){
+        child.parent = parent;
+        if(prev != null){
+            child.prev = prev;
+            prev.next = child;
+            parent.size++;
+        }else{
+            parent.child = child;
+            parent.size = 1;
+        }
+        return child;
+    }
+
+    private String parseString(ByteBuffer data, boolean sOptional, byte type){
+        long size = -1;
+        if(type == 'S'){
+            size = parseSize(data, data.get(), true, -1);
+        }else if(type == 's')
+            size = data.get() & 0xFF;
+        else if(sOptional) size = parseSize(data, type, false, -1);
+        if(size < 0) throw new ArcRuntimeException("Unrecognized data type, string expected");
+        if(size == 0) return "";
+
+        int length = (int)size;
+        String result;
+        if(data.hasArray()){
+            result = new String(data.array(), data.arrayOffset() + data.position(), length, Strings.utf8);
+            data.position(data.position() + length);
+        }else{
+            if(stringBytes.length < length) stringBytes = new byte[Math.max(length, stringBytes.length * 2)];
+            data.get(stringBytes, 0, length);
+            result = new String(stringBytes, 0, length, Strings.utf8);
+        }
+        return result;
+    }
+
+    private long parseSize(ByteBuffer data, byte type, boolean useIntOnError, long defaultValue){
+        if(type == 'i') return data.get() & 0xFF;
+        if(type == 'I') return data.getShort() & 0xFFFF;
+        if(type == 'l') return data.getInt();
+        if(type == 'L') return data.getLong();
+        if(useIntOnError){
+            long result = (long)(type & 0xFF) << 24;
+            result |= (long)(data.get() & 0xFF) << 16;
+            result |= (long)(data.get() & 0xFF) << 8;
+            result |= (long)(data.get() & 0xFF);
+            return result;
+        }
+        return defaultValue;
+    }
 }
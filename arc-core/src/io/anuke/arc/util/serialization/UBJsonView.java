@@ -0,0 +1,634 @@
+package io.anuke.arc.util.serialization;
+
+import io.anuke.arc.util.ArcRuntimeException;
+import io.anuke.arc.util.Strings;
+import io.anuke.arc.util.serialization.JsonValue.ValueType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A read-only view of a UBJSON value in a {@link ByteBuffer}, which decodes values only when they are accessed. No
+ * {@link JsonValue} DOM is built: a view is a position in the buffer, so a large save can be mapped with {@link
+ * io.anuke.arc.files.FileHandle#map()} and only the parts that are used are read. Arrays with a type and count, as written by
+ * {@link UBJsonWriter} for primitive arrays, are skipped and indexed in constant time, and can be copied out in bulk with
+ * methods like {@link #asIntArray()}.
+ * <p>
+ * Children are not cached, so views that are used often should be kept. Unlike {@link JsonValue#get(String)}, names are matched
+ * exactly. The buffer must not change while views of it are used, and views are not thread safe.
+ */
+public class UBJsonView{
+    private final ByteBuffer buffer;
+    private final boolean oldFormat;
+    private final UBJsonView parent;
+    private final byte type;
+    /** Position of the contents, after the type marker. */
+    private final int position;
+    /** Position and length of the UTF-8 encoded name in an object, or -1. */
+    private final int nameStart, nameLength;
+    private final int index;
+
+    /** Position of the first child; -1 until the container header is read. */
+    private int childStart = -1;
+    /** The type of all children of containers with a type, or 0. */
+    private byte valueType;
+    /** The amount of children of containers with a count, or -1. */
+    private int count = -1;
+    private int size = -1, end = -1;
+    /** The length of a string, set by {@link #stringStart()}. */
+    private long stringLength;
+
+    /** Creates a view of the value at the position of the buffer, in the {@link UBJsonReader#oldFormat old format}. */
+    public UBJsonView(ByteBuffer buffer){
+        this(buffer, true);
+    }
+
+    /** @param oldFormat see {@link UBJsonReader#oldFormat} */
+    public UBJsonView(ByteBuffer buffer, boolean oldFormat){
+        this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        this.oldFormat = oldFormat;
+        this.parent = null;
+        this.type = buffer.get(buffer.position());
+        this.position = buffer.position() + 1;
+        this.nameStart = -1;
+        this.nameLength = 0;
+        this.index = 0;
+    }
+
+    private UBJsonView(UBJsonView parent, byte type, int position, int nameStart, int nameLength, int index){
+        this.buffer = parent.buffer;
+        this.oldFormat = parent.oldFormat;
+        this.parent = parent;
+        this.type = type;
+        this.position = position;
+        this.nameStart = nameStart;
+        this.nameLength = nameLength;
+        this.index = index;
+    }
+
+    public ValueType type(){
+        switch(type){
+            case '{':
+                return ValueType.object;
+            case '[':
+            case 'a':
+            case 'A':
+                return ValueType.array;
+            case 's':
+            case 'S':
+                return ValueType.stringValue;
+            case 'd':
+            case 'D':
+                return ValueType.doubleValue;
+            case 'T':
+            case 'F':
+                return ValueType.booleanValue;
+            case 'Z':
+                return ValueType.nullValue;
+            case 'B':
+            case 'U':
+            case 'i':
+            case 'I':
+            case 'l':
+            case 'L':
+            case 'C':
+                return ValueType.longValue;
+        }
+        throw new ArcRuntimeException("Unrecognized data type: " + (char)type);
+    }
+
+    public boolean isObject(){
+        return type == '{';
+    }
+
+    public boolean isArray(){
+        return type == '[' || type == 'a' || type == 'A';
+    }
+
+    public boolean isString(){
+        return type == 's' || type == 'S';
+    }
+
+    public boolean isNumber(){
+        ValueType type = type();
+        return type == ValueType.longValue || type == ValueType.doubleValue;
+    }
+
+    public boolean isBoolean(){
+        return type == 'T' || type == 'F';
+    }
+
+    public boolean isNull(){
+        return type == 'Z';
+    }
+
+    /** @return the object or array containing this value, or null for the root */
+    public UBJsonView parent(){
+        return parent;
+    }
+
+    /** @return the name of this value in its object, or null */
+    public String name(){
+        return nameStart == -1 ? null : string(nameStart, nameLength);
+    }
+
+    /** @return whether this value has the specified name in its object, without decoding the name if it is ASCII */
+    public boolean nameEquals(String name){
+        if(nameStart == -1) return false;
+        int length = name.length();
+        if(length != nameLength) return nameLength > length && nameLength <= length * 3 && name.equals(name());
+        for(int i = 0; i < length; i++){
+            char c = name.charAt(i);
+            if(c >= 0x80) return name.equals(name());
+            if(buffer.get(nameStart + i) != c) return false;
+        }
+        return true;
+    }
+
+    /** @return the amount of children of an object or array, or 0 for other values */
+    public int size(){
+        if(!isObject() && !isArray()) return 0;
+        header();
+        if(count >= 0) return count;
+        if(size == -1){
+            int result = 0;
+            for(UBJsonView child = child(); child != null; child = child.next()) result++;
+            size = result;
+        }
+        return size;
+    }
+
+    /** @return the first child of an object or array, or null if it is empty or not a container */
+    public UBJsonView child(){
+        if(!isObject() && !isArray()) return null;
+        header();
+        return childAt(childStart, 0);
+    }
+
+    /** @return the next value in the parent object or array, or null */
+    public UBJsonView next(){
+        return parent == null ? null : parent.childAt(end(), index + 1);
+    }
+
+    /** @return the child with the name, or null. Names are compared exactly. */
+    public UBJsonView get(String name){
+        for(UBJsonView child = child(); child != null; child = child.next()){
+            if(child.nameEquals(name)) return child;
+        }
+        return null;
+    }
+
+    /** @return the child at the index, or null. Constant time for arrays with a type and count. */
+    public UBJsonView get(int index){
+        if(!isArray()) return null;
+        header();
+        int width = valueType == 0 ? -1 : width(valueType);
+        if(count >= 0 && width >= 0){
+            return index < 0 || index >= count ? null : new UBJsonView(this, valueType, childStart + index * width, -1, 0, index);
+        }
+        UBJsonView child = child();
+        while(child != null && index-- > 0) child = child.next();
+        return child;
+    }
+
+    public boolean has(String name){
+        return get(name) != null;
+    }
+
+    public String getString(String name, String defaultValue){
+        UBJsonView child = get(name);
+        return child == null || child.isNull() || child.isObject() || child.isArray() ? defaultValue : child.asString();
+    }
+
+    public int getInt(String name, int defaultValue){
+        UBJsonView child = get(name);
+        return child == null || child.isNull() || child.isObject() || child.isArray() ? defaultValue : child.asInt();
+    }
+
+    public long getLong(String name, long defaultValue){
+        UBJsonView child = get(name);
+        return child == null || child.isNull() || child.isObject() || child.isArray() ? defaultValue : child.asLong();
+    }
+
+    public float getFloat(String name, float defaultValue){
+        UBJsonView child = get(name);
+        return child == null || child.isNull() || child.isObject() || child.isArray() ? defaultValue : child.asFloat();
+    }
+
+    public double getDouble(String name, double defaultValue){
+        UBJsonView child = get(name);
+        return child == null || child.isNull() || child.isObject() || child.isArray() ? defaultValue : child.asDouble();
+    }
+
+    public boolean getBoolean(String name, boolean defaultValue){
+        UBJsonView child = get(name);
+        return child == null || child.isNull() || child.isObject() || child.isArray() ? defaultValue : child.asBoolean();
+    }
+
+    /**
+     * Returns this value as a string, as the value parsed by {@link UBJsonReader} would.
+     * @throws IllegalStateException if this is an object or array
+     */
+    public String asString(){
+        switch(type){
+            case 's':
+            case 'S':
+                end();
+                return string(stringStart(), end - stringStart());
+            case 'Z':
+                return null;
+            case 'T':
+                return "true";
+            case 'F':
+                return "false";
+            case 'd':
+            case 'D':
+                return Double.toString(asDouble());
+        }
+        if(isObject() || isArray()) throw new IllegalStateException("Value cannot be converted to string: " + type());
+        return Long.toString(asLong());
+    }
+
+    /**
+     * Returns this value as a long, as the value parsed by {@link UBJsonReader} would.
+     * @throws IllegalStateException if this is an object, array or null
+     */
+    public long asLong(){
+        switch(type){
+            case 'B':
+            case 'U':
+                return buffer.get(position) & 0xFF;
+            case 'i':
+                return oldFormat ? buffer.getShort(position) : buffer.get(position);
+            case 'I':
+                return oldFormat ? buffer.getInt(position) : buffer.getShort(position);
+            case 'l':
+                return buffer.getInt(position);
+            case 'L':
+                return buffer.getLong(position);
+            case 'C':
+                return buffer.getChar(position);
+            case 'd':
+                return (long)buffer.getFloat(position);
+            case 'D':
+                return (long)buffer.getDouble(position);
+            case 'T':
+                return 1;
+            case 'F':
+                return 0;
+            case 's':
+            case 'S':
+                return Long.parseLong(asString());
+        }
+        throw new IllegalStateException("Value cannot be converted to long: " + type());
+    }
+
+    /**
+     * Returns this value as a double, as the value parsed by {@link UBJsonReader} would.
+     * @throws IllegalStateException if this is an object, array or null
+     */
+    public double asDouble(){
+        switch(type){
+            case 'd':
+                return buffer.getFloat(position);
+            case 'D':
+                return buffer.getDouble(position);
+            case 's':
+            case 'S':
+                return Double.parseDouble(asString());
+        }
+        return asLong();
+    }
+
+    public float asFloat(){
+        switch(type){
+            case 'd':
+                return buffer.getFloat(position);
+            case 'D':
+                return (float)buffer.getDouble(position);
+            case 's':
+            case 'S':
+                return Float.parseFloat(asString());
+        }
+        return asLong();
+    }
+
+    public int asInt(){
+        switch(type){
+            case 'd':
+            case 'D':
+                return (int)asDouble();
+            case 's':
+            case 'S':
+                return Integer.parseInt(asString());
+        }
+        return (int)asLong();
+    }
+
+    public boolean asBoolean(){
+        switch(type){
+            case 'T':
+                return true;
+            case 'F':
+                return false;
+            case 's':
+            case 'S':
+                return asString().equalsIgnoreCase("true");
+            case 'd':
+            case 'D':
+                return asDouble() != 0;
+        }
+        return asLong() != 0;
+    }
+
+    /** @return the elements of an array, copied in bulk if it only contains int8 values */
+    public byte[] asByteArray(){
+        byte[] result = new byte[size()];
+        ByteBuffer elements = elements(oldFormat ? 'U' : 'i');
+        if(elements != null){
+            elements.get(result);
+        }else{
+            int i = 0;
+            for(UBJsonView child = child(); child != null; child = child.next()) result[i++] = (byte)child.asLong();
+        }
+        return result;
+    }
+
+    /** @return the elements of an array, copied in bulk if it only contains int16 values */
+    public short[] asShortArray(){
+        short[] result = new short[size()];
+        ByteBuffer elements = elements(oldFormat ? 'i' : 'I');
+        if(elements != null){
+            elements.asShortBuffer().get(result);
+        }else{
+            int i = 0;
+            for(UBJsonView child = child(); child != null; child = child.next()) result[i++] = (short)child.asLong();
+        }
+        return result;
+    }
+
+    /** @return the elements of an array, copied in bulk if it only contains int32 values */
+    public int[] asIntArray(){
+        int[] result = new int[size()];
+        ByteBuffer elements = elements('l');
+        if(elements != null){
+            elements.asIntBuffer().get(result);
+        }else{
+            int i = 0;
+            for(UBJsonView child = child(); child != null; child = child.next()) result[i++] = child.asInt();
+        }
+        return result;
+    }
+
+    /** @return the elements of an array, copied in bulk if it only contains int64 values */
+    public long[] asLongArray(){
+        long[] result = new long[size()];
+        ByteBuffer elements = elements('L');
+        if(elements != null){
+            elements.asLongBuffer().get(result);
+        }else{
+            int i = 0;
+            for(UBJsonView child = child(); child != null; child = child.next()) result[i++] = child.asLong();
+        }
+        return result;
+    }
+
+    /** @return the elements of an array, copied in bulk if it only contains float32 values */
+    public float[] asFloatArray(){
+        float[] result = new float[size()];
+        ByteBuffer elements = elements('d');
+        if(elements != null){
+            elements.asFloatBuffer().get(result);
+        }else{
+            int i = 0;
+            for(UBJsonView child = child(); child != null; child = child.next()) result[i++] = child.asFloat();
+        }
+        return result;
+    }
+
+    /** @return the elements of an array, copied in bulk if it only contains float64 values */
+    public double[] asDoubleArray(){
+        double[] result = new double[size()];
+        ByteBuffer elements = elements('D');
+        if(elements != null){
+            elements.asDoubleBuffer().get(result);
+        }else{
+            int i = 0;
+            for(UBJsonView child = child(); child != null; child = child.next()) result[i++] = child.asDouble();
+        }
+        return result;
+    }
+
+    /** Decodes this value and all of its children into a {@link JsonValue}. */
+    public JsonValue toJsonValue(){
+        UBJsonReader reader = new UBJsonReader();
+        reader.oldFormat = oldFormat;
+        ByteBuffer data = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        data.position(position);
+        JsonValue value = reader.parse(data, type);
+        if(nameStart != -1) value.setName(name());
+        return value;
+    }
+
+    @Override
+    public String toString(){
+        return toJsonValue().toString();
+    }
+
+    /**
+     * @param elementType the type marker of the elements
+     * @return the elements of this array, if it has a count and all of its elements have the type
+     */
+    private ByteBuffer elements(char elementType){
+        if(!isArray()) throw new IllegalStateException("Value is not an array: " + type());
+        header();
+        if(count < 0 || valueType != elementType) return null;
+        ByteBuffer data = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        data.position(childStart);
+        data.limit(childStart + count * width(valueType));
+        return data.slice().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /** Reads the type and count of a container. */
+    private void header(){
+        if(childStart != -1) return;
+        int p = position;
+        if(type == 'a' || type == 'A'){
+            valueType = buffer.get(p++);
+            if(type == 'A'){
+                count = buffer.getInt(p);
+                p += 4;
+            }else{
+                count = buffer.get(p++) & 0xFF;
+            }
+            childStart = p;
+            return;
+        }
+
+        byte marker = buffer.get(p);
+        if(marker == '$'){
+            valueType = buffer.get(p + 1);
+            p += 2;
+            marker = buffer.get(p);
+            if(marker != '#') throw new ArcRuntimeException("Container with a type must have a count");
+        }
+        if(marker == '#'){
+            byte sizeType = buffer.get(p + 1);
+            long size = size(p + 2, sizeType);
+            if(size < 0 || size > Integer.MAX_VALUE) throw new ArcRuntimeException("Unrecognized data type");
+            count = (int)size;
+            p += 2 + sizeWidth(sizeType);
+        }
+        childStart = p;
+    }
+
+    /** @return the child at the position, which is the start of its name in objects, or null if the container ends there */
+    private UBJsonView childAt(int p, int index){
+        if(count >= 0 && index >= count) return null;
+
+        int nameStart = -1, nameLength = 0;
+        if(type == '{'){
+            byte marker = buffer.get(p++);
+            if(count < 0 && marker == '}') return null;
+            long length;
+            if(marker == 'S'){
+                marker = buffer.get(p);
+                if(sizeWidth(marker) > 0){
+                    length = size(p + 1, marker);
+                    p += 1 + sizeWidth(marker);
+                }else{
+                    length = buffer.getInt(p);
+                    p += 4;
+                }
+            }else if(marker == 's'){
+                length = buffer.get(p++) & 0xFF;
+            }else{
+                length = size(p, marker);
+                p += sizeWidth(marker);
+            }
+            if(length < 0) throw new ArcRuntimeException("Unrecognized data type, string expected");
+            nameStart = p;
+            nameLength = (int)length;
+            p += nameLength;
+        }
+
+        byte childType = valueType;
+        if(childType == 0){
+            childType = buffer.get(p++);
+            if(count < 0 && childType == ']' && type != '{') return null;
+        }
+        return new UBJsonView(this, childType, p, nameStart, nameLength, index);
+    }
+
+    /** @return the position after this value */
+    private int end(){
+        if(end != -1) return end;
+        int width = width(type);
+        if(width >= 0) return end = position + width;
+
+        switch(type){
+            case 's':
+            case 'S':
+                int start = stringStart();
+                return end = start + (int)stringLength;
+            case '[':
+            case '{':
+            case 'a':
+            case 'A':
+                header();
+                int childWidth = valueType == 0 ? -1 : width(valueType);
+                if(count >= 0 && childWidth >= 0 && type != '{') return end = childStart + count * childWidth;
+                UBJsonView last = null;
+                for(UBJsonView child = child(); child != null; child = child.next()) last = child;
+                int result = last == null ? childStart : last.end();
+                //containers without a count end with a marker
+                if(count < 0) result++;
+                return end = result;
+        }
+        throw new ArcRuntimeException("Unrecognized data type: " + (char)type);
+    }
+
+    /** @return the position of the bytes of a string, setting its length */
+    private int stringStart(){
+        int p = position;
+        if(type == 'S'){
+            byte marker = buffer.get(p);
+            if(sizeWidth(marker) > 0){
+                stringLength = size(p + 1, marker);
+                p += 1 + sizeWidth(marker);
+            }else{
+                stringLength = buffer.getInt(p);
+                p += 4;
+            }
+        }else{
+            stringLength = buffer.get(p++) & 0xFF;
+        }
+        return p;
+    }
+
+    private String string(int start, int length){
+        if(length == 0) return "";
+        if(buffer.hasArray()) return new String(buffer.array(), buffer.arrayOffset() + start, length, Strings.utf8);
+        byte[] bytes = new byte[length];
+        ByteBuffer data = buffer.duplicate();
+        data.position(start);
+        data.get(bytes);
+        return new String(bytes, Strings.utf8);
+    }
+
+    /** @return the size of the contents of a value of the type, or -1 if it varies */
+    private int width(byte type){
+        switch(type){
+            case 'Z':
+            case 'T':
+            case 'F':
+                return 0;
+            case 'B':
+            case 'U':
+                return 1;
+            case 'i':
+                return oldFormat ? 2 : 1;
+            case 'I':
+                return oldFormat ? 4 : 2;
+            case 'l':
+            case 'd':
+                return 4;
+            case 'L':
+            case 'D':
+                return 8;
+            case 'C':
+                return 2;
+        }
+        return -1;
+    }
+
+    /** @return the amount of bytes of a size with the type marker, or 0 if it is not a size marker */
+    private static int sizeWidth(byte type){
+        switch(type){
+            case 'i':
+                return 1;
+            case 'I':
+                return 2;
+            case 'l':
+                return 4;
+            case 'L':
+                return 8;
+        }
+        return 0;
+    }
+
+    /** Reads a size with the type marker, or returns -1 if it is not a size marker. */
+    private long size(int p, byte type){
+        switch(type){
+            case 'i':
+                return buffer.get(p) & 0xFF;
+            case 'I':
+                return buffer.getShort(p) & 0xFFFF;
+            case 'l':
+                return buffer.getInt(p);
+            case 'L':
+                return buffer.getLong(p);
+        }
+        return -1;
+    }
+}
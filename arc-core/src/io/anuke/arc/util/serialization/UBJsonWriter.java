@@ -4,24 +4,53 @@ import io.anuke.arc.collection.Array;
 import io.anuke.arc.util.Strings;
 
 import java.io.Closeable;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * Builder style API for emitting UBJSON.
+ * <p>
+ * Values are encoded into a {@link ByteBuffer}, which is either written to a stream when it is full, or is the result when
+ * writing to a buffer; see {@link #UBJsonWriter(ByteBuffer)}.
  * @author Justin Shapcott
  */
 public class UBJsonWriter implements Closeable{
+    private static final int bufferSize = 8192;
 
-    final DataOutputStream out;
+    /** The stream the buffer is written to, or null when writing to a buffer. */
+    private final OutputStream output;
+    private ByteBuffer buffer;
     private final Array<JsonObject> stack = new Array<>();
     private JsonObject current;
     private boolean named;
 
+    /**
+     * Writes to a stream. Values are buffered, and written to the stream when the buffer is full, when the outermost object or
+     * array is popped, when a value is written outside of any object or array, and by {@link #flush()} or {@link #close()}.
+     */
     public UBJsonWriter(OutputStream out){
-        if(!(out instanceof DataOutputStream)) out = new DataOutputStream(out);
-        this.out = (DataOutputStream)out;
+        this.output = out;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    /**
+     * Writes to a buffer, starting at its position, without a stream in between. The buffer can be direct, such as a pooled
+     * buffer that is reused for every save. If it is too small, a larger buffer of the same kind is allocated, so the result
+     * must be retrieved with {@link #getBuffer()}. The byte order of the buffer is set to big endian, as UBJSON requires.
+     */
+    public UBJsonWriter(ByteBuffer buffer){
+        this.output = null;
+        this.buffer = buffer.order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * Returns the buffer that is written to, with its position after the last value that was written. When writing to a buffer,
+     * this may be a larger buffer than the one the writer was created with.
+     */
+    public ByteBuffer getBuffer(){
+        return buffer;
     }
 
     /**
@@ -78,18 +107,7 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter name(String name) throws IOException{
         if(current == null || current.array) throw new IllegalStateException("Current item must be an object.");
-        byte[] bytes = name.getBytes(Strings.utf8);
-        if(bytes.length <= Byte.MAX_VALUE){
-            out.writeByte('i');
-            out.writeByte(bytes.length);
-        }else if(bytes.length <= Short.MAX_VALUE){
-            out.writeByte('I');
-            out.writeShort(bytes.length);
-        }else{
-            out.writeByte('l');
-            out.writeInt(bytes.length);
-        }
-        out.write(bytes);
+        writeString(name);
         named = true;
         return this;
     }
@@ -100,8 +118,9 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(byte value) throws IOException{
         checkName();
-        out.writeByte('i');
-        out.writeByte(value);
+        writeByte('i');
+        writeByte(value);
+        end();
         return this;
     }
 
@@ -111,8 +130,9 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(short value) throws IOException{
         checkName();
-        out.writeByte('I');
-        out.writeShort(value);
+        writeByte('I');
+        writeShort(value);
+        end();
         return this;
     }
 
@@ -122,8 +142,9 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(int value) throws IOException{
         checkName();
-        out.writeByte('l');
-        out.writeInt(value);
+        writeByte('l');
+        writeInt(value);
+        end();
         return this;
     }
 
@@ -133,8 +154,9 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(long value) throws IOException{
         checkName();
-        out.writeByte('L');
-        out.writeLong(value);
+        writeByte('L');
+        writeLong(value);
+        end();
         return this;
     }
 
@@ -144,8 +166,9 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(float value) throws IOException{
         checkName();
-        out.writeByte('d');
-        out.writeFloat(value);
+        writeByte('d');
+        writeFloat(value);
+        end();
         return this;
     }
 
@@ -156,8 +179,9 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(double value) throws IOException{
         checkName();
-        out.writeByte('D');
-        out.writeDouble(value);
+        writeByte('D');
+        writeDouble(value);
+        end();
         return this;
     }
 
@@ -168,7 +192,8 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(boolean value) throws IOException{
         checkName();
-        out.writeByte(value ? 'T' : 'F');
+        writeByte(value ? 'T' : 'F');
+        end();
         return this;
     }
 
@@ -179,8 +204,9 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(char value) throws IOException{
         checkName();
-        out.writeByte('I');
-        out.writeChar(value);
+        writeByte('I');
+        writeChar(value);
+        end();
         return this;
     }
 
@@ -190,19 +216,9 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(String value) throws IOException{
         checkName();
-        byte[] bytes = value.getBytes(Strings.utf8);
-        out.writeByte('S');
-        if(bytes.length <= Byte.MAX_VALUE){
-            out.writeByte('i');
-            out.writeByte(bytes.length);
-        }else if(bytes.length <= Short.MAX_VALUE){
-            out.writeByte('I');
-            out.writeShort(bytes.length);
-        }else{
-            out.writeByte('l');
-            out.writeInt(bytes.length);
-        }
-        out.write(bytes);
+        writeByte('S');
+        writeString(value);
+        end();
         return this;
     }
 
@@ -213,13 +229,11 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(byte[] values) throws IOException{
         array();
-        out.writeByte('$');
-        out.writeByte('i');
-        out.writeByte('#');
+        writeByte('$');
+        writeByte('i');
+        writeByte('#');
         value(values.length);
-        for(int i = 0, n = values.length; i < n; i++){
-            out.writeByte(values[i]);
-        }
+        write(values);
         pop(true);
         return this;
     }
@@ -231,12 +245,15 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(short[] values) throws IOException{
         array();
-        out.writeByte('$');
-        out.writeByte('I');
-        out.writeByte('#');
+        writeByte('$');
+        writeByte('I');
+        writeByte('#');
         value(values.length);
-        for(int i = 0, n = values.length; i < n; i++){
-            out.writeShort(values[i]);
+        for(int i = 0, n = values.length; i < n; ){
+            int count = require(2, n - i);
+            buffer.asShortBuffer().put(values, i, count);
+            buffer.position(buffer.position() + count * 2);
+            i += count;
         }
         pop(true);
         return this;
@@ -249,12 +266,15 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(int[] values) throws IOException{
         array();
-        out.writeByte('$');
-        out.writeByte('l');
-        out.writeByte('#');
+        writeByte('$');
+        writeByte('l');
+        writeByte('#');
         value(values.length);
-        for(int i = 0, n = values.length; i < n; i++){
-            out.writeInt(values[i]);
+        for(int i = 0, n = values.length; i < n; ){
+            int count = require(4, n - i);
+            buffer.asIntBuffer().put(values, i, count);
+            buffer.position(buffer.position() + count * 4);
+            i += count;
         }
         pop(true);
         return this;
@@ -267,12 +287,15 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(long[] values) throws IOException{
         array();
-        out.writeByte('$');
-        out.writeByte('L');
-        out.writeByte('#');
+        writeByte('$');
+        writeByte('L');
+        writeByte('#');
         value(values.length);
-        for(int i = 0, n = values.length; i < n; i++){
-            out.writeLong(values[i]);
+        for(int i = 0, n = values.length; i < n; ){
+            int count = require(8, n - i);
+            buffer.asLongBuffer().put(values, i, count);
+            buffer.position(buffer.position() + count * 8);
+            i += count;
         }
         pop(true);
         return this;
@@ -285,12 +308,15 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(float[] values) throws IOException{
         array();
-        out.writeByte('$');
-        out.writeByte('d');
-        out.writeByte('#');
+        writeByte('$');
+        writeByte('d');
+        writeByte('#');
         value(values.length);
-        for(int i = 0, n = values.length; i < n; i++){
-            out.writeFloat(values[i]);
+        for(int i = 0, n = values.length; i < n; ){
+            int count = require(4, n - i);
+            buffer.asFloatBuffer().put(values, i, count);
+            buffer.position(buffer.position() + count * 4);
+            i += count;
         }
         pop(true);
         return this;
@@ -304,12 +330,15 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(double[] values) throws IOException{
         array();
-        out.writeByte('$');
-        out.writeByte('D');
-        out.writeByte('#');
+        writeByte('$');
+        writeByte('D');
+        writeByte('#');
         value(values.length);
-        for(int i = 0, n = values.length; i < n; i++){
-            out.writeDouble(values[i]);
+        for(int i = 0, n = values.length; i < n; ){
+            int count = require(8, n - i);
+            buffer.asDoubleBuffer().put(values, i, count);
+            buffer.position(buffer.position() + count * 8);
+            i += count;
         }
         pop(true);
         return this;
@@ -322,7 +351,7 @@ public class UBJsonWriter implements Closeable{
     public UBJsonWriter value(boolean[] values) throws IOException{
         array();
         for(int i = 0, n = values.length; i < n; i++){
-            out.writeByte(values[i] ? 'T' : 'F');
+            writeByte(values[i] ? 'T' : 'F');
         }
         pop();
         return this;
@@ -335,12 +364,15 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(char[] values) throws IOException{
         array();
-        out.writeByte('$');
-        out.writeByte('C');
-        out.writeByte('#');
+        writeByte('$');
+        writeByte('C');
+        writeByte('#');
         value(values.length);
-        for(int i = 0, n = values.length; i < n; i++){
-            out.writeChar(values[i]);
+        for(int i = 0, n = values.length; i < n; ){
+            int count = require(2, n - i);
+            buffer.asCharBuffer().put(values, i, count);
+            buffer.position(buffer.position() + count * 2);
+            i += count;
         }
         pop(true);
         return this;
@@ -353,23 +385,12 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value(String[] values) throws IOException{
         array();
-        out.writeByte('$');
-        out.writeByte('S');
-        out.writeByte('#');
+        writeByte('$');
+        writeByte('S');
+        writeByte('#');
         value(values.length);
         for(int i = 0, n = values.length; i < n; i++){
-            byte[] bytes = values[i].getBytes(Strings.utf8);
-            if(bytes.length <= Byte.MAX_VALUE){
-                out.writeByte('i');
-                out.writeByte(bytes.length);
-            }else if(bytes.length <= Short.MAX_VALUE){
-                out.writeByte('I');
-                out.writeShort(bytes.length);
-            }else{
-                out.writeByte('l');
-                out.writeInt(bytes.length);
-            }
-            out.write(bytes);
+            writeString(values[i]);
         }
         pop(true);
         return this;
@@ -449,7 +470,8 @@ public class UBJsonWriter implements Closeable{
      */
     public UBJsonWriter value() throws IOException{
         checkName();
-        out.writeByte('Z');
+        writeByte('Z');
+        end();
         return this;
     }
 
@@ -629,19 +651,136 @@ public class UBJsonWriter implements Closeable{
         else
             stack.pop().close();
         current = stack.size == 0 ? null : stack.peek();
+        end();
         return this;
     }
 
-    /** Flushes the underlying stream. This forces any buffered output bytes to be written out to the stream. */
+    /** Writes the buffer to the stream once a value outside of any object or array is complete. */
+    private void end() throws IOException{
+        if(current == null && output != null) drain();
+    }
+
+    /** Writes all buffered values to the stream and flushes it. Does nothing when writing to a buffer. */
     public void flush() throws IOException{
-        out.flush();
+        if(output == null) return;
+        drain();
+        output.flush();
     }
 
-    /** Closes the underlying output stream and releases any system resources associated with the stream. */
+    /** Ends all open objects and arrays, then writes all buffered values to the stream and closes it. */
     public void close() throws IOException{
         while(stack.size > 0)
             pop();
-        out.close();
+        if(output == null) return;
+        drain();
+        output.close();
+    }
+
+    /** Makes sure that the buffer has room for the specified amount of bytes. */
+    private void require(int bytes) throws IOException{
+        if(buffer.remaining() >= bytes) return;
+        if(output != null){
+            drain();
+            if(buffer.remaining() >= bytes) return;
+        }
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+        ByteBuffer larger = buffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        buffer.flip();
+        larger.put(buffer);
+        buffer = larger;
+    }
+
+    /**
+     * Makes sure that the buffer has room for at least one element of the specified size, and as many of the specified total as
+     * fit in a buffer of the stream.
+     * @return the amount of elements that fit
+     */
+    private int require(int size, int count) throws IOException{
+        require(output == null ? size * count : Math.min(size * count, Math.max(bufferSize, size)));
+        return Math.min(count, buffer.remaining() / size);
+    }
+
+    private void drain() throws IOException{
+        output.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+        buffer.clear();
+    }
+
+    private void writeByte(int value) throws IOException{
+        require(1);
+        buffer.put((byte)value);
+    }
+
+    private void writeShort(int value) throws IOException{
+        require(2);
+        buffer.putShort((short)value);
+    }
+
+    private void writeChar(int value) throws IOException{
+        require(2);
+        buffer.putChar((char)value);
+    }
+
+    private void writeInt(int value) throws IOException{
+        require(4);
+        buffer.putInt(value);
+    }
+
+    private void writeLong(long value) throws IOException{
+        require(8);
+        buffer.putLong(value);
+    }
+
+    private void writeFloat(float value) throws IOException{
+        require(4);
+        buffer.putFloat(value);
+    }
+
+    private void writeDouble(double value) throws IOException{
+        require(8);
+        buffer.putDouble(value);
+    }
+
+    /** Writes the length of a string followed by its UTF-8 bytes. ASCII strings are written without encoding them first. */
+    private void writeString(String value) throws IOException{
+        int length = value.length();
+        boolean ascii = true;
+        for(int i = 0; i < length && ascii; i++){
+            ascii = value.charAt(i) < 0x80;
+        }
+        if(!ascii){
+            byte[] bytes = value.getBytes(Strings.utf8);
+            writeLength(bytes.length);
+            write(bytes);
+            return;
+        }
+        writeLength(length);
+        for(int i = 0; i < length; ){
+            int count = require(1, length - i);
+            for(int end = i + count; i < end; i++){
+                buffer.put((byte)value.charAt(i));
+            }
+        }
+    }
+
+    private void writeLength(int length) throws IOException{
+        if(length <= Byte.MAX_VALUE){
+            writeByte('i');
+            writeByte(length);
+        }else if(length <= Short.MAX_VALUE){
+            writeByte('I');
+            writeShort(length);
+        }else{
+            writeByte('l');
+            writeInt(length);
+        }
+    }
+
+    private void write(byte[] bytes) throws IOException{
+        for(int offset = 0; offset < bytes.length; ){
+            int count = require(1, bytes.length - offset);
+            buffer.put(bytes, offset, count);
+            offset += count;
+        }
     }
 
     private class JsonObject{
@@ -649,11 +788,11 @@ public class UBJsonWriter implements Closeable{
 
         JsonObject(boolean array) throws IOException{
             this.array = array;
-            out.writeByte(array ? '[' : '{');
+            writeByte(array ? '[' : '{');
         }
 
         void close() throws IOException{
-            out.writeByte(array ? ']' : '}');
+            writeByte(array ? ']' : '}');
         }
     }
 
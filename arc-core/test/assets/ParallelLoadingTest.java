@@ -0,0 +1,184 @@
+package assets;
+
+import io.anuke.arc.assets.AssetDescriptor;
+import io.anuke.arc.assets.AssetLoaderParameters;
+import io.anuke.arc.assets.AssetManager;
+import io.anuke.arc.assets.loaders.AsynchronousAssetLoader;
+import io.anuke.arc.assets.loaders.FileHandleResolver;
+import io.anuke.arc.collection.Array;
+import io.anuke.arc.files.FileHandle;
+import io.anuke.arc.util.ArcRuntimeException;
+import io.anuke.arc.util.Disposable;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class ParallelLoadingTest{
+
+    @Test(timeout = 10000)
+    public void independentAssets(){
+        AssetManager manager = manager(new ImageLoader(resolver, null, null));
+        for(int i = 0; i < 8; i++){
+            manager.load(i + ".sheet", Sheet.class);
+        }
+        manager.finishLoading();
+
+        assertEquals(16, manager.getLoadedAssets());
+        assertEquals(1f, manager.getProgress(), 0f);
+        for(int i = 0; i < 8; i++){
+            Sheet sheet = manager.get(i + ".sheet", Sheet.class);
+            assertEquals(i + ".sheet.image", sheet.image.name);
+            assertEquals(1, manager.getReferenceCount(i + ".sheet.image"));
+        }
+
+        manager.unload("3.sheet");
+        assertFalse(manager.isLoaded("3.sheet.image"));
+        assertEquals(14, manager.getLoadedAssets());
+        manager.dispose();
+    }
+
+    @Test(timeout = 10000)
+    public void unloadWhileLoading() throws InterruptedException{
+        CountDownLatch started = new CountDownLatch(1), release = new CountDownLatch(1);
+        ImageLoader images = new ImageLoader(resolver, started, release);
+        AssetManager manager = manager(images);
+
+        manager.load("a.sheet", Sheet.class);
+        //wait until the dependency of the sheet is loading, then drop the sheet
+        while(started.getCount() > 0){
+            manager.update();
+            Thread.sleep(1);
+        }
+        manager.unload("a.sheet");
+        release.countDown();
+        manager.finishLoading();
+
+        assertFalse(manager.isLoaded("a.sheet"));
+        assertFalse(manager.isLoaded("a.sheet.image"));
+        assertEquals(0, manager.getLoadedAssets());
+        assertEquals(1, images.created.size);
+        assertTrue(images.created.first().disposed);
+        manager.dispose();
+    }
+
+    @Test(timeout = 10000)
+    public void loaderFailure(){
+        AssetManager manager = manager(new ImageLoader(resolver, null, null));
+        Array<String> errors = new Array<>();
+        manager.setErrorListener((asset, error) -> errors.add(asset.fileName));
+
+        manager.load("broken.sheet", Sheet.class);
+        manager.finishLoading();
+
+        assertEquals(Array.with("broken.sheet"), errors);
+        assertFalse(manager.isLoaded("broken.sheet"));
+        assertFalse(manager.isLoaded("broken.sheet.image"));
+        assertTrue(manager.update());
+
+        //loading continues normally afterwards
+        manager.load("a.sheet", Sheet.class);
+        manager.finishLoading();
+        assertTrue(manager.isLoaded("a.sheet"));
+        manager.dispose();
+    }
+
+    @Test(timeout = 10000, expected = ArcRuntimeException.class)
+    public void loaderFailureWithoutListener(){
+        AssetManager manager = manager(new ImageLoader(resolver, null, null));
+        manager.load("broken.sheet", Sheet.class);
+        manager.finishLoading();
+    }
+
+    static final FileHandleResolver resolver = FileHandle::new;
+
+    static AssetManager manager(ImageLoader images){
+        AssetManager manager = new AssetManager(resolver, false);
+        manager.setLoader(Sheet.class, new SheetLoader(resolver));
+        manager.setLoader(Image.class, images);
+        manager.setParallelLoading(true);
+        manager.setLoadingThreads(2);
+        return manager;
+    }
+
+    static class Image implements Disposable{
+        final String name;
+        boolean disposed;
+
+        Image(String name){
+            this.name = name;
+        }
+
+        @Override
+        public void dispose(){
+            disposed = true;
+        }
+    }
+
+    static class Sheet{
+        final Image image;
+
+        Sheet(Image image){
+            this.image = image;
+        }
+    }
+
+    /** Loads images, optionally blocking on a loading thread until released. */
+    static class ImageLoader extends AsynchronousAssetLoader<Image, AssetLoaderParameters<Image>>{
+        final CountDownLatch started, release;
+        final Array<Image> created = new Array<>();
+
+        ImageLoader(FileHandleResolver resolver, CountDownLatch started, CountDownLatch release){
+            super(resolver);
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public void loadAsync(AssetManager manager, String fileName, FileHandle file, AssetLoaderParameters<Image> parameter){
+            if(started == null) return;
+            started.countDown();
+            try{
+                release.await();
+            }catch(InterruptedException e){
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public Image loadSync(AssetManager manager, String fileName, FileHandle file, AssetLoaderParameters<Image> parameter){
+            Image image = new Image(fileName);
+            created.add(image);
+            return image;
+        }
+
+        @Override
+        public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, AssetLoaderParameters<Image> parameter){
+            return null;
+        }
+    }
+
+    static class SheetLoader extends AsynchronousAssetLoader<Sheet, AssetLoaderParameters<Sheet>>{
+        SheetLoader(FileHandleResolver resolver){
+            super(resolver);
+        }
+
+        @Override
+        public void loadAsync(AssetManager manager, String fileName, FileHandle file, AssetLoaderParameters<Sheet> parameter){
+            if(fileName.startsWith("broken")) throw new IllegalStateException("Broken sheet: " + fileName);
+        }
+
+        @Override
+        public Sheet loadSync(AssetManager manager, String fileName, FileHandle file, AssetLoaderParameters<Sheet> parameter){
+            return new Sheet(manager.get(fileName + ".image", Image.class));
+        }
+
+        @Override
+        public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, AssetLoaderParameters<Sheet> parameter){
+            Array<AssetDescriptor> dependencies = new Array<>();
+            dependencies.add(new AssetDescriptor<>(fileName + ".image", Image.class));
+            return dependencies;
+        }
+    }
+}
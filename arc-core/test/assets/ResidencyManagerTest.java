@@ -0,0 +1,137 @@
+package assets;
+
+import io.anuke.arc.assets.AssetDescriptor;
+import io.anuke.arc.assets.AssetLoaderParameters;
+import io.anuke.arc.assets.AssetManager;
+import io.anuke.arc.assets.ResidencyManager;
+import io.anuke.arc.assets.loaders.AsynchronousAssetLoader;
+import io.anuke.arc.assets.loaders.FileHandleResolver;
+import io.anuke.arc.assets.loaders.SynchronousAssetLoader;
+import io.anuke.arc.collection.Array;
+import io.anuke.arc.files.FileHandle;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ResidencyManagerTest{
+
+    @Test(timeout = 10000)
+    public void reloadWithDependencies(){
+        reload(false);
+    }
+
+    @Test(timeout = 10000)
+    public void reloadWithDependenciesInParallel(){
+        reload(true);
+    }
+
+    @Test(timeout = 10000)
+    public void budgetEvictsDependencies(){
+        AssetManager manager = manager(false);
+        ResidencyManager residency = residency(manager);
+
+        manager.load("a.sheet", Sheet.class);
+        manager.load("b.sheet", Sheet.class);
+        manager.finishLoading();
+
+        assertTrue(residency.isEvicted("a.sheet"));
+        assertFalse(manager.isLoaded("a.sheet.image"));
+        assertTrue(manager.isLoaded("b.sheet.image"));
+        assertEquals(100, residency.getUsage(Sheet.class));
+        manager.dispose();
+    }
+
+    private void reload(boolean parallel){
+        AssetManager manager = manager(parallel);
+        ResidencyManager residency = residency(manager);
+
+        manager.load("a.sheet", Sheet.class);
+        manager.finishLoading();
+        Sheet first = manager.get("a.sheet", Sheet.class);
+        manager.load("b.sheet", Sheet.class);
+        manager.finishLoading();
+        assertTrue(residency.isEvicted("a.sheet"));
+
+        //the loader of sheets resolves its dependencies on a loading thread, which needs the manager while get() waits for it
+        Sheet again = manager.get("a.sheet", Sheet.class);
+        assertNotSame(first, again);
+        assertEquals("a.sheet.image", again.image.name);
+        assertEquals(1, residency.getReloads());
+        assertTrue(residency.isEvicted("b.sheet"));
+
+        Sheet other = manager.get("b.sheet");
+        assertEquals("b.sheet.image", other.image.name);
+        assertEquals(2, residency.getReloads());
+        manager.dispose();
+    }
+
+    static AssetManager manager(boolean parallel){
+        FileHandleResolver resolver = FileHandle::new;
+        AssetManager manager = new AssetManager(resolver, false);
+        manager.setLoader(Sheet.class, new SheetLoader(resolver));
+        manager.setLoader(Image.class, new ImageLoader(resolver));
+        manager.setParallelLoading(parallel);
+        return manager;
+    }
+
+    static ResidencyManager residency(AssetManager manager){
+        ResidencyManager residency = new ResidencyManager(manager);
+        residency.setSizer(Sheet.class, (sheet, file) -> 100);
+        residency.setBudget(Sheet.class, 150);
+        return residency;
+    }
+
+    static class Image{
+        final String name;
+
+        Image(String name){
+            this.name = name;
+        }
+    }
+
+    static class Sheet{
+        final Image image;
+
+        Sheet(Image image){
+            this.image = image;
+        }
+    }
+
+    static class ImageLoader extends SynchronousAssetLoader<Image, AssetLoaderParameters<Image>>{
+        ImageLoader(FileHandleResolver resolver){
+            super(resolver);
+        }
+
+        @Override
+        public Image load(AssetManager manager, String fileName, FileHandle file, AssetLoaderParameters<Image> parameter){
+            return new Image(fileName);
+        }
+
+        @Override
+        public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, AssetLoaderParameters<Image> parameter){
+            return null;
+        }
+    }
+
+    static class SheetLoader extends AsynchronousAssetLoader<Sheet, AssetLoaderParameters<Sheet>>{
+        SheetLoader(FileHandleResolver resolver){
+            super(resolver);
+        }
+
+        @Override
+        public void loadAsync(AssetManager manager, String fileName, FileHandle file, AssetLoaderParameters<Sheet> parameter){
+        }
+
+        @Override
+        public Sheet loadSync(AssetManager manager, String fileName, FileHandle file, AssetLoaderParameters<Sheet> parameter){
+            return new Sheet(manager.get(fileName + ".image", Image.class));
+        }
+
+        @Override
+        public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, AssetLoaderParameters<Sheet> parameter){
+            Array<AssetDescriptor> dependencies = new Array<>();
+            dependencies.add(new AssetDescriptor<>(fileName + ".image", Image.class));
+            return dependencies;
+        }
+    }
+}
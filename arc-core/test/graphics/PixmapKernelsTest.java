@@ -0,0 +1,50 @@
+package graphics;
+
+import io.anuke.arc.graphics.PixmapKernels;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class PixmapKernelsTest{
+
+    @Test
+    public void testSquaredDistances(){
+        Random random = new Random(0);
+        for(int i = 0; i < 50; i++){
+            int width = 1 + random.nextInt(40), height = 1 + random.nextInt(40);
+            boolean[] solid = new boolean[width * height];
+            for(int j = 0; j < solid.length; j++){
+                solid[j] = random.nextInt(20) == 0;
+            }
+
+            int[] distances = PixmapKernels.squaredDistances(solid, width, height);
+            for(int x = 0; x < width; x++){
+                for(int y = 0; y < height; y++){
+                    assertEquals(bruteForce(solid, width, height, x, y), distances[x + y * width]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBlendOverEmpty(){
+        //opaque colors replace the destination
+        assertEquals(0xff8040ff, PixmapKernels.blend(0xff8040ff, 0));
+        //transparent colors keep its color
+        assertEquals(0x112233, PixmapKernels.blend(0xffffff00, 0x11223344) >>> 8);
+    }
+
+    private static int bruteForce(boolean[] solid, int width, int height, int x, int y){
+        int best = Integer.MAX_VALUE;
+        for(int cx = 0; cx < width; cx++){
+            for(int cy = 0; cy < height; cy++){
+                if(solid[cx + cy * width]){
+                    best = Math.min(best, (x - cx) * (x - cx) + (y - cy) * (y - cy));
+                }
+            }
+        }
+        return best;
+    }
+}
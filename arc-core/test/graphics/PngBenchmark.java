@@ -0,0 +1,99 @@
+package graphics;
+
+import io.anuke.arc.graphics.Pixmap;
+import io.anuke.arc.graphics.PixmapIO;
+import io.anuke.arc.graphics.PixmapIO.PNG;
+import io.anuke.arc.graphics.PixmapIO.PNGReader;
+import io.anuke.arc.graphics.PixmapIO.ParallelPNG;
+import io.anuke.arc.util.ArcNativesLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Compares the throughput of {@link PNG} and {@link ParallelPNG}, and of the native PNG decoder and {@link PNGReader}.
+ * This is not a unit test; run the main method with the arc natives on the library path.
+ */
+public class PngBenchmark{
+    static final int size = 2048, warmup = 3, iterations = 10;
+
+    public static void main(String[] args) throws IOException{
+        ArcNativesLoader.load();
+
+        Pixmap pixmap = new Pixmap(size, size);
+        fill(pixmap);
+        double megabytes = size * size * 4 / 1024.0 / 1024.0;
+
+        PNG png = new PNG(size * size);
+        ParallelPNG parallel = new ParallelPNG();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size * size * 4);
+
+        for(int i = 0; i < warmup; i++){
+            out.reset();
+            png.write(out, pixmap);
+            out.reset();
+            parallel.write(out, pixmap);
+        }
+
+        long time = System.nanoTime();
+        for(int i = 0; i < iterations; i++){
+            out.reset();
+            png.write(out, pixmap);
+        }
+        report("PNG encode", time, megabytes, out.size());
+
+        time = System.nanoTime();
+        for(int i = 0; i < iterations; i++){
+            out.reset();
+            parallel.write(out, pixmap);
+        }
+        report("ParallelPNG encode", time, megabytes, out.size());
+
+        byte[] encoded = out.toByteArray();
+        PNGReader reader = new PNGReader();
+        Pixmap target = new Pixmap(size, size);
+
+        for(int i = 0; i < warmup; i++){
+            new Pixmap(encoded).dispose();
+            reader.read(new ByteArrayInputStream(encoded), target);
+        }
+
+        time = System.nanoTime();
+        for(int i = 0; i < iterations; i++){
+            new Pixmap(encoded).dispose();
+        }
+        report("native decode", time, megabytes, encoded.length);
+
+        time = System.nanoTime();
+        for(int i = 0; i < iterations; i++){
+            reader.read(new ByteArrayInputStream(encoded), target);
+        }
+        report("PNGReader decode", time, megabytes, encoded.length);
+
+        png.dispose();
+        parallel.dispose();
+        reader.dispose();
+        pixmap.dispose();
+        target.dispose();
+    }
+
+    /** Fills the pixmap with a mix of gradients and noise, which compresses roughly like game screenshots. */
+    static void fill(Pixmap pixmap){
+        Random random = new Random(0);
+        ByteBuffer pixels = pixmap.getPixels();
+        for(int y = 0; y < size; y++){
+            for(int x = 0; x < size; x++){
+                int color = (x / 16 + y / 16) % 4 == 0 ? random.nextInt() | 0xff : ((x << 24) | (y << 16) | ((x + y) << 8) | 0xff);
+                pixels.putInt((x + y * size) * 4, color);
+            }
+        }
+    }
+
+    static void report(String name, long start, double megabytes, int bytes){
+        double seconds = (System.nanoTime() - start) / 1000000000.0 / iterations;
+        System.out.printf("%-20s %8.2f ms %8.1f MB/s %10d bytes%n", name, seconds * 1000, megabytes / seconds, bytes);
+    }
+}
@@ -0,0 +1,56 @@
+package graphics;
+
+import io.anuke.arc.graphics.PixmapIO.PNGReader;
+import io.anuke.arc.util.ArcRuntimeException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class PngReaderTest{
+    private static final int IHDR = 0x49484452, PLTE = 0x504C5445, TRNS = 0x74524E53;
+
+    @Test(expected = ArcRuntimeException.class)
+    public void paletteTooLarge() throws IOException{
+        read(chunk(PLTE, new byte[257 * 3]));
+    }
+
+    @Test(expected = ArcRuntimeException.class)
+    public void paletteNotMultipleOfThree() throws IOException{
+        read(chunk(PLTE, new byte[10]));
+    }
+
+    @Test(expected = ArcRuntimeException.class)
+    public void transparencyTooLarge() throws IOException{
+        read(chunk(PLTE, new byte[4 * 3]), chunk(TRNS, new byte[300]));
+    }
+
+    /** Reads a 1x1 palette PNG with the specified chunks after the header. */
+    private static void read(byte[]... chunks) throws IOException{
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.write(new byte[]{(byte)137, 80, 78, 71, 13, 10, 26, 10});
+        output.write(chunk(IHDR, new byte[]{0, 0, 0, 1, 0, 0, 0, 1, 8, 3, 0, 0, 0}));
+        for(byte[] chunk : chunks) output.write(chunk);
+
+        PNGReader reader = new PNGReader();
+        try{
+            reader.read(new ByteArrayInputStream(bytes.toByteArray()));
+        }finally{
+            reader.dispose();
+        }
+    }
+
+    /** Writes a chunk with a zero checksum, as the checks happen before it is read. */
+    private static byte[] chunk(int type, byte[] data) throws IOException{
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(data.length);
+        output.writeInt(type);
+        output.write(data);
+        output.writeInt(0);
+        return bytes.toByteArray();
+    }
+}
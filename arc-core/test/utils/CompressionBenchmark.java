@@ -0,0 +1,116 @@
+package utils;
+
+import io.anuke.arc.util.compression.BlockCompressor;
+import io.anuke.arc.util.compression.BlockCompressor.Codec;
+import io.anuke.arc.util.compression.Lz4InputStream;
+import io.anuke.arc.util.compression.Lz4OutputStream;
+import io.anuke.arc.util.compression.Lzma;
+import io.anuke.arc.util.io.FastDeflaterOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compares the ratio and throughput of deflate, {@link Lzma}, the {@link Lz4OutputStream LZ4 streams} and both codecs of
+ * {@link BlockCompressor}. This is not a unit test; run the main method.
+ */
+public class CompressionBenchmark{
+    static final int size = 4 * 1024 * 1024, warmup = 1, iterations = 3;
+
+    public static void main(String[] args) throws IOException{
+        byte[] data = data();
+        System.out.printf("%-16s %10s %10s %8s%n", "", "compress", "decompress", "ratio");
+
+        run("deflate", data, out -> new FastDeflaterOutputStream(out), InflaterInputStream::new);
+        run("lz4 stream", data, Lz4OutputStream::new, Lz4InputStream::new);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        long compress = time(() -> {
+            out.reset();
+            Lzma.compress(new ByteArrayInputStream(data), out);
+        });
+        byte[] compressed = out.toByteArray();
+        long decompress = time(() -> {
+            out.reset();
+            Lzma.decompress(new ByteArrayInputStream(compressed), out);
+        });
+        report("lzma", compress, decompress, compressed.length);
+
+        for(Codec codec : Codec.values()){
+            BlockCompressor compressor = new BlockCompressor(codec);
+            byte[][] result = new byte[1][];
+            compress = time(() -> result[0] = compressor.compress(data));
+            decompress = time(() -> compressor.decompress(result[0]));
+            report("parallel " + codec, compress, decompress, result[0].length);
+            compressor.dispose();
+        }
+    }
+
+    static void run(String name, byte[] data, Wrapper<OutputStream> compressor, Wrapper<InputStream> decompressor) throws IOException{
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        byte[] buffer = new byte[8192];
+        long compress = time(() -> {
+            out.reset();
+            OutputStream stream = compressor.wrap(out);
+            stream.write(data);
+            stream.close();
+        });
+        byte[] compressed = out.toByteArray();
+        long decompress = time(() -> {
+            InputStream stream = decompressor.wrap(new ByteArrayInputStream(compressed));
+            while(stream.read(buffer) != -1){
+            }
+        });
+        report(name, compress, decompress, compressed.length);
+    }
+
+    static long time(Task task) throws IOException{
+        for(int i = 0; i < warmup; i++) task.run();
+        long time = System.nanoTime();
+        for(int i = 0; i < iterations; i++) task.run();
+        return (System.nanoTime() - time) / iterations;
+    }
+
+    static void report(String name, long compress, long decompress, int length){
+        double megabytes = size / 1024.0 / 1024.0;
+        System.out.printf("%-16s %7.1f MB/s %7.1f MB/s %7.3f%n", name, megabytes / (compress / 1e9), megabytes / (decompress / 1e9), (double)length / size);
+    }
+
+    /** Generates data that compresses roughly like a save: structured text, runs of tiles and some noise. */
+    static byte[] data(){
+        Random random = new Random(0);
+        byte[] data = new byte[size];
+        String[] words = {"\"tile\":", "\"block\":", "\"team\":", "\"health\":", "100", "{", "}", ",", "\"conveyor\"", "\n"};
+        int i = 0;
+        while(i < size){
+            int kind = random.nextInt(3);
+            int length = Math.min(size - i, 1000 + random.nextInt(4000));
+            for(int j = 0; j < length; ){
+                if(kind == 0){
+                    byte[] word = words[random.nextInt(words.length)].getBytes();
+                    for(int k = 0; k < word.length && j < length; k++) data[i + j++] = word[k];
+                }else if(kind == 1){
+                    byte tile = (byte)random.nextInt(16);
+                    for(int run = random.nextInt(40); run > 0 && j < length; run--) data[i + j++] = tile;
+                }else{
+                    data[i + j++] = (byte)random.nextInt(8);
+                }
+            }
+            i += length;
+        }
+        return data;
+    }
+
+    interface Wrapper<T>{
+        T wrap(T stream) throws IOException;
+    }
+
+    interface Task{
+        void run() throws IOException;
+    }
+}
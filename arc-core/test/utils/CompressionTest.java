@@ -0,0 +1,183 @@
+package utils;
+
+import io.anuke.arc.util.ArcRuntimeException;
+import io.anuke.arc.util.compression.BlockCompressor;
+import io.anuke.arc.util.compression.BlockCompressor.Codec;
+import io.anuke.arc.util.compression.CRC;
+import io.anuke.arc.util.compression.Lz4;
+import io.anuke.arc.util.compression.Lz4InputStream;
+import io.anuke.arc.util.compression.Lz4OutputStream;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompressionTest{
+
+    @Test
+    public void blocks(){
+        for(byte[] data : samples()){
+            byte[] compressed = new byte[Lz4.maxCompressedLength(data.length)];
+            int length = Lz4.compress(data, 0, data.length, compressed, 0);
+            byte[] result = new byte[data.length];
+            assertEquals(data.length, Lz4.decompress(compressed, 0, length, result, 0, result.length));
+            assertArrayEquals(data, result);
+        }
+    }
+
+    @Test
+    public void repetitiveDataCompresses(){
+        byte[] data = new byte[100000];
+        for(int i = 0; i < data.length; i++) data[i] = (byte)(i % 7);
+        byte[] compressed = new byte[Lz4.maxCompressedLength(data.length)];
+        assertTrue(Lz4.compress(data, 0, data.length, compressed, 0) < 1000);
+    }
+
+    @Test(expected = ArcRuntimeException.class)
+    public void malformedBlock(){
+        byte[] data = samples()[2];
+        byte[] compressed = new byte[Lz4.maxCompressedLength(data.length)];
+        int length = Lz4.compress(data, 0, data.length, compressed, 0);
+        Lz4.decompress(compressed, 0, length, new byte[data.length - 1], 0, data.length - 1);
+    }
+
+    @Test
+    public void streams() throws IOException{
+        for(byte[] data : samples()){
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            Lz4OutputStream out = new Lz4OutputStream(bytes, 1000);
+            for(int i = 0; i < data.length; ){
+                if(i % 3 == 0){
+                    out.write(data[i++]);
+                }else{
+                    int count = Math.min(data.length - i, i * 7 % 2500);
+                    out.write(data, i, count);
+                    i += count;
+                    if(i % 5 == 0) out.flush();
+                }
+            }
+            out.close();
+
+            assertArrayEquals(data, readAll(new Lz4InputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+        }
+    }
+
+    @Test
+    public void parallel() throws IOException{
+        for(Codec codec : Codec.values()){
+            BlockCompressor compressor = new BlockCompressor(codec, 3);
+            compressor.setBlockSize(5000);
+            for(byte[] data : samples()){
+                byte[] compressed = compressor.compress(data);
+                assertArrayEquals(data, compressor.decompress(compressed));
+                if(codec == Codec.lz4){
+                    assertArrayEquals(data, readAll(new Lz4InputStream(new ByteArrayInputStream(compressed))));
+                }
+            }
+            compressor.dispose();
+        }
+    }
+
+    @Test
+    public void checksums(){
+        byte[] check = "123456789".getBytes();
+        byte[] data = samples()[4];
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data).flip();
+
+        for(boolean intrinsics : new boolean[]{false, true}){
+            CRC.useIntrinsics = intrinsics;
+            try{
+                CRC crc = new CRC(), crcc = new CRC(true);
+                crc.Update(check);
+                crcc.update(check);
+                assertEquals(0xCBF43926, crc.GetDigest());
+                assertEquals(0xE3069283, (int)crcc.getValue());
+
+                //slicing over the whole array must match the byte-wise table and buffers
+                int bytewise = ~0;
+                for(byte b : data) bytewise = CRC.Table[(bytewise ^ b) & 0xFF] ^ (bytewise >>> 8);
+                assertEquals(~bytewise, CRC.crc32(data, 0, data.length));
+
+                crc.reset();
+                crc.update(direct.duplicate());
+                assertEquals(~bytewise, (int)crc.getValue());
+
+                crcc.reset();
+                crcc.update(data, 0, 1001);
+                crcc.update(ByteBuffer.wrap(data, 1001, data.length - 1001));
+                assertEquals(CRC.crc32c(data, 0, data.length), (int)crcc.getValue());
+            }finally{
+                CRC.useIntrinsics = true;
+            }
+        }
+    }
+
+    @Test
+    public void checkedStreams() throws IOException{
+        byte[] data = samples()[2];
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Lz4OutputStream out = new Lz4OutputStream(bytes, 4096, true);
+        out.write(data);
+        out.close();
+        assertArrayEquals(data, readAll(new Lz4InputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+
+        for(Codec codec : Codec.values()){
+            BlockCompressor compressor = new BlockCompressor(codec, 2);
+            compressor.setBlockSize(8000);
+            compressor.setChecksum(true);
+            for(byte[] sample : samples()){
+                assertArrayEquals(sample, compressor.decompress(compressor.compress(sample)));
+            }
+
+            byte[] compressed = compressor.compress(data);
+            //flip a bit in the data of the first block, after the stream header, block length, checksum and LZMA header
+            compressed[8 + 8 + 40] ^= 1;
+            try{
+                compressor.decompress(compressed);
+                fail("Corrupted " + codec + " data was decompressed");
+            }catch(IOException e){
+            }
+            compressor.dispose();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedStream() throws IOException{
+        BlockCompressor compressor = new BlockCompressor(Codec.lz4, 1);
+        byte[] compressed = compressor.compress(samples()[3]);
+        byte[] truncated = new byte[compressed.length - 10];
+        System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+        compressor.decompress(truncated);
+    }
+
+    static byte[] readAll(InputStream in) throws IOException{
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[777];
+        int read;
+        while((read = in.read(buffer)) != -1) out.write(buffer, 0, read);
+        return out.toByteArray();
+    }
+
+    /** Empty, tiny, incompressible, text-like and run-length data, with overlapping matches and long literal runs. */
+    static byte[][] samples(){
+        Random random = new Random(1);
+        byte[] noise = new byte[20000];
+        random.nextBytes(noise);
+
+        StringBuilder text = new StringBuilder();
+        String[] words = {"tile", "block", "unit", "\"health\":", "100", "{", "}", ",", "conveyor", "\n"};
+        while(text.length() < 50000) text.append(words[random.nextInt(words.length)]).append(' ');
+
+        byte[] runs = new byte[70000];
+        for(int i = 0; i < runs.length; i++) runs[i] = (byte)((i / 300) % 3 == 0 ? random.nextInt() : i / 1000);
+
+        return new byte[][]{new byte[0], {1, 2, 3}, text.toString().getBytes(), noise, runs, new byte[13], new byte[70000]};
+    }
+}
@@ -0,0 +1,162 @@
+package utils;
+
+import io.anuke.arc.collection.Array;
+import io.anuke.arc.collection.OrderedMap;
+import io.anuke.arc.util.serialization.Json;
+import io.anuke.arc.util.serialization.Json.ReadOnlySerializer;
+import io.anuke.arc.util.serialization.JsonPullParser;
+import io.anuke.arc.util.serialization.JsonPullParser.Token;
+import io.anuke.arc.util.serialization.JsonValue;
+import io.anuke.arc.util.serialization.SerializationException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JsonStreamingTest{
+
+    @Test
+    public void tokens(){
+        JsonPullParser parser = new JsonPullParser().parse("{a:1,\"b c\":[2.5,true,null,\"s\\n\"],d:{}}");
+
+        assertEquals(Token.startObject, parser.next());
+        assertEquals(3, parser.getSize());
+        assertEquals(Token.name, parser.next());
+        assertTrue(parser.matches("a"));
+        assertEquals(Token.longValue, parser.next());
+        assertEquals(1, parser.getInt());
+        assertEquals(Token.name, parser.next());
+        assertEquals("b c", parser.getString());
+        assertEquals(Token.startArray, parser.next());
+        assertEquals(4, parser.getSize());
+        assertEquals(Token.doubleValue, parser.next());
+        assertEquals(2.5f, parser.getFloat(), 0f);
+        assertEquals(Token.booleanValue, parser.next());
+        assertTrue(parser.getBoolean());
+        assertEquals(Token.nullValue, parser.next());
+        assertNull(parser.getString());
+        assertEquals(Token.stringValue, parser.next());
+        assertTrue(parser.isEscaped());
+        assertEquals("s\n", parser.getString());
+        assertEquals(Token.endArray, parser.next());
+        parser.skipValue();
+        assertEquals(Token.endObject, parser.token());
+        assertEquals(Token.endObject, parser.next());
+        assertEquals(Token.end, parser.next());
+    }
+
+    @Test
+    public void skipAndValue(){
+        JsonPullParser parser = new JsonPullParser().parse("[{class:x,a:[1,2,{}]},{b:2}]");
+        parser.next();
+        parser.next();
+        assertEquals("x", parser.getString("class", null));
+        assertEquals(Token.startObject, parser.token());
+        parser.skipChildren();
+        assertEquals(Token.endObject, parser.token());
+
+        parser.next();
+        JsonValue value = parser.getValue();
+        assertEquals(2, value.getInt("b"));
+        assertEquals(Token.endObject, parser.token());
+        assertEquals(Token.endArray, parser.next());
+    }
+
+    @Test(expected = SerializationException.class)
+    public void unmatched(){
+        new JsonPullParser().parse("{a:[1,2}");
+    }
+
+    @Test
+    public void bindingMatchesDom(){
+        Data data = new Data();
+        for(int i = 0; i < 50; i++){
+            Item item = new Item();
+            item.id = i;
+            item.weight = i * 0.5f;
+            item.name = "item \"" + i + "\"";
+            item.kind = Kind.values()[i % 2];
+            item.values = new float[]{i, -i};
+            if(i % 10 == 0) item.extra = new Extra();
+            data.items.add(item);
+            data.named.put(item.name, item);
+        }
+
+        Json json = new Json();
+        json.setElementType(Data.class, "items", Item.class);
+        json.setElementType(Data.class, "named", Item.class);
+        String text = json.toJson(data);
+
+        Data dom = json.fromJson(Data.class, text);
+        json.setStreaming(true);
+        Data streamed = json.fromJson(Data.class, text);
+
+        assertEquals(json.toJson(dom), json.toJson(streamed));
+        assertEquals(text, json.toJson(streamed));
+        assertTrue(((Extra)streamed.items.get(10).extra).read);
+    }
+
+    @Test
+    public void primitiveSerializers(){
+        Json json = new Json();
+        json.setSerializer(int.class, new ReadOnlySerializer<Integer>(){
+            @Override
+            public Integer read(Json json, JsonValue jsonData, Class type){
+                return jsonData.asInt() * 2;
+            }
+        });
+        json.setSerializer(float.class, new ReadOnlySerializer<Float>(){
+            @Override
+            public Float read(Json json, JsonValue jsonData, Class type){
+                return jsonData.asFloat() * 10;
+            }
+        });
+
+        //serializers for primitive types must be used instead of reading the values directly
+        for(boolean streaming : new boolean[]{false, true}){
+            json.setStreaming(streaming);
+            Item item = json.fromJson(Item.class, "{id:4,weight:1.5,values:[1,2]}");
+            assertEquals(8, item.id);
+            assertEquals(15f, item.weight, 0f);
+            assertArrayEquals(new float[]{10f, 20f}, item.values, 0f);
+        }
+    }
+
+    @Test(expected = SerializationException.class)
+    public void unknownField(){
+        Json json = new Json();
+        json.setStreaming(true);
+        json.fromJson(Item.class, "{missing:1}");
+    }
+
+    public enum Kind{
+        a, b
+    }
+
+    public static class Data{
+        public Array<Item> items = new Array<>();
+        public OrderedMap<String, Item> named = new OrderedMap<>();
+    }
+
+    public static class Item{
+        public int id;
+        public float weight;
+        public String name;
+        public Kind kind;
+        public float[] values;
+        public Object extra;
+    }
+
+    public static class Extra implements Json.Serializable{
+        transient boolean read;
+
+        @Override
+        public void write(Json json){
+            json.writeValue("value", 1);
+        }
+
+        @Override
+        public void read(Json json, JsonValue jsonData){
+            read = jsonData.getInt("value") == 1;
+        }
+    }
+}
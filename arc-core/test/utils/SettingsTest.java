@@ -0,0 +1,202 @@
+package utils;
+
+import io.anuke.arc.Settings;
+import io.anuke.arc.files.FileHandle;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class SettingsTest{
+
+    @Test
+    public void journal() throws IOException{
+        FileHandle directory = directory();
+        Settings settings = settings(directory);
+        settings.put("int", 5);
+        settings.put("float", 1.5f);
+        settings.put("bool", true);
+        settings.put("string", "text");
+        settings.put("bytes", new byte[]{1, 2, 3});
+        settings.put("long", 1L << 40);
+        settings.saveValues();
+
+        settings.put("int", 6);
+        settings.remove("string");
+        settings.saveValues();
+        settings.awaitWrites();
+
+        assertTrue(settings.getJournalFile().exists());
+
+        Settings loaded = settings(directory);
+        loaded.loadValues();
+        assertEquals(6, loaded.getInt("int", 0));
+        assertEquals(1.5f, loaded.getFloat("float", 0f), 0f);
+        assertTrue(loaded.getBool("bool", false));
+        assertFalse(loaded.has("string"));
+        assertArrayEquals(new byte[]{1, 2, 3}, loaded.getBytes("bytes", null));
+        assertEquals(1L << 40, loaded.getLong("long", 0));
+    }
+
+    @Test
+    public void compaction(){
+        FileHandle directory = directory();
+        Settings settings = settings(directory);
+        settings.put("first", 1);
+        settings.saveValues();
+
+        for(int i = 0; i < 3000; i++){
+            settings.put("value" + (i % 10), i);
+            settings.saveValues();
+        }
+        settings.awaitWrites();
+
+        //the journal is rewritten into the settings file once it grows larger than it
+        assertTrue(settings.getJournalFile().length() < settings.getSettingsFile().length() + 16 * 1024);
+
+        Settings loaded = settings(directory);
+        loaded.loadValues();
+        assertEquals(1, loaded.getInt("first", 0));
+        assertEquals(2999, loaded.getInt("value9", 0));
+    }
+
+    @Test
+    public void tornJournal() throws IOException{
+        FileHandle directory = directory();
+        Settings settings = settings(directory);
+        settings.put("a", 1);
+        settings.saveValues();
+        settings.put("a", 2);
+        settings.saveValues();
+        settings.put("a", 3);
+        settings.saveValues();
+        settings.awaitWrites();
+
+        //cut the last record in half, as a crash during the write would
+        File journal = settings.getJournalFile().file();
+        try(RandomAccessFile file = new RandomAccessFile(journal, "rw")){
+            file.setLength(file.length() - 3);
+        }
+
+        Settings loaded = settings(directory);
+        loaded.loadValues();
+        assertEquals(2, loaded.getInt("a", 0));
+
+        //the next save rewrites the settings file instead of appending to the torn journal
+        loaded.put("b", 1);
+        loaded.saveValues();
+        loaded.awaitWrites();
+        assertFalse(loaded.getJournalFile().exists());
+
+        Settings reloaded = settings(directory);
+        reloaded.loadValues();
+        assertEquals(2, reloaded.getInt("a", 0));
+        assertEquals(1, reloaded.getInt("b", 0));
+    }
+
+    @Test
+    public void oldFormat() throws IOException{
+        FileHandle directory = directory();
+        Settings settings = settings(directory);
+        try(DataOutputStream stream = new DataOutputStream(settings.getSettingsFile().write(false))){
+            stream.writeInt(2);
+            stream.writeUTF("int");
+            stream.writeByte(1);
+            stream.writeInt(7);
+            stream.writeUTF("string");
+            stream.writeByte(4);
+            stream.writeUTF("old");
+        }
+
+        settings.loadValues();
+        assertEquals(7, settings.getInt("int", 0));
+        settings.put("int", 8);
+        settings.saveValues();
+        settings.awaitWrites();
+
+        Settings loaded = settings(directory);
+        loaded.loadValues();
+        assertEquals(8, loaded.getInt("int", 0));
+        assertEquals("old", loaded.getString("string", null));
+    }
+
+    @Test
+    public void corruptedFileUsesBackup() throws IOException{
+        FileHandle directory = directory();
+        Settings settings = settings(directory);
+        settings.setJournaled(false);
+        settings.setAsyncWrites(false);
+        settings.put("a", 1);
+        settings.saveValues();
+
+        byte[] bytes = settings.getSettingsFile().readBytes();
+        bytes[bytes.length / 2] ^= 1;
+        settings.getSettingsFile().writeBytes(bytes, false);
+
+        Settings loaded = settings(directory);
+        loaded.loadValues();
+        assertEquals(1, loaded.getInt("a", 0));
+    }
+
+    @Test
+    public void backupFallbackRewritesSettings() throws IOException{
+        FileHandle directory = directory();
+        Settings settings = settings(directory);
+        settings.setAsyncWrites(false);
+        settings.put("a", 1);
+        settings.saveValues();
+
+        byte[] bytes = settings.getSettingsFile().readBytes();
+        bytes[bytes.length / 2] ^= 1;
+        settings.getSettingsFile().writeBytes(bytes, false);
+
+        Settings loaded = settings(directory);
+        loaded.setAsyncWrites(false);
+        loaded.loadValues();
+        loaded.put("b", 2);
+        loaded.saveValues();
+        //the save after a fallback rewrites the settings file instead of appending to a journal
+        assertFalse(loaded.getJournalFile().exists());
+
+        Settings reloaded = settings(directory);
+        reloaded.loadValues();
+        assertEquals(1, reloaded.getInt("a", 0));
+        assertEquals(2, reloaded.getInt("b", 0));
+    }
+
+    @Test(timeout = 10000)
+    public void asyncWritesAfterWriterStops(){
+        FileHandle directory = directory();
+        Settings settings = settings(directory);
+        for(int i = 0; i < 5; i++){
+            settings.put("a", i);
+            settings.saveValues();
+            settings.awaitWrites();
+        }
+
+        Settings loaded = settings(directory);
+        loaded.loadValues();
+        assertEquals(4, loaded.getInt("a", -1));
+    }
+
+    static Settings settings(FileHandle directory){
+        Settings settings = new Settings();
+        settings.setDataDirectory(directory);
+        return settings;
+    }
+
+    static FileHandle directory(){
+        try{
+            File file = Files.createTempDirectory("settings").toFile();
+            file.deleteOnExit();
+            return new FileHandle(file);
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
+    }
+}
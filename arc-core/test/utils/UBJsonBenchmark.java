@@ -0,0 +1,141 @@
+package utils;
+
+import io.anuke.arc.util.serialization.JsonValue;
+import io.anuke.arc.util.serialization.UBJsonReader;
+import io.anuke.arc.util.serialization.UBJsonView;
+import io.anuke.arc.util.serialization.UBJsonWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Random;
+
+/**
+ * Compares writing and reading UBJSON through streams and through {@link ByteBuffer}s, and reading single values with a
+ * {@link UBJsonView} of a memory-mapped file. This is not a unit test; run the main method.
+ */
+public class UBJsonBenchmark{
+    static final int entities = 20000, tiles = 1 << 20, warmup = 5, iterations = 20;
+
+    public static void main(String[] args) throws IOException{
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+
+        for(int i = 0; i < warmup; i++){
+            out.reset();
+            write(new UBJsonWriter(out));
+            buffer = write(new UBJsonWriter(buffer)).getBuffer();
+            buffer.clear();
+        }
+
+        long time = System.nanoTime();
+        for(int i = 0; i < iterations; i++){
+            out.reset();
+            write(new UBJsonWriter(out));
+        }
+        report("stream write", time, out.size());
+
+        time = System.nanoTime();
+        for(int i = 0; i < iterations; i++){
+            buffer.clear();
+            buffer = write(new UBJsonWriter(buffer)).getBuffer();
+        }
+        report("buffer write", time, buffer.position());
+
+        byte[] bytes = out.toByteArray();
+        ByteBuffer heap = ByteBuffer.wrap(bytes);
+        UBJsonReader reader = new UBJsonReader();
+        reader.oldFormat = false;
+
+        for(int i = 0; i < warmup; i++){
+            reader.parse(new ByteArrayInputStream(bytes));
+            reader.parse(heap);
+        }
+
+        time = System.nanoTime();
+        for(int i = 0; i < iterations; i++){
+            reader.parse(new ByteArrayInputStream(bytes));
+        }
+        report("stream parse", time, bytes.length);
+
+        time = System.nanoTime();
+        for(int i = 0; i < iterations; i++){
+            reader.parse(heap);
+        }
+        report("buffer parse", time, bytes.length);
+
+        File file = File.createTempFile("ubjson", ".bin");
+        file.deleteOnExit();
+        try(RandomAccessFile access = new RandomAccessFile(file, "rw")){
+            access.write(bytes);
+            MappedByteBuffer mapped = access.getChannel().map(MapMode.READ_ONLY, 0, bytes.length);
+
+            for(int i = 0; i < warmup; i++){
+                reader.parse(mapped);
+                lookup(new UBJsonView(mapped, false));
+            }
+
+            time = System.nanoTime();
+            for(int i = 0; i < iterations; i++){
+                reader.parse(mapped);
+            }
+            report("mapped parse", time, bytes.length);
+
+            long sum = 0;
+            time = System.nanoTime();
+            for(int i = 0; i < iterations; i++){
+                sum += lookup(new UBJsonView(mapped, false));
+            }
+            report("mapped view lookup", time, sum);
+
+            JsonValue value = reader.parse(mapped);
+            sum = 0;
+            time = System.nanoTime();
+            for(int i = 0; i < iterations; i++){
+                sum += value.get("tiles").asIntArray().length;
+            }
+            report("DOM tiles copy", time, sum);
+        }
+    }
+
+    /** Reads the tiles and one entity in the middle, which is what loading a save without its entities does. */
+    static long lookup(UBJsonView root){
+        UBJsonView entity = root.get("entities").get(entities / 2);
+        return root.get("tiles").asIntArray().length + entity.getInt("id", 0);
+    }
+
+    /** Writes a document shaped like a save: a large tile array and many small objects. */
+    static UBJsonWriter write(UBJsonWriter writer) throws IOException{
+        Random random = new Random(0);
+        int[] map = new int[tiles];
+        for(int i = 0; i < map.length; i++) map[i] = random.nextInt(64);
+
+        writer.object();
+        writer.set("version", 3);
+        writer.set("tiles", map);
+        writer.array("entities");
+        for(int i = 0; i < entities; i++){
+            writer.object();
+            writer.set("id", i);
+            writer.set("x", random.nextFloat() * 1000f);
+            writer.set("y", random.nextFloat() * 1000f);
+            writer.set("name", "entity" + i);
+            writer.set("health", random.nextInt(100));
+            writer.pop();
+        }
+        writer.pop();
+        writer.pop();
+        writer.flush();
+        return writer;
+    }
+
+    static void report(String name, long start, long bytes){
+        double seconds = (System.nanoTime() - start) / 1000000000.0 / iterations;
+        System.out.printf("%-20s %8.2f ms %12d%n", name, seconds * 1000, bytes);
+    }
+}
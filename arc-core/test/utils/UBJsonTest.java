@@ -0,0 +1,140 @@
+package utils;
+
+import io.anuke.arc.util.serialization.JsonValue;
+import io.anuke.arc.util.serialization.UBJsonReader;
+import io.anuke.arc.util.serialization.UBJsonView;
+import io.anuke.arc.util.serialization.UBJsonWriter;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class UBJsonTest{
+
+    @Test
+    public void streamMatchesBuffer() throws IOException{
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        UBJsonWriter writer = new UBJsonWriter(stream);
+        write(writer);
+        writer.close();
+
+        //a small buffer, so that it has to grow
+        UBJsonWriter bufferWriter = new UBJsonWriter(ByteBuffer.allocate(16));
+        write(bufferWriter);
+        bufferWriter.close();
+
+        assertArrayEquals(stream.toByteArray(), bytes(bufferWriter.getBuffer()));
+        assertTrue("document should not fit in the stream buffer", stream.size() > 8192);
+    }
+
+    @Test
+    public void streamWrittenWithoutFlush() throws IOException{
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        UBJsonWriter writer = new UBJsonWriter(stream);
+        write(writer);
+        assertArrayEquals(document(), stream.toByteArray());
+
+        writer.value(5);
+        assertEquals(document().length + 5, stream.size());
+    }
+
+    @Test
+    public void parseBufferMatchesStream() throws IOException{
+        byte[] bytes = document();
+
+        JsonValue fromStream = reader().parse(new ByteArrayInputStream(bytes));
+        JsonValue fromBuffer = reader().parse(ByteBuffer.wrap(bytes));
+
+        assertEquals(fromStream.toString(), fromBuffer.toString());
+        assertEquals(fromStream.get("name").asString(), fromBuffer.get("name").asString());
+        assertEquals(400, fromBuffer.get("entries").size);
+    }
+
+    @Test
+    public void viewMatchesDom() throws IOException{
+        byte[] bytes = document();
+
+        JsonValue dom = reader().parse(new ByteArrayInputStream(bytes));
+        UBJsonView view = new UBJsonView(ByteBuffer.wrap(bytes), false);
+
+        compare(dom, view);
+        assertEquals(400, view.get("entries").size());
+        assertEquals("entry 123", view.get("entries").get(123).getString("label", null));
+        assertEquals(dom.toString(), view.toJsonValue().toString());
+    }
+
+    private static void compare(JsonValue expected, UBJsonView actual){
+        String path = expected.trace();
+        assertEquals(path, expected.type(), actual.type());
+        assertEquals(path, expected.name(), actual.name());
+
+        if(expected.isObject() || expected.isArray()){
+            assertEquals(path, expected.size, actual.size());
+            UBJsonView child = actual.child();
+            for(JsonValue value = expected.child(); value != null; value = value.next()){
+                assertNotNull(path, child);
+                compare(value, child);
+                child = child.next();
+            }
+            assertNull(path, child);
+        }else if(expected.isString()){
+            assertEquals(path, expected.asString(), actual.asString());
+        }else if(expected.isDouble()){
+            assertEquals(path, expected.asDouble(), actual.asDouble(), 0.0);
+        }else if(expected.isLong()){
+            assertEquals(path, expected.asLong(), actual.asLong());
+        }else if(expected.isBoolean()){
+            assertEquals(path, expected.asBoolean(), actual.asBoolean());
+        }else{
+            assertTrue(path, actual.isNull());
+        }
+    }
+
+    private static UBJsonReader reader(){
+        UBJsonReader reader = new UBJsonReader();
+        reader.oldFormat = false;
+        return reader;
+    }
+
+    private static byte[] document() throws IOException{
+        UBJsonWriter writer = new UBJsonWriter(ByteBuffer.allocate(256));
+        write(writer);
+        writer.close();
+        return bytes(writer.getBuffer());
+    }
+
+    private static byte[] bytes(ByteBuffer buffer){
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static void write(UBJsonWriter writer) throws IOException{
+        writer.object();
+        writer.set("name", "document");
+        writer.set("version", 3);
+        writer.set("big", Long.MAX_VALUE);
+        writer.set("ratio", 0.25f);
+        writer.set("precise", Math.PI);
+        writer.set("enabled", true);
+        writer.set("nothing");
+        writer.set("ints", new int[]{1, -2, 300, 70000});
+        writer.set("floats", new float[]{0.5f, -1.5f});
+        writer.set("strings", new String[]{"a", "", "é中"});
+        writer.array("entries");
+        for(int i = 0; i < 400; i++){
+            writer.object();
+            writer.set("id", i);
+            writer.set("label", "entry " + i);
+            writer.set("weight", i * 1.5);
+            writer.set("flag", i % 2 == 0);
+            writer.pop();
+        }
+        writer.pop();
+        writer.object("empty").pop();
+        writer.pop();
+    }
+}
@@ -24,8 +24,9 @@ public class GwtSettings extends Settings{
 
             // push new values to LocalStorage
             for(String key : values.keys()){
-                String storageKey = toStorageKey(key, values.get(key));
-                String storageValue = "" + values.get(key).toString();
+                Object value = values.get(key).get();
+                String storageKey = toStorageKey(key, value);
+                String storageValue = "" + value.toString();
                 GwtFiles.LocalStorage.setItem(storageKey, storageValue);
             }
 
@@ -42,12 +43,13 @@ public class GwtSettings extends Settings{
                 String key = GwtFiles.LocalStorage.key(i);
                 if(key.startsWith(prefix)){
                     String value = GwtFiles.LocalStorage.getItem(key);
-                    values.put(key.substring(prefix.length(), key.length() - 1), toObject(key, value));
+                    put(key.substring(prefix.length(), key.length() - 1), toObject(key, value));
                 }
             }
         }catch(Exception e){
             values.clear();
         }
+        changed.clear();
     }
 
     private Object toObject(String key, String value){
@@ -151,4 +151,86 @@ public final class Field{
             throw new ReflectionException("Illegal access to field " + getName() + ": " + e.getMessage(), e);
         }
     }
+
+    //GWT reflection has no primitive accessors, so these box the value
+
+    /** Returns the value of an int field on the supplied object. */
+    public int getInt(Object obj) throws ReflectionException{
+        return (Integer)get(obj);
+    }
+
+    /** Sets the value of an int field on the supplied object. */
+    public void setInt(Object obj, int value) throws ReflectionException{
+        set(obj, value);
+    }
+
+    /** Returns the value of a long field on the supplied object. */
+    public long getLong(Object obj) throws ReflectionException{
+        return (Long)get(obj);
+    }
+
+    /** Sets the value of a long field on the supplied object. */
+    public void setLong(Object obj, long value) throws ReflectionException{
+        set(obj, value);
+    }
+
+    /** Returns the value of a float field on the supplied object. */
+    public float getFloat(Object obj) throws ReflectionException{
+        return (Float)get(obj);
+    }
+
+    /** Sets the value of a float field on the supplied object. */
+    public void setFloat(Object obj, float value) throws ReflectionException{
+        set(obj, value);
+    }
+
+    /** Returns the value of a double field on the supplied object. */
+    public double getDouble(Object obj) throws ReflectionException{
+        return (Double)get(obj);
+    }
+
+    /** Sets the value of a double field on the supplied object. */
+    public void setDouble(Object obj, double value) throws ReflectionException{
+        set(obj, value);
+    }
+
+    /** Returns the value of a short field on the supplied object. */
+    public short getShort(Object obj) throws ReflectionException{
+        return (Short)get(obj);
+    }
+
+    /** Sets the value of a short field on the supplied object. */
+    public void setShort(Object obj, short value) throws ReflectionException{
+        set(obj, value);
+    }
+
+    /** Returns the value of a byte field on the supplied object. */
+    public byte getByte(Object obj) throws ReflectionException{
+        return (Byte)get(obj);
+    }
+
+    /** Sets the value of a byte field on the supplied object. */
+    public void setByte(Object obj, byte value) throws ReflectionException{
+        set(obj, value);
+    }
+
+    /** Returns the value of a char field on the supplied object. */
+    public char getChar(Object obj) throws ReflectionException{
+        return (Character)get(obj);
+    }
+
+    /** Sets the value of a char field on the supplied object. */
+    public void setChar(Object obj, char value) throws ReflectionException{
+        set(obj, value);
+    }
+
+    /** Returns the value of a boolean field on the supplied object. */
+    public boolean getBoolean(Object obj) throws ReflectionException{
+        return (Boolean)get(obj);
+    }
+
+    /** Sets the value of a boolean field on the supplied object. */
+    public void setBoolean(Object obj, boolean value) throws ReflectionException{
+        set(obj, value);
+    }
 }
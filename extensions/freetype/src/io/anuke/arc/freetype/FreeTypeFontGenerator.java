@@ -7,10 +7,12 @@ import io.anuke.arc.files.FileHandle;
 import io.anuke.arc.graphics.Color;
 import io.anuke.arc.graphics.Pixmap;
 import io.anuke.arc.graphics.Pixmap.Format;
+import io.anuke.arc.graphics.PixmapKernels;
 import io.anuke.arc.graphics.Texture.TextureFilter;
 import io.anuke.arc.graphics.g2d.BitmapFont;
 import io.anuke.arc.graphics.g2d.BitmapFont.BitmapFontData;
 import io.anuke.arc.graphics.g2d.BitmapFont.Glyph;
+import io.anuke.arc.graphics.g2d.DistanceFieldFont;
 import io.anuke.arc.graphics.g2d.GlyphLayout.GlyphRun;
 import io.anuke.arc.graphics.g2d.PixmapPacker;
 import io.anuke.arc.graphics.g2d.PixmapPacker.GuillotineStrategy;
@@ -206,9 +208,16 @@ public class FreeTypeFontGenerator implements Disposable{
         if(updateTextureRegions) data.regions = new Array<>();
         generateData(parameter, data);
         if(updateTextureRegions)
-            parameter.packer.updateTextureRegions(data.regions, parameter.minFilter, parameter.magFilter, parameter.genMipMaps);
+            parameter.packer.updateTextureRegions(data.regions, minFilter(parameter), magFilter(parameter), parameter.genMipMaps);
         if(data.regions.isEmpty()) throw new ArcRuntimeException("Unable to create a font with no texture regions.");
-        BitmapFont font = new BitmapFont(data, data.regions, true);
+        BitmapFont font;
+        if(parameter.distanceField){
+            DistanceFieldFont fieldFont = new DistanceFieldFont(data, data.regions, false);
+            fieldFont.setDistanceFieldSmoothing(parameter.distanceFieldSpread);
+            font = fieldFont;
+        }else{
+            font = new BitmapFont(data, data.regions, true);
+        }
         font.setOwnsTexture(parameter.packer == null);
         return font;
     }
@@ -444,6 +453,8 @@ public class FreeTypeFontGenerator implements Disposable{
                 }
             }
         }
+        // Distance fields are computed for all glyphs at once, after FreeType has rendered them.
+        Array<RenderedGlyph> rendered = parameter.distanceField ? new Array<>(charactersLength) : null;
         int heightsCount = heights.length;
         while(heightsCount > 0){
             int best = 0, maxHeight = heights[0];
@@ -457,10 +468,18 @@ public class FreeTypeFontGenerator implements Disposable{
 
             char c = characters[best];
             if(data.getGlyph(c) == null){
-                Glyph glyph = createGlyph(c, data, parameter, stroker, baseLine, packer);
-                if(glyph != null){
-                    data.setGlyph(c, glyph);
-                    if(incremental) data.glyphs.add(glyph);
+                if(rendered != null){
+                    RenderedGlyph glyph = renderGlyph(c, parameter, stroker, baseLine);
+                    if(glyph != null){
+                        data.setGlyph(c, glyph.glyph);
+                        rendered.add(glyph);
+                    }
+                }else{
+                    Glyph glyph = createGlyph(c, data, parameter, stroker, baseLine, packer);
+                    if(glyph != null){
+                        data.setGlyph(c, glyph);
+                        if(incremental) data.glyphs.add(glyph);
+                    }
                 }
             }
 
@@ -471,6 +490,20 @@ public class FreeTypeFontGenerator implements Disposable{
             characters[heightsCount] = tmpChar;
         }
 
+        if(rendered != null){
+            FreeTypeFontParameter fieldParameter = parameter;
+            PixmapKernels.parallel(rendered.size, parameter.size * parameter.size * 4, (start, end) -> {
+                for(int i = start; i < end; i++){
+                    toDistanceField(rendered.get(i), fieldParameter);
+                }
+            });
+            // Pack in the same order as they were rendered, largest first.
+            for(RenderedGlyph glyph : rendered){
+                packGlyph(glyph, data, parameter, packer);
+                if(incremental) data.glyphs.add(glyph.glyph);
+            }
+        }
+
         if(stroker != null && !incremental) stroker.dispose();
 
         if(incremental){
@@ -506,7 +539,7 @@ public class FreeTypeFontGenerator implements Disposable{
         // Generate texture regions.
         if(ownsAtlas){
             data.regions = new Array();
-            packer.updateTextureRegions(data.regions, parameter.minFilter, parameter.magFilter, parameter.genMipMaps);
+            packer.updateTextureRegions(data.regions, minFilter(parameter), magFilter(parameter), parameter.genMipMaps);
         }
 
         // Set space glyph.
@@ -525,7 +558,14 @@ public class FreeTypeFontGenerator implements Disposable{
     /** @return null if glyph was not found. */
     Glyph createGlyph(char c, FreeTypeBitmapFontData data, FreeTypeFontParameter parameter, Stroker stroker, float baseLine,
                       PixmapPacker packer){
+        RenderedGlyph rendered = renderGlyph(c, parameter, stroker, baseLine);
+        if(rendered == null) return null;
+        if(parameter.distanceField) toDistanceField(rendered, parameter);
+        return packGlyph(rendered, data, parameter, packer);
+    }
 
+    /** Renders a glyph to a pixmap without packing it. @return null if glyph was not found. */
+    RenderedGlyph renderGlyph(char c, FreeTypeFontParameter parameter, Stroker stroker, float baseLine){
         boolean missing = face.getCharIndex(c) == 0 && c != 0;
         if(missing) return null;
 
@@ -642,18 +682,56 @@ public class FreeTypeFontGenerator implements Disposable{
             }
         }
 
-        Rectangle rect = packer.pack(mainPixmap);
+        mainGlyph.dispose();
+
+        RenderedGlyph rendered = new RenderedGlyph();
+        rendered.glyph = glyph;
+        rendered.pixmap = mainPixmap;
+        return rendered;
+    }
+
+    /**
+     * Replaces the pixmap of a rendered glyph with a signed distance field of its shape, padded by the spread. Does not use the
+     * generator, so glyphs can be converted concurrently.
+     */
+    static void toDistanceField(RenderedGlyph rendered, FreeTypeFontParameter parameter){
+        Glyph glyph = rendered.glyph;
+        if(glyph.width == 0 || glyph.height == 0) return;
+
+        int spread = parameter.distanceFieldSpread;
+        Pixmap field = PixmapKernels.distanceField(rendered.pixmap, spread, Color.rgba8888(parameter.color));
+        rendered.pixmap.dispose();
+        rendered.pixmap = field;
+        glyph.width = field.getWidth();
+        glyph.height = field.getHeight();
+        glyph.xoffset -= spread;
+        glyph.yoffset -= spread;
+    }
+
+    /** @return the minification filter of the glyph pages; distance fields need to be interpolated, so they are never nearest */
+    static TextureFilter minFilter(FreeTypeFontParameter parameter){
+        return parameter.distanceField && parameter.minFilter == TextureFilter.Nearest ? TextureFilter.Linear : parameter.minFilter;
+    }
+
+    /** @return the magnification filter of the glyph pages, see {@link #minFilter(FreeTypeFontParameter)} */
+    static TextureFilter magFilter(FreeTypeFontParameter parameter){
+        return parameter.distanceField && parameter.magFilter == TextureFilter.Nearest ? TextureFilter.Linear : parameter.magFilter;
+    }
+
+    /** Packs the pixmap of a rendered glyph and disposes it. */
+    Glyph packGlyph(RenderedGlyph rendered, FreeTypeBitmapFontData data, FreeTypeFontParameter parameter, PixmapPacker packer){
+        Glyph glyph = rendered.glyph;
+        Rectangle rect = packer.pack(rendered.pixmap);
         glyph.page = packer.getPages().size - 1; // Glyph is always packed into the last page for now.
         glyph.srcX = (int)rect.x;
         glyph.srcY = (int)rect.y;
 
         // If a page was added, create a new texture region for the incrementally added glyph.
         if(parameter.incremental && data.regions != null && data.regions.size <= glyph.page)
-            packer.updateTextureRegions(data.regions, parameter.minFilter, parameter.magFilter, parameter.genMipMaps);
-
-        mainPixmap.dispose();
-        mainGlyph.dispose();
+            packer.updateTextureRegions(data.regions, minFilter(parameter), magFilter(parameter), parameter.genMipMaps);
 
+        rendered.pixmap.dispose();
+        rendered.pixmap = null;
         return glyph;
     }
 
@@ -737,7 +815,7 @@ public class FreeTypeFontGenerator implements Disposable{
             super.getGlyphs(run, str, start, end, lastGlyph);
             if(dirty){
                 dirty = false;
-                packer.updateTextureRegions(regions, parameter.minFilter, parameter.magFilter, parameter.genMipMaps);
+                packer.updateTextureRegions(regions, minFilter(parameter), magFilter(parameter), parameter.genMipMaps);
             }
         }
 
@@ -818,6 +896,22 @@ public class FreeTypeFontGenerator implements Disposable{
          * {@link FreeTypeFontGenerator#getMaxTextureSize()}.
          */
         public boolean incremental;
+        /**
+         * When true, glyphs are stored as signed distance fields, which stay sharp when scaled. Render them once at a large base
+         * size, then draw the font at any scale; {@link #generateFont(FreeTypeFontParameter)} returns a {@link DistanceFieldFont}
+         * that must be drawn with {@link DistanceFieldFont#createDistanceFieldShader()}. Works with incremental generation.
+         * Borders and shadows are part of the shape, but not of its color. The glyph pages use linear filtering in place of
+         * nearest filters, without changing this parameter.
+         */
+        public boolean distanceField;
+        /** The distance in pixels beyond the outline of a glyph that is stored in a distance field. Glyphs are padded by this. */
+        public int distanceFieldSpread = 4;
+    }
+
+    /** A glyph that was rendered, but not packed yet. */
+    static class RenderedGlyph{
+        Glyph glyph;
+        Pixmap pixmap;
     }
 
     public class GlyphAndBitmap{
@@ -0,0 +1,166 @@
+package io.anuke.arc.texpack;
+
+import io.anuke.arc.texpack.TexturePacker.*;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+
+/** Remembers how input images were processed on the last run, keyed by the hash of their file contents, so unchanged images
+ * don't need to be decoded, whitespace stripped and hashed again. Entries are only valid for the settings they were created
+ * with; changing any setting that affects image processing invalidates the whole cache.
+ * @see Settings#cache */
+public class ImageCache {
+	static private final int version = 1;
+
+	private final File file;
+	private final String signature;
+	private final HashMap<String, Entry> entries = new HashMap<>();
+	private final HashMap<String, Entry> used = new HashMap<>();
+	private int hits, misses;
+
+	/** Loads the cache file if it exists and was written with equal settings. */
+	public ImageCache (File file, Settings settings, float scale, Resampling resampling) {
+		this.file = file;
+		this.signature = version + ":" + scale + ":" + resampling + ":" + settings.stripWhitespaceX + ":" + settings.stripWhitespaceY
+			+ ":" + settings.alphaThreshold + ":" + settings.duplicatePadding + ":" + settings.ignoreBlankImages + ":" + settings.alias;
+		if (file.exists()) load();
+	}
+
+	private void load () {
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (!input.readUTF().equals(signature)) return;
+			int count = input.readInt();
+			for (int i = 0; i < count; i++) {
+				Entry entry = new Entry();
+				String path = input.readUTF();
+				entry.contentHash = input.readUTF();
+				entry.blank = input.readBoolean();
+				if (!entry.blank) {
+					entry.offsetX = input.readInt();
+					entry.offsetY = input.readInt();
+					entry.regionWidth = input.readInt();
+					entry.regionHeight = input.readInt();
+					entry.originalWidth = input.readInt();
+					entry.originalHeight = input.readInt();
+					entry.splits = readInts(input);
+					entry.pads = readInts(input);
+					entry.imageHash = input.readBoolean() ? input.readUTF() : null;
+				}
+				entries.put(path, entry);
+			}
+		} catch (IOException ex) {
+			// A broken cache only means everything is processed again.
+			entries.clear();
+		}
+	}
+
+	/** Writes all entries used since the cache was loaded. Entries of images that were not packed are dropped. */
+	public void save () {
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			output.writeUTF(signature);
+			synchronized (used) {
+				output.writeInt(used.size());
+				for (java.util.Map.Entry<String, Entry> e : used.entrySet()) {
+					Entry entry = e.getValue();
+					output.writeUTF(e.getKey());
+					output.writeUTF(entry.contentHash);
+					output.writeBoolean(entry.blank);
+					if (entry.blank) continue;
+					output.writeInt(entry.offsetX);
+					output.writeInt(entry.offsetY);
+					output.writeInt(entry.regionWidth);
+					output.writeInt(entry.regionHeight);
+					output.writeInt(entry.originalWidth);
+					output.writeInt(entry.originalHeight);
+					writeInts(output, entry.splits);
+					writeInts(output, entry.pads);
+					output.writeBoolean(entry.imageHash != null);
+					if (entry.imageHash != null) output.writeUTF(entry.imageHash);
+				}
+			}
+		} catch (IOException ex) {
+			throw new RuntimeException("Error writing image cache: " + file, ex);
+		}
+	}
+
+	/** Returns the entry for the file if its contents are unchanged, or null. Thread safe. */
+	Entry get (String path, String contentHash) {
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(path);
+		}
+		if (entry == null || !entry.contentHash.equals(contentHash)) {
+			synchronized (used) {
+				misses++;
+			}
+			return null;
+		}
+		synchronized (used) {
+			hits++;
+			used.put(path, entry);
+		}
+		return entry;
+	}
+
+	/** Stores how a file was processed. The rect may be null for a blank image. Thread safe. */
+	void put (String path, String contentHash, Rect rect, String imageHash) {
+		Entry entry = new Entry();
+		entry.contentHash = contentHash;
+		entry.blank = rect == null;
+		if (rect != null) {
+			entry.offsetX = rect.offsetX;
+			entry.offsetY = rect.offsetY;
+			entry.regionWidth = rect.regionWidth;
+			entry.regionHeight = rect.regionHeight;
+			entry.originalWidth = rect.originalWidth;
+			entry.originalHeight = rect.originalHeight;
+			entry.splits = rect.splits;
+			entry.pads = rect.pads;
+			entry.imageHash = imageHash;
+		}
+		synchronized (used) {
+			used.put(path, entry);
+		}
+	}
+
+	/** Returns the number of images that were found unchanged in the cache. */
+	public int getHits () {
+		return hits;
+	}
+
+	/** Returns the number of images that had to be processed. */
+	public int getMisses () {
+		return misses;
+	}
+
+	/** Returns the SHA1 hash of the bytes. */
+	static String hash (byte[] bytes) {
+		try {
+			return new BigInteger(1, MessageDigest.getInstance("SHA1").digest(bytes)).toString(16);
+		} catch (NoSuchAlgorithmException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+
+	static private int[] readInts (DataInputStream input) throws IOException {
+		if (!input.readBoolean()) return null;
+		return new int[] {input.readInt(), input.readInt(), input.readInt(), input.readInt()};
+	}
+
+	static private void writeInts (DataOutputStream output, int[] values) throws IOException {
+		output.writeBoolean(values != null);
+		if (values == null) return;
+		for (int i = 0; i < 4; i++)
+			output.writeInt(values[i]);
+	}
+
+	static class Entry {
+		String contentHash, imageHash;
+		boolean blank;
+		int offsetX, offsetY, regionWidth, regionHeight, originalWidth, originalHeight;
+		int[] splits, pads;
+	}
+}
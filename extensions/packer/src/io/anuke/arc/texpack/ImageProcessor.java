@@ -7,9 +7,9 @@ import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.WritableRaster;
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
 import java.math.BigInteger;
+import java.nio.file.Files;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -26,6 +26,7 @@ public class ImageProcessor {
 	private final Array<Rect> rects = new Array<>();
 	private float scale = 1;
 	private Resampling resampling = Resampling.bicubic;
+	private ImageCache cache;
 
 	public ImageProcessor (Settings settings) {
 		this.settings = settings;
@@ -34,14 +35,18 @@ public class ImageProcessor {
 	/** The image won't be kept in-memory during packing if {@link Settings#limitMemory} is true.
 	 * @param rootPath Used to strip the root directory prefix from image file names, can be null. */
 	public void addImage (File file, String rootPath) {
-		BufferedImage image;
-		try {
-			image = ImageIO.read(file);
-		} catch (IOException ex) {
-			throw new RuntimeException("Error reading image: " + file, ex);
-		}
-		if (image == null) throw new RuntimeException("Unable to read image: " + file);
+		add(process(file, rootPath));
+	}
+
+	/** The image will be kept in-memory during packing.
+	 * @see #addImage(File, String) */
+	public Rect addImage (BufferedImage image, String name) {
+		return add(process(image, name));
+	}
 
+	/** Reads and processes an image file without adding it, so that images can be processed concurrently. Thread safe. If a
+	 * cache is set and the file is unchanged, the image is not decoded. */
+	Processed process (File file, String rootPath) {
 		String name = file.getAbsolutePath().replace('\\', '/');
 
 		// Strip root dir off front of image path.
@@ -54,22 +59,77 @@ public class ImageProcessor {
 		int dotIndex = name.lastIndexOf('.');
 		if (dotIndex != -1) name = name.substring(0, dotIndex);
 
-		Rect rect = addImage(image, name);
-		if (rect != null && settings.limitMemory) rect.unloadImage(file);
+		byte[] bytes = null;
+		String contentHash = null;
+		if (cache != null) {
+			try {
+				bytes = Files.readAllBytes(file.toPath());
+			} catch (IOException ex) {
+				throw new RuntimeException("Error reading image: " + file, ex);
+			}
+			contentHash = ImageCache.hash(bytes);
+			ImageCache.Entry entry = cache.get(file.getAbsolutePath(), contentHash);
+			if (entry != null) return processCached(file, name, entry);
+		}
+
+		BufferedImage image;
+		try {
+			image = bytes != null ? ImageIO.read(new ByteArrayInputStream(bytes)) : ImageIO.read(file);
+		} catch (IOException ex) {
+			throw new RuntimeException("Error reading image: " + file, ex);
+		}
+		if (image == null) throw new RuntimeException("Unable to read image: " + file);
+
+		Processed processed = process(image, name);
+		if (cache != null) cache.put(file.getAbsolutePath(), contentHash, processed.rect, processed.hash);
+		if (processed.rect != null && settings.limitMemory) processed.rect.unloadImage(file);
+		return processed;
 	}
 
-	/** The image will be kept in-memory during packing.
-	 * @see #addImage(File, String) */
-	public Rect addImage (BufferedImage image, String name) {
-		Rect rect = processImage(image, name);
+	/** Processes an image without adding it. Thread safe. */
+	Processed process (BufferedImage image, String name) {
+		Processed processed = new Processed();
+		processed.name = name;
+		processed.rect = processImage(image, name);
+		if (processed.rect != null && settings.alias) processed.hash = hash(processed.rect.getImage(this));
+		return processed;
+	}
+
+	/** Restores a rect from the cache without decoding the image. */
+	private Processed processCached (File file, String name, ImageCache.Entry entry) {
+		Processed processed = new Processed();
+		processed.name = name;
+		if (entry.blank) return processed;
+
+		boolean isPatch = name.endsWith(".9");
+		Rect rect = new Rect(file, isPatch);
+		rect.offsetX = entry.offsetX;
+		rect.offsetY = entry.offsetY;
+		rect.regionWidth = rect.width = entry.regionWidth;
+		rect.regionHeight = rect.height = entry.regionHeight;
+		rect.originalWidth = entry.originalWidth;
+		rect.originalHeight = entry.originalHeight;
+		rect.splits = entry.splits;
+		rect.pads = entry.pads;
+		rect.canRotate = !isPatch;
+		setName(rect, isPatch ? name.substring(0, name.length() - 2) : name);
+
+		processed.rect = rect;
+		processed.hash = entry.imageHash;
+		return processed;
+	}
 
+	/** Adds a processed image, checking for aliases. Images must be added in a consistent order for the output to be the same
+	 * across runs. */
+	Rect add (Processed processed) {
+		Rect rect = processed.rect;
 		if (rect == null) {
-			if (!settings.silent) System.out.println("Ignoring blank input image: " + name);
+			if (!settings.silent) System.out.println("Ignoring blank input image: " + processed.name);
 			return null;
 		}
 
 		if (settings.alias) {
-			String crc = hash(rect.getImage(this));
+			String crc = processed.hash;
 			Rect existing = crcs.get(crc);
 			if (existing != null) {
 				if (!settings.silent) {
@@ -87,6 +147,11 @@ public class ImageProcessor {
 		return rect;
 	}
 
+	/** @param cache Used to skip processing of unchanged image files, may be null. */
+	public void setCache (ImageCache cache) {
+		this.cache = cache;
+	}
+
 	public void setScale (float scale) {
 		this.scale = scale;
 	}
@@ -95,6 +160,10 @@ public class ImageProcessor {
 		this.resampling = resampling;
 	}
 
+	public Resampling getResampling () {
+		return resampling;
+	}
+
 	public Array<Rect> getImages () {
 		return rects;
 	}
@@ -104,6 +173,13 @@ public class ImageProcessor {
 		crcs.clear();
 	}
 
+	/** An image that was processed, but not added yet. */
+	static class Processed {
+		String name, hash;
+		/** Null if the image is blank and should be ignored. */
+		Rect rect;
+	}
+
 	/** Returns a rect for the image describing the texture region to be packed, or null if the image should not be packed. */
 	Rect processImage (BufferedImage image, String name) {
 		if (scale <= 0) throw new IllegalArgumentException("scale cannot be <= 0: " + scale);
@@ -160,6 +236,11 @@ public class ImageProcessor {
 			if (rect == null) return null;
 		}
 
+		setName(rect, name);
+		return rect;
+	}
+
+	private void setName (Rect rect, String name) {
 		// Strip digits off end of name and use as index.
 		int index = -1;
 		if (settings.useIndexes) {
@@ -172,7 +253,6 @@ public class ImageProcessor {
 
 		rect.name = name;
 		rect.index = index;
-		return rect;
 	}
 
 	/** Strips whitespace and returns the rect, or null if the image should be ignored. */
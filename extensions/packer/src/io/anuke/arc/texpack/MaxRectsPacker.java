@@ -5,7 +5,11 @@ import io.anuke.arc.collection.Sort;
 import io.anuke.arc.math.Mathf;
 import io.anuke.arc.texpack.TexturePacker.*;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /** Packs pages of images using the maximal rectangles bin packing algorithm by Jukka Jylänki. A brute force binary search is
  * used to pack into the smallest bin possible.
@@ -13,8 +17,9 @@ import java.util.Comparator;
 public class MaxRectsPacker implements Packer {
 	final Settings settings;
 	private final FreeRectChoiceHeuristic[] methods = FreeRectChoiceHeuristic.values();
-	private final MaxRects maxRects = new MaxRects();
 	private final Sort sort = new Sort();
+	private ForkJoinPool pool;
+	private int dots;
 
 	private final Comparator<Rect> rectComparator = new Comparator<Rect>() {
 		public int compare (Rect o1, Rect o2) {
@@ -61,16 +66,24 @@ public class MaxRectsPacker implements Packer {
 			}
 		}
 
-		Array<Page> pages = new Array();
-		while (inputRects.size > 0) {
-			progress.count = n - inputRects.size + 1;
-			if (progress.update(progress.count, n)) break;
+		if (settings.threads > 1) pool = new ForkJoinPool(settings.threads);
+		try {
+			Array<Page> pages = new Array();
+			while (inputRects.size > 0) {
+				progress.count = n - inputRects.size + 1;
+				if (progress.update(progress.count, n)) break;
 
-			Page result = packPage(inputRects);
-			pages.add(result);
-			inputRects = result.remainingRects;
+				Page result = packPage(inputRects);
+				pages.add(result);
+				inputRects = result.remainingRects;
+			}
+			return pages;
+		} finally {
+			if (pool != null) {
+				pool.shutdownNow();
+				pool = null;
+			}
 		}
-		return pages;
 
 	}
 
@@ -133,6 +146,8 @@ public class MaxRectsPacker implements Packer {
 		}
 
 		if (!settings.silent) System.out.print("Packing");
+		dots = 0;
+		final int finalAdjustX = adjustX, finalAdjustY = adjustY;
 
 		// Find the minimal page size that fits all rects.
 		Page bestResult = null;
@@ -141,16 +156,7 @@ public class MaxRectsPacker implements Packer {
 			int maxSize = Math.min(settings.maxWidth, settings.maxHeight);
 			BinarySearch sizeSearch = new BinarySearch(minSize, maxSize, settings.fast ? 25 : 15, settings.pot,
 				settings.multipleOfFour);
-			int size = sizeSearch.reset(), i = 0;
-			while (size != -1) {
-				Page result = packAtSize(true, size + adjustX, size + adjustY, inputRects);
-				if (!settings.silent) {
-					if (++i % 70 == 0) System.out.println();
-					System.out.print(".");
-				}
-				bestResult = getBest(bestResult, result);
-				size = sizeSearch.next(result == null);
-			}
+			bestResult = search(sizeSearch, size -> packAtSize(true, size + finalAdjustX, size + finalAdjustY, inputRects));
 			if (!settings.silent) System.out.println();
 			// Rects don't fit on one page. Fill a whole page and return.
 			if (bestResult == null) bestResult = packAtSize(false, maxSize + adjustX, maxSize + adjustY, inputRects);
@@ -163,25 +169,14 @@ public class MaxRectsPacker implements Packer {
 				settings.multipleOfFour);
 			BinarySearch heightSearch = new BinarySearch(minHeight, settings.maxHeight, settings.fast ? 25 : 15, settings.pot,
 				settings.multipleOfFour);
-			int width = widthSearch.reset(), i = 0;
-			int height = settings.square ? width : heightSearch.reset();
+			int height = heightSearch.reset();
 			while (true) {
-				Page bestWidthResult = null;
-				while (width != -1) {
-					Page result = packAtSize(true, width + adjustX, height + adjustY, inputRects);
-					if (!settings.silent) {
-						if (++i % 70 == 0) System.out.println();
-						System.out.print(".");
-					}
-					bestWidthResult = getBest(bestWidthResult, result);
-					width = widthSearch.next(result == null);
-					if (settings.square) height = width;
-				}
+				final int pageHeight = height;
+				Page bestWidthResult = search(widthSearch,
+					width -> packAtSize(true, width + finalAdjustX, pageHeight + finalAdjustY, inputRects));
 				bestResult = getBest(bestResult, bestWidthResult);
-				if (settings.square) break;
 				height = heightSearch.next(bestWidthResult == null);
 				if (height == -1) break;
-				width = widthSearch.reset();
 			}
 			if (!settings.silent) System.out.println();
 			// Rects don't fit on one page. Fill a whole page and return.
@@ -194,40 +189,107 @@ public class MaxRectsPacker implements Packer {
 		}
 	}
 
-	/** @param fully If true, the only results that pack all rects will be considered. If false, all results are considered, not
-	 *           all rects may be packed. */
-	private Page packAtSize (boolean fully, int width, int height, Array<Rect> inputRects) {
-		Page bestResult = null;
-		for (int i = 0, n = methods.length; i < n; i++) {
-			maxRects.init(width, height);
+	/** Runs the binary search and returns the best page found. With multiple threads, the two sizes the search can continue with
+	 * are packed while the current size is packed, and the one that is not needed is discarded. The sizes that are tried and the
+	 * result are the same as when searching on a single thread. */
+	private Page search (BinarySearch search, SizePacker packer) {
+		Page best = null;
+		int size = search.reset();
+		ForkJoinTask<Page> current = null;
+		while (size != -1) {
 			Page result;
-			if (!settings.fast) {
-				result = maxRects.pack(inputRects, methods[i]);
+			if (pool == null) {
+				result = packer.pack(size);
 			} else {
-				Array<Rect> remaining = new Array();
-				for (int ii = 0, nn = inputRects.size; ii < nn; ii++) {
-					Rect rect = inputRects.get(ii);
-					if (maxRects.insert(rect, methods[i]) == null) {
-						while (ii < nn)
-							remaining.add(inputRects.get(ii++));
+				if (current == null) current = submit(packer, size);
+				int fitsSize = search.copy().next(false), failsSize = search.copy().next(true);
+				ForkJoinTask<Page> fits = fitsSize == -1 ? null : submit(packer, fitsSize);
+				ForkJoinTask<Page> fails = failsSize == -1 ? null : submit(packer, failsSize);
+				result = current.join();
+				current = result != null ? fits : fails;
+				ForkJoinTask<Page> unused = result != null ? fails : fits;
+				if (unused != null) unused.cancel(false);
+			}
+			if (!settings.silent) {
+				if (++dots % 70 == 0) System.out.println();
+				System.out.print(".");
+			}
+			best = getBest(best, result);
+			size = search.next(result == null);
+		}
+		if (current != null) current.cancel(false);
+		return best;
+	}
+
+	private ForkJoinTask<Page> submit (final SizePacker packer, final int size) {
+		return pool.submit(new Callable<Page>() {
+			public Page call () {
+				return packer.pack(size);
+			}
+		});
+	}
+
+	/** @param fully If true, the only results that pack all rects will be considered. If false, all results are considered, not
+	 *           all rects may be packed. */
+	private Page packAtSize (final boolean fully, final int width, final int height, final Array<Rect> inputRects) {
+		final Page[] results = new Page[methods.length];
+		if (pool != null && ForkJoinTask.inForkJoinPool()) {
+			// Try all heuristics concurrently, then pick the best in the same order as the single threaded loop.
+			ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>(methods.length);
+			for (int i = 0, n = methods.length; i < n; i++) {
+				final int method = i;
+				tasks.add(ForkJoinTask.adapt(new Runnable() {
+					public void run () {
+						results[method] = packWith(methods[method], fully, width, height, inputRects);
 					}
-				}
-				result = maxRects.getResult();
-				result.remainingRects = remaining;
+				}));
 			}
-			if (fully && result.remainingRects.size > 0) continue;
-			if (result.outputRects.size == 0) continue;
-			bestResult = getBest(bestResult, result);
+			ForkJoinTask.invokeAll(tasks);
+		} else {
+			for (int i = 0, n = methods.length; i < n; i++)
+				results[i] = packWith(methods[i], fully, width, height, inputRects);
 		}
+
+		Page bestResult = null;
+		for (Page result : results)
+			bestResult = getBest(bestResult, result);
 		return bestResult;
 	}
 
+	/** Packs with a single heuristic. Returns null if the result should not be considered. Thread safe. */
+	private Page packWith (FreeRectChoiceHeuristic method, boolean fully, int width, int height, Array<Rect> inputRects) {
+		MaxRects maxRects = new MaxRects();
+		maxRects.init(width, height);
+		Page result;
+		if (!settings.fast) {
+			result = maxRects.pack(inputRects, method);
+		} else {
+			Array<Rect> remaining = new Array();
+			for (int ii = 0, nn = inputRects.size; ii < nn; ii++) {
+				Rect rect = inputRects.get(ii);
+				if (maxRects.insert(rect, method) == null) {
+					while (ii < nn)
+						remaining.add(inputRects.get(ii++));
+				}
+			}
+			result = maxRects.getResult();
+			result.remainingRects = remaining;
+		}
+		if (fully && result.remainingRects.size > 0) return null;
+		if (result.outputRects.size == 0) return null;
+		return result;
+	}
+
 	private Page getBest (Page result1, Page result2) {
 		if (result1 == null) return result2;
 		if (result2 == null) return result1;
 		return result1.occupancy > result2.occupancy ? result1 : result2;
 	}
 
+	interface SizePacker {
+		Page pack (int size);
+	}
+
 	static class BinarySearch {
 		final boolean pot, mod4;
 		final int min, max, fuzziness;
@@ -249,6 +311,22 @@ public class MaxRectsPacker implements Packer {
 			this.mod4 = mod4;
 		}
 
+		BinarySearch copy () {
+			BinarySearch copy = new BinarySearch(this);
+			copy.low = low;
+			copy.high = high;
+			copy.current = current;
+			return copy;
+		}
+
+		private BinarySearch (BinarySearch search) {
+			min = search.min;
+			max = search.max;
+			fuzziness = search.fuzziness;
+			pot = search.pot;
+			mod4 = search.mod4;
+		}
+
 		public int reset () {
 			low = min;
 			high = max;
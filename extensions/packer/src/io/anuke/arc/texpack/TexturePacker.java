@@ -6,6 +6,7 @@ import io.anuke.arc.files.FileHandle;
 import io.anuke.arc.graphics.Pixmap.Format;
 import io.anuke.arc.graphics.Texture.TextureFilter;
 import io.anuke.arc.graphics.Texture.TextureWrap;
+import io.anuke.arc.graphics.g2d.BinaryAtlas;
 import io.anuke.arc.graphics.g2d.TextureAtlas.TextureAtlasData;
 import io.anuke.arc.graphics.g2d.TextureAtlas.TextureAtlasData.Region;
 import io.anuke.arc.math.Mathf;
@@ -18,6 +19,7 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 /** @author Nathan Sweet */
 public class TexturePacker {
@@ -105,19 +107,26 @@ public class TexturePacker {
 			if (settings.scaleResampling != null && settings.scaleResampling.length > i && settings.scaleResampling[i] != null)
 				imageProcessor.setResampling(settings.scaleResampling[i]);
 
+			String scaledPackFileName = settings.getScaledPackFileName(packFileName, i);
+			ImageCache cache = null;
+			if (settings.cache) {
+				File cacheFile = new File(outputDir, scaledPackFileName + ".cache");
+				cacheFile.getParentFile().mkdirs();
+				cache = new ImageCache(cacheFile, settings, settings.scale[i], imageProcessor.getResampling());
+			}
+			imageProcessor.setCache(cache);
+
 			progress.start(0.35f);
 			progress.count = 0;
 			progress.total = inputImages.size;
-			for (int ii = 0, nn = inputImages.size; ii < nn; ii++, progress.count++) {
-				InputImage inputImage = inputImages.get(ii);
-				if (inputImage.file != null)
-					imageProcessor.addImage(inputImage.file, inputImage.rootPath);
-				else
-					imageProcessor.addImage(inputImage.image, inputImage.name);
-				if (progress.update(ii + 1, nn)) return;
-			}
+			if (addImages()) return;
 			progress.end();
 
+			if (cache != null) {
+				cache.save();
+				if (!settings.silent) System.out.println("Cached images: " + cache.getHits() + ", processed: " + cache.getMisses());
+			}
+
 			progress.start(0.19f);
 			progress.count = 0;
 			progress.total = imageProcessor.getImages().size;
@@ -127,13 +136,13 @@ public class TexturePacker {
 			progress.start(0.45f);
 			progress.count = 0;
 			progress.total = pages.size;
-			String scaledPackFileName = settings.getScaledPackFileName(packFileName, i);
 			writeImages(outputDir, scaledPackFileName, pages);
 			progress.end();
 
 			progress.start(0.01f);
 			try {
 				writePackFile(outputDir, scaledPackFileName, pages);
+				if (settings.binary) writeBinaryPackFile(outputDir, scaledPackFileName);
 			} catch (IOException ex) {
 				throw new RuntimeException("Error writing pack file.", ex);
 			}
@@ -147,6 +156,60 @@ public class TexturePacker {
 		progress.end();
 	}
 
+	/** Processes all input images, concurrently if {@link Settings#threads} is more than 1, and adds them in input order.
+	 * @return true if packing was cancelled. */
+	private boolean addImages () {
+		int n = inputImages.size;
+		if (settings.threads <= 1 || n <= 1) {
+			for (int i = 0; i < n; i++, progress.count++) {
+				InputImage inputImage = inputImages.get(i);
+				if (inputImage.file != null)
+					imageProcessor.addImage(inputImage.file, inputImage.rootPath);
+				else
+					imageProcessor.addImage(inputImage.image, inputImage.name);
+				if (progress.update(i + 1, n)) return true;
+			}
+			return false;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(settings.threads);
+		try {
+			// Images are processed in batches, so with limitMemory not all decoded images are held in memory at once.
+			int batchSize = settings.threads * 4;
+			ArrayList<Future<ImageProcessor.Processed>> batch = new ArrayList<>(batchSize);
+			for (int start = 0; start < n; start += batchSize) {
+				batch.clear();
+				for (int i = start, end = Math.min(start + batchSize, n); i < end; i++) {
+					final InputImage inputImage = inputImages.get(i);
+					batch.add(executor.submit(new Callable<ImageProcessor.Processed>() {
+						public ImageProcessor.Processed call () {
+							if (inputImage.file != null) return imageProcessor.process(inputImage.file, inputImage.rootPath);
+							return imageProcessor.process(inputImage.image, inputImage.name);
+						}
+					}));
+				}
+				for (int i = 0; i < batch.size(); i++, progress.count++) {
+					imageProcessor.add(get(batch.get(i)));
+					if (progress.update(start + i + 1, n)) return true;
+				}
+			}
+			return false;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	static <T> T get (Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException ex) {
+			throw new RuntimeException(ex);
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof RuntimeException) throw (RuntimeException)ex.getCause();
+			throw new RuntimeException(ex.getCause());
+		}
+	}
+
 	private void writeImages (File outputDir, String scaledPackFileName, Array<Page> pages) {
 		File packFileNoExt = new File(outputDir, scaledPackFileName);
 		File packDir = packFileNoExt.getParentFile();
@@ -366,6 +429,14 @@ public class TexturePacker {
 		writer.close();
 	}
 
+	/** Converts the text pack file, including pages appended by earlier runs, to the binary format read by {@link BinaryAtlas}. */
+	private void writeBinaryPackFile (File outputDir, String scaledPackFileName) {
+		File packFile = new File(outputDir, scaledPackFileName + settings.atlasExtension);
+		File binaryFile = new File(outputDir, scaledPackFileName + settings.binaryExtension);
+		TextureAtlasData data = new TextureAtlasData(new FileHandle(packFile), new FileHandle(packFile.getParentFile()), false);
+		BinaryAtlas.write(data, new FileHandle(binaryFile));
+	}
+
 	private void writeRect (Writer writer, Page page, Rect rect, String name) throws IOException {
 		writer.write(Rect.getAtlasName(name, settings.flattenPaths) + "\n");
 		writer.write("  rotate: " + rect.rotated + "\n");
@@ -514,6 +585,12 @@ public class TexturePacker {
 		Rect () {
 		}
 
+		/** Creates a rect for an image that was processed on an earlier run. The image is loaded from the file when needed. */
+		Rect (File file, boolean isPatch) {
+			this.file = file;
+			this.isPatch = isPatch;
+		}
+
 		Rect (Rect rect) {
 			x = rect.x;
 			y = rect.y;
@@ -792,6 +869,13 @@ public class TexturePacker {
 		public String[] scaleSuffix = {""};
 		public Resampling[] scaleResampling = {Resampling.bicubic};
 		public String atlasExtension = ".atlas";
+		/** Also writes the atlas in binary format, which loads faster. Uses {@link #binaryExtension}. */
+		public boolean binary;
+		public String binaryExtension = ".aatls";
+		/** Number of threads used to process images and to pack pages. The output does not depend on it. */
+		public int threads = Runtime.getRuntime().availableProcessors();
+		/** Skips processing of input image files that are unchanged since the last run, using a cache file next to the atlas. */
+		public boolean cache;
 
 		public Settings () {
 		}
@@ -843,6 +927,10 @@ public class TexturePacker {
 			scaleSuffix = Arrays.copyOf(settings.scaleSuffix, settings.scaleSuffix.length);
 			scaleResampling = Arrays.copyOf(settings.scaleResampling, settings.scaleResampling.length);
 			atlasExtension = settings.atlasExtension;
+			binary = settings.binary;
+			binaryExtension = settings.binaryExtension;
+			threads = settings.threads;
+			cache = settings.cache;
 		}
 
 		public String getScaledPackFileName (String packFileName, int scaleIndex) {
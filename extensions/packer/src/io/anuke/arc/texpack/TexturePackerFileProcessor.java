@@ -122,6 +122,7 @@ public class TexturePackerFileProcessor extends FileProcessor {
 
 		String atlasExtension = rootSettings.atlasExtension == null ? "" : rootSettings.atlasExtension;
 		atlasExtension = Pattern.quote(atlasExtension);
+		String binaryExtension = Pattern.quote(rootSettings.binaryExtension == null ? "" : rootSettings.binaryExtension);
 
 		for (int i = 0, n = rootSettings.scale.length; i < n; i++) {
 			FileProcessor deleteProcessor = new FileProcessor() {
@@ -139,6 +140,7 @@ public class TexturePackerFileProcessor extends FileProcessor {
 			if (dotIndex != -1) prefix = prefix.substring(0, dotIndex);
 			deleteProcessor.addInputRegex("(?i)" + prefix + "\\d*\\.(png|jpg|jpeg)");
 			deleteProcessor.addInputRegex("(?i)" + prefix + atlasExtension);
+			if (rootSettings.binary) deleteProcessor.addInputRegex("(?i)" + prefix + binaryExtension);
 
 			String dir = packFile.getParent();
 			if (dir == null)
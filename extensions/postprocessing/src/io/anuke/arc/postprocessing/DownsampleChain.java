@@ -0,0 +1,89 @@
+package io.anuke.arc.postprocessing;
+
+import io.anuke.arc.graphics.Texture;
+import io.anuke.arc.graphics.glutils.FrameBuffer;
+import io.anuke.arc.postprocessing.filters.Copy;
+import io.anuke.arc.util.Disposable;
+
+/**
+ * Scales textures between resolutions in steps of two. Every step samples the center of each 2x2 block of texels with linear
+ * filtering, which averages them, so downsampling by 4 or 8 doesn't skip texels like a single scaled copy would. Intermediate
+ * buffers are borrowed from a {@link FrameBufferPool} and returned before a method returns.
+ * <p>
+ * Blur-type effects downsample their input to 1/2 to 1/8 of its resolution, process it there, and sample the result with linear
+ * filtering when combining it with the full resolution scene, or {@link #upsample(Texture, FrameBuffer) upsample} it first.
+ * Blending should be disabled while resampling.
+ */
+public class DownsampleChain implements Disposable{
+    private final FrameBufferPool pool;
+    private final Copy copy = new Copy();
+
+    /** Creates a chain that borrows from the shared pool of the post processor. */
+    public DownsampleChain(){
+        this(PostProcessor.pool);
+    }
+
+    public DownsampleChain(FrameBufferPool pool){
+        this.pool = pool;
+        copy.rebind();
+    }
+
+    /** Renders the source into a smaller destination, halving the resolution in every step. */
+    public void downsample(Texture source, FrameBuffer dest){
+        int width = source.getWidth(), height = source.getHeight();
+        Texture current = source;
+        FrameBuffer borrowed = null;
+
+        while(width / 2 > dest.getWidth() && height / 2 > dest.getHeight()){
+            width /= 2;
+            height /= 2;
+            FrameBuffer next = pool.obtain(width, height);
+            copy.setInput(current).setOutput(next).render();
+            if(borrowed != null) pool.free(borrowed);
+            borrowed = next;
+            current = next.getTexture();
+        }
+
+        copy.setInput(current).setOutput(dest).render();
+        if(borrowed != null) pool.free(borrowed);
+    }
+
+    /** Renders the source into a larger destination, doubling the resolution in every step. The destination may be null for the screen. */
+    public void upsample(Texture source, FrameBuffer dest, int destWidth, int destHeight){
+        int width = source.getWidth(), height = source.getHeight();
+        Texture current = source;
+        FrameBuffer borrowed = null;
+
+        while(width * 2 < destWidth && height * 2 < destHeight){
+            width *= 2;
+            height *= 2;
+            FrameBuffer next = pool.obtain(width, height);
+            copy.setInput(current).setOutput(next).render();
+            if(borrowed != null) pool.free(borrowed);
+            borrowed = next;
+            current = next.getTexture();
+        }
+
+        copy.setInput(current).setOutput(dest).render();
+        if(borrowed != null) pool.free(borrowed);
+    }
+
+    /** Renders the source into a larger destination, doubling the resolution in every step. */
+    public void upsample(Texture source, FrameBuffer dest){
+        upsample(source, dest, dest.getWidth(), dest.getHeight());
+    }
+
+    /** @return the size of one dimension scaled by a factor, at least 1 */
+    public static int scale(int size, float scaling){
+        return Math.max((int)(size * scaling), 1);
+    }
+
+    public void rebind(){
+        copy.rebind();
+    }
+
+    @Override
+    public void dispose(){
+        copy.dispose();
+    }
+}
@@ -0,0 +1,108 @@
+package io.anuke.arc.postprocessing;
+
+import io.anuke.arc.Core;
+import io.anuke.arc.collection.Array;
+import io.anuke.arc.collection.LongMap;
+import io.anuke.arc.collection.ObjectMap;
+import io.anuke.arc.graphics.Pixmap.Format;
+import io.anuke.arc.graphics.glutils.FrameBuffer;
+import io.anuke.arc.util.Disposable;
+
+/**
+ * A pool of framebuffers keyed by size and format. Effects {@link #obtain(int, int) borrow} the intermediate buffers they need
+ * while rendering and {@link #free(FrameBuffer) return} them before the next effect runs, so a chain of effects shares a few
+ * buffers instead of each owning its own.
+ * <p>
+ * Buffers are created with linear filtering and clamped edges. Free buffers that were not used for {@link #maxIdleFrames} are
+ * disposed by {@link #trim()}, which {@link PostProcessor#render(FrameBuffer)} calls once per frame.
+ */
+public class FrameBufferPool implements Disposable{
+    private final LongMap<Array<Entry>> free = new LongMap<>();
+    private final ObjectMap<FrameBuffer, Entry> all = new ObjectMap<>();
+
+    /** Frames after which an unused free buffer is disposed. */
+    public int maxIdleFrames = 60;
+
+    /** @return a buffer with the default format of the post processor */
+    public FrameBuffer obtain(int width, int height){
+        return obtain(width, height, PostProcessor.format);
+    }
+
+    /** @return a buffer of the specified size and format, without depth. Its contents are undefined. */
+    public FrameBuffer obtain(int width, int height, Format format){
+        width = Math.max(width, 1);
+        height = Math.max(height, 1);
+        long key = key(width, height, format);
+        Array<Entry> entries = free.get(key);
+        if(entries != null && entries.size > 0){
+            return entries.pop().buffer;
+        }
+
+        Entry entry = new Entry();
+        entry.buffer = new FrameBuffer(format, width, height, false);
+        entry.key = key;
+        all.put(entry.buffer, entry);
+        return entry.buffer;
+    }
+
+    /** Returns a buffer obtained from this pool. */
+    public void free(FrameBuffer buffer){
+        Entry entry = all.get(buffer);
+        if(entry == null) throw new IllegalArgumentException("Buffer was not obtained from this pool.");
+
+        Array<Entry> entries = free.get(entry.key);
+        if(entries == null) free.put(entry.key, entries = new Array<>(false, 4));
+        entry.frame = Core.graphics.getFrameId();
+        entries.add(entry);
+    }
+
+    /** Disposes free buffers that were not used for {@link #maxIdleFrames}. */
+    public void trim(){
+        long frame = Core.graphics.getFrameId();
+        for(Array<Entry> entries : free.values()){
+            for(int i = entries.size - 1; i >= 0; i--){
+                Entry entry = entries.get(i);
+                if(frame - entry.frame > maxIdleFrames){
+                    entries.remove(i);
+                    all.remove(entry.buffer);
+                    entry.buffer.dispose();
+                }
+            }
+        }
+    }
+
+    /** Disposes all free buffers, for example after the screen was resized. Borrowed buffers are not affected. */
+    public void clear(){
+        for(Array<Entry> entries : free.values()){
+            for(Entry entry : entries){
+                all.remove(entry.buffer);
+                entry.buffer.dispose();
+            }
+        }
+        free.clear();
+    }
+
+    /** @return the amount of buffers created by this pool that were not disposed yet, borrowed or free */
+    public int getBufferCount(){
+        return all.size;
+    }
+
+    /** Disposes all buffers, including borrowed ones. */
+    @Override
+    public void dispose(){
+        for(Entry entry : all.values()){
+            entry.buffer.dispose();
+        }
+        all.clear();
+        free.clear();
+    }
+
+    private static long key(int width, int height, Format format){
+        return ((long)format.ordinal() << 48) | ((long)width << 24) | height;
+    }
+
+    static class Entry{
+        FrameBuffer buffer;
+        long key, frame;
+    }
+}
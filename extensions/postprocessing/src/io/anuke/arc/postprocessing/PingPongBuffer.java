@@ -43,7 +43,18 @@ public final class PingPongBuffer{
         set(owned1, owned2);
     }
 
+    /**
+     * Creates a ping-pong buffer without resources of its own. Buffers must be supplied with {@link #set(FrameBuffer, FrameBuffer)}
+     * before use, such as ones borrowed from a {@link FrameBufferPool}.
+     */
+    public PingPongBuffer(){
+        ownResources = false;
+        owned1 = owned2 = null;
+    }
+
+    /** Resizes the owned buffers. Does nothing if the buffer doesn't own resources. */
     public void resize(int width, int height){
+        if(!ownResources) return;
         owned1.resize(width, height);
         owned2.resize(width, height);
         set(owned1, owned2);
@@ -103,6 +114,7 @@ public final class PingPongBuffer{
 
     /** When needed graphics memory could be invalidated so buffers should be rebuilt. */
     public void rebind(){
+        if(buffer1 == null) return;
         texture1 = buffer1.getTexture();
         texture2 = buffer2.getTexture();
     }
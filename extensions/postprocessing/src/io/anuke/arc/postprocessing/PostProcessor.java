@@ -12,15 +12,19 @@ import io.anuke.arc.util.Disposable;
  * Provides a way to capture the rendered scene to an off-screen buffer and to apply a chain of effects on it before rendering to
  * screen.
  * <p>
- * Effects can be added or removed via {@link #addEffect(PostEffect)} and {@link #removeEffect(PostEffect)}.
+ * Effects can be added or removed via {@link #add(PostEffect)} and {@link #remove(PostEffect)}. Effects borrow their intermediate
+ * buffers from the shared {@link #pool} while rendering, and blur-type effects run at a fraction of the screen resolution, see
+ * {@link DownsampleChain}.
  * @author bmanuel
  */
 public final class PostProcessor implements Disposable{
-    private static final Format format = Format.RGBA8888;
+    static final Format format = Format.RGBA8888;
     private static final Array<PingPongBuffer> buffers = new Array<>();
+    /** Intermediate buffers shared by all effects. */
+    public static final FrameBufferPool pool = new FrameBufferPool();
 
     public final PingPongBuffer composite;
-    public final Color clearColor = Color.CLEAR;
+    public final Color clearColor = Color.clear;
     public boolean enabled = true;
 
     private final Array<PostEffect> effects = new Array<>();
@@ -33,6 +37,8 @@ public final class PostProcessor implements Disposable{
 
     public void resize(int width, int height){
         composite.resize(width, height);
+        //buffers of the old size won't be used again
+        pool.clear();
 
         for(PostEffect effect : effects){
             effect.resize(width, height);
@@ -168,6 +174,8 @@ public final class PostProcessor implements Disposable{
             //ensure default texture unit #0 is active
             Core.gl.glActiveTexture(GL20.GL_TEXTURE0);
         }
+
+        pool.trim();
     }
 
     /** Convenience method to render to screen. */
@@ -189,6 +197,8 @@ public final class PostProcessor implements Disposable{
         }
 
         buffers.clear();
+        //the pool is shared with other instances, so only buffers that nobody borrowed are freed
+        pool.clear();
     }
 
     /**
@@ -3,25 +3,29 @@ package io.anuke.arc.postprocessing.filters;
 import io.anuke.arc.Core;
 import io.anuke.arc.graphics.*;
 import io.anuke.arc.graphics.glutils.FrameBuffer;
+import io.anuke.arc.postprocessing.DownsampleChain;
 import io.anuke.arc.postprocessing.PostEffect;
 import io.anuke.arc.postprocessing.PostProcessor;
 import io.anuke.arc.postprocessing.filters.Blur.BlurType;
 import io.anuke.arc.postprocessing.PingPongBuffer;
 
 public class BloomEffect extends PostEffect{
-    private PingPongBuffer pingPongBuffer;
+    private final PingPongBuffer pingPongBuffer = new PingPongBuffer();
+    private final DownsampleChain downsampler = new DownsampleChain();
+    private int blurWidth, blurHeight;
 
     public Blur blur;
     public Threshold threshold;
     public Combine combine;
     public Blending blending = Blending.disabled;
+    /** Resolution of the threshold and blur passes relative to the source, usually 1/2 to 1/8. */
     public float scaling = 1/4f;
 
     public BloomEffect(){
-        int width = Core.graphics.getWidth(), height = Core.graphics.getHeight();
+        blurWidth = DownsampleChain.scale(Core.graphics.getWidth(), scaling);
+        blurHeight = DownsampleChain.scale(Core.graphics.getHeight(), scaling);
 
-        pingPongBuffer = PostProcessor.newPingPongBuffer((int)(width * scaling), (int)(height * scaling));
-        blur = new Blur((int)(width * scaling), (int)(height * scaling));
+        blur = new Blur(blurWidth, blurHeight);
         threshold = new Threshold();
         combine = new Combine();
 
@@ -34,37 +38,38 @@ public class BloomEffect extends PostEffect{
         combine.effectSaturation = 0.85f;
     }
 
-    @Override
-    public void resize(int width, int height){
-        pingPongBuffer.resize((int)(width * scaling), (int)(height * scaling));
-        blur.resize((int)(width * scaling), (int)(height * scaling));
-
-        rebind();
-    }
-
     @Override
     public void dispose(){
         combine.dispose();
         threshold.dispose();
         blur.dispose();
-        pingPongBuffer.dispose();
+        downsampler.dispose();
     }
 
     @Override
     public void render(final FrameBuffer src, final FrameBuffer dest){
         Texture texsrc = src.getTexture();
+        int width = DownsampleChain.scale(src.getWidth(), scaling), height = DownsampleChain.scale(src.getHeight(), scaling);
+        if(width != blurWidth || height != blurHeight){
+            blurWidth = width;
+            blurHeight = height;
+            blur.resize(width, height);
+            blur.rebind();
+        }
 
         Core.gl.glDisable(GL20.GL_BLEND);
 
-        pingPongBuffer.begin();
+        FrameBuffer buffer1 = PostProcessor.pool.obtain(width, height), buffer2 = PostProcessor.pool.obtain(width, height);
 
-        // threshold / high-pass filter
-        // only areas with pixels >= threshold are blit to smaller fbo
-        threshold.setInput(texsrc).setOutput(pingPongBuffer.getSourceBuffer()).render();
+        // downsample, then apply the threshold / high-pass filter at low resolution
+        // only areas with pixels >= threshold are kept
+        downsampler.downsample(texsrc, buffer1);
+        threshold.setInput(buffer1).setOutput(buffer2).render();
 
         // blur pass
+        pingPongBuffer.set(buffer2, buffer1);
+        pingPongBuffer.begin();
         blur.render(pingPongBuffer);
-
         pingPongBuffer.end();
 
         if(blending != Blending.disabled){
@@ -72,8 +77,12 @@ public class BloomEffect extends PostEffect{
             Core.gl.glBlendFunc(blending.src, blending.dst);
         }
 
+        // the blurred result is upsampled by linear filtering
         combine.setOutput(dest);
         combine.setInput(texsrc, pingPongBuffer.getResultTexture()).render();
+
+        PostProcessor.pool.free(buffer1);
+        PostProcessor.pool.free(buffer2);
     }
 
     @Override
@@ -81,6 +90,7 @@ public class BloomEffect extends PostEffect{
         blur.rebind();
         threshold.rebind();
         combine.rebind();
+        downsampler.rebind();
         pingPongBuffer.rebind();
     }
 }
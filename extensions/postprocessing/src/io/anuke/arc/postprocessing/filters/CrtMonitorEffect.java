@@ -10,8 +10,8 @@ import io.anuke.arc.postprocessing.filters.CrtScreen.RgbMode;
 import io.anuke.arc.postprocessing.PingPongBuffer;
 
 public final class CrtMonitorEffect extends PostEffect{
-    private PingPongBuffer pingPongBuffer = null;
-    private FrameBuffer buffer = null;
+    private final PingPongBuffer pingPongBuffer = new PingPongBuffer();
+    private final int fboWidth, fboHeight;
     private CrtScreen crt;
     private Blur blur;
     private Combine combine;
@@ -22,15 +22,14 @@ public final class CrtMonitorEffect extends PostEffect{
     // the effect is designed to work on the whole screen area, no small/mid size tricks!
     public CrtMonitorEffect(int fboWidth, int fboHeight, boolean barrelDistortion, boolean performBlur, RgbMode mode, int effectsSupport){
         doblur = performBlur;
+        this.fboWidth = fboWidth;
+        this.fboHeight = fboHeight;
 
         if(doblur){
-            pingPongBuffer = PostProcessor.newPingPongBuffer(fboWidth, fboHeight);
             blur = new Blur(fboWidth, fboHeight);
             blur.passes = 1;
             blur.amount = 2f;
             blur.type = BlurType.Gaussian3x3;
-        }else{
-            buffer = new FrameBuffer(fboWidth, fboHeight);
         }
 
         combine = new Combine();
@@ -44,14 +43,6 @@ public final class CrtMonitorEffect extends PostEffect{
         if(doblur){
             blur.dispose();
         }
-
-        if(buffer != null){
-            buffer.dispose();
-        }
-
-        if(pingPongBuffer != null){
-            pingPongBuffer.dispose();
-        }
     }
 
     @Override
@@ -67,9 +58,11 @@ public final class CrtMonitorEffect extends PostEffect{
         Core.gl.glDisable(GL20.GL_BLEND);
 
         Texture out;
+        FrameBuffer buffer1 = PostProcessor.pool.obtain(fboWidth, fboHeight), buffer2 = null;
 
         if(doblur){
-
+            buffer2 = PostProcessor.pool.obtain(fboWidth, fboHeight);
+            pingPongBuffer.set(buffer1, buffer2);
             pingPongBuffer.begin();
             {
                 // crt pass
@@ -83,9 +76,9 @@ public final class CrtMonitorEffect extends PostEffect{
             out = pingPongBuffer.getResultTexture();
         }else{
             // crt pass
-            crt.setInput(in).setOutput(buffer).render();
+            crt.setInput(in).setOutput(buffer1).render();
 
-            out = buffer.getTexture();
+            out = buffer1.getTexture();
         }
 
         if(blending != Blending.disabled){
@@ -96,6 +89,9 @@ public final class CrtMonitorEffect extends PostEffect{
         // do combine pass
         combine.setOutput(dest);
         combine.setInput(in, out).render();
+
+        PostProcessor.pool.free(buffer1);
+        if(buffer2 != null) PostProcessor.pool.free(buffer2);
     }
 
 }
@@ -19,6 +19,7 @@ package io.anuke.arc.postprocessing.filters;
 import io.anuke.arc.Core;
 import io.anuke.arc.graphics.*;
 import io.anuke.arc.graphics.glutils.FrameBuffer;
+import io.anuke.arc.postprocessing.DownsampleChain;
 import io.anuke.arc.postprocessing.PostEffect;
 import io.anuke.arc.postprocessing.PostProcessor;
 import io.anuke.arc.postprocessing.filters.Blur.BlurType;
@@ -26,11 +27,14 @@ import io.anuke.arc.postprocessing.PingPongBuffer;
 
 /**
  * Pseudo lens flare implementation. This is a post-processing effect entirely, no need for light positions or anything. It
- * includes ghost generation, halos, chromatic distortion and blur.
+ * includes ghost generation, halos, chromatic distortion and blur. All passes run at the resolution given in the constructor; the
+ * source is downsampled to it first, so a fraction of the screen size such as 1/4 is usually enough.
  * @author Toni Sagrista
  */
 public final class LensFlareEffect extends PostEffect{
-    private PingPongBuffer pingPongBuffer;
+    private final PingPongBuffer pingPongBuffer = new PingPongBuffer();
+    private final DownsampleChain downsampler = new DownsampleChain();
+    private final int fboWidth, fboHeight;
 
     public Lens lens;
     public Blur blur;
@@ -39,7 +43,8 @@ public final class LensFlareEffect extends PostEffect{
     public Blending blending = Blending.disabled;
 
     public LensFlareEffect(int fboWidth, int fboHeight){
-        pingPongBuffer = PostProcessor.newPingPongBuffer(fboWidth, fboHeight);
+        this.fboWidth = fboWidth;
+        this.fboHeight = fboHeight;
 
         lens = new Lens(fboWidth, fboHeight);
         blur = new Blur(fboWidth, fboHeight);
@@ -64,7 +69,8 @@ public final class LensFlareEffect extends PostEffect{
         combine.dispose();
         bias.dispose();
         blur.dispose();
-        pingPongBuffer.dispose();
+        lens.dispose();
+        downsampler.dispose();
     }
 
     @Override
@@ -72,18 +78,19 @@ public final class LensFlareEffect extends PostEffect{
         Texture texsrc = src.getTexture();
         Core.gl.glDisable(GL20.GL_BLEND);
 
-        pingPongBuffer.begin();
-        {
-            // apply bias
-            bias.setInput(texsrc).setOutput(pingPongBuffer.getSourceBuffer()).render();
+        FrameBuffer buffer1 = PostProcessor.pool.obtain(fboWidth, fboHeight), buffer2 = PostProcessor.pool.obtain(fboWidth, fboHeight);
 
-            lens.setInput(pingPongBuffer.getSourceBuffer()).setOutput(pingPongBuffer.getResultBuffer()).render();
+        downsampler.downsample(texsrc, buffer1);
 
-            pingPongBuffer.set(pingPongBuffer.getResultBuffer(), pingPongBuffer.getSourceBuffer());
+        // apply bias
+        bias.setInput(buffer1).setOutput(buffer2).render();
 
-            // blur pass
-            blur.render(pingPongBuffer);
-        }
+        lens.setInput(buffer2).setOutput(buffer1).render();
+
+        // blur pass
+        pingPongBuffer.set(buffer1, buffer2);
+        pingPongBuffer.begin();
+        blur.render(pingPongBuffer);
         pingPongBuffer.end();
 
         if(blending != Blending.disabled){
@@ -94,6 +101,9 @@ public final class LensFlareEffect extends PostEffect{
         // mix original scene and blurred threshold, modulate via
         combine.setOutput(dest);
         combine.setInput(texsrc, pingPongBuffer.getResultTexture()).render();
+
+        PostProcessor.pool.free(buffer1);
+        PostProcessor.pool.free(buffer2);
     }
 
     @Override
@@ -101,6 +111,8 @@ public final class LensFlareEffect extends PostEffect{
         blur.rebind();
         bias.rebind();
         combine.rebind();
+        lens.rebind();
+        downsampler.rebind();
         pingPongBuffer.rebind();
     }
 }
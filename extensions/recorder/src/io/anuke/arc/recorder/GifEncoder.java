@@ -0,0 +1,322 @@
+package io.anuke.arc.recorder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Encodes an animated GIF one frame at a time, writing every frame to the stream as soon as it is added, so memory use does not
+ * depend on the amount of frames. Every frame gets its own palette of up to 256 colors, chosen by median cut over a 15-bit color
+ * histogram, and is compressed with LZW.
+ * <p>
+ * Frames are RGBA8888 pixels as returned by glReadPixels. Not thread safe; the recorder uses it from a single encoder thread.
+ */
+public class GifEncoder{
+	private static final int maxBits = 12, maxCodes = 1 << maxBits, hashSize = 5003;
+
+	private final OutputStream out;
+	private final int width, height, delay;
+
+	// quantization
+	private final int[] histogram = new int[1 << 15];
+	private final int[] bins = new int[1 << 15];
+	private final int[] lookup = new int[1 << 15];
+	private final int[] boxStart = new int[256], boxEnd = new int[256];
+	private final byte[] palette = new byte[256 * 3];
+	private final byte[] indices;
+	private int paletteSize;
+
+	// lzw
+	private final int[] hashKeys = new int[hashSize], hashCodes = new int[hashSize];
+	private final byte[] block = new byte[256];
+	private int blockSize, bitBuffer, bitCount;
+
+	/**
+	 * Writes the header of the GIF.
+	 * @param delay the time between frames, in hundredths of a second
+	 * @param loop whether the GIF should loop forever
+	 */
+	public GifEncoder(OutputStream out, int width, int height, int delay, boolean loop) throws IOException{
+		if(width <= 0 || height <= 0 || width > 0xffff || height > 0xffff)
+			throw new IllegalArgumentException("Invalid GIF size: " + width + "x" + height);
+
+		this.out = out;
+		this.width = width;
+		this.height = height;
+		this.delay = delay;
+		this.indices = new byte[width * height];
+
+		writeString("GIF89a");
+		writeShort(width);
+		writeShort(height);
+		// no global color table
+		out.write(0);
+		out.write(0);
+		out.write(0);
+
+		if(loop){
+			out.write(0x21);
+			out.write(0xff);
+			out.write(11);
+			writeString("NETSCAPE2.0");
+			out.write(3);
+			out.write(1);
+			writeShort(0);
+			out.write(0);
+		}
+	}
+
+	/**
+	 * Quantizes, compresses and writes a frame.
+	 * @param pixels RGBA8888 pixels of a frame with the size of this GIF; alpha is ignored
+	 * @param flipY whether the rows are stored bottom to top, as returned by glReadPixels
+	 */
+	public void addFrame(byte[] pixels, boolean flipY) throws IOException{
+		if(pixels.length < width * height * 4) throw new IllegalArgumentException("Frame is too small: " + pixels.length);
+
+		quantize(pixels, flipY);
+
+		// graphic control extension
+		out.write(0x21);
+		out.write(0xf9);
+		out.write(4);
+		out.write(0);
+		writeShort(delay);
+		out.write(0);
+		out.write(0);
+
+		// image descriptor with a local color table of 256 entries
+		out.write(0x2c);
+		writeShort(0);
+		writeShort(0);
+		writeShort(width);
+		writeShort(height);
+		out.write(0x80 | 7);
+		out.write(palette, 0, palette.length);
+
+		compress();
+	}
+
+	/** Writes the trailer. Does not close the stream. */
+	public void finish() throws IOException{
+		out.write(0x3b);
+		out.flush();
+	}
+
+	private void quantize(byte[] pixels, boolean flipY){
+		int[] histogram = this.histogram, bins = this.bins, lookup = this.lookup;
+		Arrays.fill(histogram, 0);
+		int pixelCount = width * height;
+
+		for(int i = 0; i < pixelCount; i++){
+			histogram[color15(pixels, i * 4)]++;
+		}
+
+		int binCount = 0;
+		for(int i = 0; i < histogram.length; i++){
+			if(histogram[i] != 0) bins[binCount++] = i;
+		}
+
+		medianCut(binCount);
+
+		Arrays.fill(palette, (byte)0);
+		for(int box = 0; box < paletteSize; box++){
+			long r = 0, g = 0, b = 0, total = 0;
+			for(int i = boxStart[box]; i < boxEnd[box]; i++){
+				int bin = bins[i], count = histogram[bin];
+				r += (long)((bin >> 10) & 31) * count;
+				g += (long)((bin >> 5) & 31) * count;
+				b += (long)(bin & 31) * count;
+				total += count;
+				lookup[bin] = box;
+			}
+			palette[box * 3] = (byte)expand((int)(r / total));
+			palette[box * 3 + 1] = (byte)expand((int)(g / total));
+			palette[box * 3 + 2] = (byte)expand((int)(b / total));
+		}
+
+		byte[] indices = this.indices;
+		for(int y = 0; y < height; y++){
+			int row = (flipY ? height - 1 - y : y) * width * 4, dst = y * width;
+			for(int x = 0; x < width; x++){
+				indices[dst + x] = (byte)lookup[color15(pixels, row + x * 4)];
+			}
+		}
+	}
+
+	/** Splits the bins into at most 256 boxes, always splitting the box with the most pixels along its longest axis. */
+	private void medianCut(int binCount){
+		paletteSize = 1;
+		boxStart[0] = 0;
+		boxEnd[0] = binCount;
+
+		while(paletteSize < 256){
+			int best = -1, bestPixels = 0;
+			for(int box = 0; box < paletteSize; box++){
+				if(boxEnd[box] - boxStart[box] < 2) continue;
+				int pixels = 0;
+				for(int i = boxStart[box]; i < boxEnd[box]; i++) pixels += histogram[bins[i]];
+				if(pixels > bestPixels){
+					bestPixels = pixels;
+					best = box;
+				}
+			}
+			if(best == -1) return;
+
+			int start = boxStart[best], end = boxEnd[best];
+			int shift = longestAxis(start, end);
+			sortBy(start, end, shift);
+
+			// split at the median pixel, leaving at least one bin on each side
+			int half = bestPixels / 2, sum = 0, split = start + 1;
+			for(int i = start; i < end - 1; i++){
+				sum += histogram[bins[i]];
+				split = i + 1;
+				if(sum >= half) break;
+			}
+
+			boxEnd[best] = split;
+			boxStart[paletteSize] = split;
+			boxEnd[paletteSize] = end;
+			paletteSize++;
+		}
+	}
+
+	/** @return the bit shift of the color component with the largest range in the box */
+	private int longestAxis(int start, int end){
+		int minR = 31, maxR = 0, minG = 31, maxG = 0, minB = 31, maxB = 0;
+		for(int i = start; i < end; i++){
+			int bin = bins[i];
+			int r = (bin >> 10) & 31, g = (bin >> 5) & 31, b = bin & 31;
+			minR = Math.min(minR, r); maxR = Math.max(maxR, r);
+			minG = Math.min(minG, g); maxG = Math.max(maxG, g);
+			minB = Math.min(minB, b); maxB = Math.max(maxB, b);
+		}
+		int rangeR = maxR - minR, rangeG = maxG - minG, rangeB = maxB - minB;
+		if(rangeG >= rangeR && rangeG >= rangeB) return 5;
+		return rangeR >= rangeB ? 10 : 0;
+	}
+
+	/** Sorts bins by one component with a counting sort, since components only have 32 values. */
+	private void sortBy(int start, int end, int shift){
+		int[] counts = new int[33];
+		for(int i = start; i < end; i++){
+			counts[((bins[i] >> shift) & 31) + 1]++;
+		}
+		for(int i = 1; i < 33; i++){
+			counts[i] += counts[i - 1];
+		}
+		int[] sorted = new int[end - start];
+		for(int i = start; i < end; i++){
+			sorted[counts[(bins[i] >> shift) & 31]++] = bins[i];
+		}
+		System.arraycopy(sorted, 0, bins, start, sorted.length);
+	}
+
+	/** Compresses the indices with variable length LZW codes, in sub-blocks of at most 255 bytes. */
+	private void compress() throws IOException{
+		int initBits = 9, clearCode = 256, endCode = 257;
+		out.write(8);
+
+		int bits = initBits, maxCode = (1 << bits) - 1, nextCode = clearCode + 2;
+		Arrays.fill(hashKeys, -1);
+		blockSize = bitBuffer = bitCount = 0;
+
+		writeCode(clearCode, bits);
+
+		byte[] indices = this.indices;
+		int prefix = indices[0] & 0xff;
+		for(int i = 1; i < indices.length; i++){
+			int c = indices[i] & 0xff;
+			int key = (c << maxBits) + prefix;
+			int slot = (c << 4) ^ prefix;
+
+			// open addressing with a secondary probe, as in the classic compress implementation
+			if(hashKeys[slot] == key){
+				prefix = hashCodes[slot];
+				continue;
+			}
+			boolean found = false;
+			if(hashKeys[slot] >= 0){
+				int step = slot == 0 ? 1 : hashSize - slot;
+				do{
+					if((slot -= step) < 0) slot += hashSize;
+					if(hashKeys[slot] == key){
+						found = true;
+						break;
+					}
+				}while(hashKeys[slot] >= 0);
+			}
+			if(found){
+				prefix = hashCodes[slot];
+				continue;
+			}
+
+			writeCode(prefix, bits);
+			prefix = c;
+
+			if(nextCode < maxCodes){
+				hashCodes[slot] = nextCode++;
+				hashKeys[slot] = key;
+				// the decoder widens its codes once the next code doesn't fit anymore
+				if(nextCode > maxCode + 1 && bits < maxBits){
+					bits++;
+					maxCode = (1 << bits) - 1;
+				}
+			}else{
+				writeCode(clearCode, bits);
+				Arrays.fill(hashKeys, -1);
+				nextCode = clearCode + 2;
+				bits = initBits;
+				maxCode = (1 << bits) - 1;
+			}
+		}
+
+		writeCode(prefix, bits);
+		writeCode(endCode, bits);
+		if(bitCount > 0) writeByte(bitBuffer & 0xff);
+		flushBlock();
+		out.write(0);
+	}
+
+	private void writeCode(int code, int bits) throws IOException{
+		bitBuffer |= code << bitCount;
+		bitCount += bits;
+		while(bitCount >= 8){
+			writeByte(bitBuffer & 0xff);
+			bitBuffer >>>= 8;
+			bitCount -= 8;
+		}
+	}
+
+	private void writeByte(int value) throws IOException{
+		block[blockSize++] = (byte)value;
+		if(blockSize == 255) flushBlock();
+	}
+
+	private void flushBlock() throws IOException{
+		if(blockSize == 0) return;
+		out.write(blockSize);
+		out.write(block, 0, blockSize);
+		blockSize = 0;
+	}
+
+	private void writeShort(int value) throws IOException{
+		out.write(value & 0xff);
+		out.write((value >> 8) & 0xff);
+	}
+
+	private void writeString(String value) throws IOException{
+		for(int i = 0; i < value.length(); i++){
+			out.write(value.charAt(i));
+		}
+	}
+
+	private static int color15(byte[] pixels, int offset){
+		return ((pixels[offset] & 0xf8) << 7) | ((pixels[offset + 1] & 0xf8) << 2) | ((pixels[offset + 2] & 0xff) >> 3);
+	}
+
+	private static int expand(int value){
+		return (value << 3) | (value >> 2);
+	}
+}
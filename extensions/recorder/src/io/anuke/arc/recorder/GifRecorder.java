@@ -1,7 +1,6 @@
 package io.anuke.arc.recorder;
 
 import io.anuke.arc.Core;
-import io.anuke.arc.collection.Array;
 import io.anuke.arc.files.FileHandle;
 import io.anuke.arc.graphics.Color;
 import io.anuke.arc.graphics.g2d.Draw;
@@ -11,15 +10,22 @@ import io.anuke.arc.math.Matrix3;
 import io.anuke.arc.math.geom.Rectangle;
 import io.anuke.arc.util.*;
 
-import javax.imageio.stream.FileImageOutputStream;
-import javax.imageio.stream.ImageOutputStream;
-import java.awt.image.BufferedImage;
 import java.io.*;
-
-/** Records and saves GIFs. */
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records and saves GIFs. Frames are handed to a background thread through a bounded queue as they are captured, and encoded
+ * straight to the output file, so memory use does not grow with the length of a recording and saving only has to finish the
+ * frames that are still queued. If encoding falls behind by more than {@link #setMaxQueuedFrames(int)} frames, capturing
+ * waits for it. If encoding fails, recording stops and the error is logged and available from {@link #getError()}.
+ */
 public class GifRecorder{
 	private static final float defaultSize = 300;
-	private static BufferedImage outImage;
+	/** Queued after the last frame to finish the file. */
+	private static final byte[] endMarker = new byte[0];
+	/** Queued to stop encoding and delete the file. */
+	private static final byte[] cancelMarker = new byte[0];
 
 	private KeyCode
 			resizeKey = KeyCode.CONTROL_LEFT,
@@ -36,12 +42,19 @@ public class GifRecorder{
 	private boolean disableGUI;
 	private float speedMultiplier = 1f;
 	
-	private Array<byte[]> frames = new Array<>();
 	private float frametime;
 	private boolean recording, open;
-	private boolean saving;
+	private volatile boolean saving;
 	private float saveprogress;
 
+	private int maxQueuedFrames = 8;
+	private ArrayBlockingQueue<byte[]> queue;
+	private Thread encoder;
+	/** Set by the encoder thread if it fails, after which nothing takes frames from the queue. */
+	private volatile Throwable error;
+	private volatile int encodedFrames;
+	private int capturedFrames, recordWidth, recordHeight;
+
 	public GifRecorder() {
 		this(Core.files.local("gifexport"), Core.files.local(".gifimages"));
 	}
@@ -69,7 +82,7 @@ public class GifRecorder{
 					startRecording();
 				}else{
 					finishRecording();
-					writeGIF(exportdirectory);
+					writeGIF();
 				}
 			}
 		}
@@ -149,14 +162,27 @@ public class GifRecorder{
 			Draw.color(Color.white);
 		}
 
+		if(saving){
+			saveprogress = capturedFrames == 0 ? 1f : (float)encodedFrames / capturedFrames;
+		}
+
 		if(recording){
 			giftime += delta;
 			frametime += delta*61f*speedMultiplier;
 			if(frametime >= (60 / recordfps)){
+				//the size is fixed when recording starts, every frame of a GIF has the same size
 				byte[] pix = ScreenUtils.getFrameBufferPixels((int) (gifx + offsetx) + 1 + Core.graphics.getWidth() / 2, 
 						(int) (gify + offsety) + 1 + Core.graphics.getHeight() / 2, 
-						(int) (gifwidth) - 2, (int) (gifheight) - 2, false);
-				frames.add(pix);
+						recordWidth, recordHeight, false);
+				try{
+					if(enqueue(pix)){
+						capturedFrames++;
+					}else{
+						encodingFailed();
+					}
+				}catch(InterruptedException e){
+					Thread.currentThread().interrupt();
+				}
 				frametime = 0;
 			}
 		}
@@ -196,11 +222,31 @@ public class GifRecorder{
 		return recording;
 	}
 
+	/** Starts recording to a new file in the export directory. Any unsaved recording is discarded. */
 	public void startRecording(){
+		if(saving) return;
 		clearFrames();
+
+		recordWidth = Math.max((int) (gifwidth) - 2, 1);
+		recordHeight = Math.max((int) (gifheight) - 2, 1);
+		capturedFrames = 0;
+		encodedFrames = 0;
+		error = null;
+		queue = new ArrayBlockingQueue<>(maxQueuedFrames);
+
+		File file = new File(exportdirectory.file().getAbsolutePath() + "/recording" + (int) (System.currentTimeMillis() / 1000) + ".gif");
+		ArrayBlockingQueue<byte[]> frames = queue;
+		encoder = new Thread(() -> encode(frames, file, recordWidth, recordHeight), "GifRecorder");
+		encoder.setDaemon(true);
+		encoder.start();
 		recording = true;
 	}
 
+	/** @return the error that stopped the last recording, or null if it did not fail */
+	public Throwable getError(){
+		return error;
+	}
+
 	public float getTime(){
 		return giftime;
 	}
@@ -210,12 +256,25 @@ public class GifRecorder{
 		giftime = 0;
 	}
 
+	/** Stops recording and discards the frames recorded so far, unless they are being saved. */
 	public void clearFrames(){
-		frames.clear();
+		if(queue != null && !saving){
+			queue.clear();
+			queue.offer(cancelMarker);
+			queue = null;
+		}
 		giftime = 0;
 		recording = false;
 	}
 
+	/**
+	 * Sets how many captured frames may wait for the encoder. Higher values smooth out slow frames at the cost of memory. Applies
+	 * to the next recording.
+	 */
+	public void setMaxQueuedFrames(int frames){
+		maxQueuedFrames = Math.max(frames, 1);
+	}
+
 	public void setExportDirectory(FileHandle handle){
 		exportdirectory = handle;
 	}
@@ -248,66 +307,73 @@ public class GifRecorder{
 		setBounds(rect.x, rect.y, rect.width, rect.height);
 	}
 
-	private void writeGIF(final FileHandle writedirectory){
-		if(saving) return;
+	/** Finishes the file of the current recording in the background. */
+	private void writeGIF(){
+		if(saving || queue == null) return;
 		saving = true;
-
-		int width = (int) (gifwidth) - 2, height = (int) (gifheight) - 2;
 		saveprogress = 0f;
 
-		new Thread(() -> {
-			compileGIF(frames, width, height, writedirectory);
-			saving = false;
-        }).start();
-	}
-
-	private File compileGIF(Array<byte[]> pixmaps, int width, int height, FileHandle directory){
-		if(pixmaps.size == 0){
-			throw new RuntimeException("No input files!");
-		}
-
 		try{
-			String time = "" + (int) (System.currentTimeMillis() / 1000);
-			new File(directory.file().getAbsolutePath()).mkdir();
-			BufferedImage firstImage = toImage(pixmaps.first(), width, height);
-			File file = new File(directory.file().getAbsolutePath() + "/recording" + time + ".gif");
-			ImageOutputStream output = new FileImageOutputStream(file);
-			GifSequenceWriter writer = new GifSequenceWriter(output, firstImage.getType(), (int) (1f / recordfps * 1000f), true);
-
-			writer.writeToSequence(firstImage);
-
-			for(int i = 1; i < pixmaps.size; i++){
-				BufferedImage after = toImage(pixmaps.get(i), width, height);
-				saveprogress += (1f / frames.size);
-				writer.writeToSequence(after);
+			if(!enqueue(endMarker)){
+				encodingFailed();
+				return;
 			}
-			writer.close();
-			output.close();
-			return file;
-		}catch(Exception e){
-			e.printStackTrace();
-			return null;
+		}catch(InterruptedException e){
+			Thread.currentThread().interrupt();
 		}
+		queue = null;
 	}
 
-	private BufferedImage toImage(byte[] frames, int width, int height){
-		if(outImage == null || outImage.getWidth() != width || outImage.getHeight() != height){
-			outImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+	/**
+	 * Queues a frame or marker for the encoder, waiting while the queue is full.
+	 * @return false if the encoder has stopped, in which case nothing would ever take the frame
+	 */
+	private boolean enqueue(byte[] frame) throws InterruptedException{
+		while(!queue.offer(frame, 100, TimeUnit.MILLISECONDS)){
+			if(error != null || !encoder.isAlive()) return false;
 		}
-		BufferedImage image = outImage;
-
-		for(int i = 0; i < width*height*4; i += 4){
-			int r = frames[i];
-			int g = frames[i + 1];
-			int b = frames[i + 2];
-			if(r < 0) r += 256;
-			if(g < 0) g += 256;
-			if(b < 0) b += 256;
-
-			int result = Color.argb8888(1f, r / 255f, g / 255f, b / 255f);
-			int index = i / 4;
-			image.setRGB(index % width, height - 1 - index / width, result);
+		return error == null;
+	}
+
+	/** Stops recording after the encoder thread failed, and reports the error. */
+	private void encodingFailed(){
+		if(error == null) error = new IOException("GIF encoder stopped unexpectedly");
+		Log.err("Failed to record GIF", error);
+		recording = false;
+		saving = false;
+		giftime = 0;
+		queue = null;
+	}
+
+	/** Runs on the encoder thread until the end marker is taken from the queue. */
+	private void encode(ArrayBlockingQueue<byte[]> frames, File file, int width, int height){
+		boolean written = false, cancelled = false;
+		try{
+			file.getParentFile().mkdirs();
+			try(OutputStream output = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)){
+				GifEncoder encoder = new GifEncoder(output, width, height, Math.round(100f / recordfps), true);
+				int encoded = 0;
+
+				byte[] frame;
+				while((frame = frames.take()) != endMarker){
+					if(frame == cancelMarker){
+						cancelled = true;
+						break;
+					}
+					encoder.addFrame(frame, true);
+					encodedFrames = ++encoded;
+				}
+				if(!cancelled){
+					encoder.finish();
+					written = encoded > 0;
+				}
+			}
+		}catch(Throwable e){
+			error = e;
+		}finally{
+			if(!written) file.delete();
+			//a discarded recording was never saving
+			if(!cancelled) saving = false;
 		}
-		return image;
 	}
 }